@@ -0,0 +1,257 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.EnchantInstance;
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * Inventory storage for very large inventories. Each drop is packed into primitive columns:
+ * template index (short), cooldown and core value (float), AP cost (int), and up to
+ * MAX_ENCHANTS (enchant index, rolled value) pairs in fixed-stride short/float arrays.
+ * That is about 45 bytes per drop instead of several hundred for the record graph.
+ *
+ * Templates and base enchants are shared objects, so each distinct one is stored once in a
+ * lookup table and referenced by index. PlayerSpell views are built on demand; a view handed
+ * out by get() is kept with its row so that equipped spells keep their identity. The object
+ * passed to add() is not kept, so identity lookups only recognise views obtained from get().
+ */
+public class ColumnarInventoryStorage implements InventoryStorage {
+
+    public static final int MAX_ENCHANTS = 4;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<BaseSpellTemplate> templates = new ArrayList<>();
+    private final Map<BaseSpellTemplate, Integer> templateIndices = new IdentityHashMap<>();
+    private final List<BaseEnchant> enchants = new ArrayList<>();
+    private final Map<BaseEnchant, Integer> enchantIndices = new IdentityHashMap<>();
+
+    private int size;
+    private short[] templateColumn;
+    private float[] cooldownColumn;
+    private float[] coreValueColumn;
+    private int[] apCostColumn;
+    private byte[] enchantCountColumn;
+    private short[] enchantIndexColumn; // MAX_ENCHANTS entries per row
+    private float[] enchantValueColumn; // MAX_ENCHANTS entries per row
+    private PlayerSpell[] viewColumn;   // Views handed out by get(), null for the rest
+
+    public ColumnarInventoryStorage() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PlayerSpell get(int index) {
+        checkIndex(index);
+        if (viewColumn[index] == null) {
+            viewColumn[index] = materialize(index);
+        }
+        return viewColumn[index];
+    }
+
+    @Override
+    public PlayerSpell peek(int index) {
+        checkIndex(index);
+        return viewColumn[index] != null ? viewColumn[index] : materialize(index);
+    }
+
+    @Override
+    public boolean add(PlayerSpell spell) {
+        if (spell.appliedEnchants().size() > MAX_ENCHANTS) {
+            System.err.println("ColumnarInventoryStorage Error: " + spell.getName() + " has more than "
+                               + MAX_ENCHANTS + " enchants and cannot be stored.");
+            return false;
+        }
+        int templateIndex = indexOf(templates, templateIndices, spell.baseTemplate());
+        if (templateIndex > Short.MAX_VALUE) {
+            System.err.println("ColumnarInventoryStorage Error: Too many distinct spell templates.");
+            return false;
+        }
+        if (size == templateColumn.length) {
+            allocate(size * 2);
+        }
+        int row = size;
+        templateColumn[row] = (short) templateIndex;
+        cooldownColumn[row] = (float) spell.actualCooldownSeconds();
+        coreValueColumn[row] = (float) spell.effectiveCoreEffectValue();
+        apCostColumn[row] = spell.finalAPCost();
+        enchantCountColumn[row] = (byte) spell.appliedEnchants().size();
+        for (int i = 0; i < spell.appliedEnchants().size(); i++) {
+            EnchantInstance enchant = spell.appliedEnchants().get(i);
+            enchantIndexColumn[row * MAX_ENCHANTS + i] = (short) indexOf(enchants, enchantIndices, enchant.baseEnchant());
+            enchantValueColumn[row * MAX_ENCHANTS + i] = (float) enchant.finalRolledValue();
+        }
+        viewColumn[row] = null; // Not kept: holding on to every drop's record is what this storage avoids
+        size++;
+        return true;
+    }
+
+    @Override
+    public PlayerSpell remove(int index) {
+        PlayerSpell removed = peek(index);
+        int tail = size - index - 1;
+        System.arraycopy(templateColumn, index + 1, templateColumn, index, tail);
+        System.arraycopy(cooldownColumn, index + 1, cooldownColumn, index, tail);
+        System.arraycopy(coreValueColumn, index + 1, coreValueColumn, index, tail);
+        System.arraycopy(apCostColumn, index + 1, apCostColumn, index, tail);
+        System.arraycopy(enchantCountColumn, index + 1, enchantCountColumn, index, tail);
+        System.arraycopy(enchantIndexColumn, (index + 1) * MAX_ENCHANTS, enchantIndexColumn, index * MAX_ENCHANTS, tail * MAX_ENCHANTS);
+        System.arraycopy(enchantValueColumn, (index + 1) * MAX_ENCHANTS, enchantValueColumn, index * MAX_ENCHANTS, tail * MAX_ENCHANTS);
+        System.arraycopy(viewColumn, index + 1, viewColumn, index, tail);
+        size--;
+        viewColumn[size] = null;
+        return removed;
+    }
+
+    @Override
+    public int removeIf(Predicate<PlayerSpell> condition, Consumer<PlayerSpell> onRemoved) {
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            PlayerSpell spell = peek(row);
+            if (condition.test(spell)) {
+                onRemoved.accept(spell);
+                continue;
+            }
+            if (kept != row) {
+                moveRow(row, kept);
+            }
+            kept++;
+        }
+        int removed = size - kept;
+        Arrays.fill(viewColumn, kept, size, null);
+        size = kept;
+        return removed;
+    }
+
+    @Override
+    public int indexOf(PlayerSpell spell) {
+        for (int i = 0; i < size; i++) {
+            if (viewColumn[i] == spell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void sort(Comparator<PlayerSpell> order) {
+        if (size < 2) {
+            return;
+        }
+        // Views are only needed while sorting; the columns are then permuted into the new order
+        PlayerSpell[] views = new PlayerSpell[size];
+        Integer[] permutation = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            views[i] = peek(i);
+            permutation[i] = i;
+        }
+        Arrays.sort(permutation, (a, b) -> order.compare(views[a], views[b])); // Stable merge sort
+
+        short[] templates = new short[templateColumn.length];
+        float[] cooldowns = new float[cooldownColumn.length];
+        float[] coreValues = new float[coreValueColumn.length];
+        int[] apCosts = new int[apCostColumn.length];
+        byte[] enchantCounts = new byte[enchantCountColumn.length];
+        short[] enchantIndexes = new short[enchantIndexColumn.length];
+        float[] enchantValues = new float[enchantValueColumn.length];
+        PlayerSpell[] pinnedViews = new PlayerSpell[viewColumn.length];
+        for (int to = 0; to < size; to++) {
+            int from = permutation[to];
+            templates[to] = templateColumn[from];
+            cooldowns[to] = cooldownColumn[from];
+            coreValues[to] = coreValueColumn[from];
+            apCosts[to] = apCostColumn[from];
+            enchantCounts[to] = enchantCountColumn[from];
+            System.arraycopy(enchantIndexColumn, from * MAX_ENCHANTS, enchantIndexes, to * MAX_ENCHANTS, MAX_ENCHANTS);
+            System.arraycopy(enchantValueColumn, from * MAX_ENCHANTS, enchantValues, to * MAX_ENCHANTS, MAX_ENCHANTS);
+            pinnedViews[to] = viewColumn[from];
+        }
+        templateColumn = templates;
+        cooldownColumn = cooldowns;
+        coreValueColumn = coreValues;
+        apCostColumn = apCosts;
+        enchantCountColumn = enchantCounts;
+        enchantIndexColumn = enchantIndexes;
+        enchantValueColumn = enchantValues;
+        viewColumn = pinnedViews;
+    }
+
+    @Override
+    public boolean holdsSpellObjects() {
+        return false;
+    }
+
+    private void moveRow(int from, int to) {
+        templateColumn[to] = templateColumn[from];
+        cooldownColumn[to] = cooldownColumn[from];
+        coreValueColumn[to] = coreValueColumn[from];
+        apCostColumn[to] = apCostColumn[from];
+        enchantCountColumn[to] = enchantCountColumn[from];
+        System.arraycopy(enchantIndexColumn, from * MAX_ENCHANTS, enchantIndexColumn, to * MAX_ENCHANTS, MAX_ENCHANTS);
+        System.arraycopy(enchantValueColumn, from * MAX_ENCHANTS, enchantValueColumn, to * MAX_ENCHANTS, MAX_ENCHANTS);
+        viewColumn[to] = viewColumn[from];
+    }
+
+    private PlayerSpell materialize(int row) {
+        int enchantCount = enchantCountColumn[row];
+        List<EnchantInstance> appliedEnchants = new ArrayList<>(enchantCount);
+        for (int i = 0; i < enchantCount; i++) {
+            appliedEnchants.add(new EnchantInstance(enchants.get(enchantIndexColumn[row * MAX_ENCHANTS + i]),
+                                                    widen(enchantValueColumn[row * MAX_ENCHANTS + i])));
+        }
+        return new PlayerSpell(templates.get(templateColumn[row]), widen(cooldownColumn[row]),
+                               widen(coreValueColumn[row]), appliedEnchants, apCostColumn[row]);
+    }
+
+    // Rolled values are short decimals (e.g. 2.3), so the shortest decimal that round-trips the
+    // float is the value that was stored, not the float's nearest double (2.299999952...)
+    private static double widen(float value) {
+        return Double.parseDouble(Float.toString(value));
+    }
+
+    private static <T> int indexOf(List<T> table, Map<T, Integer> indices, T value) {
+        Integer index = indices.get(value);
+        if (index == null) {
+            index = table.size();
+            table.add(value);
+            indices.put(value, index);
+        }
+        return index;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private void allocate(int capacity) {
+        templateColumn = templateColumn == null ? new short[capacity] : Arrays.copyOf(templateColumn, capacity);
+        cooldownColumn = cooldownColumn == null ? new float[capacity] : Arrays.copyOf(cooldownColumn, capacity);
+        coreValueColumn = coreValueColumn == null ? new float[capacity] : Arrays.copyOf(coreValueColumn, capacity);
+        apCostColumn = apCostColumn == null ? new int[capacity] : Arrays.copyOf(apCostColumn, capacity);
+        enchantCountColumn = enchantCountColumn == null ? new byte[capacity] : Arrays.copyOf(enchantCountColumn, capacity);
+        enchantIndexColumn = enchantIndexColumn == null ? new short[capacity * MAX_ENCHANTS] : Arrays.copyOf(enchantIndexColumn, capacity * MAX_ENCHANTS);
+        enchantValueColumn = enchantValueColumn == null ? new float[capacity * MAX_ENCHANTS] : Arrays.copyOf(enchantValueColumn, capacity * MAX_ENCHANTS);
+        viewColumn = viewColumn == null ? new PlayerSpell[capacity] : Arrays.copyOf(viewColumn, capacity);
+    }
+}
@@ -0,0 +1,359 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import idleSorcererV2.data.OnHitEffect;
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.OnHitStat;
+
+/**
+ * Resolves a single encounter between the player and an enemy.
+ * The engine has no notion of wall-clock time: every call to step() advances the
+ * fight by exactly the delta it is given, so the same engine drives both the
+ * interactive game loop and headless simulations.
+ * For bulk simulation, runEventDriven() skips the idle time between casts entirely
+ * by jumping from one scheduled cast (or periodic tick) to the next.
+ */
+public class CombatEngine {
+
+    public enum Outcome {
+        ONGOING,
+        PLAYER_WON,
+        PLAYER_LOST
+    }
+
+    private final Player player;
+    private final Enemy enemy;
+    private final CombatLog combatLog;
+
+    private double timeAccumulatorForSecondTick;
+    private double elapsedSeconds;
+    private Outcome outcome;
+    private final List<ActiveOnHitEffect> activeOnHitEffects; // Only timed or non-stacking effects
+
+    // Event-driven mode: every active spell, enemy spell and the 1-second periodic tick,
+    // keyed by the simulated time it next fires. Built lazily on the first runEventDriven() call.
+    private PriorityQueue<ScheduledAction> schedule;
+
+    private static final double PERIODIC_INTERVAL_SECONDS = 1.0;
+    static final double MIN_CAST_INTERVAL_SECONDS = 0.1; // A 0s cooldown still casts at most once per interactive tick
+
+    private enum ActionKind {
+        // Declaration order is the tie-break order for actions due at the same time,
+        // matching step(): player casts, then enemy casts, then periodic effects.
+        PLAYER_SPELL,
+        ENEMY_SPELL,
+        PERIODIC
+    }
+
+    // An applied on-hit effect that will be reverted or may be refreshed later in the encounter
+    private static final class ActiveOnHitEffect {
+        final OnHitEffect effect;
+        final Combatant<?> target;
+        double expiresAtSeconds; // POSITIVE_INFINITY for non-stacking effects without a duration
+
+        ActiveOnHitEffect(OnHitEffect effect, Combatant<?> target, double expiresAtSeconds) {
+            this.effect = effect;
+            this.target = target;
+            this.expiresAtSeconds = expiresAtSeconds;
+        }
+    }
+
+    private static final class ScheduledAction implements Comparable<ScheduledAction> {
+        final ActionKind kind;
+        final int slot; // Active slot or enemy spell index; orders same-time actions of one kind
+        final PlayerSpell playerSpell;
+        final EnemySpellData enemySpell;
+        double nextTimeSeconds;
+
+        ScheduledAction(ActionKind kind, int slot, PlayerSpell playerSpell, EnemySpellData enemySpell, double nextTimeSeconds) {
+            this.kind = kind;
+            this.slot = slot;
+            this.playerSpell = playerSpell;
+            this.enemySpell = enemySpell;
+            this.nextTimeSeconds = nextTimeSeconds;
+        }
+
+        @Override
+        public int compareTo(ScheduledAction other) {
+            int byTime = Double.compare(nextTimeSeconds, other.nextTimeSeconds);
+            if (byTime != 0) {
+                return byTime;
+            }
+            int byKind = kind.compareTo(other.kind);
+            return byKind != 0 ? byKind : Integer.compare(slot, other.slot);
+        }
+    }
+
+    /**
+     * Creates an engine for one encounter. Both combatants should already have had
+     * resetCombatState() called.
+     * @param player The player fighting the encounter.
+     * @param enemy The enemy instance for this encounter.
+     * @param combatLog Where cast messages are reported (CombatLog.SILENT for headless runs).
+     */
+    public CombatEngine(Player player, Enemy enemy, CombatLog combatLog) {
+        this.player = player;
+        this.enemy = enemy;
+        this.combatLog = combatLog;
+        this.combatLog.setTime(0.0);
+        this.timeAccumulatorForSecondTick = 0.0;
+        this.elapsedSeconds = 0.0;
+        this.outcome = Outcome.ONGOING;
+        this.activeOnHitEffects = new ArrayList<>();
+    }
+
+    /**
+     * Advances the encounter by the given amount of simulated time.
+     * @param deltaTimeSeconds Simulated seconds to advance.
+     * @return The outcome of the encounter after this step.
+     */
+    public Outcome step(double deltaTimeSeconds) {
+        if (outcome != Outcome.ONGOING) {
+            return outcome;
+        }
+        elapsedSeconds += deltaTimeSeconds;
+        combatLog.setTime(elapsedSeconds);
+        expireOnHitEffects();
+        outcome = processCombatTick(deltaTimeSeconds);
+        return outcome;
+    }
+
+    /**
+     * Resolves the encounter by jumping directly from one scheduled action to the next,
+     * instead of decrementing every cooldown on a fixed step. The cost of a fight is
+     * proportional to the number of casts rather than its duration.
+     * Should not be mixed with step() on the same engine.
+     * @param maxSeconds Simulated time limit; actions scheduled after it are not processed.
+     * @return The outcome of the encounter, ONGOING if the time limit was reached first.
+     */
+    public Outcome runEventDriven(double maxSeconds) {
+        if (schedule == null) {
+            schedule = buildSchedule();
+        }
+        while (outcome == Outcome.ONGOING && !schedule.isEmpty()) {
+            ScheduledAction action = schedule.peek();
+            if (action.nextTimeSeconds > maxSeconds) {
+                break;
+            }
+            schedule.poll();
+            elapsedSeconds = action.nextTimeSeconds;
+            combatLog.setTime(elapsedSeconds);
+            expireOnHitEffects();
+            outcome = processScheduledAction(action);
+            schedule.add(action); // Rescheduled in place by processScheduledAction
+        }
+        return outcome;
+    }
+
+    private PriorityQueue<ScheduledAction> buildSchedule() {
+        PriorityQueue<ScheduledAction> queue = new PriorityQueue<>();
+        PlayerSpell[] activeSpells = player.getActiveSpells();
+        for (int i = 0; i < activeSpells.length; i++) {
+            if (activeSpells[i] != null) {
+                // Spells start on full cooldown, as in resetCombatState()
+                queue.add(new ScheduledAction(ActionKind.PLAYER_SPELL, i, activeSpells[i], null,
+                                              castInterval(activeSpells[i].actualCooldownSeconds())));
+            }
+        }
+        List<EnemySpellData> enemySpells = enemy.getDefinedSpells();
+        for (int i = 0; i < enemySpells.size(); i++) {
+            if (enemySpells.get(i) != null) {
+                queue.add(new ScheduledAction(ActionKind.ENEMY_SPELL, i, null, enemySpells.get(i),
+                                              castInterval(enemySpells.get(i).getCooldownSeconds())));
+            }
+        }
+        queue.add(new ScheduledAction(ActionKind.PERIODIC, 0, null, null, PERIODIC_INTERVAL_SECONDS));
+        return queue;
+    }
+
+    private Outcome processScheduledAction(ScheduledAction action) {
+        switch (action.kind) {
+            case PLAYER_SPELL:
+                combatLog.cast(player.getName(), action.playerSpell.getName());
+                applyPlayerSpellEffects(player.getCastPlan(action.slot), enemy);
+                action.nextTimeSeconds += castInterval(action.playerSpell.actualCooldownSeconds());
+                break;
+            case ENEMY_SPELL:
+                combatLog.cast(enemy.getName(), action.enemySpell.getName());
+                applyEnemySpellEffects(action.enemySpell, player);
+                action.nextTimeSeconds += castInterval(action.enemySpell.getCooldownSeconds());
+                break;
+            case PERIODIC:
+                player.applyPeriodicEffects();
+                if (player.isAlive()) {
+                    enemy.applyPeriodicEffects();
+                }
+                action.nextTimeSeconds += PERIODIC_INTERVAL_SECONDS;
+                break;
+        }
+        if (!player.isAlive()) {
+            return Outcome.PLAYER_LOST;
+        }
+        if (!enemy.isAlive()) {
+            return Outcome.PLAYER_WON;
+        }
+        return Outcome.ONGOING;
+    }
+
+    private static double castInterval(double cooldownSeconds) {
+        return Math.max(MIN_CAST_INTERVAL_SECONDS, cooldownSeconds);
+    }
+
+    public Outcome getOutcome() { return outcome; }
+    public double getElapsedSeconds() { return elapsedSeconds; }
+    public Player getPlayer() { return player; }
+    public Enemy getEnemy() { return enemy; }
+
+    private Outcome processCombatTick(double deltaTimeSeconds) {
+        if (!player.isAlive()) {
+            return Outcome.PLAYER_LOST;
+        }
+        if (!enemy.isAlive()) {
+            return Outcome.PLAYER_WON;
+        }
+
+        player.updateCooldowns(deltaTimeSeconds);
+        enemy.updateCooldowns(deltaTimeSeconds);
+
+        List<PlayerSpell> playerReadySpells = player.getReadySpells();
+        for (PlayerSpell spell : playerReadySpells) {
+            if (!enemy.isAlive()) {
+                break;
+            }
+            combatLog.cast(player.getName(), spell.getName());
+            applyPlayerSpellEffects(player.getCastPlan(spell), enemy);
+            player.triggerCooldownForSpell(spell);
+            if (!enemy.isAlive()) {
+                return Outcome.PLAYER_WON;
+            }
+        }
+
+        List<EnemySpellData> enemyReadySpells = enemy.getReadySpells();
+        for (EnemySpellData spell : enemyReadySpells) {
+            if (!player.isAlive()) {
+                break;
+            }
+            combatLog.cast(enemy.getName(), spell.getName());
+            applyEnemySpellEffects(spell, player);
+            enemy.triggerCooldownForSpell(spell);
+            if (!player.isAlive()) {
+                return Outcome.PLAYER_LOST;
+            }
+        }
+
+        timeAccumulatorForSecondTick += deltaTimeSeconds;
+        if (timeAccumulatorForSecondTick >= 1.0) {
+            if (player.isAlive()) {
+                player.applyPeriodicEffects();
+            }
+            if (!player.isAlive()) {
+                return Outcome.PLAYER_LOST;
+            }
+            if (enemy.isAlive()) {
+                enemy.applyPeriodicEffects();
+            }
+            if (!enemy.isAlive()) {
+                return Outcome.PLAYER_WON;
+            }
+            timeAccumulatorForSecondTick -= 1.0;
+        }
+        return Outcome.ONGOING;
+    }
+
+    private void applyPlayerSpellEffects(SpellCastPlan plan, Combatant<?> target) {
+        if (plan == null) {
+            return;
+        }
+        int attackerAccuracy = plan.alwaysHits() ? 99999 : player.getEffectiveAccuracy() + plan.accuracyBonus();
+        int potency = plan.potency();
+
+        switch (plan.effectType()) {
+            case DAMAGE:
+                int finalDamageToApply = potency;
+                if (plan.dealsDoubleDamageToShields() && target.getCurrentShield() > 0) {
+                    combatLog.shieldBreaker(plan.getName());
+                    finalDamageToApply *= 2;
+                }
+                combatLog.damageCalculated(plan.getName(), finalDamageToApply);
+                target.takeDamage(finalDamageToApply, plan.damageType(), plan.ignoresArmor(), plan.ignoresShield(), attackerAccuracy);
+                if (target.isAlive() && plan.onHitEffect() != null) {
+                    applyInherentOnHitEffect(plan.onHitEffect(), target);
+                }
+                break;
+            case HEALING:
+                player.applyHealing(potency);
+                break;
+            case SHIELD_APPLICATION:
+                player.applyShield(potency);
+                break;
+            case APPLY_DOT:
+                if (target instanceof Enemy) {
+                    ((Enemy) target).applyPoisonDamagePerSecond(potency);
+                    combatLog.dotApplied(target.getName(), plan.dotType(), potency);
+                }
+                break;
+            default:
+                if (combatLog.isEnabled(CombatEventType.NOTE)) {
+                    combatLog.note("Player spell effect type " + plan.effectType() + " not fully implemented.");
+                }
+                break;
+        }
+    }
+
+    private void applyInherentOnHitEffect(OnHitEffect effect, Combatant<?> target) {
+        if (!effect.stacking()) {
+            for (ActiveOnHitEffect active : activeOnHitEffects) {
+                if (active.target == target && active.effect.equals(effect)) {
+                    active.expiresAtSeconds = expiryTime(effect);
+                    combatLog.onHitRefreshed(target.getName(), effect);
+                    return;
+                }
+            }
+        }
+        combatLog.onHitApplied(target.getName(), effect);
+        modifyOnHitStat(target, effect.targetStat(), -effect.amount());
+        // Permanent stacking effects never need to be looked up again, so they are not tracked
+        if (!effect.stacking() || effect.durationSeconds() > 0) {
+            activeOnHitEffects.add(new ActiveOnHitEffect(effect, target, expiryTime(effect)));
+        }
+    }
+
+    private double expiryTime(OnHitEffect effect) {
+        return effect.durationSeconds() > 0 ? elapsedSeconds + effect.durationSeconds() : Double.POSITIVE_INFINITY;
+    }
+
+    private void expireOnHitEffects() {
+        if (activeOnHitEffects.isEmpty()) {
+            return;
+        }
+        activeOnHitEffects.removeIf(active -> {
+            if (active.expiresAtSeconds > elapsedSeconds) {
+                return false;
+            }
+            modifyOnHitStat(active.target, active.effect.targetStat(), active.effect.amount());
+            combatLog.onHitExpired(active.target.getName(), active.effect);
+            return true;
+        });
+    }
+
+    private static void modifyOnHitStat(Combatant<?> target, OnHitStat stat, int amountDelta) {
+        switch (stat) {
+            case ARMOR: target.modifyTemporaryArmor(amountDelta); break;
+            case ACCURACY: target.modifyTemporaryAccuracy(amountDelta); break;
+            case DODGE: target.modifyTemporaryDodge(amountDelta); break;
+            case REGEN: target.modifyTemporaryRegenPerSecond(amountDelta); break;
+        }
+    }
+
+    private void applyEnemySpellEffects(EnemySpellData spell, Combatant<?> target) {
+        target.takeDamage(spell.getDamage(), null, spell.isArmorPiercing(), spell.isShieldPiercing(), enemy.getEffectiveAccuracy());
+    }
+}
@@ -0,0 +1,90 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import idleSorcererV2.data.OnHitEffect;
+
+/**
+ * One slot of the combat log's ring buffer. Slots are preallocated and overwritten in place,
+ * so recording an event only copies references and ints; the message text is built later by
+ * format() on the log's consumer thread.
+ */
+public final class CombatEvent {
+    private CombatEventType type;
+    private double timeSeconds; // Encounter time the event happened at
+    private String actor;    // Combatant the event happened to (or the caster for CAST)
+    private Object subject;  // Spell name, DamageType, stat name, dot type or OnHitEffect; can be null
+    private int amount;
+    private int value;       // Resulting HP, shield, stat value or poison DPS
+    private int maxValue;    // Max HP where relevant
+    private int shield;
+
+    void set(CombatEventType type, double timeSeconds, String actor, Object subject, int amount, int value, int maxValue, int shield) {
+        this.type = type;
+        this.timeSeconds = timeSeconds;
+        this.actor = actor;
+        this.subject = subject;
+        this.amount = amount;
+        this.value = value;
+        this.maxValue = maxValue;
+        this.shield = shield;
+    }
+
+    public CombatEventType getType() { return type; }
+    public double getTimeSeconds() { return timeSeconds; }
+    public String getActor() { return actor; }
+    public Object getSubject() { return subject; }
+    public int getAmount() { return amount; }
+    public int getValue() { return value; }
+    public int getMaxValue() { return maxValue; }
+    public int getShield() { return shield; }
+
+    /**
+     * @return The event as the line shown in the combat log.
+     */
+    public String format() {
+        switch (type) {
+            case CAST:
+                return actor + " casts " + subject + "!";
+            case DODGE:
+                return actor + " dodged the attack!";
+            case DAMAGE_TAKEN:
+                return actor + " took " + amount + " " + (subject != null ? subject + " " : "")
+                        + "damage. HP: " + value + "/" + maxValue + ", Shield: " + shield;
+            case DEGEN_DAMAGE_TAKEN:
+                return actor + " took " + amount + " poison/degen damage. HP: " + value + "/" + maxValue;
+            case HEALED:
+                return actor + " healed for " + amount + ". HP: " + value + "/" + maxValue;
+            case SHIELD_GAINED:
+                return actor + " gained " + amount + " shield. Current Shield: " + shield;
+            case DAMAGE_CALCULATED:
+                return "  Calculated damage for " + subject + ": " + amount;
+            case SHIELD_BREAKER:
+                return "(" + subject + " deals double damage vs shields!)";
+            case DOT_APPLIED:
+                return "Applied " + amount + " " + subject + " DPS to " + actor;
+            case POISON_CHANGED:
+                return actor + " now taking " + value + " poison DPS.";
+            case STAT_CHANGED:
+                return actor + "'s " + subject + " changed by " + amount + ". New " + subject + ": " + value;
+            case ON_HIT_APPLIED:
+                return "Applying on-hit effect: " + describeSubject() + " to " + actor;
+            case ON_HIT_REFRESHED:
+                return "On-hit effect refreshed: " + describeSubject() + " on " + actor;
+            case ON_HIT_EXPIRED:
+                return "On-hit effect expired: " + describeSubject() + " on " + actor;
+            case STATE_RESET:
+                return actor + " combat state reset. HP: " + value + "/" + maxValue;
+            case NOTE:
+            default:
+                return String.valueOf(subject);
+        }
+    }
+
+    private String describeSubject() {
+        return subject instanceof OnHitEffect ? ((OnHitEffect) subject).describe() : String.valueOf(subject);
+    }
+}
@@ -0,0 +1,38 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+/**
+ * Kinds of combat events and the lowest log level at which each one is reported.
+ */
+public enum CombatEventType {
+    CAST(CombatLog.Level.SUMMARY),
+    DODGE(CombatLog.Level.SUMMARY),
+    DAMAGE_TAKEN(CombatLog.Level.SUMMARY),
+    DEGEN_DAMAGE_TAKEN(CombatLog.Level.SUMMARY),
+    HEALED(CombatLog.Level.SUMMARY),
+    SHIELD_GAINED(CombatLog.Level.SUMMARY),
+    DAMAGE_CALCULATED(CombatLog.Level.DETAILED),
+    SHIELD_BREAKER(CombatLog.Level.DETAILED),
+    DOT_APPLIED(CombatLog.Level.DETAILED),
+    POISON_CHANGED(CombatLog.Level.DETAILED),
+    STAT_CHANGED(CombatLog.Level.DETAILED),
+    ON_HIT_APPLIED(CombatLog.Level.DETAILED),
+    ON_HIT_REFRESHED(CombatLog.Level.DETAILED),
+    ON_HIT_EXPIRED(CombatLog.Level.DETAILED),
+    STATE_RESET(CombatLog.Level.DETAILED),
+    NOTE(CombatLog.Level.DETAILED);
+
+    private final CombatLog.Level level;
+
+    CombatEventType(CombatLog.Level level) {
+        this.level = level;
+    }
+
+    public CombatLog.Level getLevel() {
+        return level;
+    }
+}
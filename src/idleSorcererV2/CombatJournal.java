@@ -0,0 +1,287 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import idleSorcererV2.IO.TerminalDisplay;
+import idleSorcererV2.data.OnHitEffect;
+
+/**
+ * Binary recording of one encounter's combat events, written by the combat log's consumer
+ * thread through a buffered FileChannel.
+ *
+ * Layout: a header (magic, version, floor, player name, enemy name) followed by records.
+ * Each record starts with a tag byte: STRING_TAG defines the next id of the string table,
+ * any other tag is a CombatEventType ordinal followed by a fixed-size event body
+ * (time, actor id, subject id, amount, value, max value, shield). Names and spell ids are
+ * therefore written once per file and referenced by a short afterwards.
+ */
+public class CombatJournal {
+
+    /** A loaded recording. */
+    public record Recording(int floor, String playerName, String enemyName, List<CombatEvent> events) {
+        public double durationSeconds() {
+            return events.isEmpty() ? 0.0 : events.get(events.size() - 1).getTimeSeconds();
+        }
+    }
+
+    public static final String FILE_EXTENSION = ".iscj";
+
+    private static final int MAGIC = 0x4953434A; // "ISCJ"
+    private static final byte VERSION = 1;
+    private static final byte STRING_TAG = (byte) 0xFF;
+    private static final int EVENT_BODY_BYTES = 4 + 2 + 2 + 4 * 4;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Map<String, Integer> stringIds;
+    private boolean failed;
+
+    private CombatJournal(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        this.stringIds = new HashMap<>();
+    }
+
+    /**
+     * Creates a journal file for a new encounter.
+     * @return The open journal, or null if the file could not be created.
+     */
+    public static CombatJournal create(Path file, int floor, String playerName, String enemyName) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING);
+            CombatJournal journal = new CombatJournal(file, channel);
+            journal.buffer.putInt(MAGIC).put(VERSION).putInt(floor);
+            journal.putString(playerName);
+            journal.putString(enemyName);
+            return journal;
+        } catch (IOException e) {
+            System.err.println("CombatJournal Error: Could not create " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Appends one event. Called from the combat log's consumer thread only.
+     */
+    void write(CombatEvent event) {
+        if (failed) {
+            return;
+        }
+        int actorId = idFor(event.getActor());
+        int subjectId = idFor(subjectText(event.getSubject()));
+        ensureRoom(1 + EVENT_BODY_BYTES);
+        buffer.put((byte) event.getType().ordinal())
+              .putFloat((float) event.getTimeSeconds())
+              .putShort((short) actorId)
+              .putShort((short) subjectId)
+              .putInt(event.getAmount())
+              .putInt(event.getValue())
+              .putInt(event.getMaxValue())
+              .putInt(event.getShield());
+    }
+
+    /**
+     * Writes out buffered records and closes the file. Call after CombatLog.flush().
+     */
+    public void close() {
+        try {
+            drainBuffer();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("CombatJournal Error: Could not finish " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String subjectText(Object subject) {
+        if (subject == null) {
+            return null;
+        }
+        return subject instanceof OnHitEffect ? ((OnHitEffect) subject).describe() : subject.toString();
+    }
+
+    private int idFor(String text) {
+        if (text == null) {
+            return -1;
+        }
+        Integer id = stringIds.get(text);
+        if (id != null) {
+            return id;
+        }
+        int newId = stringIds.size();
+        if (newId > Short.MAX_VALUE) {
+            return -1; // Table full, the text is dropped from this record
+        }
+        stringIds.put(text, newId);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ensureRoom(1 + 2 + bytes.length);
+        buffer.put(STRING_TAG).putShort((short) bytes.length).put(bytes);
+        return newId;
+    }
+
+    private void putString(String text) {
+        byte[] bytes = (text != null ? text : "").getBytes(StandardCharsets.UTF_8);
+        ensureRoom(2 + bytes.length);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private void ensureRoom(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        try {
+            drainBuffer();
+        } catch (IOException e) {
+            failed = true;
+            System.err.println("CombatJournal Error: Write to " + file + " failed, recording stopped: " + e.getMessage());
+            buffer.clear();
+        }
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads a journal file back into events.
+     * @return The recording, or null if the file cannot be read or is not a combat journal.
+     */
+    public static Recording load(Path file) {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                System.err.println("CombatJournal Error: " + file + " is too large to replay.");
+                return null;
+            }
+            in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            in.flip();
+        } catch (IOException e) {
+            System.err.println("CombatJournal Error: Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        try {
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                System.err.println("CombatJournal Error: " + file + " is not a combat journal (or has an unsupported version).");
+                return null;
+            }
+            int floor = in.getInt();
+            String playerName = getString(in);
+            String enemyName = getString(in);
+
+            CombatEventType[] types = CombatEventType.values();
+            List<String> strings = new ArrayList<>();
+            List<CombatEvent> events = new ArrayList<>();
+            while (in.hasRemaining()) {
+                byte tag = in.get();
+                if (tag == STRING_TAG) {
+                    strings.add(getString(in));
+                    continue;
+                }
+                if (tag < 0 || tag >= types.length || in.remaining() < EVENT_BODY_BYTES) {
+                    System.err.println("CombatJournal Warning: " + file + " ends with a damaged record; replaying what was read.");
+                    break;
+                }
+                double time = in.getFloat();
+                int actorId = in.getShort();
+                int subjectId = in.getShort();
+                CombatEvent event = new CombatEvent();
+                event.set(types[tag], time,
+                          actorId >= 0 && actorId < strings.size() ? strings.get(actorId) : null,
+                          subjectId >= 0 && subjectId < strings.size() ? strings.get(subjectId) : null,
+                          in.getInt(), in.getInt(), in.getInt(), in.getInt());
+                events.add(event);
+            }
+            return new Recording(floor, playerName, enemyName, events);
+        } catch (RuntimeException e) { // BufferUnderflowException from a truncated header
+            System.err.println("CombatJournal Error: " + file + " is damaged: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Plays a recording back through the display.
+     * @param speed Playback speed relative to real time; 0 or less shows everything at once.
+     * @param fromSecond Events before this encounter time are skipped, and the combatants'
+     *                   HP at that point is shown instead.
+     */
+    public static void replay(Recording recording, TerminalDisplay display, double speed, double fromSecond) {
+        display.showMessage("Replaying Floor " + recording.floor() + ": " + recording.playerName() + " vs "
+                + recording.enemyName() + " (" + recording.events().size() + " events, "
+                + String.format("%.1f", recording.durationSeconds()) + "s)");
+
+        int index = 0;
+        List<CombatEvent> events = recording.events();
+        if (fromSecond > 0) {
+            Map<String, String> hpAtJump = new LinkedHashMap<>();
+            while (index < events.size() && events.get(index).getTimeSeconds() < fromSecond) {
+                CombatEvent event = events.get(index);
+                if (event.getActor() != null && event.getMaxValue() > 0) {
+                    hpAtJump.put(event.getActor(), event.getValue() + "/" + event.getMaxValue());
+                }
+                index++;
+            }
+            display.showMessage("Skipped " + index + " events to " + fromSecond + "s.");
+            for (Map.Entry<String, String> entry : hpAtJump.entrySet()) {
+                display.showMessage("  " + entry.getKey() + " HP: " + entry.getValue());
+            }
+        }
+
+        double previousTime = Math.max(0.0, fromSecond);
+        for (; index < events.size(); index++) {
+            CombatEvent event = events.get(index);
+            if (speed > 0 && event.getTimeSeconds() > previousTime) {
+                try {
+                    Thread.sleep((long) ((event.getTimeSeconds() - previousTime) * 1000.0 / speed));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                previousTime = event.getTimeSeconds();
+            }
+            display.displayCombatLog(String.format("[%6.1fs] ", event.getTimeSeconds()) + event.format());
+        }
+        display.showMessage("Replay finished.");
+    }
+}
@@ -0,0 +1,269 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import idleSorcererV2.IO.TerminalDisplay;
+import idleSorcererV2.data.OnHitEffect;
+import idleSorvererV2.enums.DamageType;
+
+/**
+ * Destination for the per-hit combat events (casts, damage, heals, dodges, debuffs).
+ * Events below the log's level are dropped before any work is done, so SILENT costs a
+ * single comparison per event. Enabled events are copied into a preallocated ring buffer
+ * and formatted and printed by a background thread, keeping string building and console
+ * I/O out of the combat tick.
+ *
+ * A CombatJournal can be attached to also record every event to a binary replay file.
+ *
+ * A log accepts events from one thread at a time (the game loop); headless simulations
+ * running in parallel should use SILENT.
+ */
+public class CombatLog {
+
+    public enum Level {
+        OFF,      // Nothing is recorded
+        SUMMARY,  // Casts, damage, heals, shields and dodges
+        DETAILED  // Everything, including stat changes and damage calculations
+    }
+
+    public static final CombatLog SILENT = new CombatLog(Level.OFF, null, 0);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final long FULL_PARK_NANOS = 50_000L;    // Producer back-off when the buffer is full
+
+    private volatile Level level;
+    private volatile CombatJournal journal; // Written by the consumer thread, can be null
+    private double currentTimeSeconds;      // Producer-side encounter clock stamped on each event
+    private final TerminalDisplay display;
+    private final CombatEvent[] ring; // null for SILENT
+    private final int mask;
+    private final AtomicLong published = new AtomicLong(); // Events written by the producer
+    private final AtomicLong consumed = new AtomicLong();  // Slots the consumer has finished reading
+    private final AtomicLong delivered = new AtomicLong(); // Events handed to the display
+    private volatile boolean consumerIdle; // Set while the consumer is parked waiting for events
+    private final Thread consumer;
+
+    private CombatLog(Level level, TerminalDisplay display, int capacity) {
+        this.level = level;
+        this.display = display;
+        if (display == null) {
+            this.ring = null;
+            this.mask = 0;
+            this.consumer = null;
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1; // Next power of two
+        this.ring = new CombatEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new CombatEvent();
+        }
+        this.mask = size - 1;
+        this.consumer = new Thread(this::drainLoop, "combat-log");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Creates a log whose events are shown through TerminalDisplay.displayCombatLog.
+     * @param display The display to print to.
+     * @param level The initial verbosity.
+     * @return A started log.
+     */
+    public static CombatLog toDisplay(TerminalDisplay display, Level level) {
+        return new CombatLog(level, display, DEFAULT_CAPACITY);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Changes the verbosity. SILENT always stays OFF.
+     * @return true if the level was changed, false for SILENT.
+     */
+    public boolean setLevel(Level level) {
+        if (ring == null || level == null) {
+            return false;
+        }
+        this.level = level;
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return level != Level.OFF;
+    }
+
+    public boolean isEnabled(CombatEventType type) {
+        return type.getLevel().ordinal() <= level.ordinal();
+    }
+
+    /**
+     * Sets the encounter time stamped on events recorded from now on. Called by the combat engine.
+     */
+    public void setTime(double seconds) {
+        if (ring != null) {
+            this.currentTimeSeconds = seconds;
+        }
+    }
+
+    /**
+     * Attaches a journal that receives every event regardless of the display level, or detaches
+     * the current one with null. Call flush() first so earlier events do not end up in the new journal.
+     * @return The previously attached journal (which the caller should close), or null.
+     */
+    public CombatJournal setJournal(CombatJournal journal) {
+        if (ring == null) {
+            return null;
+        }
+        CombatJournal previous = this.journal;
+        this.journal = journal;
+        return previous;
+    }
+
+    /**
+     * Blocks until every event recorded so far has been printed, so that regular output
+     * written afterwards appears below it.
+     */
+    public void flush() {
+        if (ring == null) {
+            return;
+        }
+        long target = published.get();
+        while (delivered.get() < target && consumer.isAlive()) {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    // --- Typed events ---
+
+    public void cast(String caster, String spellName) {
+        record(CombatEventType.CAST, caster, spellName, 0, 0, 0, 0);
+    }
+
+    public void dodged(String actor) {
+        record(CombatEventType.DODGE, actor, null, 0, 0, 0, 0);
+    }
+
+    public void damageTaken(String actor, int amount, DamageType type, int currentHP, int maxHP, int currentShield) {
+        record(CombatEventType.DAMAGE_TAKEN, actor, type, amount, currentHP, maxHP, currentShield);
+    }
+
+    public void degenDamageTaken(String actor, int amount, int currentHP, int maxHP) {
+        record(CombatEventType.DEGEN_DAMAGE_TAKEN, actor, null, amount, currentHP, maxHP, 0);
+    }
+
+    public void healed(String actor, int amount, int currentHP, int maxHP) {
+        record(CombatEventType.HEALED, actor, null, amount, currentHP, maxHP, 0);
+    }
+
+    public void shieldGained(String actor, int amount, int currentShield) {
+        record(CombatEventType.SHIELD_GAINED, actor, null, amount, 0, 0, currentShield);
+    }
+
+    public void damageCalculated(String spellName, int amount) {
+        record(CombatEventType.DAMAGE_CALCULATED, null, spellName, amount, 0, 0, 0);
+    }
+
+    public void shieldBreaker(String spellName) {
+        record(CombatEventType.SHIELD_BREAKER, null, spellName, 0, 0, 0, 0);
+    }
+
+    public void dotApplied(String target, String dotType, int damagePerSecond) {
+        record(CombatEventType.DOT_APPLIED, target, dotType, damagePerSecond, 0, 0, 0);
+    }
+
+    public void poisonChanged(String actor, int totalDamagePerSecond) {
+        record(CombatEventType.POISON_CHANGED, actor, null, 0, totalDamagePerSecond, 0, 0);
+    }
+
+    /**
+     * @param statName A constant label such as "armor"; it is printed as-is.
+     */
+    public void statChanged(String actor, String statName, int amountDelta, int newValue) {
+        record(CombatEventType.STAT_CHANGED, actor, statName, amountDelta, newValue, 0, 0);
+    }
+
+    public void onHitApplied(String target, OnHitEffect effect) {
+        record(CombatEventType.ON_HIT_APPLIED, target, effect, 0, 0, 0, 0);
+    }
+
+    public void onHitRefreshed(String target, OnHitEffect effect) {
+        record(CombatEventType.ON_HIT_REFRESHED, target, effect, 0, 0, 0, 0);
+    }
+
+    public void onHitExpired(String target, OnHitEffect effect) {
+        record(CombatEventType.ON_HIT_EXPIRED, target, effect, 0, 0, 0, 0);
+    }
+
+    public void stateReset(String actor, int currentHP, int maxHP) {
+        record(CombatEventType.STATE_RESET, actor, null, 0, currentHP, maxHP, 0);
+    }
+
+    /**
+     * Free-form message for rare cases; callers should avoid building the text when the log is off.
+     */
+    public void note(String message) {
+        record(CombatEventType.NOTE, null, message, 0, 0, 0, 0);
+    }
+
+    private void record(CombatEventType type, String actor, Object subject, int amount, int value, int maxValue, int shield) {
+        if (ring == null || (!isEnabled(type) && journal == null)) {
+            return;
+        }
+        long sequence = published.get();
+        while (sequence - consumed.get() >= ring.length) { // Full: wait for the consumer rather than drop events
+            if (!consumer.isAlive()) {
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        ring[(int) sequence & mask].set(type, currentTimeSeconds, actor, subject, amount, value, maxValue, shield);
+        published.set(sequence + 1); // Publishes the slot contents; ordered before the idle check below
+        if (consumerIdle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (true) {
+            long available = published.get();
+            if (next == available) {
+                // Announce the park before re-checking, so an event published in between either
+                // shows up here or sees the flag and unparks us.
+                consumerIdle = true;
+                if (published.get() == next) {
+                    LockSupport.park(this);
+                }
+                consumerIdle = false;
+                continue;
+            }
+            while (next < available) {
+                CombatEvent event = ring[(int) next & mask];
+                String message = isEnabled(event.getType()) ? event.format() : null;
+                CombatJournal currentJournal = journal;
+                if (currentJournal != null) {
+                    currentJournal.write(event);
+                }
+                next++;
+                consumed.lazySet(next); // Slot can be reused once it has been formatted and journaled
+                if (message != null) {
+                    try {
+                        display.displayCombatLog(message);
+                    } catch (RuntimeException e) {
+                        System.err.println("CombatLog Error: Failed to display event: " + e.getMessage());
+                    }
+                }
+                delivered.lazySet(next);
+            }
+        }
+    }
+}
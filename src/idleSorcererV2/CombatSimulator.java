@@ -0,0 +1,89 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+/**
+ * Headless front-end over the CombatEngine.
+ * Drives an encounter with a simulated clock, without printing or sleeping, so fights
+ * resolve as fast as the CPU allows (balancing runs, offline progress).
+ * By default the clock jumps from cast to cast; a fixed time step is available to
+ * reproduce the interactive loop's tick-by-tick behaviour.
+ */
+public class CombatSimulator {
+
+    public enum TimeMode {
+        FIXED_STEP,   // Advance by fixedStepSeconds per engine step, like the interactive loop
+        EVENT_DRIVEN  // Jump straight to the next scheduled cast or periodic tick
+    }
+
+    public static final double DEFAULT_FIXED_STEP_SECONDS = 0.1; // Same step the interactive loop uses
+    public static final double DEFAULT_MAX_ENCOUNTER_SECONDS = 600.0; // Stalemates are cut off here
+
+    private final TimeMode timeMode;
+    private final double fixedStepSeconds;
+    private final double maxEncounterSeconds;
+
+    /**
+     * Creates an event-driven simulator with the default time limit.
+     */
+    public CombatSimulator() {
+        this(TimeMode.EVENT_DRIVEN, DEFAULT_FIXED_STEP_SECONDS, DEFAULT_MAX_ENCOUNTER_SECONDS);
+    }
+
+    /**
+     * Creates a fixed-step simulator.
+     * @param fixedStepSeconds Simulated seconds advanced per engine step. Must be positive.
+     * @param maxEncounterSeconds Simulated time after which an undecided fight is abandoned.
+     */
+    public CombatSimulator(double fixedStepSeconds, double maxEncounterSeconds) {
+        this(TimeMode.FIXED_STEP, fixedStepSeconds, maxEncounterSeconds);
+    }
+
+    /**
+     * @param timeMode How the simulated clock advances.
+     * @param fixedStepSeconds Simulated seconds per step in FIXED_STEP mode. Must be positive.
+     * @param maxEncounterSeconds Simulated time after which an undecided fight is abandoned.
+     */
+    public CombatSimulator(TimeMode timeMode, double fixedStepSeconds, double maxEncounterSeconds) {
+        if (fixedStepSeconds <= 0) {
+            throw new IllegalArgumentException("Fixed step must be positive. Received: " + fixedStepSeconds);
+        }
+        this.timeMode = timeMode;
+        this.fixedStepSeconds = fixedStepSeconds;
+        this.maxEncounterSeconds = maxEncounterSeconds;
+    }
+
+    /**
+     * Resolves one encounter from a fresh combat state.
+     * Both combatants are silenced and reset, so callers should pass instances
+     * dedicated to the simulation rather than the live game's objects.
+     * @param player The player to fight with.
+     * @param enemy The enemy instance to fight against.
+     * @return The result of the encounter.
+     */
+    public EncounterResult runEncounter(Player player, Enemy enemy) {
+        player.setCombatLog(CombatLog.SILENT);
+        enemy.setCombatLog(CombatLog.SILENT);
+        player.resetCombatState();
+        enemy.resetCombatState();
+
+        CombatEngine engine = new CombatEngine(player, enemy, CombatLog.SILENT);
+        CombatEngine.Outcome outcome = CombatEngine.Outcome.ONGOING;
+        if (timeMode == TimeMode.EVENT_DRIVEN) {
+            outcome = engine.runEventDriven(maxEncounterSeconds);
+        } else {
+            while (outcome == CombatEngine.Outcome.ONGOING && engine.getElapsedSeconds() < maxEncounterSeconds) {
+                outcome = engine.step(fixedStepSeconds);
+            }
+        }
+        return new EncounterResult(outcome, engine.getElapsedSeconds(), player.getCurrentHP(), enemy.getCurrentHP(),
+                                   player.getDamageTakenThisEncounter());
+    }
+
+    public TimeMode getTimeMode() { return timeMode; }
+    public double getFixedStepSeconds() { return fixedStepSeconds; }
+    public double getMaxEncounterSeconds() { return maxEncounterSeconds; }
+}
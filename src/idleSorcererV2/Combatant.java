@@ -57,4 +57,7 @@ public interface Combatant<T_SPELL> {
     void triggerCooldownForSpell(T_SPELL spell); // Puts the specified spell on its full cooldown
 
     void applyPeriodicEffects(); // For combatant's own regen and poison ticks at the end of a "second"
+
+    void setCombatLog(CombatLog combatLog); // Where this combatant reports hits, heals and dodges
+    void setRandom(GameRandom random); // Stream used for this combatant's dodge rolls
 }
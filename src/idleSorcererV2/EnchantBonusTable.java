@@ -0,0 +1,140 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Arrays;
+
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.EnchantInstance;
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.DamageType;
+import idleSorvererV2.enums.EnchantEffectType;
+import idleSorvererV2.enums.EnchantTargetParameter;
+import idleSorvererV2.enums.HealingType;
+
+/**
+ * Summed enchant values of a loadout, indexed by EnchantEffectType x EnchantTargetParameter
+ * in one flat primitive array.
+ * The string targetKeys are resolved once when the table is rebuilt (on equip/unequip),
+ * so combat-time reads are a single array lookup with no allocation.
+ */
+public class EnchantBonusTable {
+
+    private static final EnchantEffectType[] EFFECT_TYPES = EnchantEffectType.values();
+    private static final EnchantTargetParameter[] TARGETS = EnchantTargetParameter.values();
+
+    // DamageType/HealingType ordinal -> matching target (e.g. FIRE -> FIRE_DAMAGE)
+    private static final EnchantTargetParameter[] DAMAGE_TYPE_TARGETS = new EnchantTargetParameter[DamageType.values().length];
+    private static final EnchantTargetParameter[] HEALING_TYPE_TARGETS = new EnchantTargetParameter[HealingType.values().length];
+
+    static {
+        for (DamageType type : DamageType.values()) {
+            DAMAGE_TYPE_TARGETS[type.ordinal()] = findTarget(type.name() + "_DAMAGE");
+        }
+        for (HealingType type : HealingType.values()) {
+            HEALING_TYPE_TARGETS[type.ordinal()] = findTarget(type.name());
+        }
+    }
+
+    private final double[] bonuses = new double[EFFECT_TYPES.length * TARGETS.length];
+    private final int[] truncatedBonuses = new int[EFFECT_TYPES.length * TARGETS.length]; // Each enchant cast to int first
+
+    /**
+     * Clears the table and sums the enchants of every non-null spell in the given slot arrays.
+     * @param slotArrays Equipped spell slots (e.g. active and passive); null entries are skipped.
+     */
+    public void rebuild(PlayerSpell[]... slotArrays) {
+        Arrays.fill(bonuses, 0.0);
+        Arrays.fill(truncatedBonuses, 0);
+        for (PlayerSpell[] slots : slotArrays) {
+            for (PlayerSpell spell : slots) {
+                if (spell != null) {
+                    add(spell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds one spell's enchants to the table.
+     * @param spell The spell whose enchants are added.
+     */
+    public void add(PlayerSpell spell) {
+        for (EnchantInstance enchant : spell.appliedEnchants()) {
+            BaseEnchant be = enchant.baseEnchant();
+            EnchantTargetParameter target = resolveTarget(be);
+            if (target != null) {
+                bonuses[index(be.effectType(), target)] += enchant.finalRolledValue();
+                truncatedBonuses[index(be.effectType(), target)] += (int) enchant.finalRolledValue();
+            }
+        }
+    }
+
+    /**
+     * @return The summed value of all enchants with this effect type and target (0 if none).
+     */
+    public double get(EnchantEffectType effectType, EnchantTargetParameter target) {
+        return bonuses[index(effectType, target)];
+    }
+
+    /**
+     * For whole-number stats such as armor, where each enchant counts only its whole part.
+     * @return The sum of each matching enchant's value truncated to an int (0 if none).
+     */
+    public int getTruncated(EnchantEffectType effectType, EnchantTargetParameter target) {
+        return truncatedBonuses[index(effectType, target)];
+    }
+
+    /**
+     * @return The total PLAYER_DAMAGE_TYPE_ADD_PERCENT bonus for a damage type (e.g. 25.0 for +25%).
+     */
+    public double getDamageTypeBonusPercent(DamageType damageType) {
+        EnchantTargetParameter target = DAMAGE_TYPE_TARGETS[damageType.ordinal()];
+        return target == null ? 0.0 : get(EnchantEffectType.PLAYER_DAMAGE_TYPE_ADD_PERCENT, target);
+    }
+
+    /**
+     * @return The total PLAYER_HEALING_TYPE_ADD_PERCENT bonus for a healing type (e.g. 15.0 for +15%).
+     */
+    public double getHealingTypeBonusPercent(HealingType healingType) {
+        EnchantTargetParameter target = HEALING_TYPE_TARGETS[healingType.ordinal()];
+        return target == null ? 0.0 : get(EnchantEffectType.PLAYER_HEALING_TYPE_ADD_PERCENT, target);
+    }
+
+    private static int index(EnchantEffectType effectType, EnchantTargetParameter target) {
+        return effectType.ordinal() * TARGETS.length + target.ordinal();
+    }
+
+    /**
+     * Interprets a BaseEnchant's targetKey for its effect type.
+     * Damage-type enchants name the DamageType itself (e.g. "FIRE"), everything else names
+     * an EnchantTargetParameter. Matching is case-insensitive.
+     * @return The target, or null if the key is missing or unknown.
+     */
+    static EnchantTargetParameter resolveTarget(BaseEnchant baseEnchant) {
+        if (baseEnchant.targetKey() == null || baseEnchant.effectType() == null) {
+            return null;
+        }
+        String key = baseEnchant.targetKey().toUpperCase();
+        if (baseEnchant.effectType() == EnchantEffectType.PLAYER_DAMAGE_TYPE_ADD_PERCENT) {
+            for (DamageType type : DamageType.values()) {
+                if (type.name().equals(key)) {
+                    return DAMAGE_TYPE_TARGETS[type.ordinal()];
+                }
+            }
+        }
+        return findTarget(key);
+    }
+
+    private static EnchantTargetParameter findTarget(String name) {
+        for (EnchantTargetParameter target : TARGETS) {
+            if (target.name().equals(name)) {
+                return target;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+/**
+ * Summary of one encounter resolved by the CombatSimulator.
+ * An outcome of ONGOING means the fight hit the simulator's time limit.
+ */
+public record EncounterResult(
+    CombatEngine.Outcome outcome,
+    double durationSeconds,  // Simulated seconds the encounter lasted
+    int playerHPRemaining,
+    int enemyHPRemaining,
+    int playerDamageTaken    // HP the player lost to hits and poison
+) {
+    public boolean playerWon() {
+        return outcome == CombatEngine.Outcome.PLAYER_WON;
+    }
+
+    public boolean timedOut() {
+        return outcome == CombatEngine.Outcome.ONGOING;
+    }
+}
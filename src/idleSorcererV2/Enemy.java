@@ -7,7 +7,6 @@ package idleSorcererV2;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 import idleSorvererV2.enums.DamageType;
 
@@ -36,7 +35,8 @@ public class Enemy implements Combatant<EnemySpellData> {
 
     private final double[] spellCurrentCooldowns; // Tracks cooldowns for its definedSpells
 
-    private final Random random = new Random(); // For basic spell choice if multiple are ready
+    private GameRandom random = new GameRandom(); // Dodge rolls; replaced with a session stream via setRandom
+    private CombatLog combatLog = CombatLog.SILENT;
 
     /**
      * Constructor for Enemy.
@@ -68,7 +68,7 @@ public class Enemy implements Combatant<EnemySpellData> {
         } else {
             this.spellCurrentCooldowns = new double[0]; // Should ideally not happen if JSON is valid
         }
-        resetCombatState(); // Initialize runtime stats
+        initializeCombatState(); // Initialize runtime stats without logging a reset
     }
 
     @Override
@@ -133,7 +133,7 @@ public class Enemy implements Combatant<EnemySpellData> {
         // 1. Dodge Calculation
         int effectiveHitChance = Math.max(5, Math.min(99, attackerAccuracy - this.currentDodge));
         if (random.nextInt(100) + 1 > effectiveHitChance) {
-            System.out.println(this.name + " dodged the attack!"); // Logging
+            combatLog.dodged(this.name);
             return;
         }
 
@@ -155,7 +155,7 @@ public class Enemy implements Combatant<EnemySpellData> {
 
         // 4. Apply Damage to HP
         this.currentHP -= damageToHP;
-        System.out.println(this.name + " took " + damageToHP + " " + (type != null ? type : "") + " damage. HP: " + currentHP + "/" + maxHP + ", Shield: " + currentShield); // Logging
+        combatLog.damageTaken(this.name, damageToHP, type, currentHP, maxHP, currentShield);
         if (this.currentHP < 0) {
             this.currentHP = 0;
         }
@@ -167,7 +167,7 @@ public class Enemy implements Combatant<EnemySpellData> {
 			return;
 		}
         this.currentHP = Math.min(this.maxHP, this.currentHP + amount);
-        System.out.println(this.name + " healed for " + amount + ". HP: " + currentHP + "/" + maxHP); // Logging
+        combatLog.healed(this.name, amount, currentHP, maxHP);
     }
 
     @Override
@@ -178,32 +178,32 @@ public class Enemy implements Combatant<EnemySpellData> {
         // Enemies might have a max shield defined by their initialShield, or it can grow.
         // For now, let's assume it can grow beyond initial, or initialShield is just the starting amount.
         this.currentShield += amount;
-        System.out.println(this.name + " gained " + amount + " shield. Current Shield: " + currentShield);
+        combatLog.shieldGained(this.name, amount, currentShield);
     }
 
     // Methods for player debuffs to modify current enemy stats
     @Override
     public void modifyTemporaryArmor(int amountDelta) {
         this.currentArmor = Math.max(0, this.currentArmor + amountDelta);
-        System.out.println(this.name + "'s armor changed by " + amountDelta + ". New armor: " + this.currentArmor);
+        combatLog.statChanged(this.name, "armor", amountDelta, this.currentArmor);
     }
 
     @Override
     public void modifyTemporaryRegenPerSecond(int amountDelta) {
         this.currentRegenPerSecond += amountDelta;
-        System.out.println(this.name + "'s regen changed by " + amountDelta + ". New regen/sec: " + this.currentRegenPerSecond);
+        combatLog.statChanged(this.name, "regen/sec", amountDelta, this.currentRegenPerSecond);
     }
 
     @Override
     public void modifyTemporaryDodge(int amountDelta) {
         this.currentDodge = Math.max(0, this.currentDodge + amountDelta);
-        System.out.println(this.name + "'s dodge changed by " + amountDelta + ". New dodge: " + this.currentDodge);
+        combatLog.statChanged(this.name, "dodge", amountDelta, this.currentDodge);
     }
 
     @Override
     public void modifyTemporaryAccuracy(int amountDelta) {
         this.currentAccuracy += amountDelta; // Accuracy can be negative if that's how hit formula works
-        System.out.println(this.name + "'s accuracy changed by " + amountDelta + ". New accuracy: " + this.currentAccuracy);
+        combatLog.statChanged(this.name, "accuracy", amountDelta, this.currentAccuracy);
     }
 
     @Override
@@ -212,7 +212,7 @@ public class Enemy implements Combatant<EnemySpellData> {
         if (this.currentPoisonDpsTaken < 0) {
             this.currentPoisonDpsTaken = 0; // Cannot have negative poison
         }
-        System.out.println(this.name + " now taking " + this.currentPoisonDpsTaken + " poison DPS.");
+        combatLog.poisonChanged(this.name, this.currentPoisonDpsTaken);
     }
 
     @Override
@@ -227,6 +227,11 @@ public class Enemy implements Combatant<EnemySpellData> {
 
     @Override
     public void resetCombatState() {
+        initializeCombatState();
+        combatLog.stateReset(this.name, currentHP, maxHP);
+    }
+
+    private void initializeCombatState() {
         this.currentHP = this.maxHP;
         this.currentShield = this.initialShield; // Reset shield to its starting value
         clearTemporaryCombatEffectsAndPoison();
@@ -239,7 +244,6 @@ public class Enemy implements Combatant<EnemySpellData> {
                 }
             }
         }
-        System.out.println(this.name + " combat state reset. HP: " + currentHP + "/" + maxHP);
     }
 
     @Override
@@ -306,7 +310,7 @@ public class Enemy implements Combatant<EnemySpellData> {
         } else if (netHPSChange < 0) { // Net damage (poison > regen)
             // This damage should bypass shield and armor as it's internal.
             this.currentHP += netHPSChange; // netHPSChange is negative here
-            System.out.println(this.name + " took " + (-netHPSChange) + " poison/degen damage. HP: " + currentHP + "/" + maxHP);
+            combatLog.degenDamageTaken(this.name, -netHPSChange, currentHP, maxHP);
             if (this.currentHP < 0) {
                 this.currentHP = 0;
             }
@@ -314,6 +318,16 @@ public class Enemy implements Combatant<EnemySpellData> {
         // If netHPSChange is 0, nothing happens from regen/poison this tick.
     }
 
+    @Override
+    public void setCombatLog(CombatLog combatLog) {
+        this.combatLog = combatLog;
+    }
+
+    @Override
+    public void setRandom(GameRandom random) {
+        this.random = random;
+    }
+
     // Getters for base stats might be useful for display or specific mechanics
     public String getId() { return id; }
     public int getBaseAccuracy() { return baseAccuracy; }
@@ -5,20 +5,24 @@
 
 package idleSorcererV2;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import idleSorcererV2.IO.EnemyLoader;
+import idleSorcererV2.IO.TerminalDisplay;
+import idleSorcererV2.data.BaseEnchant;
 import idleSorcererV2.data.BaseSpellTemplate;
 import idleSorcererV2.data.CooldownRangeData;
 import idleSorcererV2.data.CoreEffectData;
-import idleSorcererV2.data.EnchantInstance;
 import idleSorcererV2.data.InherentPropertiesData;
 import idleSorcererV2.data.PlayerSpell;
 import idleSorvererV2.enums.CoreEffectType;
 import idleSorvererV2.enums.DamageType;
-import idleSorvererV2.enums.EnchantEffectType;
-import idleSorvererV2.enums.EnchantTargetParameter;
 import idleSorvererV2.enums.GameState;
 import idleSorvererV2.enums.HealingType;
 import idleSorvererV2.enums.PrimaryAttributeType;
@@ -33,19 +37,65 @@ public class GameManager {
     private int currentFloor;
     private GameState currentGameState;
 
+    private CombatEngine combatEngine;
+    private final CombatLog combatLog;
+    private final LootFilter lootFilter;
+    private int salvagedDrops; // Drops auto-salvaged by the loot filter this session
+    private long salvagedAP;
+    private Path recordingDirectory; // null when encounters are not being recorded
+    private int recordedEncounters;
+    private final MonteCarloSimulator monteCarloSimulator;
+    private final LoadoutOptimizer loadoutOptimizer;
+    private final UpgradePlanner upgradePlanner;
+    private final OfflineProgressCalculator offlineProgressCalculator;
+    private final GameRandom combatRandom; // Parent stream for the player's and every enemy's rolls
+    private final GameRandom simulationRandom; // Seeds for unseeded simulations, kept apart so they never shift live fights
+    private ProgressJournal progressJournal; // null unless startJournal() succeeded
+    private Path journaledSaveFile;
+    private Path journaledSessionFile; // Stamped as the journal is kept up, so a crash is not credited as offline time
+    private long sessionStampedAtMillis;
+    private final AtomicReference<PendingDefinitions> pendingDefinitions = new AtomicReference<>(); // Queued by queueDefinitions()
+
     private long lastUpdateTimeNanos;
-    private double timeAccumulatorForSecondTick;
 
     private static final double ONE_SECOND_IN_NANOS = 1_000_000_000.0;
     private static final int MAX_FLOOR = 10;
 
     public GameManager(Player player, EnemyLoader enemyLoader, SpellGenerator spellGenerator) {
+        this(player, enemyLoader, spellGenerator, new GameRandom());
+    }
+
+    /**
+     * @param combatRandom Stream (usually split from the session's GameRandom) that the player's
+     *                     and each encounter's enemy dodge rolls are split from.
+     */
+    public GameManager(Player player, EnemyLoader enemyLoader, SpellGenerator spellGenerator, GameRandom combatRandom) {
+        this(player, enemyLoader, spellGenerator, combatRandom,
+             CombatLog.toDisplay(new TerminalDisplay(), CombatLog.Level.DETAILED));
+    }
+
+    /**
+     * @param combatRandom Stream (usually split from the session's GameRandom) that the player's
+     *                     and each encounter's enemy dodge rolls are split from.
+     * @param combatLog Log that the player, each encounter's enemy and the combat engine report to.
+     */
+    public GameManager(Player player, EnemyLoader enemyLoader, SpellGenerator spellGenerator, GameRandom combatRandom,
+                       CombatLog combatLog) {
         this.player = player;
         this.enemyLoader = enemyLoader;
         this.spellGenerator = spellGenerator;
         this.currentFloor = 1;
         this.currentGameState = GameState.INITIALIZING;
-        this.timeAccumulatorForSecondTick = 0.0;
+        this.monteCarloSimulator = new MonteCarloSimulator();
+        this.loadoutOptimizer = new LoadoutOptimizer();
+        this.upgradePlanner = new UpgradePlanner();
+        this.offlineProgressCalculator = new OfflineProgressCalculator(monteCarloSimulator);
+        this.lootFilter = new LootFilter();
+        this.combatRandom = combatRandom;
+        this.player.setRandom(combatRandom.split());
+        this.simulationRandom = combatRandom.split();
+        this.combatLog = combatLog;
+        this.player.setCombatLog(combatLog);
     }
 
     public void initializeGame() {
@@ -54,29 +104,35 @@ public class GameManager {
 
         addStartingSpellsToPlayer(player);
 
-        if (!loadEnemyForCurrentFloor()) {
-            this.currentGameState = GameState.GAME_OVER;
-            System.err.println("Failed to load initial enemy. Game cannot start properly.");
-            return;
-        }
+        // The floor's enemy is loaded when the first battle starts, so the enemy definitions can still be loading
         player.resetCombatState();
-        if (currentEnemy != null) {
-            currentEnemy.resetCombatState();
-        }
+        combatLog.flush();
 
         this.currentGameState = GameState.MANAGEMENT_PAUSED;
         System.out.println("Game Initialized. Welcome, " + player.getName() + "!");
-        System.out.println("You are on Floor " + currentFloor + ". Enemy: " + (currentEnemy != null ? currentEnemy.getName() : "None"));
+        System.out.println("You are on Floor " + currentFloor + ".");
         System.out.println("You start with Singe and Minor Heal equipped (if found).");
         System.out.println("Type 'battle advance' or 'battle farm' to begin, or 'help' for commands.");
     }
 
+    /**
+     * Advances the game using wall-clock time since the previous call.
+     * This is the interactive front-end: the elapsed time is clamped to 0.1s so a long
+     * pause (e.g. waiting on input) does not resolve a whole fight in one tick.
+     */
     public void update() {
         long currentTimeNanos = System.nanoTime();
         double deltaTimeSeconds = (currentTimeNanos - this.lastUpdateTimeNanos) / ONE_SECOND_IN_NANOS;
         this.lastUpdateTimeNanos = currentTimeNanos;
-        deltaTimeSeconds = Math.min(deltaTimeSeconds, 0.1);
+        advance(Math.min(deltaTimeSeconds, 0.1));
+    }
 
+    /**
+     * Advances the game state machine by a fixed amount of simulated time.
+     * Does not read the clock or sleep, so callers can drive it with any time step.
+     * @param deltaTimeSeconds Simulated seconds to advance.
+     */
+    public void advance(double deltaTimeSeconds) {
         switch (currentGameState) {
             case AUTO_BATTLING:
                 processCombatTick(deltaTimeSeconds);
@@ -98,193 +154,36 @@ public class GameManager {
     }
 
     private void processCombatTick(double deltaTimeSeconds) {
-        if (player == null || currentEnemy == null) {
+        if (player == null || currentEnemy == null || combatEngine == null) {
              System.err.println("Error: Combat tick with null player or enemy.");
              currentGameState = GameState.MANAGEMENT_PAUSED;
              return;
         }
-        if (!player.isAlive()) {
-            currentGameState = GameState.PLAYER_LOST_ENCOUNTER;
-            return;
-        }
-        if (!currentEnemy.isAlive()) {
-            currentGameState = GameState.PLAYER_WON_ENCOUNTER;
-            return;
-        }
 
-        player.updateCooldowns(deltaTimeSeconds);
-        currentEnemy.updateCooldowns(deltaTimeSeconds);
-
-        List<PlayerSpell> playerReadySpells = player.getReadySpells();
-        for (PlayerSpell spell : playerReadySpells) {
-            if (!currentEnemy.isAlive()) {
-				break;
-			}
-            System.out.println(player.getName() + " casts " + spell.getName() + "!");
-            applyPlayerSpellEffects(spell, currentEnemy);
-            player.triggerCooldownForSpell(spell);
-            if (!currentEnemy.isAlive()) {
+        switch (combatEngine.step(deltaTimeSeconds)) {
+            case PLAYER_WON:
+                finishRecording();
                 currentGameState = GameState.PLAYER_WON_ENCOUNTER;
-                return;
-            }
-        }
-
-        List<EnemySpellData> enemyReadySpells = currentEnemy.getReadySpells();
-        for (EnemySpellData spell : enemyReadySpells) {
-            if (!player.isAlive()) {
-				break;
-			}
-            System.out.println(currentEnemy.getName() + " casts " + spell.getName() + "!");
-            applyEnemySpellEffects(spell, player);
-            currentEnemy.triggerCooldownForSpell(spell);
-            if (!player.isAlive()) {
-                currentGameState = GameState.PLAYER_LOST_ENCOUNTER;
-                return;
-            }
-        }
-
-        timeAccumulatorForSecondTick += deltaTimeSeconds;
-        if (timeAccumulatorForSecondTick >= 1.0) {
-            if (player.isAlive()) {
-				player.applyPeriodicEffects();
-			}
-            if (!player.isAlive()) {
-                currentGameState = GameState.PLAYER_LOST_ENCOUNTER;
-                return;
-            }
-            if (currentEnemy.isAlive()) {
-				currentEnemy.applyPeriodicEffects();
-			}
-            if (!currentEnemy.isAlive()) {
-                currentGameState = GameState.PLAYER_WON_ENCOUNTER;
-                return;
-            }
-            timeAccumulatorForSecondTick -= 1.0;
-        }
-    }
-
-    private void applyPlayerSpellEffects(PlayerSpell spell, Combatant<?> target) {
-        BaseSpellTemplate template = spell.baseTemplate();
-        CoreEffectData coreEffect = template.coreEffect();
-        InherentPropertiesData inherentProps = template.inherentProperties();
-        int attackerAccuracy = player.getEffectiveAccuracy();
-
-        if (inherentProps != null && inherentProps.accuracyBonus() > 0) {
-            attackerAccuracy += inherentProps.accuracyBonus();
-        }
-        for(EnchantInstance enchant : spell.appliedEnchants()){
-            if (enchant.baseEnchant().targetKey() != null &&
-                enchant.baseEnchant().effectType() == EnchantEffectType.SPELL_ACCURACY_ADD_FLAT &&
-                enchant.baseEnchant().targetKey().equals(EnchantTargetParameter.THIS_SPELL_ACCURACY.name())) {
-                attackerAccuracy += (int) enchant.finalRolledValue();
-            }
-        }
-
-        boolean alwaysHits = inherentProps != null && inherentProps.alwaysHits();
-        if (alwaysHits) {
-			attackerAccuracy = 99999;
-		}
-
-        boolean ignoresArmor = inherentProps != null && inherentProps.ignoresArmor();
-        boolean ignoresShield = inherentProps != null && inherentProps.ignoresShield();
-        boolean dealsDoubleDamageToShields = inherentProps != null && inherentProps.dealsDoubleDamageToShields();
-
-        double currentPotency = spell.effectiveCoreEffectValue();
-
-        PrimaryAttributeType scalingAttr = template.scalingAttribute();
-        if (scalingAttr != PrimaryAttributeType.NONE && coreEffect.type() != null) {
-            double statBonusPercent = 0;
-            if (coreEffect.type() == CoreEffectType.DAMAGE && coreEffect.damageType() != null) {
-                statBonusPercent = player.getStats().getCalculatedDamageBonusPercent(coreEffect.damageType());
-            } else if (coreEffect.type() == CoreEffectType.HEALING && coreEffect.healingType() != null) {
-                statBonusPercent = player.getStats().getCalculatedHealingBonusPercent(coreEffect.healingType());
-            }
-            currentPotency *= (1.0 + (statBonusPercent / 100.0));
-        }
-
-        double globalEnchantBonusPercent = 0;
-        if (coreEffect.type() == CoreEffectType.DAMAGE && coreEffect.damageType() != null) {
-            globalEnchantBonusPercent = player.getGlobalEnchantDamageBonusPercent(coreEffect.damageType());
-        } else if (coreEffect.type() == CoreEffectType.HEALING && coreEffect.healingType() != null) {
-            globalEnchantBonusPercent = player.getGlobalEnchantHealingBonusPercent(coreEffect.healingType());
-        }
-        currentPotency *= (1.0 + (globalEnchantBonusPercent / 100.0));
-
-        for (EnchantInstance enchant : spell.appliedEnchants()) {
-             if (enchant.baseEnchant().targetKey() != null &&
-                 enchant.baseEnchant().targetKey().equals(EnchantTargetParameter.THIS_SPELL_POTENCY.name())) {
-                if (enchant.baseEnchant().effectType() == EnchantEffectType.SPELL_CORE_VALUE_ADD_FLAT) {
-                    currentPotency += enchant.finalRolledValue();
-                } else if (enchant.baseEnchant().effectType() == EnchantEffectType.SPELL_CORE_VALUE_ADD_PERCENT) {
-                    currentPotency *= (1.0 + (enchant.finalRolledValue() / 100.0));
-                }
-            }
-        }
-        int roundedPotency = (int) Math.round(Math.max(0, currentPotency));
-        int finalDamageToApply = roundedPotency;
-
-        if (coreEffect.type() == CoreEffectType.DAMAGE && dealsDoubleDamageToShields && target.getCurrentShield() > 0) {
-            System.out.println("("+ template.name() + " deals double damage vs shields!)");
-            finalDamageToApply *= 2;
-        }
-
-        switch (coreEffect.type()) {
-            case DAMAGE:
-                System.out.println("  Calculated damage for " + template.name() + ": " + finalDamageToApply);
-                target.takeDamage(finalDamageToApply, coreEffect.damageType(), ignoresArmor, ignoresShield, attackerAccuracy);
-                if (target.isAlive() && inherentProps != null && inherentProps.onHitEffect() != null && !inherentProps.onHitEffect().isEmpty()) {
-                    applyInherentOnHitEffect(inherentProps.onHitEffect(), target);
-                }
-                break;
-            case HEALING:
-                player.applyHealing(roundedPotency);
-                break;
-            case SHIELD_APPLICATION:
-                player.applyShield(roundedPotency);
-                break;
-            case APPLY_DOT:
-                if (target instanceof Enemy) {
-                    ((Enemy) target).applyPoisonDamagePerSecond(roundedPotency);
-                    System.out.println("Applied " + roundedPotency + " " + coreEffect.dotType() + " DPS to " + target.getName());
-                }
                 break;
-            default:
-                System.out.println("Player spell effect type " + coreEffect.type() + " not fully implemented.");
+            case PLAYER_LOST:
+                finishRecording();
+                currentGameState = GameState.PLAYER_LOST_ENCOUNTER;
                 break;
-        }
-    }
-
-    private void applyInherentOnHitEffect(String onHitEffectKey, Combatant<?> target) {
-        System.out.println("GameManager: Applying on-hit effect: " + onHitEffectKey + " to " + target.getName());
-        String[] parts = onHitEffectKey.toUpperCase().split("_");
-        int amount = 1;
-        for(String part : parts) {
-            try {
-                amount = Integer.parseInt(part);
+            case ONGOING:
                 break;
-            } catch (NumberFormatException e) { /* ignore */ }
         }
-
-        if (onHitEffectKey.contains("REDUCE_ENEMY_ARMOR")) {
-			target.modifyTemporaryArmor(-amount);
-		} else if (onHitEffectKey.contains("REDUCE_ENEMY_ACCURACY")) {
-			target.modifyTemporaryAccuracy(-amount);
-		} else if (onHitEffectKey.contains("REDUCE_ENEMY_DODGE")) {
-			target.modifyTemporaryDodge(-amount);
-		} else if (onHitEffectKey.contains("REDUCE_ENEMY_REGEN")) {
-			target.modifyTemporaryRegenPerSecond(-amount);
-		}
-    }
-
-    private void applyEnemySpellEffects(EnemySpellData spell, Combatant<?> target) {
-        target.takeDamage(spell.getDamage(), null, spell.isArmorPiercing(), spell.isShieldPiercing(), currentEnemy.getEffectiveAccuracy());
     }
 
     private void handlePlayerWonEncounter() {
         System.out.println(currentEnemy.getName() + " Defeated on Floor " + currentFloor + "!");
 
         PlayerSpell droppedSpell = spellGenerator.generateSpellDrop(currentFloor);
-        if (droppedSpell != null) {
+        if (droppedSpell != null && lootFilter.shouldSalvage(droppedSpell)) {
+            int apGained = player.salvageSpell(droppedSpell);
+            salvagedDrops++;
+            salvagedAP += apGained;
+            System.out.println("Loot Salvaged: " + droppedSpell.getName() + " for " + apGained + " AP. Total AP: " + player.getAttributePoints());
+        } else if (droppedSpell != null) {
             player.addSpellToInventory(droppedSpell);
             System.out.println("Loot Gained: " + droppedSpell.getName() + " (AP: " + droppedSpell.finalAPCost() + ")");
         } else {
@@ -293,6 +192,7 @@ public class GameManager {
 
         if (player.getCombatMode() == Player.CombatMode.ADVANCE) {
             currentFloor++;
+            progressListener().floorChanged(currentFloor);
             System.out.println("Advancing to Floor " + currentFloor + ".");
             if (currentFloor > MAX_FLOOR) {
                 System.out.println("Congratulations! You have cleared all " + MAX_FLOOR + " available floors!");
@@ -312,12 +212,14 @@ public class GameManager {
             player.setCombatMode(Player.CombatMode.FARMING);
         }
         currentFloor = Math.max(1, currentFloor - 1);
+        progressListener().floorChanged(currentFloor);
         System.out.println("Dropped to Floor " + currentFloor + ".");
         currentGameState = GameState.STARTING_NEW_FLOOR;
     }
 
     private void prepareForNextEncounterAndBattle() {
         System.out.println("Preparing encounter on Floor " + currentFloor + "...");
+        applyPendingDefinitions();
         player.resetCombatState();
 
         if (!loadEnemyForCurrentFloor()) {
@@ -326,11 +228,85 @@ public class GameManager {
             return;
         }
         currentEnemy.resetCombatState();
+        combatLog.flush();
 
         System.out.println("Starting battle on Floor " + currentFloor + " in " + player.getCombatMode() + " mode against " + currentEnemy.getName() + "!");
+        combatEngine = new CombatEngine(player, currentEnemy, combatLog);
+        startRecording();
         currentGameState = GameState.AUTO_BATTLING;
         this.lastUpdateTimeNanos = System.nanoTime();
-        this.timeAccumulatorForSecondTick = 0;
+    }
+
+    /** Reloaded definitions waiting for the next encounter; null where a kind was not reloaded. */
+    private record PendingDefinitions(List<BaseSpellTemplate> spellTemplates, List<BaseEnchant> enchants, List<Enemy> enemies) {
+        PendingDefinitions then(PendingDefinitions newer) {
+            return new PendingDefinitions(newer.spellTemplates != null ? newer.spellTemplates : spellTemplates,
+                                          newer.enchants != null ? newer.enchants : enchants,
+                                          newer.enemies != null ? newer.enemies : enemies);
+        }
+    }
+
+    /**
+     * Queues reloaded definitions. They replace the current ones together, before the next encounter is
+     * prepared, so no encounter sees a mix of old and new. Safe to call from any thread.
+     * Spells already generated keep the templates and enchants they were rolled from.
+     * @param spellTemplates The new templates, or null to keep the current ones; likewise for the others.
+     */
+    public void queueDefinitions(List<BaseSpellTemplate> spellTemplates, List<BaseEnchant> enchants, List<Enemy> enemies) {
+        PendingDefinitions reloaded = new PendingDefinitions(spellTemplates, enchants, enemies);
+        pendingDefinitions.accumulateAndGet(reloaded, (queued, newer) -> queued == null ? newer : queued.then(newer));
+    }
+
+    private void applyPendingDefinitions() {
+        PendingDefinitions pending = pendingDefinitions.getAndSet(null);
+        if (pending == null) {
+            return;
+        }
+        if (pending.spellTemplates() != null) {
+            spellGenerator.replaceBaseSpellTemplates(pending.spellTemplates());
+        }
+        if (pending.enchants() != null) {
+            spellGenerator.replaceBaseEnchants(pending.enchants());
+        }
+        if (pending.enemies() != null) {
+            enemyLoader.replaceEnemies(pending.enemies());
+        }
+        System.out.println("Reloaded definitions take effect from this encounter.");
+    }
+
+    private void startRecording() {
+        if (recordingDirectory == null) {
+            return;
+        }
+        recordedEncounters++;
+        Path file = recordingDirectory.resolve("encounter-" + System.currentTimeMillis() + "-f" + currentFloor
+                                               + "-" + recordedEncounters + CombatJournal.FILE_EXTENSION);
+        CombatJournal journal = CombatJournal.create(file, currentFloor, player.getName(), currentEnemy.getName());
+        if (journal != null) {
+            combatLog.setJournal(journal);
+            System.out.println("Recording encounter to " + file);
+        }
+    }
+
+    // Flushes the combat log and closes the encounter's journal, if one is being written
+    private void finishRecording() {
+        combatLog.flush();
+        CombatJournal journal = combatLog.setJournal(null);
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Turns encounter recording on or off. Takes effect from the next encounter.
+     * @param directory Directory each encounter's journal is written to, or null to stop recording.
+     */
+    public void setRecordingDirectory(Path directory) {
+        this.recordingDirectory = directory;
+    }
+
+    public Path getRecordingDirectory() {
+        return recordingDirectory;
     }
 
     private boolean loadEnemyForCurrentFloor() {
@@ -339,6 +315,8 @@ public class GameManager {
             System.err.println("GameManager: No enemy definition found for floor " + currentFloor);
             return false;
         }
+        currentEnemy.setRandom(combatRandom.split());
+        currentEnemy.setCombatLog(combatLog);
         return true;
     }
 
@@ -361,6 +339,7 @@ public class GameManager {
 
     public void requestPauseBattle() {
         if (currentGameState == GameState.AUTO_BATTLING) {
+            finishRecording();
             currentGameState = GameState.MANAGEMENT_PAUSED;
             System.out.println("Battle paused. Entering management mode.");
             System.out.println("Current Floor: " + currentFloor + ". Enemy: " + (currentEnemy != null ? currentEnemy.getName() : "None"));
@@ -369,9 +348,362 @@ public class GameManager {
         }
     }
 
+    /**
+     * Runs headless fights of the player's current loadout against a floor,
+     * seeded from the session's simulation stream, so simulating never changes later live fights.
+     * @param floor The floor to simulate.
+     * @param runs Number of independent encounters.
+     * @return The simulation report, or null if the floor or run count is invalid.
+     */
+    public SimulationReport simulateFloor(int floor, int runs) {
+        return simulateFloor(floor, runs, simulationRandom.nextLong());
+    }
+
+    /**
+     * Runs headless fights of the player's current loadout against a floor.
+     * The same seed and loadout always produce the same report.
+     * @param floor The floor to simulate.
+     * @param runs Number of independent encounters.
+     * @param seed Seed for the simulation's random streams.
+     * @return The simulation report, or null if the floor or run count is invalid.
+     */
+    public SimulationReport simulateFloor(int floor, int runs, long seed) {
+        return monteCarloSimulator.simulate(player, enemyLoader, floor, runs, seed);
+    }
+
+    /**
+     * Searches the player's inventory for the loadouts estimated to do best against a floor.
+     * @param floor The floor to optimize for.
+     * @param topK How many loadouts to return.
+     * @param objective What the loadouts are ranked by.
+     * @return The report, or null if the floor or topK is invalid.
+     */
+    public LoadoutOptimizationReport optimizeLoadout(int floor, int topK, LoadoutOptimizer.Objective objective) {
+        return loadoutOptimizer.optimize(player, enemyLoader, floor, topK, objective);
+    }
+
+    /**
+     * Equips a loadout from an optimization report, emptying any slot it leaves unused.
+     * Fails without changing anything if the inventory changed since the report was made.
+     * @param loadout The loadout to equip.
+     * @return true if every spell was equipped.
+     */
+    public boolean applyLoadout(OptimizedLoadout loadout) {
+        if (!matchesInventory(loadout.activeSpells(), loadout.activeInventoryIndices()) ||
+            !matchesInventory(loadout.passiveSpells(), loadout.passiveInventoryIndices())) {
+            System.err.println("GameManager: Inventory changed since the loadout was optimized. Run optimize again.");
+            return false;
+        }
+        for (int slot = 0; slot < Player.NUM_ACTIVE_SPELL_SLOTS; slot++) {
+            if (player.getActiveSpells()[slot] != null) {
+                player.unequipSpell(slot, true);
+            }
+        }
+        for (int slot = 0; slot < Player.NUM_PASSIVE_SPELL_SLOTS; slot++) {
+            if (player.getPassiveSpells()[slot] != null) {
+                player.unequipSpell(slot, false);
+            }
+        }
+        boolean equipped = true;
+        for (int slot = 0; slot < loadout.activeInventoryIndices().size(); slot++) {
+            equipped &= player.equipSpell(loadout.activeInventoryIndices().get(slot), slot, true);
+        }
+        for (int slot = 0; slot < loadout.passiveInventoryIndices().size(); slot++) {
+            equipped &= player.equipSpell(loadout.passiveInventoryIndices().get(slot), slot, false);
+        }
+        return equipped;
+    }
+
+    private boolean matchesInventory(List<PlayerSpell> spells, List<Integer> inventoryIndices) {
+        for (int i = 0; i < spells.size(); i++) {
+            PlayerSpell current = player.getInventory().getSpell(inventoryIndices.get(i));
+            if (current == null || !current.equals(spells.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plans how to spend the player's AP on attributes for the equipped loadout against a floor.
+     * @param floor The floor to plan against.
+     * @param goal What to optimize.
+     * @param targetTimeToDieSeconds SURVIVAL target in seconds, or 0 for the planner's default.
+     * @return The plan, or null if the floor has no enemy or no active spell is equipped.
+     */
+    public UpgradePlan planUpgrades(int floor, UpgradePlanner.Goal goal, double targetTimeToDieSeconds) {
+        Enemy enemy = enemyLoader.getEnemyForFloor(floor);
+        if (enemy == null) {
+            System.err.println("GameManager: No enemy definition found for floor " + floor);
+            return null;
+        }
+        return upgradePlanner.plan(player, enemy, floor, goal, targetTimeToDieSeconds);
+    }
+
+    /**
+     * Buys every point of an upgrade plan in one batch.
+     * @return true if the plan was applied.
+     */
+    public boolean applyUpgradePlan(UpgradePlan plan) {
+        if (plan.points().isEmpty()) {
+            System.out.println("The plan has no points to buy.");
+            return false;
+        }
+        return player.spendAPForAttributes(plan.points());
+    }
+
+    /**
+     * Credits the encounters fought since a saved session, as if the sorcerer had kept battling
+     * on its floor in its combat mode, and moves to the floor the walk ended on. Clearing the last
+     * floor ends the game.
+     * Only allowed from the management/paused state.
+     * @param session The session saved when the game last ran.
+     * @param nowEpochMillis The current wall-clock time.
+     * @return The report, or null if nothing could be credited.
+     */
+    public OfflineProgressReport applyOfflineProgress(SessionState session, long nowEpochMillis) {
+        if (currentGameState != GameState.MANAGEMENT_PAUSED) {
+            System.err.println("GameManager: Offline progress can only be applied from management/paused state.");
+            return null;
+        }
+        double elapsedSeconds = (nowEpochMillis - session.lastSeenEpochMillis()) / 1000.0;
+        if (elapsedSeconds <= 0) {
+            return null; // Clock moved backwards, or no time passed
+        }
+        player.setCombatMode(session.combatMode());
+        OfflineProgressReport report = offlineProgressCalculator.catchUp(
+                player, enemyLoader, spellGenerator, lootFilter,
+                Math.max(1, Math.min(MAX_FLOOR, session.floor())), MAX_FLOOR, elapsedSeconds, combatRandom.split());
+        if (report == null) {
+            return null;
+        }
+        salvagedDrops += report.spellsSalvaged();
+        salvagedAP += report.apGained();
+        currentFloor = report.endFloor();
+        progressListener().floorChanged(currentFloor);
+        if (report.clearedAllFloors()) {
+            currentGameState = GameState.GAME_OVER; // As handlePlayerWonEncounter() does after the last floor
+            return report;
+        }
+        if (loadEnemyForCurrentFloor()) {
+            currentEnemy.resetCombatState();
+        }
+        player.resetCombatState();
+        return report;
+    }
+
+    /**
+     * @return The session to save so the next run can credit offline progress from now.
+     */
+    public SessionState createSessionState(long nowEpochMillis) {
+        return new SessionState(nowEpochMillis, currentFloor, player.getCombatMode());
+    }
+
+    /**
+     * Saves the game. Encounters in progress are not saved.
+     * @param file The save file.
+     * @param compress Whether to deflate the save.
+     * @return true if the save was written.
+     */
+    public boolean saveGame(Path file, boolean compress) {
+        PlayerSpell[] active = player.getActiveSpells();
+        PlayerSpell[] passive = player.getPassiveSpells();
+        int[] activeSlots = new int[active.length];
+        int[] passiveSlots = new int[passive.length];
+        for (int slot = 0; slot < active.length; slot++) {
+            activeSlots[slot] = player.getInventory().indexOf(active[slot]);
+        }
+        for (int slot = 0; slot < passive.length; slot++) {
+            passiveSlots[slot] = player.getInventory().indexOf(passive[slot]);
+        }
+        Map<PrimaryAttributeType, Integer> attributes = new EnumMap<>(PrimaryAttributeType.class);
+        for (PrimaryAttributeType type : PrimaryAttributeType.values()) {
+            if (type != PrimaryAttributeType.NONE) {
+                attributes.put(type, player.getStats().getPrimaryAttributeValue(type));
+            }
+        }
+        GameSnapshot snapshot = new GameSnapshot(currentFloor, currentGameState, player.getCombatMode(),
+                                                 player.getAttributePoints(), attributes,
+                                                 player.getInventory().getAllSpells(), activeSlots, passiveSlots,
+                                                 lootFilter.getDefaultAction(), lootFilter.getRuleDescriptions());
+        return snapshot.write(file, compress, new SnapshotDefinitions());
+    }
+
+    /**
+     * Loads a saved game into the current player, replacing their progress.
+     * Only allowed from the management/paused state; the game stays paused on the saved floor.
+     * @param file The save file.
+     * @return true if the save was loaded; false (with nothing changed) otherwise.
+     */
+    public boolean loadGame(Path file) {
+        if (currentGameState != GameState.MANAGEMENT_PAUSED) {
+            System.err.println("GameManager: A game can only be loaded from management/paused state.");
+            return false;
+        }
+        SnapshotDefinitions definitions = new SnapshotDefinitions();
+        GameSnapshot snapshot = GameSnapshot.read(file, definitions);
+        if (snapshot == null) {
+            return false;
+        }
+        Integer checksum = GameSnapshot.readChecksum(file);
+        if (checksum != null) {
+            snapshot = ProgressJournal.replay(ProgressJournal.fileFor(file), snapshot, checksum, definitions);
+        }
+        player.restoreProgress(snapshot);
+        lootFilter.restoreRules(snapshot.lootDefaultAction(), snapshot.lootRules()); // Before any drop, including offline ones
+        currentFloor = Math.max(1, Math.min(MAX_FLOOR, snapshot.floor()));
+        currentEnemy = null; // The saved floor's enemy is loaded when the next battle starts
+        combatLog.flush();
+        if (snapshot.gameState() == GameState.GAME_OVER) {
+            currentGameState = GameState.GAME_OVER;
+        }
+        if (progressJournal != null) {
+            checkpoint(); // The journal continues from the progress just replaced
+        }
+        return true;
+    }
+
+    /**
+     * Saves the game and from then on journals every change to it in the save's ProgressJournal,
+     * so a crash loses at most the last second or so of progress. The session file is stamped
+     * as often as the journal flushes, so the next run only credits the time after a crash as offline.
+     * @param saveFile The save file to keep up to date.
+     * @param sessionFile The session file to keep stamped.
+     * @return true if the journal was started.
+     */
+    public boolean startJournal(Path saveFile, Path sessionFile) {
+        closeJournal();
+        if (!saveGame(saveFile, true)) {
+            return false;
+        }
+        Integer checksum = GameSnapshot.readChecksum(saveFile);
+        if (checksum == null) {
+            System.err.println("GameManager: Could not read back " + saveFile + " to start its journal.");
+            return false;
+        }
+        progressJournal = ProgressJournal.open(ProgressJournal.fileFor(saveFile), checksum, new SnapshotDefinitions(), this::checkpoint);
+        if (progressJournal == null) {
+            return false;
+        }
+        journaledSaveFile = saveFile;
+        journaledSessionFile = sessionFile;
+        player.setProgressListener(progressJournal);
+        lootFilter.setProgressListener(progressJournal);
+        stampSession();
+        return true;
+    }
+
+    /**
+     * Compacts the journal: writes a full save and empties the journal.
+     * If the save fails, the journal keeps growing so nothing is lost.
+     * @return true if the save was written.
+     */
+    public boolean checkpoint() {
+        if (progressJournal == null) {
+            return false;
+        }
+        if (!saveGame(journaledSaveFile, true)) {
+            return false;
+        }
+        Integer checksum = GameSnapshot.readChecksum(journaledSaveFile);
+        if (checksum == null) {
+            return false;
+        }
+        progressJournal.reset(checksum);
+        stampSession();
+        return true;
+    }
+
+    /**
+     * Compacts the journal once it has grown past ProgressJournal.COMPACTION_BYTES, and stamps
+     * the session file once every ProgressJournal.FLUSH_INTERVAL_MILLIS.
+     */
+    public void checkpointIfDue() {
+        if (progressJournal == null) {
+            return;
+        }
+        if (progressJournal.isCompactionDue()) {
+            checkpoint();
+        } else if (System.currentTimeMillis() - sessionStampedAtMillis >= ProgressJournal.FLUSH_INTERVAL_MILLIS) {
+            stampSession();
+        }
+    }
+
+    private void stampSession() {
+        sessionStampedAtMillis = System.currentTimeMillis();
+        createSessionState(sessionStampedAtMillis).save(journaledSessionFile);
+    }
+
+    /** Flushes and closes the journal, if one is running. Does not write a full save. */
+    public void closeJournal() {
+        if (progressJournal == null) {
+            return;
+        }
+        player.setProgressListener(null);
+        lootFilter.setProgressListener(null);
+        progressJournal.close();
+        progressJournal = null;
+        journaledSaveFile = null;
+        journaledSessionFile = null;
+    }
+
+    public boolean isJournaling() { return progressJournal != null; }
+
+    private ProgressListener progressListener() {
+        return progressJournal != null ? progressJournal : ProgressListener.NONE;
+    }
+
+    /** Resolves save-file ids against the spell generator's definitions and the built-in starting spells. */
+    private class SnapshotDefinitions implements GameSnapshot.Definitions {
+        private Map<String, BaseSpellTemplate> templatesById; // Built on the first lookup; writing a save never needs them
+        private Map<String, BaseEnchant> enchantsById;
+
+        private void indexDefinitions() {
+            if (templatesById != null) {
+                return;
+            }
+            templatesById = new HashMap<>();
+            enchantsById = new HashMap<>();
+            for (BaseSpellTemplate template : spellGenerator.getLoadedBaseSpellTemplates()) {
+                templatesById.putIfAbsent(template.id(), template);
+            }
+            for (BaseEnchant enchant : spellGenerator.getLoadedBaseEnchants()) {
+                enchantsById.putIfAbsent(enchant.enchantID(), enchant);
+            }
+        }
+
+        @Override
+        public boolean isStartingTemplate(BaseSpellTemplate template) {
+            return template.equals(startingTemplate(template.id()));
+        }
+
+        @Override
+        public BaseSpellTemplate findTemplate(String id, boolean startingTemplate) {
+            if (startingTemplate) {
+                return startingTemplate(id);
+            }
+            indexDefinitions();
+            return templatesById.get(id);
+        }
+
+        @Override
+        public BaseEnchant findEnchant(String id) {
+            indexDefinitions();
+            return enchantsById.get(id);
+        }
+
+        private BaseSpellTemplate startingTemplate(String id) {
+            return id.equalsIgnoreCase("base_singe") || id.equalsIgnoreCase("base_minor_heal") ? findBaseSpellById(id) : null;
+        }
+    }
+
     public GameState getCurrentGameState() { return currentGameState; }
     public int getCurrentFloor() { return currentFloor; }
     public Enemy getCurrentEnemy() { return currentEnemy; }
+    public CombatLog getCombatLog() { return combatLog; }
+    public LootFilter getLootFilter() { return lootFilter; }
+    public int getSalvagedDrops() { return salvagedDrops; }
+    public long getSalvagedAP() { return salvagedAP; }
     public boolean isGameRunning() { return currentGameState != GameState.GAME_OVER; }
 
     private void addStartingSpellsToPlayer(Player player) {
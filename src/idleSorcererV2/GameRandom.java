@@ -0,0 +1,75 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The single source of randomness for combat and loot.
+ * A session is created from one seed and every consumer (player, enemies, spell drops,
+ * simulation workers) receives its own stream via split(), so no stream is ever shared
+ * between threads and a whole session can be replayed from its seed.
+ * Not thread-safe: give each thread its own split.
+ */
+public class GameRandom implements RandomGenerator {
+
+    private final SplittableRandom random;
+    private final long seed;
+
+    /**
+     * Creates a stream from an explicit seed. The same seed always produces the same sequence.
+     * @param seed The seed.
+     */
+    public GameRandom(long seed) {
+        this.random = new SplittableRandom(seed);
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a stream from a fresh, unpredictable seed.
+     */
+    public GameRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    private GameRandom(SplittableRandom random, long seed) {
+        this.random = random;
+        this.seed = seed;
+    }
+
+    /**
+     * Splits off an independent stream. The child's sequence is fully determined by this
+     * stream's state, so splitting in a fixed order keeps runs reproducible.
+     * @return A new GameRandom that shares no state with this one.
+     */
+    public GameRandom split() {
+        SplittableRandom child = random.split();
+        return new GameRandom(child, seed);
+    }
+
+    /**
+     * @return The seed of the session this stream was created or split from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+}
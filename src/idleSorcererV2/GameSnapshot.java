@@ -0,0 +1,335 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.GameState;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * A saved game: the player's progress, inventory and equipped slots, the floor and the loot rules.
+ * Combat state (HP, cooldowns, the encounter in progress) is not saved; a loaded game
+ * starts its next encounter fresh.
+ *
+ * Layout: a header (magic, version, flags, body length, body CRC32) followed by the body,
+ * deflated when the COMPRESSED flag is set. The body is encoded with SaveCodec: varints,
+ * spells referring to templates and enchants by id once and by a small index afterwards.
+ * On load the ids are resolved against the loaded definitions, so definitions are never
+ * copied into a save.
+ */
+public record GameSnapshot(
+    int floor,
+    GameState gameState,
+    Player.CombatMode combatMode,
+    int attributePoints,
+    Map<PrimaryAttributeType, Integer> attributes, // Every attribute except NONE
+    List<PlayerSpell> inventory,                    // In inventory order
+    int[] activeSlots,                              // Inventory index per active slot, -1 if empty
+    int[] passiveSlots,                             // Inventory index per passive slot, -1 if empty
+    LootFilter.Action lootDefaultAction,
+    List<String> lootRules                          // As listed by LootFilter.getRuleDescriptions()
+) {
+
+    /**
+     * Resolves the ids in a save to the definitions currently loaded.
+     * Starting spells are built by GameManager rather than loaded, and may share an id with a
+     * loaded template, so they are told apart and resolved separately.
+     */
+    public interface Definitions {
+        boolean isStartingTemplate(BaseSpellTemplate template);
+        /** @return The template, or null if no such definition is loaded. */
+        BaseSpellTemplate findTemplate(String id, boolean startingTemplate);
+        /** @return The enchant, or null if no such definition is loaded. */
+        BaseEnchant findEnchant(String id);
+    }
+
+    public static final String FILE_EXTENSION = ".issv";
+    public static final String DEFAULT_FILE_NAME = "idle_sorcerer" + FILE_EXTENSION;
+
+    private static final int MAGIC = 0x49535356; // "ISSV"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_LOOT_RULES = 1;
+    private static final byte FLAG_COMPRESSED = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 4 + 4;
+    private static final int IO_BUFFER_BYTES = 64 * 1024;
+
+    private static final PrimaryAttributeType[] ATTRIBUTE_TYPES = PrimaryAttributeType.values();
+
+    /**
+     * Writes this snapshot through a FileChannel, replacing the file only once the new save is complete.
+     * @param file The save file.
+     * @param compress Whether to deflate the body.
+     * @param definitions Tells starting-spell templates apart from loaded ones.
+     * @return true if the save was written.
+     */
+    public boolean write(Path file, boolean compress, Definitions definitions) {
+        SaveCodec.Writer body = new SaveCodec.Writer(Math.max(1024, inventory.size() * 16));
+        body.putVarint(floor);
+        body.putString(gameState.name());
+        body.putString(combatMode.name());
+        body.putVarint(attributePoints);
+        for (PrimaryAttributeType type : ATTRIBUTE_TYPES) {
+            if (type != PrimaryAttributeType.NONE) {
+                body.putVarint(attributes.getOrDefault(type, 0));
+            }
+        }
+        body.putVarint(inventory.size());
+        for (PlayerSpell spell : inventory) {
+            body.putSpell(spell, definitions);
+        }
+        putSlots(body, activeSlots);
+        putSlots(body, passiveSlots);
+        body.putString(lootDefaultAction.name());
+        body.putVarint(lootRules.size());
+        for (String rule : lootRules) {
+            body.putString(rule);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(body.bytes(), 0, body.size());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put(VERSION).put(compress ? FLAG_COMPRESSED : 0).putInt(body.size()).putInt((int) crc.getValue());
+        header.flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(channel, header);
+                if (compress) {
+                    writeDeflated(channel, body);
+                } else {
+                    writeFully(channel, ByteBuffer.wrap(body.bytes(), 0, body.size()));
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("GameSnapshot Error: Could not write " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reads a save file written by write().
+     * @param file The save file.
+     * @param definitions Resolves template and enchant ids to the loaded definitions.
+     * @return The snapshot, or null if the file is missing, corrupt or refers to unknown definitions.
+     */
+    public static GameSnapshot read(Path file, Definitions definitions) {
+        byte[] bodyBytes;
+        byte version;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                System.err.println("GameSnapshot Error: " + file + " is not a save file.");
+                return null;
+            }
+            version = header.get();
+            if (version != VERSION && version != VERSION_WITHOUT_LOOT_RULES) {
+                System.err.println("GameSnapshot Error: Unsupported save version " + version + " in " + file);
+                return null;
+            }
+            boolean compressed = (header.get() & FLAG_COMPRESSED) != 0;
+            int bodyLength = header.getInt();
+            int expectedCrc = header.getInt();
+            if (bodyLength < 0 || (!compressed && bodyLength > channel.size() - HEADER_BYTES)) {
+                System.err.println("GameSnapshot Error: Corrupt header in " + file);
+                return null;
+            }
+
+            if (compressed) {
+                bodyBytes = inflate(channel, bodyLength);
+            } else {
+                bodyBytes = new byte[bodyLength];
+                readFully(channel, ByteBuffer.wrap(bodyBytes));
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bodyBytes, 0, bodyBytes.length);
+            if ((int) crc.getValue() != expectedCrc) {
+                System.err.println("GameSnapshot Error: Checksum mismatch in " + file + ". The save is corrupt.");
+                return null;
+            }
+        } catch (IOException | DataFormatException e) {
+            System.err.println("GameSnapshot Error: Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        try {
+            return parse(new SaveCodec.Reader(bodyBytes), version, definitions);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("GameSnapshot Error: Malformed save " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads only the header of a save file.
+     * @return The CRC32 of the save's body, or null if the file is missing or not a save file.
+     */
+    public static Integer readChecksum(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                return null;
+            }
+            return header.getInt(HEADER_BYTES - 4);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static GameSnapshot parse(SaveCodec.Reader body, byte version, Definitions definitions) {
+        int floor = body.getVarint();
+        GameState gameState = GameState.valueOf(body.getString());
+        Player.CombatMode combatMode = Player.CombatMode.valueOf(body.getString());
+        int attributePoints = body.getVarint();
+        Map<PrimaryAttributeType, Integer> attributes = new EnumMap<>(PrimaryAttributeType.class);
+        for (PrimaryAttributeType type : ATTRIBUTE_TYPES) {
+            if (type != PrimaryAttributeType.NONE) {
+                attributes.put(type, body.getVarint());
+            }
+        }
+
+        int spellCount = body.getVarint();
+        List<PlayerSpell> inventory = new ArrayList<>(Math.min(spellCount, body.remaining()));
+        for (int i = 0; i < spellCount; i++) {
+            inventory.add(body.getSpell(definitions));
+        }
+        int[] activeSlots = getSlots(body, Player.NUM_ACTIVE_SPELL_SLOTS, spellCount);
+        int[] passiveSlots = getSlots(body, Player.NUM_PASSIVE_SPELL_SLOTS, spellCount);
+
+        LootFilter.Action lootDefaultAction = LootFilter.Action.KEEP; // Saves from before loot rules were saved keep every drop
+        List<String> lootRules = new ArrayList<>();
+        if (version != VERSION_WITHOUT_LOOT_RULES) {
+            lootDefaultAction = LootFilter.Action.valueOf(body.getString());
+            int ruleCount = body.getVarint();
+            for (int i = 0; i < ruleCount; i++) {
+                lootRules.add(body.getString());
+            }
+        }
+        return new GameSnapshot(floor, gameState, combatMode, attributePoints, Collections.unmodifiableMap(attributes),
+                                inventory, activeSlots, passiveSlots, lootDefaultAction, Collections.unmodifiableList(lootRules));
+    }
+
+    // Slots are written as index + 1 so an empty slot is a single zero byte
+    private static void putSlots(SaveCodec.Writer body, int[] slots) {
+        body.putVarint(slots.length);
+        for (int inventoryIndex : slots) {
+            body.putVarint(inventoryIndex + 1);
+        }
+    }
+
+    private static int[] getSlots(SaveCodec.Reader body, int slotCount, int spellCount) {
+        int saved = body.getVarint();
+        int[] slots = new int[slotCount];
+        Arrays.fill(slots, -1);
+        for (int slot = 0; slot < saved; slot++) {
+            int inventoryIndex = body.getVarint() - 1;
+            if (inventoryIndex >= spellCount) {
+                throw new IllegalArgumentException("slot " + slot + " refers to missing inventory index " + inventoryIndex);
+            }
+            if (slot < slotCount) {
+                slots[slot] = inventoryIndex;
+            }
+        }
+        return slots;
+    }
+
+    private static void writeDeflated(FileChannel channel, SaveCodec.Writer body) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(body.bytes(), 0, body.size());
+            deflater.finish();
+            byte[] chunk = new byte[IO_BUFFER_BYTES];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                writeFully(channel, ByteBuffer.wrap(chunk, 0, length));
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates a compressed body of the given length. The header's length is not trusted for the
+     * allocation: the buffer starts small and grows only as inflated data arrives.
+     */
+    private static byte[] inflate(FileChannel channel, int length) throws IOException, DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            ByteBuffer chunk = ByteBuffer.allocate(IO_BUFFER_BYTES);
+            byte[] target = new byte[Math.min(length, IO_BUFFER_BYTES)];
+            int produced = 0;
+            while (!inflater.finished()) {
+                if (produced == target.length && target.length < length) {
+                    target = Arrays.copyOf(target, (int) Math.min(length, 2L * target.length));
+                }
+                if (inflater.needsInput()) {
+                    chunk.clear();
+                    if (channel.read(chunk) < 0) {
+                        throw new IOException("Save file ends before its compressed body does.");
+                    }
+                    chunk.flip();
+                    inflater.setInput(chunk.array(), 0, chunk.limit());
+                }
+                int inflated = inflater.inflate(target, produced, target.length - produced);
+                produced += inflated;
+                if (inflated == 0 && produced == length && !inflater.finished()) {
+                    throw new DataFormatException("Compressed body is longer than the header says.");
+                }
+            }
+            if (produced != length) {
+                throw new DataFormatException("Compressed body is shorter than the header says.");
+            }
+            return target;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Save file is truncated.");
+            }
+        }
+    }
+}
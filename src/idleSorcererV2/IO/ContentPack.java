@@ -0,0 +1,633 @@
+package idleSorcererV2.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32C;
+
+import idleSorcererV2.Enemy;
+import idleSorcererV2.EnemySpellData;
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.CoreEffectData;
+import idleSorcererV2.data.CooldownRangeData;
+import idleSorcererV2.data.InherentPropertiesData;
+import idleSorcererV2.data.OnHitEffect;
+import idleSorvererV2.enums.CoreEffectType;
+import idleSorvererV2.enums.DamageType;
+import idleSorvererV2.enums.EnchantEffectType;
+import idleSorvererV2.enums.HealingType;
+import idleSorvererV2.enums.OnHitStat;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * The spell templates, enchants and enemies compiled from their definition files into one binary
+ * file, so a launch maps it instead of parsing the files again.
+ *
+ * Layout: a header (magic, version, enum checksum, source checksum, each source's size and
+ * last-modified time, then offset and count of each section),
+ * fixed-width records for spell templates, enchants, enemies and enemy spells, and a table of the
+ * distinct strings they refer to by index. Enums are stored as ordinals, -1 for null.
+ *
+ * The file is memory-mapped and records are decoded on first access, so opening a pack costs the
+ * same however much content it holds. A launch only compares the sources' sizes and last-modified
+ * times, and the enum constants, with the header; the sources are read only when those differ. If
+ * their bytes still match the source checksum (e.g. a file was touched but not changed), the header's
+ * times are updated in place; otherwise the pack is stale and is compiled again.
+ */
+public final class ContentPack {
+
+    /** The definition files a pack is compiled from, as paths in the resources folder. */
+    public record Sources(String spellTemplates, String enchants, String enemies) {
+        public static final Sources DEFAULT = new Sources("/player_base_spells.txt", "/base_enchants.txt", EnemyLoader.DEFAULT_FILE);
+    }
+
+    /**
+     * A section of the pack as an immutable list; each record is decoded once, when first read.
+     * RecordReader.indexResource() uses it the same way for the records of a text file.
+     * Lookups may come from several threads (e.g. the Monte Carlo simulator's parallel stream), so
+     * every record is published through an AtomicReferenceArray and the first decode wins: all
+     * threads see one fully built instance per index, which identity-keyed maps rely on.
+     */
+    public static final class Section<E> extends AbstractList<E> implements RandomAccess {
+        private final IntFunction<E> decoder;
+        private final AtomicReferenceArray<E> decoded;
+
+        Section(int size, IntFunction<E> decoder) {
+            this.decoder = decoder;
+            this.decoded = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public E get(int index) {
+            E record = decoded.get(index);
+            if (record == null) {
+                E fresh = decoder.apply(index);
+                E winner = decoded.compareAndExchange(index, null, fresh);
+                record = winner != null ? winner : fresh; // Another thread may have decoded it first
+            }
+            return record;
+        }
+
+        @Override
+        public int size() {
+            return decoded.length();
+        }
+    }
+
+    public static final String FILE_EXTENSION = ".ispk";
+    public static final String DEFAULT_FILE_NAME = "idle_sorcerer_content" + FILE_EXTENSION;
+
+    private static final int MAGIC = 0x4953504B; // "ISPK"
+    private static final int VERSION = 2;
+
+    private static final int SPELLS = 0;
+    private static final int ENCHANTS = 1;
+    private static final int ENEMIES = 2;
+    private static final int ENEMY_SPELLS = 3;
+    private static final int STRINGS = 4;
+    private static final int SECTION_COUNT = 5;
+    private static final int SOURCE_COUNT = 3;
+    private static final int STAMPS_AT = 4 + 4 + 4 + 4; // Each source's size and last-modified time follow the checksums
+    private static final int HEADER_BYTES = STAMPS_AT + SOURCE_COUNT * 16 + SECTION_COUNT * 8;
+
+    // Record widths; strings are 4-byte indexes into the string table, enums 1-byte ordinals
+    private static final int SPELL_BYTES = 4 + 4 + 1 + 1 + 8 + 1 + 1 + 4 + 1 + 8 + 8 + 4 + 1 + 4 + 8;
+    private static final int ENCHANT_BYTES = 4 + 4 + 1 + 4 + 8 + 8;
+    private static final int ENEMY_BYTES = 4 + 4 + 6 * 4 + 4 + 4;
+    private static final int ENEMY_SPELL_BYTES = 4 + 4 + 8 + 1 + 1;
+    private static final int[] RECORD_BYTES = { SPELL_BYTES, ENCHANT_BYTES, ENEMY_BYTES, ENEMY_SPELL_BYTES };
+
+    private static final int NO_STRING = -1;
+
+    // Spell template flags
+    private static final int DEALS_NO_INITIAL_DAMAGE = 1;
+    private static final int CORE_STACKING = 1 << 1;
+    private static final int DOUBLE_DAMAGE_TO_SHIELDS = 1 << 2;
+    private static final int IGNORES_ARMOR = 1 << 3;
+    private static final int IGNORES_SHIELD = 1 << 4;
+    private static final int ALWAYS_HITS = 1 << 5;
+    private static final int ON_HIT_STACKING = 1 << 6;
+
+    private static final PrimaryAttributeType[] ATTRIBUTE_TYPES = PrimaryAttributeType.values();
+    private static final CoreEffectType[] CORE_EFFECT_TYPES = CoreEffectType.values();
+    private static final DamageType[] DAMAGE_TYPES = DamageType.values();
+    private static final HealingType[] HEALING_TYPES = HealingType.values();
+    private static final OnHitStat[] ON_HIT_STATS = OnHitStat.values();
+    private static final EnchantEffectType[] ENCHANT_EFFECT_TYPES = EnchantEffectType.values();
+    private static final List<Enum<?>[]> STORED_ENUMS = List.of(ATTRIBUTE_TYPES, CORE_EFFECT_TYPES, DAMAGE_TYPES,
+                                                                 HEALING_TYPES, ON_HIT_STATS, ENCHANT_EFFECT_TYPES);
+    private static final int ENUM_CHECKSUM = enumChecksum();
+
+    private final ByteBuffer pack;
+    private final int[] sectionOffsets;
+    private final int stringCount;
+    private final String[] strings; // Decoded on first use, so equal strings share one instance
+    private final Section<BaseSpellTemplate> spellTemplates;
+    private final Section<BaseEnchant> enchants;
+    private final Section<Enemy> enemies;
+
+    private ContentPack(ByteBuffer pack, int[] sectionOffsets, int[] sectionCounts) {
+        this.pack = pack;
+        this.sectionOffsets = sectionOffsets;
+        this.stringCount = sectionCounts[STRINGS];
+        this.strings = new String[stringCount];
+        this.spellTemplates = new Section<>(sectionCounts[SPELLS], this::decodeSpellTemplate);
+        this.enchants = new Section<>(sectionCounts[ENCHANTS], this::decodeEnchant);
+        this.enemies = new Section<>(sectionCounts[ENEMIES], this::decodeEnemy);
+    }
+
+    public List<BaseSpellTemplate> spellTemplates() { return spellTemplates; }
+    public List<BaseEnchant> enchants() { return enchants; }
+    public List<Enemy> enemies() { return enemies; }
+
+    /**
+     * Opens the pack for the sources, compiling it first if it is missing or stale.
+     * @return The pack, or null if a source is missing or the pack could not be written or read;
+     *         the caller then loads the definition files directly.
+     */
+    public static ContentPack load(Path file, Sources sources) {
+        long[] stamps = sourceStamps(sources);
+        if (stamps == null) {
+            return null;
+        }
+        ContentPack pack = open(file, sources, stamps);
+        if (pack == null && compile(file, sources, stamps)) {
+            pack = open(file, sources, stamps);
+        }
+        return pack;
+    }
+
+    /**
+     * Parses the sources and writes them as a pack, replacing the file only once the new pack is complete.
+     * Problems in the sources are reported as the loaders report them.
+     * @return true if the pack was written.
+     */
+    public static boolean compile(Path file, Sources sources) {
+        long[] stamps = sourceStamps(sources);
+        return stamps != null && compile(file, sources, stamps);
+    }
+
+    // The stamps are taken before the sources are read, so a source edited during the compile looks changed next launch
+    private static boolean compile(Path file, Sources sources, long[] stamps) {
+        Integer checksum = sourceChecksum(sources);
+        if (checksum == null) {
+            return false;
+        }
+        // The three files are independent, so they are parsed concurrently
+        CompletableFuture<List<BaseSpellTemplate>> templatesRead = CompletableFuture.supplyAsync(
+                () -> RecordReader.readResource(sources.spellTemplates(), BaseSpellTemplate.schema(), "BaseSpellTemplate Loader"));
+        CompletableFuture<List<BaseEnchant>> enchantsRead = CompletableFuture.supplyAsync(
+                () -> RecordReader.readResource(sources.enchants(), BaseEnchant.schema(), "BaseEnchant Loader"));
+        List<Enemy> enemies = RecordReader.readResource(sources.enemies(), EnemyLoader.schema(), "EnemyLoader");
+        List<BaseSpellTemplate> templates = templatesRead.join();
+        List<BaseEnchant> enchants = enchantsRead.join();
+
+        Writer writer = new Writer(checksum, stamps, templates.size(), enchants.size(), enemies);
+        for (BaseSpellTemplate template : templates) {
+            writer.putSpellTemplate(template);
+        }
+        for (BaseEnchant enchant : enchants) {
+            writer.putEnchant(enchant);
+        }
+        for (Enemy enemy : enemies) {
+            writer.putEnemy(enemy);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (ByteBuffer buffer : writer.finish()) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("ContentPack Error: Could not write " + file + ": " + e.getMessage());
+            return false;
+        }
+        System.out.println("ContentPack: Compiled " + templates.size() + " spell templates, " + enchants.size()
+                           + " enchants and " + enemies.size() + " enemy types into " + file);
+        return true;
+    }
+
+    /**
+     * Maps the pack if it exists and was compiled from the sources as they are now.
+     * @param stamps sourceStamps() of the sources.
+     * @return The pack, or null if it is missing, stale or malformed.
+     */
+    private static ContentPack open(Path file, Sources sources, long[] stamps) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // Check the header before mapping, so a stale pack is never mapped and can be replaced
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                System.err.println("ContentPack Warning: " + file + " is not a content pack. Compiling it again.");
+                return null;
+            }
+            if (header.getInt() != VERSION || header.getInt() != ENUM_CHECKSUM) {
+                return null; // Written by another version of the game
+            }
+            int checksum = header.getInt();
+            boolean stampsMatch = true;
+            for (long stamp : stamps) {
+                stampsMatch &= header.getLong() == stamp;
+            }
+            if (!stampsMatch) {
+                Integer current = sourceChecksum(sources);
+                if (current == null || current != checksum) {
+                    return null; // Compiled from other sources
+                }
+                refreshStamps(file, stamps); // Same bytes, new times: no need to compile
+            }
+            int[] offsets = new int[SECTION_COUNT];
+            int[] counts = new int[SECTION_COUNT];
+            for (int section = 0; section < SECTION_COUNT; section++) {
+                offsets[section] = header.getInt();
+                counts[section] = header.getInt();
+            }
+            if (!sectionsFit(offsets, counts, size)) {
+                System.err.println("ContentPack Warning: " + file + " is truncated or corrupt. Compiling it again.");
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new ContentPack(mapped, offsets, counts);
+        } catch (IOException e) {
+            System.err.println("ContentPack Warning: Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Records the sources' current times in the header, so the next launch does not read them again. */
+    private static void refreshStamps(Path file, long[] stamps) {
+        ByteBuffer refreshed = ByteBuffer.allocate(stamps.length * 8);
+        for (long stamp : stamps) {
+            refreshed.putLong(stamp);
+        }
+        refreshed.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (refreshed.hasRemaining()) {
+                channel.write(refreshed, STAMPS_AT + refreshed.position());
+            }
+        } catch (IOException e) {
+            System.err.println("ContentPack Warning: Could not update " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean sectionsFit(int[] offsets, int[] counts, long size) {
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            long bytes = section == STRINGS ? (counts[section] + 1L) * 4 : (long) counts[section] * RECORD_BYTES[section];
+            if (counts[section] < 0 || offsets[section] < HEADER_BYTES || offsets[section] + bytes > size) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** CRC32C of the stored enums' constants, whose ordinals the records hold. */
+    private static int enumChecksum() {
+        CRC32C crc = new CRC32C();
+        for (Enum<?>[] constants : STORED_ENUMS) {
+            for (Enum<?> constant : constants) {
+                updateChecksum(crc, constant.name());
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Each source's size and last-modified time, read from the file system without opening the file
+     * (or from the jar entry when the resources are packaged).
+     * @return size and time for each source in turn, or null if a source is missing.
+     */
+    private static long[] sourceStamps(Sources sources) {
+        List<String> paths = sourcePaths(sources);
+        long[] stamps = new long[paths.size() * 2];
+        for (int i = 0; i < paths.size(); i++) {
+            String source = paths.get(i);
+            URL url = ContentPack.class.getResource(source);
+            if (url == null) {
+                System.err.println("ContentPack Error: Cannot find file: " + source);
+                return null;
+            }
+            try {
+                if (url.getProtocol().equals("file")) {
+                    Path path = Path.of(url.toURI());
+                    stamps[i * 2] = Files.size(path);
+                    stamps[i * 2 + 1] = Files.getLastModifiedTime(path).toMillis();
+                } else {
+                    URLConnection connection = url.openConnection();
+                    connection.setUseCaches(false);
+                    stamps[i * 2] = connection.getContentLengthLong();
+                    stamps[i * 2 + 1] = connection.getLastModified();
+                    connection.getInputStream().close(); // Releases the jar the entry was looked up in
+                }
+            } catch (IOException | URISyntaxException e) {
+                System.err.println("ContentPack Error: Failed to read file: " + source + ": " + e.getMessage());
+                return null;
+            }
+        }
+        return stamps;
+    }
+
+    private static List<String> sourcePaths(Sources sources) {
+        return List.of(sources.spellTemplates(), sources.enchants(), sources.enemies());
+    }
+
+    /**
+     * CRC32C of each source's path and bytes. Reads every source, so it is only computed when compiling
+     * or when the sources' times no longer match the pack's.
+     * @return The checksum, or null if a source cannot be read.
+     */
+    private static Integer sourceChecksum(Sources sources) {
+        CRC32C crc = new CRC32C();
+        byte[] chunk = new byte[8192];
+        for (String source : sourcePaths(sources)) {
+            updateChecksum(crc, source);
+            try (InputStream inputStream = ContentPack.class.getResourceAsStream(source)) {
+                if (inputStream == null) {
+                    System.err.println("ContentPack Error: Cannot find file: " + source);
+                    return null;
+                }
+                int read;
+                while ((read = inputStream.read(chunk)) > 0) {
+                    crc.update(chunk, 0, read);
+                }
+            } catch (IOException e) {
+                System.err.println("ContentPack Error: Failed to read file: " + source + ": " + e.getMessage());
+                return null;
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private static void updateChecksum(CRC32C crc, String value) {
+        crc.update(value.getBytes(StandardCharsets.UTF_8));
+        crc.update(0); // Separator, so "ab" + "c" differs from "a" + "bc"
+    }
+
+    // --- Decoding ---
+
+    private BaseSpellTemplate decodeSpellTemplate(int index) {
+        int at = sectionOffsets[SPELLS] + index * SPELL_BYTES;
+        String id = string(pack.getInt(at));
+        String name = string(pack.getInt(at + 4));
+        PrimaryAttributeType scalingAttribute = constant(ATTRIBUTE_TYPES, pack.get(at + 8));
+        CoreEffectType coreType = constant(CORE_EFFECT_TYPES, pack.get(at + 9));
+        double coreBaseValue = pack.getDouble(at + 10);
+        DamageType coreDamageType = constant(DAMAGE_TYPES, pack.get(at + 18));
+        HealingType coreHealingType = constant(HEALING_TYPES, pack.get(at + 19));
+        String coreDotType = string(pack.getInt(at + 20));
+        int flags = pack.get(at + 24);
+        double cooldownMin = pack.getDouble(at + 25);
+        double cooldownMax = pack.getDouble(at + 33);
+        int accuracyBonus = pack.getInt(at + 41);
+        OnHitStat onHitStat = constant(ON_HIT_STATS, pack.get(at + 45));
+        OnHitEffect onHitEffect = onHitStat == null ? null
+                : new OnHitEffect(onHitStat, pack.getInt(at + 46), (flags & ON_HIT_STACKING) != 0, pack.getDouble(at + 50));
+
+        return new BaseSpellTemplate(id, name, scalingAttribute,
+                                     new CoreEffectData(coreType, coreBaseValue, coreDamageType, coreHealingType, coreDotType,
+                                                        (flags & DEALS_NO_INITIAL_DAMAGE) != 0, (flags & CORE_STACKING) != 0),
+                                     new CooldownRangeData(cooldownMin, cooldownMax),
+                                     new InherentPropertiesData((flags & DOUBLE_DAMAGE_TO_SHIELDS) != 0, (flags & IGNORES_ARMOR) != 0,
+                                                                (flags & IGNORES_SHIELD) != 0, (flags & ALWAYS_HITS) != 0,
+                                                                accuracyBonus, onHitEffect));
+    }
+
+    private BaseEnchant decodeEnchant(int index) {
+        int at = sectionOffsets[ENCHANTS] + index * ENCHANT_BYTES;
+        return new BaseEnchant(string(pack.getInt(at)), string(pack.getInt(at + 4)),
+                               constant(ENCHANT_EFFECT_TYPES, pack.get(at + 8)), string(pack.getInt(at + 9)),
+                               pack.getDouble(at + 13), pack.getDouble(at + 21));
+    }
+
+    private Enemy decodeEnemy(int index) {
+        int at = sectionOffsets[ENEMIES] + index * ENEMY_BYTES;
+        int firstSpell = pack.getInt(at + 32);
+        int spellCount = pack.getInt(at + 36);
+        List<EnemySpellData> spells = new ArrayList<>(spellCount);
+        for (int i = 0; i < spellCount; i++) {
+            spells.add(decodeEnemySpell(firstSpell + i));
+        }
+        return new Enemy(string(pack.getInt(at)), string(pack.getInt(at + 4)), pack.getInt(at + 8), pack.getInt(at + 12),
+                         pack.getInt(at + 16), pack.getInt(at + 20), pack.getInt(at + 24), pack.getInt(at + 28), spells);
+    }
+
+    private EnemySpellData decodeEnemySpell(int index) {
+        int at = sectionOffsets[ENEMY_SPELLS] + index * ENEMY_SPELL_BYTES;
+        int flags = pack.get(at + 17);
+        return new EnemySpellData(string(pack.getInt(at)), pack.getInt(at + 4), pack.getDouble(at + 8),
+                                  constant(DAMAGE_TYPES, pack.get(at + 16)),
+                                  (flags & IGNORES_ARMOR) != 0, (flags & IGNORES_SHIELD) != 0, (flags & ALWAYS_HITS) != 0);
+    }
+
+    private String string(int index) {
+        if (index == NO_STRING) {
+            return null;
+        }
+        String value = strings[index];
+        if (value == null) {
+            // The table holds count + 1 offsets into the bytes that follow it; string i spans [offset i, offset i+1)
+            int table = sectionOffsets[STRINGS];
+            int bytesStart = table + (stringCount + 1) * 4;
+            int start = pack.getInt(table + index * 4);
+            int end = pack.getInt(table + (index + 1) * 4);
+            if (start < 0 || end < start || bytesStart + end > pack.limit()) {
+                throw new IllegalStateException("Corrupt content pack: string " + index + " is out of bounds");
+            }
+            byte[] bytes = new byte[end - start];
+            pack.get(bytesStart + start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    private static <E> E constant(E[] constants, byte ordinal) {
+        return ordinal < 0 ? null : constants[ordinal];
+    }
+
+    // --- Encoding ---
+
+    /** Lays the records out after the header as they are added, interning their strings for the table written last. */
+    private static final class Writer {
+        private final ByteBuffer records;
+        private final int[] offsets = new int[SECTION_COUNT];
+        private final int[] counts = new int[SECTION_COUNT];
+        private final int[] positions = new int[SECTION_COUNT - 1]; // Next record's offset per record section
+        private final Map<String, Integer> stringIndexes = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+
+        Writer(int checksum, long[] stamps, int templateCount, int enchantCount, List<Enemy> enemies) {
+            counts[SPELLS] = templateCount;
+            counts[ENCHANTS] = enchantCount;
+            counts[ENEMIES] = enemies.size();
+            for (Enemy enemy : enemies) {
+                counts[ENEMY_SPELLS] += enemy.getDefinedSpells().size();
+            }
+            int offset = HEADER_BYTES;
+            for (int section = 0; section < STRINGS; section++) {
+                offsets[section] = offset;
+                positions[section] = offset;
+                offset += counts[section] * RECORD_BYTES[section];
+            }
+            offsets[STRINGS] = offset;
+            records = ByteBuffer.allocate(offset);
+            records.putInt(MAGIC).putInt(VERSION).putInt(ENUM_CHECKSUM).putInt(checksum);
+            for (long stamp : stamps) {
+                records.putLong(stamp);
+            }
+        }
+
+        void putSpellTemplate(BaseSpellTemplate template) {
+            CoreEffectData core = template.coreEffect();
+            InherentPropertiesData inherent = template.inherentProperties();
+            OnHitEffect onHit = inherent.onHitEffect();
+            int flags = (core.dealsNoInitialDamage() ? DEALS_NO_INITIAL_DAMAGE : 0)
+                        | (core.stacking() ? CORE_STACKING : 0)
+                        | (inherent.dealsDoubleDamageToShields() ? DOUBLE_DAMAGE_TO_SHIELDS : 0)
+                        | (inherent.ignoresArmor() ? IGNORES_ARMOR : 0)
+                        | (inherent.ignoresShield() ? IGNORES_SHIELD : 0)
+                        | (inherent.alwaysHits() ? ALWAYS_HITS : 0)
+                        | (onHit != null && onHit.stacking() ? ON_HIT_STACKING : 0);
+            start(SPELLS);
+            records.putInt(intern(template.id())).putInt(intern(template.name()))
+                   .put(ordinal(template.scalingAttribute()))
+                   .put(ordinal(core.type())).putDouble(core.baseValue())
+                   .put(ordinal(core.damageType())).put(ordinal(core.healingType()))
+                   .putInt(intern(core.dotType()))
+                   .put((byte) flags)
+                   .putDouble(template.cooldownRange().minSeconds()).putDouble(template.cooldownRange().maxSeconds())
+                   .putInt(inherent.accuracyBonus())
+                   .put(ordinal(onHit == null ? null : onHit.targetStat()))
+                   .putInt(onHit == null ? 0 : onHit.amount())
+                   .putDouble(onHit == null ? 0 : onHit.durationSeconds());
+            end(SPELLS);
+        }
+
+        void putEnchant(BaseEnchant enchant) {
+            start(ENCHANTS);
+            records.putInt(intern(enchant.enchantID())).putInt(intern(enchant.descriptionTemplate()))
+                   .put(ordinal(enchant.effectType())).putInt(intern(enchant.targetKey()))
+                   .putDouble(enchant.trueBaseValue()).putDouble(enchant.maxTotalValueAtFloor50());
+            end(ENCHANTS);
+        }
+
+        void putEnemy(Enemy enemy) {
+            List<EnemySpellData> spells = enemy.getDefinedSpells();
+            int firstSpell = (positions[ENEMY_SPELLS] - offsets[ENEMY_SPELLS]) / ENEMY_SPELL_BYTES;
+            for (EnemySpellData spell : spells) {
+                start(ENEMY_SPELLS);
+                records.putInt(intern(spell.getName())).putInt(spell.getDamage()).putDouble(spell.getCooldownSeconds())
+                       .put(ordinal(spell.getDamageType()))
+                       .put((byte) ((spell.isArmorPiercing() ? IGNORES_ARMOR : 0) | (spell.isShieldPiercing() ? IGNORES_SHIELD : 0)
+                                    | (spell.isAlwaysHits() ? ALWAYS_HITS : 0)));
+                end(ENEMY_SPELLS);
+            }
+            start(ENEMIES);
+            // The template's current shield is its initial shield, as EnemyLoader.getEnemyForFloor relies on
+            records.putInt(intern(enemy.getId())).putInt(intern(enemy.getName())).putInt(enemy.getMaxHP())
+                   .putInt(enemy.getBaseAccuracy()).putInt(enemy.getBaseDodge()).putInt(enemy.getBaseArmor())
+                   .putInt(enemy.getCurrentShield()).putInt(enemy.getBaseRegenPerSecond())
+                   .putInt(firstSpell).putInt(spells.size());
+            end(ENEMIES);
+        }
+
+        /** @return The header and records, then the string table. */
+        ByteBuffer[] finish() {
+            counts[STRINGS] = strings.size();
+            records.position(STAMPS_AT + SOURCE_COUNT * 16);
+            for (int section = 0; section < SECTION_COUNT; section++) {
+                records.putInt(offsets[section]).putInt(counts[section]);
+            }
+            records.position(0);
+
+            int bytes = 0;
+            for (byte[] string : strings) {
+                bytes += string.length;
+            }
+            ByteBuffer table = ByteBuffer.allocate((strings.size() + 1) * 4 + bytes);
+            int offset = 0;
+            table.putInt(offset);
+            for (byte[] string : strings) {
+                offset += string.length;
+                table.putInt(offset);
+            }
+            for (byte[] string : strings) {
+                table.put(string);
+            }
+            table.flip();
+            return new ByteBuffer[] { records, table };
+        }
+
+        private void start(int section) {
+            records.position(positions[section]);
+        }
+
+        private void end(int section) {
+            positions[section] += RECORD_BYTES[section];
+            if (records.position() != positions[section]) {
+                throw new IllegalStateException("Record of section " + section + " does not match its width");
+            }
+        }
+
+        private int intern(String value) {
+            if (value == null) {
+                return NO_STRING;
+            }
+            return stringIndexes.computeIfAbsent(value, v -> {
+                strings.add(v.getBytes(StandardCharsets.UTF_8));
+                return strings.size() - 1;
+            });
+        }
+
+        private static byte ordinal(Enum<?> constant) {
+            return (byte) (constant == null ? -1 : constant.ordinal());
+        }
+    }
+
+    /**
+     * Compiles the default definition files into a pack ahead of time.
+     * Usage: java idleSorcererV2.IO.ContentPack [pack file]
+     */
+    public static void main(String[] args) {
+        Path file = Path.of(args.length > 0 ? args[0] : DEFAULT_FILE_NAME);
+        if (!compile(file, Sources.DEFAULT)) {
+            System.exit(1);
+        }
+    }
+}
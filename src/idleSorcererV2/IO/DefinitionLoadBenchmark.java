@@ -0,0 +1,100 @@
+package idleSorcererV2.IO;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.BaseSpellTemplate;
+
+/**
+ * Times the TXT and JSON definition loaders on the bundled files, to decide which format the game loads.
+ * The files are read into memory first, so only parsing and building is measured.
+ *
+ * Usage: java idleSorcererV2.IO.DefinitionLoadBenchmark [copies] [iterations]
+ *   copies      Repeats each file's records this many times, to stand in for large modded content (default 1).
+ *   iterations  Timed loads per file, after as many warm-up loads (default 200).
+ */
+public final class DefinitionLoadBenchmark {
+
+    private record Definitions(String name, RecordSchema<?, ?> schema) { }
+
+    private static final List<Definitions> FILES = List.of(
+        new Definitions("/player_base_spells", BaseSpellTemplate.schema()),
+        new Definitions("/base_enchants", BaseEnchant.schema()),
+        new Definitions("/enemies", EnemyLoader.schema()));
+
+    private DefinitionLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.out.printf("%-22s %-5s %9s %12s %14s%n", "File", "Format", "Records", "Median ms", "Records/ms");
+        for (Definitions definitions : FILES) {
+            for (String extension : new String[] { ".txt", RecordReader.JSON_EXTENSION }) {
+                String source = definitions.name() + extension;
+                char[] content = repeat(readResource(source), copies, extension.equals(RecordReader.JSON_EXTENSION));
+                int records = load(content, source, definitions.schema()); // Reports any problems in the file once
+                double[] millis = new double[iterations];
+                PrintStream err = System.err;
+                System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+                try {
+                    for (int i = 0; i < iterations * 2; i++) {
+                        long start = System.nanoTime();
+                        load(content, source, definitions.schema());
+                        if (i >= iterations) {
+                            millis[i - iterations] = (System.nanoTime() - start) / 1e6;
+                        }
+                    }
+                } finally {
+                    System.setErr(err);
+                }
+                Arrays.sort(millis);
+                double median = millis[iterations / 2];
+                System.out.printf("%-22s %-5s %9d %12.3f %14.1f%n", definitions.name(), extension.substring(1), records,
+                                  median, records / median);
+            }
+        }
+    }
+
+    private static int load(char[] content, String source, RecordSchema<?, ?> schema) throws IOException {
+        return RecordReader.read(new CharArrayReader(content), source, schema, "DefinitionLoadBenchmark").size();
+    }
+
+    private static String readResource(String path) throws IOException {
+        try (InputStream inputStream = DefinitionLoadBenchmark.class.getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new IOException("Cannot find " + path);
+            }
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Concatenates the records of several copies: TXT copies are separated by "---", JSON arrays are merged
+    private static char[] repeat(String content, int copies, boolean json) {
+        if (copies <= 1) {
+            return content.toCharArray();
+        }
+        StringBuilder repeated = new StringBuilder(content.length() * copies);
+        if (json) {
+            String records = content.substring(content.indexOf('[') + 1, content.lastIndexOf(']'));
+            repeated.append('[');
+            for (int i = 0; i < copies; i++) {
+                repeated.append(i == 0 ? "" : ",").append(records);
+            }
+            repeated.append(']');
+        } else {
+            for (int i = 0; i < copies; i++) {
+                repeated.append(content).append("\n---\n");
+            }
+        }
+        return repeated.toString().toCharArray();
+    }
+}
@@ -0,0 +1,185 @@
+package idleSorcererV2.IO;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import idleSorcererV2.Enemy;
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.BaseSpellTemplate;
+
+/**
+ * Watches the definition files in the resources folder and re-parses a file on its own thread
+ * whenever it changes, so definitions can be tuned while the game runs. Only the changed file is
+ * parsed; the new definitions are handed to a Listener as immutable lists.
+ *
+ * Only works when the resources folder is a directory on the classpath, not inside a jar.
+ */
+public final class DefinitionWatcher implements AutoCloseable {
+
+    /** Receives reloaded definitions on the watcher's thread. Definitions that did not change are null. */
+    public interface Listener {
+        void definitionsReloaded(List<BaseSpellTemplate> spellTemplates, List<BaseEnchant> enchants, List<Enemy> enemies);
+    }
+
+    private enum Kind { SPELL_TEMPLATES, ENCHANTS, ENEMIES }
+
+    // Editors often save in several writes; changes are collected until the folder has been quiet this long
+    private static final long SETTLE_MILLIS = 200;
+
+    private final WatchService watchService;
+    private final ContentPack.Sources sources;
+    private final Map<Path, Kind> kindsByFile;
+    private final Listener listener;
+
+    private DefinitionWatcher(WatchService watchService, ContentPack.Sources sources, Map<Path, Kind> kindsByFile, Listener listener) {
+        this.watchService = watchService;
+        this.sources = sources;
+        this.kindsByFile = kindsByFile;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching the source files on a daemon thread.
+     * @return The watcher, or null if the files are not in a directory that can be watched.
+     */
+    public static DefinitionWatcher start(ContentPack.Sources sources, Listener listener) {
+        Map<Path, Kind> kindsByFile = new HashMap<>();
+        try {
+            kindsByFile.put(resourceFile(sources.spellTemplates()), Kind.SPELL_TEMPLATES);
+            kindsByFile.put(resourceFile(sources.enchants()), Kind.ENCHANTS);
+            kindsByFile.put(resourceFile(sources.enemies()), Kind.ENEMIES);
+        } catch (IllegalArgumentException e) {
+            System.err.println("DefinitionWatcher Error: " + e.getMessage());
+            return null;
+        }
+
+        WatchService watchService = null;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>();
+            for (Path file : kindsByFile.keySet()) {
+                if (directories.add(file.getParent())) {
+                    // Editors that save by writing a new file and renaming it over the old one report a create
+                    file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("DefinitionWatcher Error: Could not watch the definition files: " + e.getMessage());
+            closeQuietly(watchService);
+            return null;
+        }
+
+        DefinitionWatcher watcher = new DefinitionWatcher(watchService, sources, kindsByFile, listener);
+        Thread thread = new Thread(watcher::run, "definition-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    /** Stops watching. A reload already being parsed is still delivered. */
+    @Override
+    public void close() {
+        closeQuietly(watchService);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Set<Kind> changed = EnumSet.noneOf(Kind.class);
+                collectChanges(watchService.take(), changed);
+                WatchKey key;
+                while ((key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collectChanges(key, changed);
+                }
+                if (!changed.isEmpty()) {
+                    reload(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // Closed; the thread ends
+        }
+    }
+
+    private void collectChanges(WatchKey key, Set<Kind> changed) {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.addAll(EnumSet.allOf(Kind.class)); // Events were lost; reload everything to be safe
+                continue;
+            }
+            Kind kind = kindsByFile.get(directory.resolve((Path) event.context()));
+            if (kind != null) {
+                changed.add(kind);
+            }
+        }
+        key.reset();
+    }
+
+    private void reload(Set<Kind> changed) {
+        List<BaseSpellTemplate> spellTemplates = null;
+        List<BaseEnchant> enchants = null;
+        List<Enemy> enemies = null;
+        if (changed.contains(Kind.SPELL_TEMPLATES)) {
+            spellTemplates = keepIfLoaded(BaseSpellTemplate.loadBaseSpellTemplatesFromFile(sources.spellTemplates()), sources.spellTemplates());
+        }
+        if (changed.contains(Kind.ENCHANTS)) {
+            enchants = keepIfLoaded(BaseEnchant.loadBaseEnchantsFromFile(sources.enchants()), sources.enchants());
+        }
+        if (changed.contains(Kind.ENEMIES)) {
+            enemies = keepIfLoaded(EnemyLoader.loadEnemiesFromFile(sources.enemies()), sources.enemies());
+        }
+        if (spellTemplates != null || enchants != null || enemies != null) {
+            listener.definitionsReloaded(spellTemplates, enchants, enemies);
+        }
+    }
+
+    // An empty result is usually a file caught mid-save or broken by an edit; the game keeps what it has
+    private static <T> List<T> keepIfLoaded(List<T> definitions, String source) {
+        if (definitions.isEmpty()) {
+            System.err.println("DefinitionWatcher Warning: No definitions loaded from " + source + ". Keeping the current ones.");
+            return null;
+        }
+        return List.copyOf(definitions);
+    }
+
+    private static Path resourceFile(String pathInResources) {
+        URL url = DefinitionWatcher.class.getResource(pathInResources);
+        if (url == null) {
+            throw new IllegalArgumentException("Cannot find file: " + pathInResources);
+        }
+        if (!url.getProtocol().equals("file")) {
+            throw new IllegalArgumentException(pathInResources + " is not in a directory that can be watched (" + url + ")");
+        }
+        try {
+            return Path.of(url.toURI()).toAbsolutePath();
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Cannot locate " + url + ": " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(WatchService watchService) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("DefinitionWatcher Warning: Could not close the watch service: " + e.getMessage());
+        }
+    }
+}
@@ -1,12 +1,9 @@
 package idleSorcererV2.IO;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import idleSorcererV2.Enemy;
 import idleSorcererV2.EnemySpellData;
@@ -16,149 +13,174 @@ import idleSorvererV2.enums.DamageType;
 
 public class EnemyLoader {
 
-    private List<Enemy> loadedEnemies; // Stores the "template" Enemy objects
+    public static final String DEFAULT_FILE = "/enemies.txt";
+
+    private final Supplier<List<Enemy>> source; // Reads or waits for the enemies; called once, on first access
+    private volatile List<Enemy> loadedEnemies;  // Stores the "template" Enemy objects; null until first access
 
     /**
      * Constructor for EnemyLoader.
-     * Attempts to load enemies from the default path upon instantiation.
+     * Enemies are loaded from the default path on first access.
      */
     public EnemyLoader() {
-        this.loadedEnemies = new ArrayList<>();
+        this(DEFAULT_FILE);
+    }
+
+    /**
+     * @param filePathInResources The enemy file to index on first access, TXT or JSON by extension (e.g., "/enemies.json").
+     */
+    public EnemyLoader(String filePathInResources) {
         // Path relative to the resources folder (which should be on the classpath)
-        loadEnemiesFromTxtFile("/enemies.txt");
+        this(() -> indexEnemiesFromFile(filePathInResources));
     }
 
     /**
-     * Loads enemy definitions from a TXT file located in the classpath.
-     * @param filePathInResources The path to the TXT file (e.g., "/enemies.txt").
+     * @param enemies Enemy templates loaded elsewhere (e.g., from a ContentPack), in floor order.
+     *                The list is used as is, so a lazily decoded list stays lazy.
      */
-    private void loadEnemiesFromTxtFile(String filePathInResources) {
-        try (InputStream inputStream = EnemyLoader.class.getResourceAsStream(filePathInResources);
-             InputStreamReader streamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-             BufferedReader reader = new BufferedReader(streamReader)) {
-
-            if (inputStream == null) {
-                System.err.println("EnemyLoader Error: Cannot find enemy file: " + filePathInResources);
-                return;
-            }
+    public EnemyLoader(List<Enemy> enemies) {
+        this(() -> enemies);
+    }
 
-            String line;
-            // Temporary variables to build up current enemy
-            String currentId = null;
-            String currentName = null;
-            int currentMaxHP = 0;
-            int currentBaseAccuracy = 0;
-            int currentBaseDodge = 0;
-            int currentArmor = 0;
-            int currentInitialShield = 0;
-            int currentRegenPerSecond = 0;
-            List<EnemySpellData> currentSpells = new ArrayList<>();
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) { // Skip empty lines and comments
-                    continue;
-                }
+    /**
+     * @param enemies Enemy templates being loaded in the background, in floor order.
+     *                The first access waits for them.
+     */
+    public EnemyLoader(CompletableFuture<List<Enemy>> enemies) {
+        this(enemies::join);
+    }
 
-                if (line.equals("---")) { // End of an enemy block
-                    if (currentId != null && currentName != null) { // Check if we have valid data to add
-                        loadedEnemies.add(new Enemy(currentId, currentName, currentMaxHP, currentBaseAccuracy,
-                                                    currentBaseDodge, currentArmor, currentInitialShield,
-                                                    currentRegenPerSecond, new ArrayList<>(currentSpells))); // Add a copy of spells
-                        // Reset for next enemy
-                        currentId = null;
-                        currentName = null;
-                        currentSpells.clear();
-                    }
-                    continue;
-                }
+    private EnemyLoader(Supplier<List<Enemy>> source) {
+        this.source = source;
+    }
 
-                String[] parts = line.split(":", 2); // Split by the first colon
-                if (parts.length < 2) {
-                    System.err.println("EnemyLoader Warning: Malformed line (missing colon): " + line);
-                    continue;
-                }
-                String key = parts[0].trim();
-                String value = parts[1].trim();
-
-                switch (key) {
-                    case "id":
-                        currentId = value;
-                        break;
-                    case "name":
-                        currentName = value;
-                        break;
-                    case "maxHP":
-                        currentMaxHP = Integer.parseInt(value);
-                        break;
-                    case "baseAccuracy":
-                        currentBaseAccuracy = Integer.parseInt(value);
-                        break;
-                    case "baseDodge":
-                        currentBaseDodge = Integer.parseInt(value);
-                        break;
-                    case "armor":
-                        currentArmor = Integer.parseInt(value);
-                        break;
-                    case "initialShield":
-                        currentInitialShield = Integer.parseInt(value);
-                        break;
-                    case "regenPerSecond":
-                        currentRegenPerSecond = Integer.parseInt(value);
-                        break;
-                    case "spell":
-                        String[] spellParts = value.split(",");
-                        if (spellParts.length == 5) {
-                            String spellName = spellParts[0].trim();
-                            int spellDamage = Integer.parseInt(spellParts[1].trim());
-                            double spellCooldown = Double.parseDouble(spellParts[2].trim());
-                            boolean ignoresArmor = Boolean.parseBoolean(spellParts[3].trim());
-                            boolean ignoresShield = Boolean.parseBoolean(spellParts[4].trim());
-
-                            // Enemy spells don't use DamageType for their own attacks based on our last discussion
-                            DamageType spellDamageType = null;
-                            // Assuming EnemySpellData constructor: name, damage, cooldown, damageType, ignoresArmor, ignoresShield, alwaysHits
-                            currentSpells.add(new EnemySpellData(spellName, spellDamage, spellCooldown,
-                                                                 spellDamageType, ignoresArmor, ignoresShield, false /*alwaysHits placeholder*/));
-                        } else {
-                            System.err.println("EnemyLoader Warning: Malformed spell line: " + value);
-                        }
-                        break;
-                    default:
-                        System.err.println("EnemyLoader Warning: Unknown key '" + key + "' in line: " + line);
-                        break;
+    private static final class Builder {
+        String id;
+        String name;
+        int maxHP;
+        int baseAccuracy;
+        int baseDodge;
+        int armor;
+        int initialShield;
+        int regenPerSecond;
+        final List<EnemySpellData> spells = new ArrayList<>();
+
+        Enemy build() {
+            return new Enemy(id, name, maxHP, baseAccuracy, baseDodge, armor, initialShield, regenPerSecond, spells);
+        }
+    }
+
+    private static final class SpellBuilder {
+        String name;
+        int damage;
+        double cooldownSeconds;
+        DamageType damageType;
+        boolean ignoresArmor;
+        boolean ignoresShield;
+
+        EnemySpellData build() {
+            return new EnemySpellData(name, damage, cooldownSeconds, damageType, ignoresArmor, ignoresShield, false /*alwaysHits placeholder*/);
+        }
+    }
+
+    // Enemy spells as JSON objects; the text format packs them into one "spell" line instead
+    private static final RecordSchema<SpellBuilder, EnemySpellData> SPELL_SCHEMA = RecordSchema.of(SpellBuilder::new, SpellBuilder::build)
+        .text("name", (b, v) -> b.name = v)
+        .integer("damage", (b, v) -> b.damage = v)
+        .decimal("cooldownSeconds", (b, v) -> b.cooldownSeconds = v)
+        .enumeration("damageType", DamageType.class, (b, v) -> b.damageType = v)
+        .bool("ignoresArmor", (b, v) -> b.ignoresArmor = v)
+        .bool("ignoresShield", (b, v) -> b.ignoresShield = v)
+        .required("name", "damage", "cooldownSeconds");
+
+    private static final RecordSchema<Builder, Enemy> SCHEMA = RecordSchema.of(Builder::new, Builder::build)
+        .text("id", (b, v) -> b.id = v)
+        .text("name", (b, v) -> b.name = v)
+        .integer("maxHP", (b, v) -> b.maxHP = v)
+        .integer("baseAccuracy", (b, v) -> b.baseAccuracy = v)
+        .integer("baseDodge", (b, v) -> b.baseDodge = v)
+        .integer("armor", (b, v) -> b.armor = v)
+        .integer("initialShield", (b, v) -> b.initialShield = v)
+        .integer("regenPerSecond", (b, v) -> b.regenPerSecond = v)
+        .parsed("spell", EnemyLoader::parseSpell, (b, v) -> b.spells.add(v)) // Repeated once per spell
+        .records("spells", SPELL_SCHEMA, (b, v) -> b.spells.add(v))
+        .required("id", "name");
+
+    /** @return The schema of an enemy record, for reading definitions from other sources. */
+    public static RecordSchema<?, Enemy> schema() {
+        return SCHEMA;
+    }
+
+    /**
+     * Loads enemy definitions from a TXT or JSON file located in the classpath.
+     * @param filePathInResources The path to the file (e.g., "/enemies.txt").
+     * @return The enemies in floor order; empty if the file is missing or unreadable.
+     */
+    public static List<Enemy> loadEnemiesFromFile(String filePathInResources) {
+        List<Enemy> enemies = RecordReader.readResource(filePathInResources, SCHEMA, "EnemyLoader");
+        System.out.println("EnemyLoader: Successfully loaded " + enemies.size() + " enemy types from " + filePathInResources);
+        return enemies;
+    }
+
+    /**
+     * Indexes the enemy definitions in a TXT file without parsing them; each floor's enemy is parsed
+     * when it is first needed. JSON files are loaded in full.
+     * @param filePathInResources The path to the file (e.g., "/enemies.txt").
+     * @return The enemies in floor order, null for a floor whose record is invalid; empty if the file is missing or unreadable.
+     */
+    public static List<Enemy> indexEnemiesFromFile(String filePathInResources) {
+        List<Enemy> enemies = RecordReader.indexResource(filePathInResources, SCHEMA, "EnemyLoader");
+        System.out.println("EnemyLoader: Indexed " + enemies.size() + " enemy types from " + filePathInResources);
+        return enemies;
+    }
+
+    // Safe to call from several threads; MonteCarloSimulator looks enemies up from a parallel stream
+    private List<Enemy> enemies() {
+        List<Enemy> enemies = loadedEnemies;
+        if (enemies == null) {
+            synchronized (this) {
+                if (loadedEnemies == null) {
+                    loadedEnemies = source.get();
                 }
+                enemies = loadedEnemies;
             }
-            // Add the last enemy if the file doesn't end with "---" but has data
-            if (currentId != null && currentName != null) {
-                 loadedEnemies.add(new Enemy(currentId, currentName, currentMaxHP, currentBaseAccuracy,
-                                            currentBaseDodge, currentArmor, currentInitialShield,
-                                            currentRegenPerSecond, new ArrayList<>(currentSpells)));
-            }
+        }
+        return enemies;
+    }
 
-            System.out.println("EnemyLoader: Successfully loaded " + loadedEnemies.size() + " enemy types from " + filePathInResources);
-
-        } catch (IOException e) {
-            System.err.println("EnemyLoader Error: Failed to read enemy file: " + filePathInResources);
-            e.printStackTrace();
-        } catch (NumberFormatException e) {
-            System.err.println("EnemyLoader Error: Malformed number in enemy file.");
-            e.printStackTrace();
-        } catch (Exception e) { // Catch any other unexpected errors during parsing
-            System.err.println("EnemyLoader Error: Unexpected error parsing enemy file: " + filePathInResources);
-            e.printStackTrace();
+    /**
+     * Parses a spell line's value: name,damage,cooldownSeconds,ignoresArmor,ignoresShield
+     */
+    private static EnemySpellData parseSpell(String value) {
+        String[] spellParts = value.split(",");
+        if (spellParts.length != 5) {
+            throw new IllegalArgumentException("expected name,damage,cooldownSeconds,ignoresArmor,ignoresShield but got '" + value + "'");
         }
+        String spellName = spellParts[0].trim();
+        int spellDamage = Integer.parseInt(spellParts[1].trim());
+        double spellCooldown = Double.parseDouble(spellParts[2].trim());
+        boolean ignoresArmor = Boolean.parseBoolean(spellParts[3].trim());
+        boolean ignoresShield = Boolean.parseBoolean(spellParts[4].trim());
+
+        // Enemy spells don't use DamageType for their own attacks
+        return new EnemySpellData(spellName, spellDamage, spellCooldown, null, ignoresArmor, ignoresShield, false /*alwaysHits placeholder*/);
     }
 
     /**
      * Retrieves a *new instance* of an enemy for a specific floor.
      * Assumes enemies in the TXT file are ordered by their floor appearance (Floor 1 is at index 0).
+     * The first call loads the enemies, or waits for them if they are loading in the background.
      * @param floorNumber The floor number (1-based).
      * @return A new Enemy object for that floor, or null if the floor number is invalid.
      */
     public Enemy getEnemyForFloor(int floorNumber) {
-        if (loadedEnemies != null && floorNumber >= 1 && floorNumber <= loadedEnemies.size()) {
-            Enemy template = loadedEnemies.get(floorNumber - 1);
+        List<Enemy> enemies = enemies();
+        if (floorNumber >= 1 && floorNumber <= enemies.size()) {
+            Enemy template = enemies.get(floorNumber - 1);
+            if (template == null) {
+                System.err.println("EnemyLoader Error: The enemy for floor " + floorNumber + " could not be read.");
+                return null;
+            }
 
             // Create and return a new Enemy instance based on the template.
             // The Enemy constructor should handle setting initial combat state (HP, cooldowns, etc.).
@@ -175,19 +197,24 @@ public class EnemyLoader {
                 new ArrayList<>(template.getDefinedSpells()) // Pass a copy of the spell list
             );
         } else {
-            System.err.println("EnemyLoader Error: Invalid floor number " + floorNumber + ". Max floor with loaded enemy: " + (loadedEnemies != null ? loadedEnemies.size() : 0));
+            System.err.println("EnemyLoader Error: Invalid floor number " + floorNumber + ". Max floor with loaded enemy: " + enemies.size());
             return null;
         }
     }
 
     /**
-     * Gets the total number of unique enemy types loaded.
+     * Replaces the enemy templates, e.g. after the enemy file was edited. Enemies already created are unaffected.
+     * @param enemies The new templates, in floor order.
+     */
+    public synchronized void replaceEnemies(List<Enemy> enemies) {
+        loadedEnemies = enemies;
+    }
+
+    /**
+     * Gets the total number of unique enemy types loaded, loading them first if needed.
      * @return The count of loaded enemies.
      */
     public int getNumberOfEnemyTypesLoaded() {
-        if (loadedEnemies == null) {
-            return 0;
-        }
-        return loadedEnemies.size();
+        return enemies().size();
     }
 }
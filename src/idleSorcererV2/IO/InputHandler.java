@@ -1,12 +1,28 @@
 package idleSorcererV2.IO;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
+import idleSorcererV2.CombatJournal;
+import idleSorcererV2.CombatLog;
 import idleSorcererV2.GameManager;
+import idleSorcererV2.GameSnapshot;
+import idleSorcererV2.LoadoutOptimizationReport;
+import idleSorcererV2.LoadoutOptimizer;
+import idleSorcererV2.LootFilter;
 import idleSorcererV2.Player;
+import idleSorcererV2.SimulationReport;
+import idleSorcererV2.SpellQuery;
+import idleSorcererV2.SpellSortKey;
+import idleSorcererV2.UpgradePlan;
+import idleSorcererV2.UpgradePlanner;
 import idleSorcererV2.data.PlayerSpell;
 import idleSorvererV2.enums.GameState;
 import idleSorvererV2.enums.PrimaryAttributeType;
@@ -17,6 +33,11 @@ public class InputHandler {
     private GameManager gameManager;
     private Player player;
     private TerminalDisplay display; // Added TerminalDisplay
+    private CompletableFuture<?> pendingStartup = CompletableFuture.completedFuture(null);
+
+    private static final int DEFAULT_SIMULATION_RUNS = 1000;
+    private static final int DEFAULT_OPTIMIZE_TOP_K = 3;
+    private static final String DEFAULT_RECORDING_DIRECTORY = "replays";
 
     public InputHandler(GameManager gameManager, Player player, TerminalDisplay display) {
         this.scanner = new Scanner(System.in);
@@ -25,12 +46,28 @@ public class InputHandler {
         this.display = display; // Initialize TerminalDisplay
     }
 
+    /**
+     * Makes commands wait for startup work still running in the background, such as loading the save.
+     * The prompt is shown meanwhile, so the player can start typing.
+     * @param startup Completes once the game is ready for commands.
+     */
+    public void setPendingStartup(CompletableFuture<?> startup) {
+        this.pendingStartup = startup;
+    }
+
+    // Commands that read definitions or the restored game wait here; "help", "log" and "quit" never do.
+    // Startup reports its own failures; commands then run on a new game
+    private void awaitStartup() {
+        pendingStartup.join();
+    }
+
     /**
      * Processes player input when the game is in a state that expects commands.
      * @return true if the game should continue processing input, false if 'quit' command was issued.
      */
     public boolean processPlayerInput() {
-        if (gameManager.getCurrentGameState() == GameState.MANAGEMENT_PAUSED) {
+        // While startup is pending the game is still paused, and its state is not read until a command waits
+        if (!pendingStartup.isDone() || gameManager.getCurrentGameState() == GameState.MANAGEMENT_PAUSED) {
             display.displayPrompt(); // "> "
             String inputLine = scanner.nextLine().trim().toLowerCase();
 
@@ -49,38 +86,81 @@ public class InputHandler {
                         displayHelp();
                         break;
                     case "battle":
+                        awaitStartup();
                         handleBattleCommand(args);
                         break;
                     case "stop":
+                        awaitStartup();
                         gameManager.requestPauseBattle(); // GameManager will print messages via its own System.out for now
                         break;
                     case "stats":
+                        awaitStartup();
                         display.displayPlayerStats(player, gameManager);
                         break;
                     case "inventory":
                     case "inv":
+                        awaitStartup();
                         handleInventoryCommand(args);
                         break;
                     case "equip":
+                        awaitStartup();
                         handleEquipCommand(args);
                         break;
                     case "unequip":
+                        awaitStartup();
                         handleUnequipCommand(args);
                         break;
                     case "deconstruct":
                     case "dec":
+                        awaitStartup();
                         handleDeconstructCommand(args);
                         break;
                     case "upgrade":
                     case "upg":
+                        awaitStartup();
                         handleUpgradeCommand(args);
                         break;
                     case "floor":
+                        awaitStartup();
                         display.showMessage("Current Floor: " + gameManager.getCurrentFloor());
                         break;
                     case "sort":
+                        awaitStartup();
                         handleSortCommand(args);
                         break;
+                    case "simulate":
+                    case "sim":
+                        awaitStartup();
+                        handleSimulateCommand(args);
+                        break;
+                    case "optimize":
+                    case "opt":
+                        awaitStartup();
+                        handleOptimizeCommand(args);
+                        break;
+                    case "log":
+                        handleLogCommand(args);
+                        break;
+                    case "loot":
+                        awaitStartup();
+                        handleLootCommand(args);
+                        break;
+                    case "save":
+                        awaitStartup();
+                        handleSaveCommand(args);
+                        break;
+                    case "load":
+                        awaitStartup();
+                        handleLoadCommand(args);
+                        break;
+                    case "record":
+                        awaitStartup();
+                        handleRecordCommand(args);
+                        break;
+                    case "replay":
+                        awaitStartup();
+                        handleReplayCommand(args);
+                        break;
                     case "quit":
                     case "exit":
                         display.displayExitingMessage();
@@ -110,8 +190,20 @@ public class InputHandler {
             "equip <inv_idx> <active|passive> <slot_idx> - Equip spell from inventory.",
             "unequip <active|passive> <slot_idx> - Unequip spell from slot.",
             "deconstruct <inv_idx> (or dec)     - Deconstruct spell at inventory index for AP.",
+            "deconstruct where <conditions>     - Deconstruct all unequipped spells matching, e.g. 'where ap<20 noenchants'.",
             "upgrade <attribute> (or upg)       - Upgrade a primary attribute.",
+            "upgrade plan <dps|survive> [floor] [target_sec] [apply] - Plan (and buy) the best attribute points for your AP.",
             "floor                              - Show current floor number.",
+            "sort inventory <key>[:desc] ...    - Sort inventory by ap, name, value, cooldown, enchants, attribute.",
+            "simulate <floor> [runs] [seed] (or sim) - Simulate your loadout against a floor (default 1000 runs).",
+            "optimize <floor> [top_k] [balanced|dps|survive] [apply] (or opt) - Find the best loadouts in your inventory.",
+            "log <off|summary|detailed>         - Set how much combat detail is shown.",
+            "loot [keep|salvage <conditions> [or ...]] - Auto-salvage or keep drops, e.g. 'loot salvage ap<40'.",
+            "loot default <keep|salvage> | remove <n> | clear - Change the fallback action or remove loot rules.",
+            "save [file] [raw]                  - Save the game (default: idle_sorcerer.issv; 'raw' skips compression).",
+            "load [file]                        - Load a saved game, replacing your current progress.",
+            "record <on [dir]|off>              - Record each encounter to a replay file (default dir: replays).",
+            "replay <file> [speed] [from_sec]   - Replay a recorded encounter (speed 0 = instant).",
             "quit (or exit)                     - Exit the game."
         ));
         display.displayHelp(helpLines);
@@ -221,6 +313,13 @@ public class InputHandler {
     private void handleDeconstructCommand(String[] args) {
         if (args.length < 1) {
             display.showMessage("Usage: deconstruct <inventory_index>");
+            display.showMessage("       deconstruct where <condition> [and <condition> ...]");
+            display.showMessage("Conditions: ap<N, ap<=N, ap>N, enchants=N, noenchants, template=<id>, type=<damage type>, attr=<attribute>");
+            display.showMessage("Equipped spells are never deconstructed. Example: deconstruct where ap<20 noenchants");
+            return;
+        }
+        if (args[0].equals("where")) {
+            handleDeconstructWhere(Arrays.copyOfRange(args, 1, args.length));
             return;
         }
         try {
@@ -239,9 +338,14 @@ public class InputHandler {
     private void handleUpgradeCommand(String[] args) {
         if (args.length < 1) {
             display.showMessage("Usage: upgrade <attribute_name>");
+            display.showMessage("       upgrade plan <dps|survive> [floor] [target_seconds] [apply]");
             display.showMessage("Attributes: agility, charm, cunning, dexterity, fortitude, intellect, malice, mind, piety, wisdom");
             return;
         }
+        if (args[0].equals("plan")) {
+            handleUpgradePlan(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         String attributeName = args[0].toLowerCase();
         try {
             PrimaryAttributeType attributeToUpgrade = PrimaryAttributeType.valueOf(attributeName.toUpperCase());
@@ -256,28 +360,346 @@ public class InputHandler {
         }
     }
 
+    private void handleUpgradePlan(String[] args) {
+        UpgradePlanner.Goal goal = args.length > 0 ? UpgradePlanner.Goal.fromKeyword(args[0]) : null;
+        if (goal == null) {
+            display.showMessage("Usage: upgrade plan <dps|survive> [floor] [target_seconds] [apply]");
+            display.showMessage("Example: upgrade plan survive 6 90 apply");
+            return;
+        }
+        int floor = gameManager.getCurrentFloor();
+        double target = 0.0;
+        boolean apply = false;
+        int numbers = 0;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("apply")) {
+                    apply = true;
+                } else if (numbers++ == 0) {
+                    floor = Integer.parseInt(args[i]);
+                } else {
+                    target = Double.parseDouble(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            display.showError("Invalid number for floor or target seconds.");
+            return;
+        }
+
+        UpgradePlan plan = gameManager.planUpgrades(floor, goal, target);
+        if (plan == null) {
+            display.showError("Could not plan upgrades. (Check the floor number and that an active spell is equipped)");
+            return;
+        }
+        display.displayUpgradePlan(plan);
+        if (apply && gameManager.applyUpgradePlan(plan)) {
+            display.displayPlayerStats(player, gameManager);
+        }
+    }
+
+    private void handleDeconstructWhere(String[] conditions) {
+        SpellQuery filter = player.getInventory().query();
+        int added = 0;
+        for (String condition : conditions) {
+            if (condition.equals("and") || condition.equals("unequipped")) {
+                continue; // Equipped spells are always skipped
+            }
+            if (!filter.addCondition(condition)) {
+                display.showError("Unknown condition: '" + condition + "'. Type 'deconstruct' for the list of conditions.");
+                return;
+            }
+            added++;
+        }
+        if (added == 0) {
+            display.showError("Give at least one condition, e.g. 'deconstruct where ap<20'.");
+            return;
+        }
+        player.deconstructSpellsWhere(filter::matches); // Prints the count and AP gained
+    }
+
+    private void handleLootCommand(String[] args) {
+        LootFilter lootFilter = gameManager.getLootFilter();
+        if (args.length < 1) {
+            display.showMessage("--- Loot Rules (first match wins) ---");
+            List<String> rules = lootFilter.getRuleDescriptions();
+            for (int i = 0; i < rules.size(); i++) {
+                display.showMessage(String.format("%2d: %s", i, rules.get(i)));
+            }
+            display.showMessage("Otherwise: " + lootFilter.getDefaultAction().name().toLowerCase());
+            display.showMessage("Salvaged this session: " + gameManager.getSalvagedDrops() + " drops for " + gameManager.getSalvagedAP() + " AP");
+            display.showMessage("Usage: loot <keep|salvage> <conditions> [or <conditions> ...] | loot default <keep|salvage> | loot remove <n> | loot clear");
+            return;
+        }
+        switch (args[0]) {
+            case "keep":
+            case "salvage":
+                addLootRules(lootFilter, LootFilter.Action.valueOf(args[0].toUpperCase()), Arrays.copyOfRange(args, 1, args.length));
+                break;
+            case "default":
+                if (args.length < 2 || !(args[1].equals("keep") || args[1].equals("salvage"))) {
+                    display.showError("Usage: loot default <keep|salvage>");
+                    return;
+                }
+                lootFilter.setDefaultAction(LootFilter.Action.valueOf(args[1].toUpperCase()));
+                display.showMessage("Drops matching no rule will be " + (args[1].equals("keep") ? "kept." : "salvaged."));
+                break;
+            case "remove":
+                try {
+                    if (args.length < 2 || !lootFilter.removeRule(Integer.parseInt(args[1]))) {
+                        display.showError("No loot rule with that number. Type 'loot' to list them.");
+                    } else {
+                        display.showMessage("Loot rule removed.");
+                    }
+                } catch (NumberFormatException e) {
+                    display.showError("Invalid rule number: " + args[1]);
+                }
+                break;
+            case "clear":
+                lootFilter.clearRules();
+                lootFilter.setDefaultAction(LootFilter.Action.KEEP);
+                display.showMessage("Loot rules cleared. All drops will be kept.");
+                break;
+            default:
+                display.showError("Unknown loot option: '" + args[0] + "'. Type 'loot' for usage.");
+                break;
+        }
+    }
+
+    // Each "or"-separated group of conditions becomes its own rule with the same action
+    private void addLootRules(LootFilter lootFilter, LootFilter.Action action, String[] tokens) {
+        List<SpellQuery> conditions = new ArrayList<>();
+        List<String> descriptions = new ArrayList<>();
+        SpellQuery current = SpellQuery.condition();
+        StringBuilder description = new StringBuilder();
+        for (String token : tokens) {
+            if (token.equals("and")) {
+                continue;
+            }
+            if (token.equals("or")) {
+                if (description.length() == 0) {
+                    break; // Empty group, reported below
+                }
+                conditions.add(current);
+                descriptions.add(description.toString());
+                current = SpellQuery.condition();
+                description.setLength(0);
+                continue;
+            }
+            if (!current.addCondition(token)) {
+                display.showError("Unknown condition: '" + token + "'. Type 'deconstruct' for the list of conditions.");
+                return;
+            }
+            description.append(description.length() == 0 ? "" : " ").append(token);
+        }
+        if (description.length() == 0) {
+            display.showError("Each rule needs at least one condition, e.g. 'loot salvage ap<40'.");
+            return;
+        }
+        conditions.add(current);
+        descriptions.add(description.toString());
+
+        for (int i = 0; i < conditions.size(); i++) {
+            lootFilter.addRule(action, descriptions.get(i), conditions.get(i)::matches);
+        }
+        display.showMessage("Added " + conditions.size() + " loot rule(s): " + action.name().toLowerCase() + " " + String.join(" or ", descriptions));
+    }
+
     private void handleSortCommand(String[] args) {
         if (args.length < 2) {
-            display.showMessage("Usage: sort inventory <criteria>");
-            display.showMessage("Example: sort inventory ap");
+            display.showMessage("Usage: sort inventory <key>[:asc|:desc] [more keys...]");
+            display.showMessage("Keys: " + sortKeywords());
+            display.showMessage("Example: sort inventory ap:desc name");
             return;
         }
 
         String target = args[0].toLowerCase();
-        String criteria = args[1].toLowerCase();
-
         if (target.equals("inventory") || target.equals("inv")) {
-            if (criteria.equals("ap")) {
-                player.getInventory().sortByAPCostRecursive(); // This method prints its own confirmation
-                display.displayInventory(player.getInventory()); // Display the sorted inventory
-            } else {
-                display.showError("Unknown sort criteria for inventory: '" + criteria + "'. Try 'ap'.");
+            String[] criteria = Arrays.copyOfRange(args, 1, args.length);
+            Comparator<PlayerSpell> order = SpellSortKey.parseOrder(criteria);
+            if (order == null) {
+                display.showError("Unknown sort criteria for inventory: '" + String.join(" ", criteria) + "'. Keys: " + sortKeywords());
+                return;
             }
+            player.sortInventory(order);
+            display.showMessage("Inventory sorted by " + String.join(", ", criteria) + ".");
+            display.displayInventory(player.getInventory()); // Display the sorted inventory
         } else {
             display.showError("Cannot sort '" + target + "'. Only 'inventory' sorting is supported.");
         }
     }
 
+    private static String sortKeywords() {
+        StringBuilder keywords = new StringBuilder();
+        for (SpellSortKey key : SpellSortKey.values()) {
+            if (keywords.length() > 0) {
+                keywords.append(", ");
+            }
+            keywords.append(key.getKeyword());
+        }
+        return keywords.toString();
+    }
+
+    private void handleSimulateCommand(String[] args) {
+        if (args.length < 1) {
+            display.showMessage("Usage: simulate <floor> [runs] [seed]");
+            display.showMessage("Example: simulate 7 5000");
+            return;
+        }
+        try {
+            int floor = Integer.parseInt(args[0]);
+            int runs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SIMULATION_RUNS;
+            SimulationReport report = args.length > 2
+                    ? gameManager.simulateFloor(floor, runs, Long.parseLong(args[2]))
+                    : gameManager.simulateFloor(floor, runs);
+            if (report == null) {
+                display.showError("Simulation failed. (Check the floor number and run count)");
+            } else {
+                display.displaySimulationReport(report);
+            }
+        } catch (NumberFormatException e) {
+            display.showError("Invalid number for floor, runs or seed.");
+        }
+    }
+
+    private void handleOptimizeCommand(String[] args) {
+        if (args.length < 1) {
+            display.showMessage("Usage: optimize <floor> [top_k] [balanced|dps|survive] [apply]");
+            display.showMessage("Example: optimize 7 3 survive");
+            return;
+        }
+        int topK = DEFAULT_OPTIMIZE_TOP_K;
+        LoadoutOptimizer.Objective objective = LoadoutOptimizer.Objective.BALANCED;
+        boolean apply = false;
+        int floor;
+        try {
+            floor = Integer.parseInt(args[0]);
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("apply")) {
+                    apply = true;
+                } else if (LoadoutOptimizer.Objective.fromKeyword(args[i]) != null) {
+                    objective = LoadoutOptimizer.Objective.fromKeyword(args[i]);
+                } else {
+                    topK = Integer.parseInt(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            display.showError("Invalid floor, top_k or objective. Objectives: balanced, dps, survive.");
+            return;
+        }
+
+        LoadoutOptimizationReport report = gameManager.optimizeLoadout(floor, topK, objective);
+        if (report == null) {
+            display.showError("Optimization failed. (Check the floor number and top_k, max " + LoadoutOptimizer.MAX_TOP_K + ")");
+            return;
+        }
+        display.displayLoadoutOptimizationReport(report);
+        if (apply) {
+            if (report.best() == null) {
+                display.showError("Nothing to apply.");
+            } else if (gameManager.applyLoadout(report.best())) {
+                display.showMessage("Applied loadout #1.");
+                display.displayEquippedSpells(player);
+            } else {
+                display.showError("Failed to apply loadout #1.");
+            }
+        }
+    }
+
+    private void handleLogCommand(String[] args) {
+        CombatLog combatLog = gameManager.getCombatLog();
+        if (args.length < 1) {
+            display.showMessage("Combat log level: " + combatLog.getLevel());
+            display.showMessage("Usage: log <off|summary|detailed>");
+            return;
+        }
+        try {
+            CombatLog.Level level = CombatLog.Level.valueOf(args[0].toUpperCase());
+            if (combatLog.setLevel(level)) {
+                display.showMessage("Combat log level set to " + level + ".");
+            } else {
+                display.showError("This combat log cannot be changed.");
+            }
+        } catch (IllegalArgumentException e) {
+            display.showError("Invalid log level: " + args[0] + ". Use off, summary or detailed.");
+        }
+    }
+
+    private void handleSaveCommand(String[] args) {
+        boolean compress = !Arrays.asList(args).contains("raw");
+        Path file = Paths.get(args.length > 0 && !args[0].equals("raw") ? args[0] : GameSnapshot.DEFAULT_FILE_NAME);
+        long startMillis = System.currentTimeMillis();
+        if (gameManager.saveGame(file, compress)) {
+            display.showMessage("Game saved to " + file.toAbsolutePath() + " (" + player.getInventory().getSpellCount()
+                                + " spells, " + (System.currentTimeMillis() - startMillis) + " ms).");
+        } else {
+            display.showError("Could not save the game to " + file);
+        }
+    }
+
+    private void handleLoadCommand(String[] args) {
+        Path file = Paths.get(args.length > 0 ? args[0] : GameSnapshot.DEFAULT_FILE_NAME);
+        if (!Files.isRegularFile(file)) {
+            display.showError("Save file not found: " + file);
+            return;
+        }
+        long startMillis = System.currentTimeMillis();
+        if (gameManager.loadGame(file)) {
+            display.showMessage("Game loaded from " + file + " (" + player.getInventory().getSpellCount()
+                                + " spells, " + (System.currentTimeMillis() - startMillis) + " ms). Floor "
+                                + gameManager.getCurrentFloor() + ".");
+        } else {
+            display.showError("Could not load the game from " + file);
+        }
+    }
+
+    private void handleRecordCommand(String[] args) {
+        if (args.length < 1) {
+            Path directory = gameManager.getRecordingDirectory();
+            display.showMessage(directory == null ? "Recording is off." : "Recording encounters to " + directory);
+            display.showMessage("Usage: record <on [directory]|off>");
+            return;
+        }
+        switch (args[0]) {
+            case "on":
+                Path directory = Paths.get(args.length > 1 ? args[1] : DEFAULT_RECORDING_DIRECTORY);
+                gameManager.setRecordingDirectory(directory);
+                display.showMessage("Encounters will be recorded to " + directory.toAbsolutePath());
+                break;
+            case "off":
+                gameManager.setRecordingDirectory(null);
+                display.showMessage("Recording turned off.");
+                break;
+            default:
+                display.showError("Usage: record <on [directory]|off>");
+                break;
+        }
+    }
+
+    private void handleReplayCommand(String[] args) {
+        if (args.length < 1) {
+            display.showMessage("Usage: replay <file> [speed] [from_second]");
+            display.showMessage("Example: replay replays/encounter-1700000000000-f3-1.iscj 4 30");
+            return;
+        }
+        Path file = Paths.get(args[0]);
+        if (!Files.isRegularFile(file)) {
+            display.showError("Replay file not found: " + file);
+            return;
+        }
+        try {
+            double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+            double fromSecond = args.length > 2 ? Double.parseDouble(args[2]) : 0.0;
+            CombatJournal.Recording recording = CombatJournal.load(file);
+            if (recording == null) {
+                display.showError("Could not load replay: " + file);
+                return;
+            }
+            CombatJournal.replay(recording, display, speed, fromSecond);
+        } catch (NumberFormatException e) {
+            display.showError("Invalid number for speed or starting second.");
+        }
+    }
+
     // Basic attempt for non-blocking "stop" check.
     // For a real terminal app, a library or more complex threading would be better.
     public void checkForStopCommandDuringBattle() {
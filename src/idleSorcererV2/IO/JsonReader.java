@@ -0,0 +1,359 @@
+package idleSorcererV2.IO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming (pull) JSON tokenizer: next() returns one token at a time and nothing is kept beyond
+ * the current token, so memory use does not grow with the document. Names, strings, numbers and
+ * literals are unescaped into a reusable buffer exposed through textChars()/textLength().
+ *
+ * Accepts // line and block comments, which the bundled definition files use; otherwise strict.
+ * Syntax errors throw a JsonReader.SyntaxException carrying the line and column.
+ */
+public final class JsonReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, TRUE, FALSE, NULL,
+        END_DOCUMENT
+    }
+
+    /** A malformed document. */
+    public static final class SyntaxException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        SyntaxException(String message, int line, int column) {
+            super(message + " at line " + line + ", column " + column);
+        }
+    }
+
+    // What the innermost open structure expects next
+    private static final byte EMPTY_DOCUMENT = 0;
+    private static final byte NONEMPTY_DOCUMENT = 1;
+    private static final byte EMPTY_ARRAY = 2;
+    private static final byte NONEMPTY_ARRAY = 3;
+    private static final byte EMPTY_OBJECT = 4;
+    private static final byte DANGLING_NAME = 5; // A name was read; its value is next
+    private static final byte NONEMPTY_OBJECT = 6;
+
+    private static final int BUFFER_CHARS = 8192;
+
+    private final Reader source;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private int position;
+    private int limit;
+
+    private char[] text = new char[64];
+    private int textLength;
+
+    private byte[] stack = new byte[32];
+    private int depth = 1; // stack[0] is the document itself
+
+    private Token peeked;
+    private int line = 1;
+    private int column; // Column of the last char read, 1-based
+    private int tokenLine;
+    private int tokenColumn;
+
+    public JsonReader(Reader source) {
+        this.source = source;
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /** @return The next token without consuming it. */
+    public Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = advance();
+        }
+        return peeked;
+    }
+
+    /** @return The next token; for NAME, STRING, NUMBER and literals its text is in textChars(). */
+    public Token next() throws IOException {
+        Token token = peek();
+        peeked = null;
+        return token;
+    }
+
+    /** Skips the next value, including everything nested inside it. */
+    public void skipValue() throws IOException {
+        int open = 0;
+        do {
+            Token token = next();
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                open++;
+            } else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                open--;
+            } else if (token == Token.END_DOCUMENT) {
+                return;
+            }
+        } while (open > 0);
+    }
+
+    /** Chars [0, textLength()) hold the text of the last NAME, STRING, NUMBER or literal token. */
+    public char[] textChars() { return text; }
+    public int textLength() { return textLength; }
+    public String text() { return new String(text, 0, textLength); }
+
+    /** Line and column of the start of the last token returned or peeked. */
+    public int tokenLine() { return tokenLine; }
+    public int tokenColumn() { return tokenColumn; }
+
+    private Token advance() throws IOException {
+        int c = nextNonWhitespace();
+        switch (stack[depth - 1]) {
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                return value(c);
+            case NONEMPTY_DOCUMENT:
+                if (c != -1) {
+                    throw error("Unexpected data after the end of the document");
+                }
+                return Token.END_DOCUMENT;
+            case EMPTY_ARRAY:
+                if (c == ']') {
+                    depth--;
+                    return Token.END_ARRAY;
+                }
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                return value(c);
+            case NONEMPTY_ARRAY:
+                if (c == ']') {
+                    depth--;
+                    return Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or ']'");
+                }
+                return value(nextNonWhitespace());
+            case EMPTY_OBJECT:
+                if (c == '}') {
+                    depth--;
+                    return Token.END_OBJECT;
+                }
+                return name(c);
+            case NONEMPTY_OBJECT:
+                if (c == '}') {
+                    depth--;
+                    return Token.END_OBJECT;
+                }
+                if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+                return name(nextNonWhitespace());
+            default: // DANGLING_NAME
+                if (c != ':') {
+                    throw error("Expected ':'");
+                }
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                return value(nextNonWhitespace());
+        }
+    }
+
+    private Token name(int c) throws IOException {
+        markToken();
+        if (c != '"') {
+            throw error(c == -1 ? "Unterminated object" : "Expected a quoted name");
+        }
+        readString();
+        stack[depth - 1] = DANGLING_NAME;
+        return Token.NAME;
+    }
+
+    private Token value(int c) throws IOException {
+        markToken();
+        switch (c) {
+            case '{':
+                push(EMPTY_OBJECT);
+                return Token.BEGIN_OBJECT;
+            case '[':
+                push(EMPTY_ARRAY);
+                return Token.BEGIN_ARRAY;
+            case '"':
+                readString();
+                return Token.STRING;
+            case -1:
+                throw error("Unexpected end of document");
+            default:
+                break;
+        }
+        textLength = 0;
+        appendText((char) c);
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            readWhile(true);
+            return Token.NUMBER;
+        }
+        readWhile(false);
+        if (textIs("true")) {
+            return Token.TRUE;
+        }
+        if (textIs("false")) {
+            return Token.FALSE;
+        }
+        if (textIs("null")) {
+            return Token.NULL;
+        }
+        throw error("Unexpected '" + text() + "'");
+    }
+
+    // Number chars, or letters for true/false/null; stops before the first other char
+    private void readWhile(boolean number) throws IOException {
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            boolean part = number ? (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-'
+                                  : (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!part) {
+                return;
+            }
+            position++;
+            column++;
+            appendText(c);
+        }
+    }
+
+    private void readString() throws IOException {
+        textLength = 0;
+        while (true) {
+            // Copy the run of plain chars up to the next quote, escape or line break in one go
+            int run = position;
+            while (run < limit && buffer[run] != '"' && buffer[run] != '\\' && buffer[run] != '\n') {
+                run++;
+            }
+            if (run > position) {
+                appendText(buffer, position, run - position);
+                column += run - position;
+                position = run;
+            }
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == -1 || c == '\n') {
+                throw error("Unterminated string");
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case '"': case '\\': case '/': break;
+                    case 'b': c = '\b'; break;
+                    case 'f': c = '\f'; break;
+                    case 'n': c = '\n'; break;
+                    case 'r': c = '\r'; break;
+                    case 't': c = '\t'; break;
+                    case 'u':
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw error("Malformed \\u escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        c = code;
+                        break;
+                    default:
+                        throw error("Unknown escape '\\" + (c == -1 ? "" : String.valueOf((char) c)) + "'");
+                }
+            }
+            appendText((char) c);
+        }
+    }
+
+    /** @return The next char that is not whitespace or inside a comment, or -1 at the end. */
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                continue;
+            }
+            if (c != '/') {
+                return c;
+            }
+            int kind = read();
+            if (kind == '/') {
+                while ((c = read()) != '\n' && c != -1) {
+                    // Line comment
+                }
+            } else if (kind == '*') {
+                int previous = 0;
+                while ((c = read()) != -1 && !(previous == '*' && c == '/')) {
+                    previous = c;
+                }
+                if (c == -1) {
+                    throw error("Unterminated comment");
+                }
+            } else {
+                throw error("Unexpected '/'");
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+            column = 0;
+        } else {
+            column++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int read = source.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void markToken() {
+        tokenLine = line;
+        tokenColumn = column;
+    }
+
+    private void push(byte context) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[depth++] = context;
+    }
+
+    private void appendText(char c) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, text.length * 2);
+        }
+        text[textLength++] = c;
+    }
+
+    private void appendText(char[] chars, int offset, int length) {
+        if (textLength + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(textLength + length, text.length * 2));
+        }
+        System.arraycopy(chars, offset, text, textLength, length);
+        textLength += length;
+    }
+
+    private boolean textIs(String expected) {
+        if (textLength != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < textLength; i++) {
+            if (text[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private SyntaxException error(String message) {
+        return new SyntaxException(message, line, column);
+    }
+}
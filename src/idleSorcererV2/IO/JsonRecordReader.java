@@ -0,0 +1,168 @@
+package idleSorcererV2.IO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the JSON form of the definition files: a top-level array with one object per record.
+ * Uses the same RecordSchema as the "key: value" format, streaming tokens from a JsonReader
+ * straight into the builder without building a document tree.
+ *
+ * Nested objects are flattened into dotted keys, so {"coreEffect": {"type": "DAMAGE"}} binds
+ * the key "coreEffect.type". A key declared with RecordSchema.records() instead reads its object,
+ * or array of objects, as nested records. Null values leave a field at its default.
+ *
+ * Problems with a value or record are reported with their line and column and skipped, like the
+ * text format; a syntax error ends the read, keeping the records before it.
+ */
+final class JsonRecordReader {
+
+    private final JsonReader json;
+    private final String loaderName;
+    private final String sourceName;
+    private char[] path = new char[64]; // Dotted key of the current member, e.g. "coreEffect.type"
+
+    private JsonRecordReader(Reader source, String loaderName, String sourceName) {
+        this.json = new JsonReader(source);
+        this.loaderName = loaderName;
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Reads every record from a JSON array of objects. The stream is not closed.
+     * @param sourceName Names the source in reported problems.
+     */
+    static <B, R> List<R> read(Reader source, String sourceName, RecordSchema<B, R> schema, String loaderName) throws IOException {
+        JsonRecordReader reader = new JsonRecordReader(source, loaderName, sourceName);
+        List<R> records = new ArrayList<>();
+        try {
+            reader.readArray(schema, records::add);
+        } catch (JsonReader.SyntaxException e) {
+            System.err.println(loaderName + " Error: " + sourceName + ": " + e.getMessage() + ". Keeping the "
+                               + records.size() + " records before it.");
+        }
+        return records;
+    }
+
+    private <V> void readArray(RecordSchema<?, V> schema, Consumer<V> sink) throws IOException {
+        if (json.next() != JsonReader.Token.BEGIN_ARRAY) {
+            report("Error", "Expected an array of records");
+            return;
+        }
+        while (json.peek() != JsonReader.Token.END_ARRAY) {
+            V record = readRecord(schema);
+            if (record != null) {
+                sink.accept(record);
+            }
+        }
+        json.next();
+    }
+
+    /** Reads one object as a record; reports and skips any other value. */
+    private <C, V> V readRecord(RecordSchema<C, V> schema) throws IOException {
+        if (json.peek() != JsonReader.Token.BEGIN_OBJECT) {
+            report("Warning", "Expected a record object, found " + json.peek());
+            json.skipValue();
+            return null;
+        }
+        int recordLine = json.tokenLine();
+        json.next();
+        C builder = schema.newBuilder();
+        long seen = readMembers(schema, builder, 0);
+        long missing = schema.requiredMask() & ~seen;
+        if (missing != 0) {
+            System.err.println(loaderName + " Warning: " + sourceName + ": Record starting at line " + recordLine
+                               + " is missing " + schema.keys(missing) + ". Skipping it.");
+            return null;
+        }
+        return schema.build(builder);
+    }
+
+    /**
+     * Binds the members of an object up to its closing brace.
+     * @param prefixLength Length of the dotted prefix in path (0 for the record itself).
+     * @return The bit mask of fields that were set.
+     */
+    private <C> long readMembers(RecordSchema<C, ?> schema, C builder, int prefixLength) throws IOException {
+        long seen = 0;
+        while (json.next() == JsonReader.Token.NAME) {
+            int keyLength = appendName(prefixLength);
+            RecordSchema.Field<C> field = schema.lookup(path, 0, keyLength);
+            JsonReader.Token value = json.peek();
+
+            if (field == null) {
+                if (value == JsonReader.Token.BEGIN_OBJECT) {
+                    json.next();
+                    path = ensureCapacity(keyLength + 1);
+                    path[keyLength] = '.';
+                    seen |= readMembers(schema, builder, keyLength + 1);
+                } else {
+                    report("Warning", "Unknown key '" + new String(path, 0, keyLength) + "'");
+                    json.skipValue();
+                }
+            } else if (field.nested() != null) {
+                if (readNested(field.nested(), builder)) {
+                    seen |= 1L << field.index();
+                }
+            } else if (value == JsonReader.Token.NULL) {
+                json.next(); // Leaves the default
+            } else if (value == JsonReader.Token.BEGIN_OBJECT || value == JsonReader.Token.BEGIN_ARRAY) {
+                report("Error", "Invalid value for key '" + field.key() + "': expected a single value");
+                json.skipValue();
+            } else {
+                json.next();
+                try {
+                    field.binder().bind(builder, json.textChars(), 0, json.textLength());
+                    seen |= 1L << field.index();
+                } catch (IllegalArgumentException e) {
+                    report("Error", "Invalid value for key '" + field.key() + "': " + e.getMessage());
+                }
+            }
+        }
+        return seen; // The loop ends on the object's END_OBJECT
+    }
+
+    /** Reads a nested record or array of them. @return true if at least one was added. */
+    private <C, V> boolean readNested(RecordSchema.Nested<C, V> nested, C builder) throws IOException {
+        boolean added = false;
+        if (json.peek() == JsonReader.Token.BEGIN_ARRAY) {
+            json.next();
+            while (json.peek() != JsonReader.Token.END_ARRAY) {
+                V record = readRecord(nested.schema());
+                if (record != null) {
+                    nested.adder().accept(builder, record);
+                    added = true;
+                }
+            }
+            json.next();
+        } else {
+            V record = readRecord(nested.schema());
+            if (record != null) {
+                nested.adder().accept(builder, record);
+                added = true;
+            }
+        }
+        return added;
+    }
+
+    // Copies the name just read after the prefix; returns the full key's length
+    private int appendName(int prefixLength) {
+        int length = prefixLength + json.textLength();
+        path = ensureCapacity(length);
+        System.arraycopy(json.textChars(), 0, path, prefixLength, json.textLength());
+        return length;
+    }
+
+    private char[] ensureCapacity(int length) {
+        return length < path.length ? path : Arrays.copyOf(path, Math.max(length + 1, path.length * 2));
+    }
+
+    private void report(String severity, String message) {
+        System.err.println(loaderName + " " + severity + ": " + sourceName + " line " + json.tokenLine()
+                           + ", column " + json.tokenColumn() + ": " + message);
+    }
+}
@@ -0,0 +1,313 @@
+package idleSorcererV2.IO;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single-pass reader for the definition file format shared by spells, enchants and enemies:
+ *
+ *   # comment
+ *   key: value
+ *   key: value
+ *   ---
+ *
+ * Each record is a run of "key: value" lines ended by "---" or the end of the file. Lines are
+ * scanned in a reusable character buffer; keys are matched against the schema without creating
+ * Strings, so a file is read in one linear pass however many records it holds.
+ *
+ * Problems are reported with their line and column and never stop the read: a malformed line,
+ * unknown key or bad value is skipped, and a record missing a required key is dropped.
+ */
+public final class RecordReader<B, R> {
+
+    public static final String JSON_EXTENSION = ".json";
+
+    private static final int INITIAL_BUFFER_CHARS = 8192;
+
+    private final RecordSchema<B, R> schema;
+    private final String loaderName; // Prefix for reported problems, e.g. "EnemyLoader"
+    private final String sourceName;
+    private final List<R> records = new ArrayList<>();
+
+    private char[] buffer = new char[INITIAL_BUFFER_CHARS];
+    private int bufferEnd;  // Chars [0, bufferEnd) of the buffer hold data read from the source
+    private int lineStart;  // Start of the current line within the buffer
+    private int lineEnd;    // End of the current line, before its line break
+    private int nextLine;   // Start of the following line
+    private boolean sourceDrained;
+    private int lineNumber;
+
+    private B builder;      // null between records
+    private long seenMask;  // Bit per schema field set in the current record
+    private int recordStartLine;
+
+    private RecordReader(RecordSchema<B, R> schema, String loaderName, String sourceName) {
+        this.schema = schema;
+        this.loaderName = loaderName;
+        this.sourceName = sourceName;
+    }
+
+    /**
+     * Reads every record from a file in the resources folder. The format follows the extension:
+     * ".json" files hold an array of objects (see JsonRecordReader), anything else is "key: value" text.
+     * @param filePathInResources The path within the resources folder (e.g. "/enemies.txt").
+     * @param schema The record's keys and how to build it.
+     * @param loaderName Prefix for reported problems (e.g. "EnemyLoader").
+     * @return The records read; empty if the file is missing or unreadable.
+     */
+    public static <B, R> List<R> readResource(String filePathInResources, RecordSchema<B, R> schema, String loaderName) {
+        InputStream inputStream = RecordReader.class.getResourceAsStream(filePathInResources);
+        if (inputStream == null) {
+            System.err.println(loaderName + " Error: Cannot find file: " + filePathInResources);
+            return new ArrayList<>();
+        }
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            return read(reader, filePathInResources, schema, loaderName);
+        } catch (IOException e) {
+            System.err.println(loaderName + " Error: Failed to read file: " + filePathInResources + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Indexes the records of a text file in the resources folder without parsing them; each record is
+     * parsed the first time it is read from the returned list, so only the records used cost anything.
+     * A record that fails to parse reads as null instead of shifting the records after it.
+     * JSON files are read in full, as by readResource().
+     * @param filePathInResources The path within the resources folder (e.g. "/enemies.txt").
+     * @param schema The record's keys and how to build it.
+     * @param loaderName Prefix for reported problems (e.g. "EnemyLoader").
+     * @return The records in file order; empty if the file is missing or unreadable.
+     */
+    public static <B, R> List<R> indexResource(String filePathInResources, RecordSchema<B, R> schema, String loaderName) {
+        if (isJson(filePathInResources)) {
+            return readResource(filePathInResources, schema, loaderName);
+        }
+        String text;
+        try (InputStream inputStream = RecordReader.class.getResourceAsStream(filePathInResources)) {
+            if (inputStream == null) {
+                System.err.println(loaderName + " Error: Cannot find file: " + filePathInResources);
+                return new ArrayList<>();
+            }
+            text = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println(loaderName + " Error: Failed to read file: " + filePathInResources + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+
+        // [start, end) of each record's text and the line it starts on, found without looking at any value
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int[] firstLines = new int[16];
+        int count = 0;
+        int recordStart = -1;
+        int recordLine = 0;
+        int line = 0;
+        for (int position = 0; position < text.length(); ) {
+            int lineBreak = text.indexOf('\n', position);
+            int next = lineBreak < 0 ? text.length() : lineBreak + 1;
+            int end = lineBreak < 0 ? text.length() : lineBreak;
+            line++;
+            int start = position;
+            while (start < end && Character.isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+                end--;
+            }
+            boolean separator = end - start == 3 && text.startsWith("---", start);
+            if (separator && recordStart >= 0) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                    firstLines = Arrays.copyOf(firstLines, count * 2);
+                }
+                starts[count] = recordStart;
+                ends[count] = position;
+                firstLines[count] = recordLine;
+                count++;
+                recordStart = -1;
+            } else if (!separator && start < end && text.charAt(start) != '#' && recordStart < 0) {
+                recordStart = position;
+                recordLine = line;
+            }
+            position = next;
+        }
+        if (recordStart >= 0) { // The last record need not end with "---"
+            starts = Arrays.copyOf(starts, count + 1);
+            ends = Arrays.copyOf(ends, count + 1);
+            firstLines = Arrays.copyOf(firstLines, count + 1);
+            starts[count] = recordStart;
+            ends[count] = text.length();
+            firstLines[count] = recordLine;
+            count++;
+        }
+
+        int[] recordStarts = starts;
+        int[] recordEnds = ends;
+        int[] recordLines = firstLines;
+        return new ContentPack.Section<>(count, index -> {
+            RecordReader<B, R> reader = new RecordReader<>(schema, loaderName, filePathInResources);
+            reader.lineNumber = recordLines[index] - 1; // Problems are reported at their line in the file
+            try {
+                reader.readAll(new StringReader(text.substring(recordStarts[index], recordEnds[index])));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // A StringReader does not throw
+            }
+            return reader.records.isEmpty() ? null : reader.records.get(0);
+        });
+    }
+
+    /**
+     * Reads every record from a character stream. The stream is not closed.
+     * @param sourceName Names the source in reported problems; its extension picks the format.
+     */
+    public static <B, R> List<R> read(Reader source, String sourceName, RecordSchema<B, R> schema, String loaderName) throws IOException {
+        if (isJson(sourceName)) {
+            return JsonRecordReader.read(source, sourceName, schema, loaderName);
+        }
+        RecordReader<B, R> reader = new RecordReader<>(schema, loaderName, sourceName);
+        reader.readAll(source);
+        return reader.records;
+    }
+
+    /** @return true if the path names a JSON definition file. */
+    public static boolean isJson(String path) {
+        return path.regionMatches(true, path.length() - JSON_EXTENSION.length(), JSON_EXTENSION, 0, JSON_EXTENSION.length());
+    }
+
+    private void readAll(Reader source) throws IOException {
+        while (nextLine(source)) {
+            lineNumber++;
+            int start = skipSpaces(lineStart, lineEnd);
+            int end = trimEnd(start, lineEnd);
+            if (start == end || buffer[start] == '#') {
+                continue;
+            }
+            if (end - start == 3 && buffer[start] == '-' && buffer[start + 1] == '-' && buffer[start + 2] == '-') {
+                finishRecord();
+                continue;
+            }
+
+            int colon = start;
+            while (colon < end && buffer[colon] != ':') {
+                colon++;
+            }
+            if (colon == end) {
+                report("Warning", start, "Malformed line (missing colon): " + new String(buffer, start, end - start));
+                continue;
+            }
+            int keyEnd = trimEnd(start, colon);
+            int valueStart = skipSpaces(colon + 1, end);
+
+            RecordSchema.Field<B> field = schema.lookup(buffer, start, keyEnd);
+            if (field == null) {
+                report("Warning", start, "Unknown key '" + new String(buffer, start, keyEnd - start) + "'");
+                continue;
+            }
+            if (field.binder() == null) {
+                report("Warning", start, "Key '" + field.key() + "' holds nested records, which this format cannot express");
+                continue;
+            }
+            if (builder == null) {
+                builder = schema.newBuilder();
+                recordStartLine = lineNumber;
+            }
+            try {
+                field.binder().bind(builder, buffer, valueStart, end);
+                seenMask |= 1L << field.index();
+            } catch (IllegalArgumentException e) {
+                report("Error", valueStart, "Invalid value for key '" + field.key() + "': " + e.getMessage());
+            }
+        }
+        finishRecord(); // The last record need not end with "---"
+    }
+
+    private void finishRecord() {
+        if (builder == null) {
+            return;
+        }
+        long missing = schema.requiredMask() & ~seenMask;
+        if (missing != 0) {
+            System.err.println(loaderName + " Warning: " + sourceName + ": Record starting at line " + recordStartLine
+                               + " is missing " + schema.keys(missing) + ". Skipping it.");
+        } else {
+            R record = schema.build(builder);
+            if (record != null) {
+                records.add(record);
+            }
+        }
+        builder = null;
+        seenMask = 0;
+    }
+
+    /**
+     * Advances to the next line, reading more of the source when the buffer holds no complete line.
+     * @return false at the end of the source.
+     */
+    private boolean nextLine(Reader source) throws IOException {
+        int scan = nextLine;
+        while (true) {
+            for (int i = scan; i < bufferEnd; i++) {
+                if (buffer[i] == '\n') {
+                    lineStart = nextLine;
+                    lineEnd = i > lineStart && buffer[i - 1] == '\r' ? i - 1 : i;
+                    nextLine = i + 1;
+                    return true;
+                }
+            }
+            if (sourceDrained) {
+                if (nextLine == bufferEnd) {
+                    return false;
+                }
+                lineStart = nextLine; // Last line without a line break
+                lineEnd = bufferEnd > lineStart && buffer[bufferEnd - 1] == '\r' ? bufferEnd - 1 : bufferEnd;
+                nextLine = bufferEnd;
+                return true;
+            }
+            // Move the partial line to the front, growing the buffer only for a line longer than it
+            int partial = bufferEnd - nextLine;
+            if (nextLine > 0) {
+                System.arraycopy(buffer, nextLine, buffer, 0, partial);
+            } else if (partial == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            nextLine = 0;
+            bufferEnd = partial;
+            scan = partial;
+            int read = source.read(buffer, bufferEnd, buffer.length - bufferEnd);
+            if (read < 0) {
+                sourceDrained = true;
+            } else {
+                bufferEnd += read;
+            }
+        }
+    }
+
+    private int skipSpaces(int from, int to) {
+        while (from < to && Character.isWhitespace(buffer[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && Character.isWhitespace(buffer[to - 1])) {
+            to--;
+        }
+        return to;
+    }
+
+    private void report(String severity, int position, String message) {
+        System.err.println(loaderName + " " + severity + ": " + sourceName + " line " + lineNumber
+                           + ", column " + (position - lineStart + 1) + ": " + message);
+    }
+}
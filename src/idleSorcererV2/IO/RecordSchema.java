@@ -0,0 +1,320 @@
+package idleSorcererV2.IO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Describes one kind of definition record: the keys it may contain, how each value is parsed and
+ * stored into a mutable builder, which keys are required, and how a finished builder becomes the
+ * definition. Schemas are built once (typically in a static field) and shared by every read.
+ *
+ * Keys are looked up straight from the reader's character buffer and numbers, booleans and enum
+ * constants are parsed in place, so only text values allocate.
+ *
+ * @param <B> The mutable builder a record's fields are bound into.
+ * @param <R> The definition built from a complete record.
+ */
+public final class RecordSchema<B, R> {
+
+    /** Stores a boolean field; the primitive counterpart of BiConsumer. */
+    public interface BooleanSetter<B> {
+        void set(B builder, boolean value);
+    }
+
+    /** Parses a value from chars[start, end) and stores it into the builder. */
+    interface Binder<B> {
+        void bind(B builder, char[] chars, int start, int end);
+    }
+
+    /** Values that are records of their own, e.g. a JSON array of enemy spell objects. */
+    record Nested<B, V>(RecordSchema<?, V> schema, BiConsumer<B, V> adder) { }
+
+    /**
+     * A key and how its value is stored: a binder for a plain value, or nested for a record value.
+     * index is the key's position in the schema, for tracking required keys.
+     */
+    record Field<B>(String key, int index, Binder<B> binder, Nested<B, ?> nested) { }
+
+    private static final int MAX_FIELDS = 64; // Seen fields are tracked in a long bitmask
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Supplier<B> newBuilder;
+    private final Function<B, R> build;
+    private final List<Field<B>> fields = new ArrayList<>();
+    private long requiredMask;
+    private Field<B>[] table; // Open addressing by key hash, rebuilt when a field is added
+
+    private RecordSchema(Supplier<B> newBuilder, Function<B, R> build) {
+        this.newBuilder = newBuilder;
+        this.build = build;
+    }
+
+    /**
+     * @param newBuilder Creates an empty builder for each record.
+     * @param build Turns a complete builder into the definition.
+     */
+    public static <B, R> RecordSchema<B, R> of(Supplier<B> newBuilder, Function<B, R> build) {
+        return new RecordSchema<>(newBuilder, build);
+    }
+
+    public RecordSchema<B, R> text(String key, BiConsumer<B, String> setter) {
+        return field(key, (builder, chars, start, end) -> setter.accept(builder, new String(chars, start, end - start)));
+    }
+
+    public RecordSchema<B, R> integer(String key, ObjIntConsumer<B> setter) {
+        return field(key, (builder, chars, start, end) -> setter.accept(builder, parseInt(chars, start, end)));
+    }
+
+    public RecordSchema<B, R> decimal(String key, ObjDoubleConsumer<B> setter) {
+        return field(key, (builder, chars, start, end) -> setter.accept(builder, parseDouble(chars, start, end)));
+    }
+
+    public RecordSchema<B, R> bool(String key, BooleanSetter<B> setter) {
+        return field(key, (builder, chars, start, end) -> setter.set(builder, parseBoolean(chars, start, end)));
+    }
+
+    /** Enum constants match case-insensitively, as the hand-written loaders' valueOf(value.toUpperCase()) did. */
+    public <E extends Enum<E>> RecordSchema<B, R> enumeration(String key, Class<E> type, BiConsumer<B, E> setter) {
+        E[] constants = type.getEnumConstants();
+        return field(key, (builder, chars, start, end) -> setter.accept(builder, parseEnum(constants, chars, start, end)));
+    }
+
+    /**
+     * A value with its own text format (e.g. an on-hit effect key).
+     * @param parser Throws IllegalArgumentException for a malformed value.
+     */
+    public <V> RecordSchema<B, R> parsed(String key, Function<String, V> parser, BiConsumer<B, V> setter) {
+        return field(key, (builder, chars, start, end) -> setter.accept(builder, parser.apply(new String(chars, start, end - start))));
+    }
+
+    /**
+     * A value that is itself a record, or a list of them: a JSON object or array of objects.
+     * The "key: value" format has no syntax for these; such keys are reported there.
+     * @param adder Called with each nested record, in order.
+     */
+    public <V> RecordSchema<B, R> records(String key, RecordSchema<?, V> schema, BiConsumer<B, V> adder) {
+        return field(key, null, new Nested<>(schema, adder));
+    }
+
+    /** Records missing any of these keys are reported and skipped. */
+    public RecordSchema<B, R> required(String... keys) {
+        for (String key : keys) {
+            Field<B> field = find(key);
+            if (field == null) {
+                throw new IllegalArgumentException("Required key '" + key + "' is not a field of this schema");
+            }
+            requiredMask |= 1L << field.index();
+        }
+        return this;
+    }
+
+    private RecordSchema<B, R> field(String key, Binder<B> binder) {
+        return field(key, binder, null);
+    }
+
+    private RecordSchema<B, R> field(String key, Binder<B> binder, Nested<B, ?> nested) {
+        if (find(key) != null) {
+            throw new IllegalArgumentException("Duplicate key '" + key + "'");
+        }
+        if (fields.size() == MAX_FIELDS) {
+            throw new IllegalArgumentException("A schema holds at most " + MAX_FIELDS + " keys");
+        }
+        fields.add(new Field<>(key, fields.size(), binder, nested));
+        rebuildTable();
+        return this;
+    }
+
+    private void rebuildTable() {
+        @SuppressWarnings("unchecked")
+        Field<B>[] slots = (Field<B>[]) new Field<?>[Integer.highestOneBit(fields.size() * 2) * 2];
+        table = slots;
+        for (Field<B> field : fields) {
+            int slot = field.key().hashCode() & (table.length - 1);
+            while (table[slot] != null) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            table[slot] = field;
+        }
+    }
+
+    private Field<B> find(String key) {
+        char[] chars = key.toCharArray();
+        return table == null ? null : lookup(chars, 0, chars.length);
+    }
+
+    /**
+     * Finds the field for the key in chars[start, end) without creating a String.
+     * @return The field, or null if the key is unknown.
+     */
+    Field<B> lookup(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + chars[i]; // Same hash as String.hashCode(), used to build the table
+        }
+        int slot = hash & (table.length - 1);
+        for (Field<B> field = table[slot]; field != null; field = table[slot]) {
+            if (matches(field.key(), chars, start, end)) {
+                return field;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return null;
+    }
+
+    private static boolean matches(String key, char[] chars, int start, int end) {
+        if (key.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    B newBuilder() {
+        return newBuilder.get();
+    }
+
+    R build(B builder) {
+        return build.apply(builder);
+    }
+
+    long requiredMask() {
+        return requiredMask;
+    }
+
+    /** @return The keys in the mask, for reporting a record that is missing some. */
+    List<String> keys(long mask) {
+        List<String> keys = new ArrayList<>();
+        for (Field<B> field : fields) {
+            if ((mask & (1L << field.index())) != 0) {
+                keys.add(field.key());
+            }
+        }
+        return keys;
+    }
+
+    // --- In-place value parsers ---
+
+    static int parseInt(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("'" + new String(chars, start, end - start) + "' is not an integer");
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("'" + new String(chars, start, end - start) + "' is not an integer");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new NumberFormatException("'" + new String(chars, start, end - start) + "' is out of integer range");
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("'" + new String(chars, start, end - start) + "' is out of integer range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Plain decimals with up to 15 significant digits ("4.5", "-12", "0.125") are parsed in place:
+     * the digits and the power of ten are both exact doubles, so their quotient is correctly rounded,
+     * the same result as Double.parseDouble. Anything else (exponents, longer values) falls back to it.
+     */
+    static double parseDouble(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits != 0 || c != '0') {
+                    digitCount++;
+                }
+                digits = digits * 10 + (c - '0');
+                if (inFraction) {
+                    fractionDigits++;
+                }
+                if (digitCount > 15 || fractionDigits >= POWERS_OF_TEN.length) {
+                    return parseDoubleSlow(chars, start, end);
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return parseDoubleSlow(chars, start, end);
+            }
+        }
+        if (!anyDigit) {
+            throw new NumberFormatException("'" + new String(chars, start, end - start) + "' is not a number");
+        }
+        double value = digits / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static double parseDoubleSlow(char[] chars, int start, int end) {
+        String value = new String(chars, start, end - start);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("'" + value + "' is not a number");
+        }
+    }
+
+    static boolean parseBoolean(char[] chars, int start, int end) {
+        if (equalsIgnoreCase("true", chars, start, end)) {
+            return true;
+        }
+        if (equalsIgnoreCase("false", chars, start, end)) {
+            return false;
+        }
+        throw new IllegalArgumentException("'" + new String(chars, start, end - start) + "' is not true or false");
+    }
+
+    static <E extends Enum<E>> E parseEnum(E[] constants, char[] chars, int start, int end) {
+        for (E constant : constants) {
+            if (equalsIgnoreCase(constant.name(), chars, start, end)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("'" + new String(chars, start, end - start) + "' is not one of "
+                                           + Arrays.toString(constants));
+    }
+
+    private static boolean equalsIgnoreCase(String expected, char[] chars, int start, int end) {
+        if (expected.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toUpperCase(expected.charAt(i)) != Character.toUpperCase(chars[start + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
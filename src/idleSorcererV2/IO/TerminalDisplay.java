@@ -1,12 +1,19 @@
 package idleSorcererV2.IO;
 
 import java.util.List;
+import java.util.Map;
 
 import idleSorcererV2.Enemy;
 import idleSorcererV2.GameManager;
 import idleSorcererV2.Inventory;
+import idleSorcererV2.LoadoutOptimizationReport;
+import idleSorcererV2.OfflineProgressReport;
+import idleSorcererV2.OptimizedLoadout;
 import idleSorcererV2.Player;
+import idleSorcererV2.SimulationReport;
 import idleSorcererV2.Stats;
+import idleSorcererV2.UpgradePlan;
+import idleSorcererV2.UpgradePlanner;
 import idleSorcererV2.data.PlayerSpell;
 import idleSorvererV2.enums.PrimaryAttributeType;
 
@@ -175,6 +182,108 @@ public class TerminalDisplay {
         printSeparator();
     }
 
+    public void displaySimulationReport(SimulationReport report) {
+        printSeparator();
+        showMessage("--- Simulation: Floor " + report.floor() + " vs " + report.enemyName() + " ---");
+        showMessage(String.format("  %-18s: %d (%d ms, seed %d)", "Runs", report.runs(), report.elapsedMillis(), report.seed()));
+        showMessage(String.format("  %-18s: %.1f%% (%d won, %d lost, %d timed out)", "Win Rate",
+                                  report.winRate() * 100.0, report.wins(), report.losses(), report.timeouts()));
+        if (report.wins() > 0) {
+            showMessage(String.format("  %-18s: mean %.1fs | p10 %.1fs | median %.1fs | p90 %.1fs", "Time to Kill",
+                                      report.meanTimeToKillSeconds(), report.p10TimeToKillSeconds(),
+                                      report.medianTimeToKillSeconds(), report.p90TimeToKillSeconds()));
+        }
+        if (report.losses() > 0) {
+            showMessage(String.format("  %-18s: mean %.1fs", "Time to Lose", report.meanTimeToLoseSeconds()));
+        }
+        showMessage(String.format("  %-18s: mean %.1f | p90 %.0f", "Damage Taken",
+                                  report.meanDamageTaken(), report.p90DamageTaken()));
+        printSeparator();
+    }
+
+    public void displayOfflineProgressReport(OfflineProgressReport report) {
+        printSeparator();
+        showMessage("--- While You Were Away (" + formatDuration(report.elapsedSeconds()) + ") ---");
+        if (report.creditedSeconds() < report.elapsedSeconds()) {
+            showMessage("  Only the first " + formatDuration(report.creditedSeconds()) + " are credited.");
+        }
+        showMessage(String.format("  %-18s: %d won, %d lost", "Encounters", report.encountersWon(), report.encountersLost()));
+        showMessage(String.format("  %-18s: %d (%s) -> %d (%s)", "Floor", report.startFloor(), report.startMode(),
+                                  report.endFloor(), report.endMode()));
+        showMessage(String.format("  %-18s: %d kept, %d salvaged for %d AP", "Loot",
+                                  report.spellsKept(), report.spellsSalvaged(), report.apGained()));
+        if (report.clearedAllFloors()) {
+            showMessage("  You cleared every floor!");
+        }
+        if (report.stalled()) {
+            showMessage("  A fight neither side could win stalled your progress. Check your loadout.");
+        }
+        showMessage(String.format("  (%d floor(s) simulated in %d ms)", report.floorsSimulated(), report.elapsedMillis()));
+        printSeparator();
+    }
+
+    // e.g. "8h 5m", "12m 30s"
+    private static String formatDuration(double seconds) {
+        long total = (long) seconds;
+        if (total >= 3600) {
+            return (total / 3600) + "h " + (total % 3600 / 60) + "m";
+        }
+        return (total / 60) + "m " + (total % 60) + "s";
+    }
+
+    public void displayLoadoutOptimizationReport(LoadoutOptimizationReport report) {
+        printSeparator();
+        showMessage("--- Optimized Loadouts: Floor " + report.floor() + " vs " + report.enemyName()
+                    + " (" + report.objective().getKeyword() + ") ---");
+        showMessage(String.format("  %d spells, %d active / %d passive candidates after pruning, %d estimates in %d ms%s",
+                                  report.spellsConsidered(), report.activeCandidates(), report.passiveCandidates(),
+                                  report.loadoutsEstimated(), report.elapsedMillis(),
+                                  report.exhaustive() ? "" : " (time limit reached, best found so far)"));
+        if (report.loadouts().isEmpty()) {
+            showMessage("  No loadout found. (Is your inventory empty?)");
+        }
+        for (int rank = 0; rank < report.loadouts().size(); rank++) {
+            OptimizedLoadout loadout = report.loadouts().get(rank);
+            showMessage(String.format("  #%d  Kill: %s | Death: %s | DPS: %.1f | Incoming: %.1f/s%s", rank + 1,
+                                      formatSeconds(loadout.timeToKillSeconds()), formatSeconds(loadout.timeToDieSeconds()),
+                                      loadout.damagePerSecond(), loadout.incomingDamagePerSecond(),
+                                      loadout.expectedToWin() ? "" : " (expected loss)"));
+            for (int i = 0; i < loadout.activeSpells().size(); i++) {
+                showMessage(String.format("      Active  [%d] %s", loadout.activeInventoryIndices().get(i), loadout.activeSpells().get(i).getName()));
+            }
+            for (int i = 0; i < loadout.passiveSpells().size(); i++) {
+                showMessage(String.format("      Passive [%d] %s", loadout.passiveInventoryIndices().get(i), loadout.passiveSpells().get(i).getName()));
+            }
+        }
+        printSeparator();
+    }
+
+    public void displayUpgradePlan(UpgradePlan plan) {
+        printSeparator();
+        showMessage("--- Upgrade Plan: " + plan.goal().getKeyword() + " on Floor " + plan.floor() + " vs " + plan.enemyName() + " ---");
+        if (plan.points().isEmpty()) {
+            showMessage(plan.goal() == UpgradePlanner.Goal.SURVIVAL && plan.goalReached()
+                        ? "  The target is already reached; no points needed."
+                        : "  No affordable points improve this goal. (AP: " + plan.apAvailable() + ")");
+        }
+        for (Map.Entry<PrimaryAttributeType, Integer> entry : plan.points().entrySet()) {
+            showMessage(String.format("  %-18s: +%d", entry.getKey().name(), entry.getValue()));
+        }
+        showMessage(String.format("  %-18s: %d of %d AP (%d points)", "Cost", plan.apCost(), plan.apAvailable(), plan.totalPoints()));
+        showMessage(String.format("  %-18s: %.1f -> %.1f", "Est. DPS", plan.damagePerSecondBefore(), plan.damagePerSecondAfter()));
+        showMessage(String.format("  %-18s: %s -> %s", "Est. Time to Die",
+                                  formatSeconds(plan.timeToDieSecondsBefore()), formatSeconds(plan.timeToDieSecondsAfter())));
+        if (plan.goal() == UpgradePlanner.Goal.SURVIVAL) {
+            showMessage(String.format("  %-18s: %s (%s)", "Target", formatSeconds(plan.targetTimeToDieSeconds()),
+                                      plan.goalReached() ? "reached" : "not reachable with your AP"));
+        }
+        printSeparator();
+    }
+
+    private static String formatSeconds(double seconds) {
+        return Double.isInfinite(seconds) ? "never" : String.format("%.1fs", seconds);
+    }
+
     public void displayPlayerWonEncounter(String enemyName, int floor) {
         printThickSeparator();
         showMessage(enemyName + " Defeated on Floor " + floor + "!");
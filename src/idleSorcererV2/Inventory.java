@@ -5,18 +5,87 @@
 
 package idleSorcererV2;
 
+import java.util.AbstractCollection;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.CoreEffectData;
+import idleSorcererV2.data.EnchantInstance;
 import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.CoreEffectType;
+import idleSorvererV2.enums.DamageType;
+import idleSorvererV2.enums.EnchantEffectType;
+import idleSorvererV2.enums.HealingType;
+import idleSorvererV2.enums.PrimaryAttributeType;
 
 public class Inventory {
 
-    private List<PlayerSpell> spells;
+    public static final int MAX_INDEXED_ENCHANTS = 4; // Spells roll 0-4 enchants
+
+    private final InventoryStorage storage;
+    private final boolean indexed; // Only storages that hold the spell objects are indexed
+
+    // Secondary indices, kept in step with the storage by addSpell/removeSpell.
+    // Sets compare by identity: two drops with identical rolls are still two different spells.
+    private final Map<String, Set<PlayerSpell>> byTemplateId;
+    private final Map<CoreEffectType, Set<PlayerSpell>> byEffectType;
+    private final Map<DamageType, Set<PlayerSpell>> byDamageType;
+    private final Map<HealingType, Set<PlayerSpell>> byHealingType;
+    private final Map<PrimaryAttributeType, Set<PlayerSpell>> byScalingAttribute;
+    private final Map<EnchantEffectType, Set<PlayerSpell>> byEnchantType;
+    private final List<Set<PlayerSpell>> byEnchantCount; // Index = number of enchants (last bucket holds any more)
+    private final NavigableMap<Integer, Set<PlayerSpell>> byAPCost;
+
+    private final List<PlayerSpell> allSpellsView = new AbstractList<PlayerSpell>() {
+        @Override
+        public PlayerSpell get(int index) {
+            return storage.peek(index);
+        }
+
+        @Override
+        public int size() {
+            return storage.size();
+        }
+    };
 
     // constructor
     public Inventory() {
-        this.spells = new ArrayList<>();
+        this(new ListInventoryStorage());
+    }
+
+    /**
+     * @param storage The backing storage. A ColumnarInventoryStorage trades the secondary
+     *                indices (queries scan instead) for a much smaller heap footprint.
+     */
+    public Inventory(InventoryStorage storage) {
+        this.storage = storage;
+        this.indexed = storage.holdsSpellObjects();
+        this.byTemplateId = new HashMap<>();
+        this.byEffectType = new EnumMap<>(CoreEffectType.class);
+        this.byDamageType = new EnumMap<>(DamageType.class);
+        this.byHealingType = new EnumMap<>(HealingType.class);
+        this.byScalingAttribute = new EnumMap<>(PrimaryAttributeType.class);
+        this.byEnchantType = new EnumMap<>(EnchantEffectType.class);
+        this.byEnchantCount = new ArrayList<>();
+        for (int i = 0; i <= MAX_INDEXED_ENCHANTS; i++) {
+            this.byEnchantCount.add(newIdentitySet());
+        }
+        this.byAPCost = new TreeMap<>();
     }
 
     /**
@@ -29,7 +98,13 @@ public class Inventory {
             System.err.println("Inventory Error: Cannot add a null spell.");
             return false;
         }
-        return this.spells.add(spell);
+        if (!storage.add(spell)) {
+            return false;
+        }
+        if (indexed) {
+            index(spell);
+        }
+        return true;
     }
 
     /**
@@ -38,10 +113,14 @@ public class Inventory {
      * @return The PlayerSpell object that was removed, or null if the index was invalid.
      */
     public PlayerSpell removeSpell(int index) {
-        if (index >= 0 && index < this.spells.size()) {
-            return this.spells.remove(index);
+        if (index >= 0 && index < storage.size()) {
+            PlayerSpell removed = storage.remove(index);
+            if (indexed) {
+                unindex(removed);
+            }
+            return removed;
         } else {
-            System.err.println("Inventory Error: Invalid index " + index + " for removing spell. Inventory size: " + this.spells.size());
+            System.err.println("Inventory Error: Invalid index " + index + " for removing spell. Inventory size: " + storage.size());
             return null;
         }
     }
@@ -49,38 +128,77 @@ public class Inventory {
     /**
      * Removes a specific spell object from the inventory.
      * Useful if you have the spell object itself and don't know its index.
+     * The spell is matched by identity, so an identical-looking duplicate drop is left alone.
      * @param spell The PlayerSpell object to remove.
      * @return true if the spell was found and removed, false otherwise.
      */
     public boolean removeSpell(PlayerSpell spell) {
+        if (spell == null || !contains(spell)) {
+            return false;
+        }
+        return removeSpell(storage.indexOf(spell)) != null;
+    }
+
+    /**
+     * @param spell A spell object.
+     * @return true if this exact spell object is in the inventory. Constant time when indexed.
+     */
+    public boolean contains(PlayerSpell spell) {
         if (spell == null) {
             return false;
         }
-        return this.spells.remove(spell);
+        if (!indexed) {
+            return storage.indexOf(spell) >= 0;
+        }
+        Set<PlayerSpell> sameTemplate = byTemplateId.get(templateId(spell));
+        return sameTemplate != null && sameTemplate.contains(spell);
     }
 
 
+    /**
+     * @param spell A spell object.
+     * @return The index of this exact spell object, or -1 if it is not in the inventory.
+     */
+    public int indexOf(PlayerSpell spell) {
+        return spell == null ? -1 : storage.indexOf(spell);
+    }
+
+    /**
+     * Removes every spell matching the condition in one pass over the inventory.
+     * @param condition Which spells to remove.
+     * @param onRemoved Called with each removed spell (e.g. to total its AP).
+     * @return The number of spells removed.
+     */
+    public int removeSpellsIf(Predicate<PlayerSpell> condition, Consumer<PlayerSpell> onRemoved) {
+        return storage.removeIf(condition, spell -> {
+            if (indexed) {
+                unindex(spell);
+            }
+            onRemoved.accept(spell);
+        });
+    }
+
     /**
      * Retrieves a spell from the inventory at the specified index without removing it.
      * @param index The index of the spell to retrieve (0-based).
      * @return The PlayerSpell object at the given index, or null if the index is invalid.
      */
     public PlayerSpell getSpell(int index) {
-        if (index >= 0 && index < this.spells.size()) {
-            return this.spells.get(index);
+        if (index >= 0 && index < storage.size()) {
+            return storage.get(index);
         } else {
-            System.err.println("Inventory Error: Invalid index " + index + " for getting spell. Inventory size: " + this.spells.size());
+            System.err.println("Inventory Error: Invalid index " + index + " for getting spell. Inventory size: " + storage.size());
             return null;
         }
     }
 
     /**
-     * Returns a list of all spells currently in the inventory.
+     * Returns all spells currently in the inventory, in inventory order.
+     * The list is a read-only view, not a copy, so it reflects later changes to the inventory.
+     * With columnar storage its elements are built as they are read.
      */
     public List<PlayerSpell> getAllSpells() {
-        // Returning a new ArrayList to prevent external modification of the internal list structure.
-        // PlayerSpell records are immutable, so sharing references to them is fine.
-        return new ArrayList<>(this.spells);
+        return allSpellsView;
     }
 
     /**
@@ -88,60 +206,231 @@ public class Inventory {
      * @return The count of spells.
      */
     public int getSpellCount() {
-        return this.spells.size();
+        return storage.size();
     }
 
     /**
-     * Sorts the inventory by spell AP cost in ascending order using a recursive selection sort.
-     * This method modifies the internal list of spells.
+     * @return true if the secondary indices are maintained (list storage).
      */
-    public void sortByAPCostRecursive() {
-        if (this.spells == null || this.spells.size() < 2) {
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    /**
+     * Sorts the inventory in place. The sort is stable (spells that compare equal keep their
+     * current order) and runs in O(n log n), so it stays fast for large farmed inventories.
+     * @param order The order to sort by, e.g. from SpellSortKey.parseOrder().
+     */
+    public void sort(Comparator<PlayerSpell> order) {
+        if (order == null || storage.size() < 2) {
             return;
         }
-        selectionSortInventory(this.spells, this.spells.size());
-        System.out.println("Inventory sorted by AP Cost.");
+        storage.sort(order);
+    }
+
+    // --- Index queries ---
+    // All of these return read-only views of the index (no copying); iteration order is unspecified.
+    // Without indices (columnar storage) they scan the inventory and return a snapshot instead.
+
+    public Set<PlayerSpell> getSpellsByTemplateId(String templateId) {
+        return indexed ? view(byTemplateId.get(templateId)) : scan(query().templateId(templateId)::matches);
+    }
+
+    public Set<PlayerSpell> getSpellsByEffectType(CoreEffectType type) {
+        return indexed ? view(byEffectType.get(type)) : scan(query().effectType(type)::matches);
+    }
+
+    public Set<PlayerSpell> getSpellsByDamageType(DamageType type) {
+        return indexed ? view(byDamageType.get(type)) : scan(query().damageType(type)::matches);
+    }
+
+    public Set<PlayerSpell> getSpellsByHealingType(HealingType type) {
+        return indexed ? view(byHealingType.get(type)) : scan(query().healingType(type)::matches);
+    }
+
+    public Set<PlayerSpell> getSpellsByScalingAttribute(PrimaryAttributeType attribute) {
+        return indexed ? view(byScalingAttribute.get(attribute)) : scan(query().scalingAttribute(attribute)::matches);
     }
 
     /**
-     * Helper method for recursive selection sort.
-     * Sorts the first n elements of the list.
-     * In each step, it finds the maximum element in the unsorted part and places it at the end of that part.
-     * @param list The list of PlayerSpells to sort.
-     * @param n The number of elements from the beginning of the list to consider for sorting.
+     * @return Spells with at least one enchant of the given type.
      */
-    private void selectionSortInventory(List<PlayerSpell> list, int n) {
-    	// base case
-        if (n <= 1) {
-            return;
+    public Set<PlayerSpell> getSpellsWithEnchantType(EnchantEffectType type) {
+        return indexed ? view(byEnchantType.get(type)) : scan(query().withEnchantType(type)::matches);
+    }
+
+    /**
+     * @param enchantCount 0 to MAX_INDEXED_ENCHANTS; the last bucket also holds spells with more.
+     */
+    public Set<PlayerSpell> getSpellsByEnchantCount(int enchantCount) {
+        if (enchantCount < 0) {
+            return Collections.emptySet();
         }
+        int bucket = Math.min(enchantCount, MAX_INDEXED_ENCHANTS);
+        if (!indexed) {
+            return scan(spell -> Math.min(spell.appliedEnchants().size(), MAX_INDEXED_ENCHANTS) == bucket);
+        }
+        return view(byEnchantCount.get(bucket));
+    }
+
+    /**
+     * @return Spells whose AP cost is within [minAPCost, maxAPCost], in ascending AP order.
+     */
+    public Collection<PlayerSpell> getSpellsByAPCostRange(int minAPCost, int maxAPCost) {
+        if (minAPCost > maxAPCost) {
+            return Collections.emptyList();
+        }
+        if (!indexed) {
+            List<PlayerSpell> matches = new ArrayList<>();
+            query().minAPCost(minAPCost).maxAPCost(maxAPCost).stream().forEach(matches::add);
+            matches.sort(SpellSortKey.AP.comparator(false));
+            return matches;
+        }
+        return new FlattenedView(byAPCost.subMap(minAPCost, true, maxAPCost, true).values());
+    }
+
+    /**
+     * Starts a compound query, e.g. query().damageType(DamageType.FIRE).minEnchants(2).stream().
+     */
+    public SpellQuery query() {
+        return new SpellQuery(this);
+    }
+
+    // Number of enchant buckets, used by SpellQuery to pick the smallest candidate set
+    int countWithEnchantsAtLeast(int minEnchants) {
+        int total = 0;
+        for (int i = Math.max(0, minEnchants); i <= MAX_INDEXED_ENCHANTS; i++) {
+            total += byEnchantCount.get(i).size();
+        }
+        return total;
+    }
+
+    Collection<PlayerSpell> getSpellsWithEnchantsAtLeast(int minEnchants) {
+        int from = Math.max(0, Math.min(minEnchants, MAX_INDEXED_ENCHANTS + 1));
+        return new FlattenedView(byEnchantCount.subList(from, MAX_INDEXED_ENCHANTS + 1));
+    }
 
-        // Find the index of the maximum element in the subarray list
-        int indexOfMax = 0;
-        for (int i = 1; i < n; i++) {
-            if (list.get(i).finalAPCost() > list.get(indexOfMax).finalAPCost()) {
-                indexOfMax = i;
+    // --- Index maintenance ---
+
+    private void index(PlayerSpell spell) {
+        byTemplateId.computeIfAbsent(templateId(spell), k -> newIdentitySet()).add(spell);
+        BaseSpellTemplate template = spell.baseTemplate();
+        if (template != null) {
+            CoreEffectData core = template.coreEffect();
+            if (core != null && core.type() != null) {
+                byEffectType.computeIfAbsent(core.type(), k -> newIdentitySet()).add(spell);
+            }
+            if (core != null && core.damageType() != null) {
+                byDamageType.computeIfAbsent(core.damageType(), k -> newIdentitySet()).add(spell);
+            }
+            if (core != null && core.healingType() != null) {
+                byHealingType.computeIfAbsent(core.healingType(), k -> newIdentitySet()).add(spell);
             }
+            if (template.scalingAttribute() != null) {
+                byScalingAttribute.computeIfAbsent(template.scalingAttribute(), k -> newIdentitySet()).add(spell);
+            }
+        }
+        for (EnchantInstance enchant : spell.appliedEnchants()) {
+            byEnchantType.computeIfAbsent(enchant.baseEnchant().effectType(), k -> newIdentitySet()).add(spell);
         }
+        byEnchantCount.get(Math.min(spell.appliedEnchants().size(), MAX_INDEXED_ENCHANTS)).add(spell);
+        byAPCost.computeIfAbsent(spell.finalAPCost(), k -> newIdentitySet()).add(spell);
+    }
 
-        // Swap the maximum element with the element at the current end of the unsorted portion (n-1)
-        if (indexOfMax != n - 1) {
-            PlayerSpell temp = list.get(indexOfMax);
-            list.set(indexOfMax, list.get(n - 1));
-            list.set(n - 1, temp);
+    private void unindex(PlayerSpell spell) {
+        removeFrom(byTemplateId, templateId(spell), spell);
+        BaseSpellTemplate template = spell.baseTemplate();
+        if (template != null) {
+            CoreEffectData core = template.coreEffect();
+            if (core != null && core.type() != null) {
+                removeFrom(byEffectType, core.type(), spell);
+            }
+            if (core != null && core.damageType() != null) {
+                removeFrom(byDamageType, core.damageType(), spell);
+            }
+            if (core != null && core.healingType() != null) {
+                removeFrom(byHealingType, core.healingType(), spell);
+            }
+            if (template.scalingAttribute() != null) {
+                removeFrom(byScalingAttribute, template.scalingAttribute(), spell);
+            }
+        }
+        for (EnchantInstance enchant : spell.appliedEnchants()) {
+            removeFrom(byEnchantType, enchant.baseEnchant().effectType(), spell);
         }
+        byEnchantCount.get(Math.min(spell.appliedEnchants().size(), MAX_INDEXED_ENCHANTS)).remove(spell);
+        removeFrom(byAPCost, spell.finalAPCost(), spell);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<PlayerSpell>> index, K key, PlayerSpell spell) {
+        Set<PlayerSpell> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(spell);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
 
-        // Recursively call for the remaining n-1 elements (excluding the now sorted largest element)
-        selectionSortInventory(list, n - 1);
+    private static String templateId(PlayerSpell spell) {
+        return spell.baseTemplate() != null ? spell.baseTemplate().id() : "";
+    }
+
+    private static Set<PlayerSpell> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private Set<PlayerSpell> scan(Predicate<PlayerSpell> condition) {
+        Set<PlayerSpell> matches = newIdentitySet();
+        for (PlayerSpell spell : allSpellsView) {
+            if (condition.test(spell)) {
+                matches.add(spell);
+            }
+        }
+        return Collections.unmodifiableSet(matches);
     }
 
-    // If you wanted descending order, the comparison in the loop would be:
-    // if (list.get(i).finalAPCost() < list.get(minIndex).finalAPCost())
-    // And you'd swap the minimum with the element at n-1.
-    // The current implementation sorts in ASCENDING order (smallest AP cost first).
-    // Let me re-verify the selection sort logic for ascending.
-    // Standard recursive selection sort for ascending:
-    // In each step, find the minimum in list[currentIndex ... n-1] and swap with list[currentIndex]
-    // Then recurse for list[currentIndex+1 ... n-1]
-    // The version above places the MAX at the END of the current segment. This results in ascending order.
+    private static Set<PlayerSpell> view(Set<PlayerSpell> bucket) {
+        return bucket != null ? Collections.unmodifiableSet(bucket) : Collections.emptySet();
+    }
+
+    // Read-only view over several index buckets, without copying them into one collection
+    private static final class FlattenedView extends AbstractCollection<PlayerSpell> {
+        private final Collection<Set<PlayerSpell>> buckets;
+
+        FlattenedView(Collection<Set<PlayerSpell>> buckets) {
+            this.buckets = buckets;
+        }
+
+        @Override
+        public Iterator<PlayerSpell> iterator() {
+            Iterator<Set<PlayerSpell>> bucketIterator = buckets.iterator();
+            return new Iterator<PlayerSpell>() {
+                private Iterator<PlayerSpell> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && bucketIterator.hasNext()) {
+                        current = bucketIterator.next().iterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public PlayerSpell next() {
+                    hasNext();
+                    return current.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            int total = 0;
+            for (Set<PlayerSpell> bucket : buckets) {
+                total += bucket.size();
+            }
+            return total;
+        }
+    }
 }
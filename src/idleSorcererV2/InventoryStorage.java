@@ -0,0 +1,64 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * Backing store for the inventory's spells, in inventory order.
+ * ListInventoryStorage keeps the PlayerSpell objects themselves; ColumnarInventoryStorage
+ * packs each drop into primitive columns and builds PlayerSpell views on demand.
+ */
+public interface InventoryStorage {
+
+    int size();
+
+    /**
+     * Returns the spell at the given position. The same object is returned for as long as the
+     * spell stays in storage, so it can be equipped and later recognised by identity.
+     */
+    PlayerSpell get(int index);
+
+    /**
+     * Returns the spell at the given position for reading only (e.g. display or filtering).
+     * Implementations may return a short-lived copy rather than the stored object.
+     */
+    PlayerSpell peek(int index);
+
+    /**
+     * @return true if the spell was stored, false if this storage cannot represent it.
+     */
+    boolean add(PlayerSpell spell);
+
+    PlayerSpell remove(int index);
+
+    /**
+     * @return The position of this exact object (identity, not equals), or -1.
+     */
+    int indexOf(PlayerSpell spell);
+
+    /**
+     * Removes every spell matching the condition in a single compacting pass, keeping the
+     * order of the rest. The condition is tested once per spell, in inventory order.
+     * @param onRemoved Called with each removed spell.
+     * @return The number of spells removed.
+     */
+    int removeIf(Predicate<PlayerSpell> condition, Consumer<PlayerSpell> onRemoved);
+
+    /**
+     * Stable sort of the stored spells.
+     */
+    void sort(Comparator<PlayerSpell> order);
+
+    /**
+     * @return true if peek() returns the stored objects themselves, so they can be indexed.
+     */
+    boolean holdsSpellObjects();
+}
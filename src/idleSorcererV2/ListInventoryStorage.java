@@ -0,0 +1,82 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * The default inventory storage: a plain list of PlayerSpell objects.
+ */
+public class ListInventoryStorage implements InventoryStorage {
+    private final List<PlayerSpell> spells = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return spells.size();
+    }
+
+    @Override
+    public PlayerSpell get(int index) {
+        return spells.get(index);
+    }
+
+    @Override
+    public PlayerSpell peek(int index) {
+        return spells.get(index);
+    }
+
+    @Override
+    public boolean add(PlayerSpell spell) {
+        return spells.add(spell);
+    }
+
+    @Override
+    public PlayerSpell remove(int index) {
+        return spells.remove(index);
+    }
+
+    @Override
+    public int indexOf(PlayerSpell spell) {
+        for (int i = 0; i < spells.size(); i++) {
+            if (spells.get(i) == spell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int removeIf(Predicate<PlayerSpell> condition, Consumer<PlayerSpell> onRemoved) {
+        int kept = 0;
+        for (int i = 0; i < spells.size(); i++) {
+            PlayerSpell spell = spells.get(i);
+            if (condition.test(spell)) {
+                onRemoved.accept(spell);
+            } else {
+                spells.set(kept++, spell);
+            }
+        }
+        int removed = spells.size() - kept;
+        spells.subList(kept, spells.size()).clear();
+        return removed;
+    }
+
+    @Override
+    public void sort(Comparator<PlayerSpell> order) {
+        spells.sort(order);
+    }
+
+    @Override
+    public boolean holdsSpellObjects() {
+        return true;
+    }
+}
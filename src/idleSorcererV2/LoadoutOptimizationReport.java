@@ -0,0 +1,28 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.List;
+
+/**
+ * The best loadouts the LoadoutOptimizer found for one floor, best first.
+ */
+public record LoadoutOptimizationReport(
+    int floor,
+    String enemyName,
+    LoadoutOptimizer.Objective objective,
+    List<OptimizedLoadout> loadouts,
+    int spellsConsidered,       // Inventory size when the search ran
+    int activeCandidates,       // Spells left for the active slots after dominance pruning
+    int passiveCandidates,      // Spells left for the passive slots after dominance pruning
+    long loadoutsEstimated,     // Full loadouts and search-tree bounds evaluated
+    boolean exhaustive,         // False if the time limit cut the search short
+    long elapsedMillis
+) {
+    public OptimizedLoadout best() {
+        return loadouts.isEmpty() ? null : loadouts.get(0);
+    }
+}
@@ -0,0 +1,840 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import idleSorcererV2.IO.EnemyLoader;
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.CoreEffectType;
+import idleSorvererV2.enums.DamageType;
+import idleSorvererV2.enums.EnchantEffectType;
+import idleSorvererV2.enums.EnchantTargetParameter;
+import idleSorvererV2.enums.HealingType;
+
+/**
+ * Searches the inventory for the active/passive loadouts that should do best against a floor.
+ * Loadouts are ranked with an analytic estimate instead of simulated fights: potency and accuracy
+ * are resolved with the same stat and enchant rules as SpellCastPlan, then turned into expected
+ * damage per second against the enemy's dodge, armor, shield and regen, and compared with the
+ * enemy's damage against the player's max HP, armor, dodge and sustain. On-hit debuffs and
+ * dice variance are ignored, so 'simulate' should confirm the loadout that gets picked.
+ * Spells beaten in every relevant respect by at least as many spells as there are slots are
+ * pruned first, since one of those would always be free to take their place. The remaining
+ * active pairs are searched in parallel, best bound first, each with a branch-and-bound over
+ * passive sets that stops as soon as no completion can beat the current top k.
+ */
+public class LoadoutOptimizer {
+
+    public enum Objective {
+        BALANCED("balanced"), // Win margin: time to die over time to kill
+        DAMAGE("dps"),        // Fastest kill, survival ignored
+        SURVIVAL("survive");  // Longest survival, faster kills break ties
+
+        private final String keyword;
+
+        Objective(String keyword) {
+            this.keyword = keyword;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * @return The objective with this keyword (case-insensitive), or null if none matches.
+         */
+        public static Objective fromKeyword(String keyword) {
+            for (Objective objective : values()) {
+                if (objective.keyword.equalsIgnoreCase(keyword)) {
+                    return objective;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final int MAX_TOP_K = 20;
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 10_000;
+
+    private static final int ACTIVE_SLOTS = Player.NUM_ACTIVE_SPELL_SLOTS;
+    private static final int PASSIVE_SLOTS = Player.NUM_PASSIVE_SPELL_SLOTS;
+    // A dominated spell can only be needed if its dominators could all be equipped elsewhere
+    private static final int PRUNING_DOMINATORS = ACTIVE_SLOTS + PASSIVE_SLOTS;
+
+    // Layout of a candidate's bonus vector: the equipped-enchant totals the estimate reads
+    private static final int MAX_HP = 0;
+    private static final int ARMOR = 1;
+    private static final int ACCURACY = 2;
+    private static final int FIRST_DAMAGE_TYPE = 3;
+    private static final int FIRST_HEALING_TYPE = FIRST_DAMAGE_TYPE + DamageType.values().length;
+    private static final int DIMENSIONS = FIRST_HEALING_TYPE + HealingType.values().length;
+    private static final int[] ALL_DIMENSIONS = IntStream.range(0, DIMENSIONS).toArray();
+
+    private static final double FIGHT_CAP_SECONDS = CombatSimulator.DEFAULT_MAX_ENCOUNTER_SECONDS;
+
+    private final long timeLimitMillis;
+
+    public LoadoutOptimizer() {
+        this(DEFAULT_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * @param timeLimitMillis Wall-clock budget; a search that runs out reports its best so far.
+     */
+    public LoadoutOptimizer(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Finds the best loadouts of the player's inventory against a floor's enemy.
+     * The player is only read, never modified.
+     * @param player The player whose stats and inventory are used.
+     * @param enemyLoader Source of the floor's enemy definition.
+     * @param floor The floor to optimize for (1-based).
+     * @param topK How many loadouts to return, between 1 and MAX_TOP_K.
+     * @param objective What the loadouts are ranked by.
+     * @return The report, or null if the floor has no enemy or topK is out of range.
+     */
+    public LoadoutOptimizationReport optimize(Player player, EnemyLoader enemyLoader, int floor, int topK, Objective objective) {
+        if (topK < 1 || topK > MAX_TOP_K) {
+            System.err.println("LoadoutOptimizer Error: Top k must be between 1 and " + MAX_TOP_K + ". Received: " + topK);
+            return null;
+        }
+        Enemy enemy = enemyLoader.getEnemyForFloor(floor);
+        if (enemy == null) {
+            return null;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        Stats stats = player.getStats();
+        EnchantBonusTable noBonuses = new EnchantBonusTable();
+        EnchantBonusTable scratch = new EnchantBonusTable();
+        List<PlayerSpell> spells = player.getInventory().getAllSpells();
+        Candidate[] candidates = new Candidate[spells.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = new Candidate(i, spells.get(i), stats, noBonuses, scratch);
+        }
+
+        Candidate[] passives = prune(candidates, c -> sum(c.bonuses, ALL_DIMENSIONS),
+                                     (better, worse) -> atLeastAsGood(better.bonuses, worse.bonuses, ALL_DIMENSIONS));
+
+        Search search = new Search(new Encounter(stats, enemy), objective, topK, passives,
+                                   System.nanoTime() + timeLimitMillis * 1_000_000L);
+        int activeCandidates = search.run(candidates);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        return new LoadoutOptimizationReport(floor, enemy.getName(), objective, search.top.sortedResults(),
+                                             candidates.length, activeCandidates, passives.length,
+                                             search.estimates.sum(), !search.timedOut, elapsedMillis);
+    }
+
+    /**
+     * Estimates the player's equipped loadout against an enemy as if the player had these attributes.
+     * @param player The player whose equipped spells are used.
+     * @param stats The attributes to estimate with, e.g. a copy with planned upgrades.
+     * @param enemy A fresh enemy (its current state is read as the starting state).
+     * @return The estimate, or null if no active spell is equipped.
+     */
+    static Estimate estimateEquipped(Player player, Stats stats, Enemy enemy) {
+        EnchantBonusTable noBonuses = new EnchantBonusTable();
+        EnchantBonusTable scratch = new EnchantBonusTable();
+        double[] bonuses = new double[DIMENSIONS];
+        Candidate[] actives = new Candidate[ACTIVE_SLOTS];
+        int activeCount = 0;
+        for (PlayerSpell spell : player.getActiveSpells()) {
+            if (spell != null) {
+                actives[activeCount] = new Candidate(-1, spell, stats, noBonuses, scratch);
+                addInto(bonuses, bonuses, actives[activeCount++].bonuses);
+            }
+        }
+        if (activeCount == 0) {
+            return null;
+        }
+        for (PlayerSpell spell : player.getPassiveSpells()) {
+            if (spell != null) {
+                addInto(bonuses, bonuses, new Candidate(-1, spell, stats, noBonuses, scratch).bonuses);
+            }
+        }
+        return new Encounter(stats, enemy).estimate(actives[0], actives[1], bonuses, false);
+    }
+
+    /**
+     * Drops every candidate that at least PRUNING_DOMINATORS others are at least as good as.
+     * Equal candidates only count the earlier one as better, so pruning never removes all copies.
+     * @param strength Ordering hint; anything at least as good should not have a lower strength.
+     */
+    private static Candidate[] prune(Candidate[] candidates, ToDoubleFunction<Candidate> strength,
+                                     BiPredicate<Candidate, Candidate> atLeastAsGood) {
+        Candidate[] ordered = candidates.clone();
+        Arrays.sort(ordered, Comparator.comparingDouble(strength).reversed()
+                                       .thenComparingInt(c -> c.inventoryIndex));
+        List<Candidate> kept = new ArrayList<>();
+        for (int i = 0; i < ordered.length; i++) {
+            int dominators = 0;
+            for (int j = 0; j < i && dominators < PRUNING_DOMINATORS; j++) {
+                if (atLeastAsGood.test(ordered[j], ordered[i])) {
+                    dominators++;
+                }
+            }
+            if (dominators < PRUNING_DOMINATORS) {
+                kept.add(ordered[i]);
+            }
+        }
+        return kept.toArray(new Candidate[0]);
+    }
+
+    /**
+     * Prunes one group of actives for pairs that read only these dimensions.
+     * Only spells of the same template share effect, flags and scaling, so each template is pruned
+     * on its own and only the numbers need comparing.
+     */
+    private static Candidate[] pruneActives(List<Candidate> group, int[] dimensions) {
+        Map<BaseSpellTemplate, List<Candidate>> byTemplate = new IdentityHashMap<>();
+        for (Candidate candidate : group) {
+            byTemplate.computeIfAbsent(candidate.spell.baseTemplate(), k -> new ArrayList<>()).add(candidate);
+        }
+        List<Candidate> kept = new ArrayList<>();
+        for (List<Candidate> sameTemplate : byTemplate.values()) {
+            kept.addAll(Arrays.asList(prune(sameTemplate.toArray(new Candidate[0]), c -> c.activeStrength(dimensions),
+                    (better, worse) -> better.potencyPerBonus >= worse.potencyPerBonus
+                                       && better.potencyOffset >= worse.potencyOffset
+                                       && better.castInterval <= worse.castInterval
+                                       && better.accuracyBonus >= worse.accuracyBonus
+                                       && atLeastAsGood(better.bonuses, worse.bonuses, dimensions))));
+        }
+        return kept.toArray(new Candidate[0]);
+    }
+
+    private static boolean atLeastAsGood(double[] better, double[] worse, int[] dimensions) {
+        for (int dimension : dimensions) {
+            if (better[dimension] < worse[dimension]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double sum(double[] bonuses, int[] dimensions) {
+        double total = 0;
+        for (int dimension : dimensions) {
+            total += bonuses[dimension];
+        }
+        return total;
+    }
+
+    /**
+     * @param firstPotencyDimension Bonus scaling the first active, or -1.
+     * @param secondPotencyDimension Bonus scaling the second active, or -1.
+     * @return The dimensions that matter for a loadout with such actives: max HP, armor,
+     *         accuracy and the bonuses that scale the actives' potency.
+     */
+    private static int[] relevantDimensions(int firstPotencyDimension, int secondPotencyDimension) {
+        int[] dimensions = {MAX_HP, ARMOR, ACCURACY, -1, -1};
+        int count = 3;
+        if (firstPotencyDimension >= 0) {
+            dimensions[count++] = firstPotencyDimension;
+        }
+        if (secondPotencyDimension >= 0 && secondPotencyDimension != firstPotencyDimension) {
+            dimensions[count++] = secondPotencyDimension;
+        }
+        return Arrays.copyOf(dimensions, count);
+    }
+
+    private static double score(Objective objective, Estimate estimate) {
+        double killSpeed = estimate.timeToKillSeconds() >= FIGHT_CAP_SECONDS ? 0.0 : 1.0 / estimate.timeToKillSeconds();
+        double survival = Math.min(estimate.timeToDieSeconds(), FIGHT_CAP_SECONDS);
+        switch (objective) {
+            case DAMAGE:
+                return killSpeed;
+            case SURVIVAL:
+                return survival + killSpeed / (1.0 + killSpeed); // Tie-break term stays below 1s
+            default:
+                return survival * killSpeed;
+        }
+    }
+
+    /**
+     * Time until a pool is used up by a constant rate plus a linearly growing one (poison stacks).
+     * @return Seconds, or infinity if the pool is never used up.
+     */
+    private static double timeToDeplete(double pool, double rate, double ramp) {
+        if (pool <= 0) {
+            return 0.0;
+        }
+        if (ramp <= 0) {
+            return rate > 0 ? pool / rate : Double.POSITIVE_INFINITY;
+        }
+        if (rate >= 0) {
+            return (Math.sqrt(rate * rate + 2.0 * ramp * pool) - rate) / ramp;
+        }
+        // Regen wins until the ramp catches up; the target sits at full health until then
+        return -rate / ramp + Math.sqrt(2.0 * pool / ramp);
+    }
+
+    /**
+     * Analytic outcome of one loadout against one enemy.
+     * Times are infinite when that side never goes down.
+     */
+    record Estimate(double timeToKillSeconds, double timeToDieSeconds,
+                    double damagePerSecond, double incomingDamagePerSecond) {
+    }
+
+    /**
+     * One inventory spell with everything the estimate needs precomputed, for both slot kinds.
+     */
+    private static final class Candidate {
+        final int inventoryIndex;
+        final PlayerSpell spell;
+        final double[] bonuses = new double[DIMENSIONS]; // What this spell adds to the equipped-enchant totals
+
+        // As an active: potency = round(potencyPerBonus * (1 + bonus% / 100) + potencyOffset),
+        // since a spell's own enchant chain is a sequence of adds and multiplies
+        final CoreEffectType effectType;
+        final int potencyDimension; // -1 if no global bonus scales this spell
+        final double potencyPerBonus;
+        final double potencyOffset;
+        final double castInterval;
+        final int accuracyBonus;
+        final boolean alwaysHits;
+        final boolean ignoresArmor;
+        final boolean ignoresShield;
+        final boolean dealsDoubleDamageToShields;
+
+        Candidate(int inventoryIndex, PlayerSpell spell, Stats stats, EnchantBonusTable noBonuses, EnchantBonusTable scratch) {
+            this.inventoryIndex = inventoryIndex;
+            this.spell = spell;
+
+            scratch.rebuild(new PlayerSpell[] {spell});
+            bonuses[MAX_HP] = scratch.get(EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT, EnchantTargetParameter.MAX_HP);
+            bonuses[ARMOR] = scratch.getTruncated(EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT, EnchantTargetParameter.ARMOR); // Whole points per enchant, as Player counts them
+            bonuses[ACCURACY] = scratch.get(EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_PERCENT, EnchantTargetParameter.GLOBAL_ACCURACY_PERCENT);
+            for (DamageType type : DamageType.values()) {
+                bonuses[FIRST_DAMAGE_TYPE + type.ordinal()] = scratch.getDamageTypeBonusPercent(type);
+            }
+            for (HealingType type : HealingType.values()) {
+                bonuses[FIRST_HEALING_TYPE + type.ordinal()] = scratch.getHealingTypeBonusPercent(type);
+            }
+
+            SpellCastPlan plan = SpellCastPlan.compile(spell, stats, noBonuses);
+            HealingType healingType = spell.baseTemplate().coreEffect().healingType();
+            this.effectType = plan.effectType();
+            if (effectType == CoreEffectType.DAMAGE && plan.damageType() != null) {
+                this.potencyDimension = FIRST_DAMAGE_TYPE + plan.damageType().ordinal();
+            } else if (effectType == CoreEffectType.HEALING && healingType != null) {
+                this.potencyDimension = FIRST_HEALING_TYPE + healingType.ordinal();
+            } else {
+                this.potencyDimension = -1;
+            }
+            this.potencyOffset = SpellCastPlan.applySpellEnchants(spell, 0.0);
+            this.potencyPerBonus = (SpellCastPlan.applySpellEnchants(spell, 1.0) - potencyOffset)
+                                   * SpellCastPlan.statScaledPotency(spell, stats);
+            this.castInterval = Math.max(CombatEngine.MIN_CAST_INTERVAL_SECONDS, spell.actualCooldownSeconds());
+            this.accuracyBonus = plan.accuracyBonus();
+            this.alwaysHits = plan.alwaysHits();
+            this.ignoresArmor = plan.ignoresArmor();
+            this.ignoresShield = plan.ignoresShield();
+            this.dealsDoubleDamageToShields = plan.dealsDoubleDamageToShields();
+        }
+
+        /**
+         * An imaginary active at least as good as every member of a group in every respect,
+         * used to bound any pair containing one of them.
+         */
+        Candidate(Candidate[] group) {
+            this.inventoryIndex = -1;
+            this.spell = null;
+            this.effectType = group[0].effectType;
+            this.potencyDimension = group[0].potencyDimension;
+            double perBonus = Double.NEGATIVE_INFINITY;
+            double offset = Double.NEGATIVE_INFINITY;
+            double interval = Double.POSITIVE_INFINITY;
+            int accuracy = Integer.MIN_VALUE;
+            boolean hits = false;
+            boolean armor = false;
+            boolean shield = false;
+            boolean shieldBreaker = false;
+            Arrays.fill(bonuses, Double.NEGATIVE_INFINITY);
+            for (Candidate member : group) {
+                perBonus = Math.max(perBonus, member.potencyPerBonus);
+                offset = Math.max(offset, member.potencyOffset);
+                interval = Math.min(interval, member.castInterval);
+                accuracy = Math.max(accuracy, member.accuracyBonus);
+                hits |= member.alwaysHits;
+                armor |= member.ignoresArmor;
+                shield |= member.ignoresShield;
+                shieldBreaker |= member.dealsDoubleDamageToShields;
+                for (int i = 0; i < DIMENSIONS; i++) {
+                    bonuses[i] = Math.max(bonuses[i], member.bonuses[i]);
+                }
+            }
+            this.potencyPerBonus = perBonus;
+            this.potencyOffset = offset;
+            this.castInterval = interval;
+            this.accuracyBonus = accuracy;
+            this.alwaysHits = hits;
+            this.ignoresArmor = armor;
+            this.ignoresShield = shield;
+            this.dealsDoubleDamageToShields = shieldBreaker;
+        }
+
+        /**
+         * @return Key shared by actives with the same effect scaled by the same bonus.
+         */
+        int activeGroup() {
+            int effect = effectType == null ? 0 : effectType.ordinal() + 1;
+            return effect * (DIMENSIONS + 1) + potencyDimension + 1;
+        }
+
+        int potency(double[] totalBonuses) {
+            double bonusPercent = potencyDimension < 0 ? 0.0 : totalBonuses[potencyDimension];
+            return (int) Math.round(Math.max(0, potencyPerBonus * (1.0 + bonusPercent / 100.0) + potencyOffset));
+        }
+
+        double activeStrength(int[] dimensions) {
+            return (potencyPerBonus + potencyOffset) / castInterval + accuracyBonus + sum(bonuses, dimensions);
+        }
+    }
+
+    /**
+     * The player's unequipped numbers and the floor enemy's numbers, and the estimate built on them.
+     */
+    private static final class Encounter {
+        private final double maxHPBeforeEnchants;
+        private final int baseArmor;
+        private final int baseAccuracy;
+        private final int regenPerSecond;
+        private final int enemyHP;
+        private final int enemyShield;
+        private final int enemyArmor;
+        private final int enemyDodge;
+        private final int enemyRegenPerSecond;
+        private final int[] enemySpellDamage;
+        private final boolean[] enemySpellArmorPiercing;
+        private final double[] enemyHitsPerSecond; // Hit chance against the player's dodge over cast interval
+
+        Encounter(Stats stats, Enemy enemy) {
+            this.maxHPBeforeEnchants = Player.maxHPBeforeEnchants(stats);
+            this.baseArmor = (int) Math.round(stats.getArmor());
+            this.baseAccuracy = (int) Math.round(stats.getCalculatedAccuracyPercent());
+            this.regenPerSecond = (int) Math.round(stats.getRegenPerSecond());
+            int playerDodge = (int) Math.round(stats.getCalculatedDodgePercent());
+
+            this.enemyHP = enemy.getMaxHP();
+            this.enemyShield = enemy.getCurrentShield();
+            this.enemyArmor = enemy.getEffectiveArmor();
+            this.enemyDodge = enemy.getEffectiveDodge();
+            this.enemyRegenPerSecond = enemy.getEffectiveRegenPerSecond();
+            List<EnemySpellData> enemySpells = enemy.getDefinedSpells();
+            this.enemySpellDamage = new int[enemySpells.size()];
+            this.enemySpellArmorPiercing = new boolean[enemySpells.size()];
+            this.enemyHitsPerSecond = new double[enemySpells.size()];
+            double hitChance = Math.max(5, Math.min(100, enemy.getEffectiveAccuracy() - playerDodge)) / 100.0;
+            for (int i = 0; i < enemySpells.size(); i++) {
+                EnemySpellData spell = enemySpells.get(i);
+                enemySpellDamage[i] = spell.getDamage();
+                enemySpellArmorPiercing[i] = spell.isArmorPiercing();
+                enemyHitsPerSecond[i] = hitChance / Math.max(CombatEngine.MIN_CAST_INTERVAL_SECONDS, spell.getCooldownSeconds());
+            }
+        }
+
+        /**
+         * @param second The second active, or null if only one is equipped.
+         * @param bonuses Equipped-enchant totals of the whole loadout, actives included.
+         * @param bound True to return an upper bound that stays valid for any bonuses up to these,
+         *              by assuming the most favorable split of damage between shield-breakers and the rest.
+         */
+        Estimate estimate(Candidate first, Candidate second, double[] bonuses, boolean bound) {
+            int accuracy = (int) Math.round(baseAccuracy * (1.0 + bonuses[ACCURACY] / 100.0));
+            double piercingDamage = 0;
+            double shieldedDamage = 0;  // Direct damage a shield would absorb
+            double damageToShield = 0;  // The same damage as the shield sees it, shield-breakers doubled
+            boolean anyShieldBreaker = false;
+            double poisonRamp = 0;      // Poison per second gained each second
+            double sustain = regenPerSecond;
+
+            for (int i = 0; i < 2; i++) {
+                Candidate active = i == 0 ? first : second;
+                if (active == null) {
+                    continue;
+                }
+                int potency = active.potency(bonuses);
+                if (active.effectType == CoreEffectType.DAMAGE) {
+                    int hitChance = active.alwaysHits ? 99 : Math.max(5, Math.min(99, accuracy + active.accuracyBonus - enemyDodge));
+                    int damagePerHit = active.ignoresArmor ? potency : Math.max(0, potency - enemyArmor);
+                    double damage = hitChance / 100.0 * damagePerHit / active.castInterval;
+                    if (active.ignoresShield) {
+                        piercingDamage += damage;
+                    } else {
+                        shieldedDamage += damage;
+                        damageToShield += active.dealsDoubleDamageToShields ? 2 * damage : damage;
+                        anyShieldBreaker |= active.dealsDoubleDamageToShields;
+                    }
+                } else if (active.effectType == CoreEffectType.APPLY_DOT) {
+                    poisonRamp += potency / active.castInterval;
+                } else if (active.effectType == CoreEffectType.HEALING || active.effectType == CoreEffectType.SHIELD_APPLICATION) {
+                    sustain += potency / active.castInterval;
+                }
+            }
+
+            // While the shield holds, the shielded share of direct damage never reaches HP
+            double shieldShare;
+            if (shieldedDamage <= 0) {
+                shieldShare = 0.0;
+            } else if (bound) {
+                shieldShare = anyShieldBreaker ? 0.5 : 1.0;
+            } else {
+                shieldShare = shieldedDamage / damageToShield;
+            }
+            double enemyPool = enemyHP + enemyShield * shieldShare;
+            double timeToKill = timeToDeplete(enemyPool, piercingDamage + shieldedDamage - enemyRegenPerSecond, poisonRamp);
+            if (bound && shieldedDamage > 0) {
+                // Lower bonuses may leave no shielded damage at all, and then no shield to chew through
+                timeToKill = Math.min(timeToKill, timeToDeplete(enemyHP, piercingDamage - enemyRegenPerSecond, poisonRamp));
+            }
+
+            int armor = Math.max(0, baseArmor + (int) bonuses[ARMOR]);
+            int maxHP = Math.max(1, (int) Math.round(maxHPBeforeEnchants + bonuses[MAX_HP]));
+            double incomingDamage = 0;
+            for (int i = 0; i < enemySpellDamage.length; i++) {
+                // Player.takeDamage lets armor-piercing hits through as 0 damage, so they are skipped here too
+                int damagePerHit = enemySpellArmorPiercing[i] ? 0 : Math.max(0, enemySpellDamage[i] - armor);
+                incomingDamage += enemyHitsPerSecond[i] * damagePerHit;
+            }
+            double timeToDie = timeToDeplete(maxHP, incomingDamage - sustain, 0.0);
+
+            double damagePerSecond = Double.isInfinite(timeToKill) ? 0.0 : enemyPool / Math.max(timeToKill, 1e-9);
+            return new Estimate(timeToKill, timeToDie, damagePerSecond, incomingDamage);
+        }
+    }
+
+    /**
+     * One first active and every partner from a group, partners sorted by their best possible bound.
+     */
+    private record ActiveUnit(Candidate first, Candidate[] seconds, double[] secondBounds,
+                              boolean sameGroup, double upperBound) {
+    }
+
+    /**
+     * Passive candidates reduced to the dimensions one kind of active pair cares about.
+     */
+    private record PassivePool(int[] dimensions, Candidate[] candidates, double[] maxBonuses) {
+    }
+
+    /**
+     * State of one optimize() call, shared by the worker threads.
+     */
+    private final class Search {
+        private final Encounter encounter;
+        private final Objective objective;
+        private final TopLoadouts top;
+        private final Candidate[] passives;
+        private final long deadlineNanos;
+        private final Map<Integer, PassivePool> passivePools = new ConcurrentHashMap<>();
+        private final LongAdder estimates = new LongAdder();
+        private volatile boolean timedOut;
+
+        Search(Encounter encounter, Objective objective, int topK, Candidate[] passives, long deadlineNanos) {
+            this.encounter = encounter;
+            this.objective = objective;
+            this.top = new TopLoadouts(topK);
+            this.passives = passives;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Searches every active pair that survives pruning.
+         * @return How many distinct spells were considered for the active slots.
+         */
+        int run(Candidate[] candidates) {
+            if (candidates.length < 2) {
+                if (candidates.length == 1) {
+                    searchPassives(candidates[0], null);
+                }
+                return candidates.length;
+            }
+            // Which spells can stand in for an active depends on what scales its partner, so actives
+            // are grouped by effect and scaling bonus and pruned once per pair of groups
+            Map<Integer, List<Candidate>> groups = new TreeMap<>();
+            for (Candidate candidate : candidates) {
+                groups.computeIfAbsent(candidate.activeGroup(), k -> new ArrayList<>()).add(candidate);
+            }
+            List<List<Candidate>> members = new ArrayList<>(groups.values());
+            List<int[]> groupPairs = new ArrayList<>();
+            for (int i = 0; i < members.size(); i++) {
+                for (int j = i; j < members.size(); j++) {
+                    groupPairs.add(new int[] {i, j});
+                }
+            }
+            List<ActiveUnit> units = groupPairs.parallelStream()
+                    .flatMap(groupPair -> activeUnits(members.get(groupPair[0]), members.get(groupPair[1]), groupPair[0] == groupPair[1]).stream())
+                    .collect(Collectors.toCollection(ArrayList::new));
+            Set<Candidate> activeCandidates = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (ActiveUnit unit : units) {
+                activeCandidates.add(unit.first());
+                activeCandidates.addAll(Arrays.asList(unit.seconds()));
+            }
+            units.sort(Comparator.comparingDouble(ActiveUnit::upperBound).reversed());
+
+            // Workers pull units in bound order, so once one cannot beat the top k, none after it can
+            AtomicInteger next = new AtomicInteger();
+            IntStream.range(0, Runtime.getRuntime().availableProcessors()).parallel().forEach(worker -> {
+                int position;
+                while ((position = next.getAndIncrement()) < units.size()) {
+                    ActiveUnit unit = units.get(position);
+                    if (unit.upperBound() <= top.threshold()) {
+                        return;
+                    }
+                    for (int b = 0; b < unit.seconds().length && unit.secondBounds()[b] > top.threshold(); b++) {
+                        Candidate second = unit.seconds()[b];
+                        // Within one group each pair belongs to the unit of its lower-indexed spell
+                        if (unit.sameGroup() && second.inventoryIndex <= unit.first().inventoryIndex) {
+                            continue;
+                        }
+                        if (System.nanoTime() > deadlineNanos) {
+                            timedOut = true;
+                            return;
+                        }
+                        if (pairUpperBound(unit.first(), second) > top.threshold()) {
+                            searchPassives(unit.first(), second);
+                        }
+                    }
+                }
+            });
+            return activeCandidates.size();
+        }
+
+        /**
+         * Prunes two groups of actives against each other and bounds each spell against the best
+         * conceivable partner from the other group.
+         */
+        private List<ActiveUnit> activeUnits(List<Candidate> firstGroup, List<Candidate> secondGroup, boolean sameGroup) {
+            int[] dimensions = relevantDimensions(firstGroup.get(0).potencyDimension, secondGroup.get(0).potencyDimension);
+            Candidate[] firsts = pruneActives(firstGroup, dimensions);
+            Candidate[] seconds = sameGroup ? firsts : pruneActives(secondGroup, dimensions);
+            if (seconds.length == 0 || (sameGroup && firsts.length < 2)) {
+                return List.of();
+            }
+            Candidate bestFirst = new Candidate(firsts);
+            Candidate bestSecond = new Candidate(seconds);
+            double[] boundBySecond = new double[seconds.length];
+            Integer[] order = new Integer[seconds.length];
+            for (int b = 0; b < seconds.length; b++) {
+                order[b] = b;
+                boundBySecond[b] = pairUpperBound(bestFirst, seconds[b]);
+            }
+            Arrays.sort(order, Comparator.comparingDouble((Integer b) -> boundBySecond[b]).reversed());
+            Candidate[] sortedSeconds = new Candidate[seconds.length];
+            double[] sortedBounds = new double[seconds.length];
+            for (int b = 0; b < seconds.length; b++) {
+                sortedSeconds[b] = seconds[order[b]];
+                sortedBounds[b] = boundBySecond[order[b]];
+            }
+            List<ActiveUnit> units = new ArrayList<>(firsts.length);
+            for (Candidate first : firsts) {
+                units.add(new ActiveUnit(first, sortedSeconds, sortedBounds, sameGroup, pairUpperBound(first, bestSecond)));
+            }
+            return units;
+        }
+
+        private double pairUpperBound(Candidate first, Candidate second) {
+            PassivePool pool = passivePool(first, second);
+            double[] bonuses = pairBonuses(first, second);
+            for (int dimension : pool.dimensions()) {
+                bonuses[dimension] += PASSIVE_SLOTS * pool.maxBonuses()[dimension];
+            }
+            return estimateScore(first, second, bonuses, true);
+        }
+
+        private void searchPassives(Candidate first, Candidate second) {
+            PassivePool pool = passivePool(first, second);
+            double[] pairBonuses = pairBonuses(first, second);
+            List<Candidate> available = new ArrayList<>(pool.candidates().length);
+            for (Candidate candidate : pool.candidates()) {
+                if (candidate != first && candidate != second) {
+                    available.add(candidate);
+                }
+            }
+            // Strongest alone first, so good loadouts are found early and raise the threshold
+            Map<Candidate, Double> alone = new IdentityHashMap<>();
+            double[] trial = new double[DIMENSIONS];
+            for (Candidate candidate : available) {
+                addInto(trial, pairBonuses, candidate.bonuses);
+                alone.put(candidate, estimateScore(first, second, trial, false));
+            }
+            available.sort(Comparator.comparingDouble((Candidate c) -> alone.get(c)).reversed());
+            Candidate[] ordered = available.toArray(new Candidate[0]);
+
+            // suffixMax[i] bounds any one pick from ordered[i..]
+            double[][] suffixMax = new double[ordered.length + 1][DIMENSIONS];
+            for (int i = ordered.length - 1; i >= 0; i--) {
+                for (int dimension : pool.dimensions()) {
+                    suffixMax[i][dimension] = Math.max(suffixMax[i + 1][dimension], ordered[i].bonuses[dimension]);
+                }
+            }
+
+            int picks = Math.min(PASSIVE_SLOTS, ordered.length);
+            double[][] sums = new double[picks + 1][];
+            sums[0] = pairBonuses;
+            for (int depth = 1; depth <= picks; depth++) {
+                sums[depth] = new double[DIMENSIONS];
+            }
+            branch(first, second, pool.dimensions(), ordered, suffixMax, sums, new int[picks], 0, 0, new double[DIMENSIONS]);
+        }
+
+        private void branch(Candidate first, Candidate second, int[] dimensions, Candidate[] ordered, double[][] suffixMax,
+                            double[][] sums, int[] picked, int depth, int start, double[] bound) {
+            if (depth == picked.length) {
+                Estimate estimate = encounter.estimate(first, second, sums[depth], false);
+                estimates.increment();
+                double score = score(objective, estimate);
+                if (score > top.threshold()) {
+                    top.offer(score, () -> toLoadout(first, second, ordered, picked, estimate, score));
+                }
+                return;
+            }
+            int remaining = picked.length - depth;
+            System.arraycopy(sums[depth], 0, bound, 0, DIMENSIONS);
+            for (int dimension : dimensions) {
+                bound[dimension] += remaining * suffixMax[start][dimension];
+            }
+            if (estimateScore(first, second, bound, true) <= top.threshold()) {
+                return;
+            }
+            if (System.nanoTime() > deadlineNanos) {
+                timedOut = true;
+                return;
+            }
+            for (int i = start; i <= ordered.length - remaining; i++) {
+                picked[depth] = i;
+                addInto(sums[depth + 1], sums[depth], ordered[i].bonuses);
+                branch(first, second, dimensions, ordered, suffixMax, sums, picked, depth + 1, i + 1, bound);
+            }
+        }
+
+        private double estimateScore(Candidate first, Candidate second, double[] bonuses, boolean bound) {
+            estimates.increment();
+            return score(objective, encounter.estimate(first, second, bonuses, bound));
+        }
+
+        /**
+         * Passives pruned again on only the dimensions this kind of pair reads; shared by every
+         * pair whose actives are scaled by the same bonuses.
+         */
+        private PassivePool passivePool(Candidate first, Candidate second) {
+            int[] dimensions = relevantDimensions(first.potencyDimension, second == null ? -1 : second.potencyDimension);
+            int key = 0;
+            for (int dimension : dimensions) {
+                key = key * (DIMENSIONS + 1) + dimension + 1;
+            }
+            return passivePools.computeIfAbsent(key, k -> {
+                Candidate[] candidates = prune(passives, c -> sum(c.bonuses, dimensions),
+                                               (better, worse) -> atLeastAsGood(better.bonuses, worse.bonuses, dimensions));
+                double[] maxBonuses = new double[DIMENSIONS];
+                for (Candidate candidate : candidates) {
+                    for (int dimension : dimensions) {
+                        maxBonuses[dimension] = Math.max(maxBonuses[dimension], candidate.bonuses[dimension]);
+                    }
+                }
+                return new PassivePool(dimensions, candidates, maxBonuses);
+            });
+        }
+
+        private double[] pairBonuses(Candidate first, Candidate second) {
+            double[] bonuses = first.bonuses.clone();
+            if (second != null) {
+                addInto(bonuses, bonuses, second.bonuses);
+            }
+            return bonuses;
+        }
+
+        private OptimizedLoadout toLoadout(Candidate first, Candidate second, Candidate[] ordered, int[] picked,
+                                           Estimate estimate, double score) {
+            List<PlayerSpell> activeSpells = new ArrayList<>();
+            List<Integer> activeIndices = new ArrayList<>();
+            for (Candidate active : new Candidate[] {first, second}) {
+                if (active != null) {
+                    activeSpells.add(active.spell);
+                    activeIndices.add(active.inventoryIndex);
+                }
+            }
+            List<PlayerSpell> passiveSpells = new ArrayList<>();
+            List<Integer> passiveIndices = new ArrayList<>();
+            for (int index : picked) {
+                passiveSpells.add(ordered[index].spell);
+                passiveIndices.add(ordered[index].inventoryIndex);
+            }
+            return new OptimizedLoadout(List.copyOf(activeSpells), List.copyOf(activeIndices),
+                                        List.copyOf(passiveSpells), List.copyOf(passiveIndices), score,
+                                        estimate.timeToKillSeconds(), estimate.timeToDieSeconds(),
+                                        estimate.damagePerSecond(), estimate.incomingDamagePerSecond());
+        }
+    }
+
+    private static void addInto(double[] target, double[] base, double[] added) {
+        for (int i = 0; i < DIMENSIONS; i++) {
+            target[i] = base[i] + added[i];
+        }
+    }
+
+    /**
+     * The k best loadouts seen so far. The threshold is read without locking on every bound check.
+     */
+    private static final class TopLoadouts {
+        private final int capacity;
+        private final PriorityQueue<OptimizedLoadout> worstFirst =
+                new PriorityQueue<>(Comparator.comparingDouble(OptimizedLoadout::score));
+        private volatile double threshold = Double.NEGATIVE_INFINITY;
+
+        TopLoadouts(int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * @return The score a loadout must beat to enter the top k.
+         */
+        double threshold() {
+            return threshold;
+        }
+
+        synchronized void offer(double score, Supplier<OptimizedLoadout> loadout) {
+            if (score <= threshold) {
+                return;
+            }
+            worstFirst.add(loadout.get());
+            if (worstFirst.size() > capacity) {
+                worstFirst.poll();
+            }
+            if (worstFirst.size() == capacity) {
+                threshold = worstFirst.peek().score();
+            }
+        }
+
+        synchronized List<OptimizedLoadout> sortedResults() {
+            List<OptimizedLoadout> results = new ArrayList<>(worstFirst);
+            results.sort(Comparator.comparingDouble(OptimizedLoadout::score).reversed());
+            return results;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * User-defined rules deciding, at drop time, whether a spell goes to the inventory or is
+ * salvaged straight into AP. Rules are checked in the order they were added and the first
+ * matching rule decides; drops no rule matches get the default action.
+ * The rules are compiled into a single predicate chain whenever they change, so checking
+ * a drop does no parsing or list walking.
+ */
+public class LootFilter {
+
+    public enum Action { KEEP, SALVAGE }
+
+    private record Rule(Action action, String description, Predicate<PlayerSpell> condition) {}
+
+    private final List<Rule> rules;
+    private Action defaultAction;
+    private Predicate<PlayerSpell> salvageCheck;
+    private ProgressListener progressListener = ProgressListener.NONE;
+
+    public LootFilter() {
+        this.rules = new ArrayList<>();
+        this.defaultAction = Action.KEEP;
+        compile();
+    }
+
+    /**
+     * Adds a rule after the existing ones.
+     * @param action What to do with drops matching the condition.
+     * @param description The rule as typed, shown when listing rules.
+     * @param condition Which drops the rule applies to.
+     */
+    public void addRule(Action action, String description, Predicate<PlayerSpell> condition) {
+        rules.add(new Rule(action, description, condition));
+        compile();
+        progressListener.lootRulesChanged();
+    }
+
+    /**
+     * @param ruleIndex 0-based position in getRuleDescriptions().
+     * @return true if a rule was removed.
+     */
+    public boolean removeRule(int ruleIndex) {
+        if (ruleIndex < 0 || ruleIndex >= rules.size()) {
+            return false;
+        }
+        rules.remove(ruleIndex);
+        compile();
+        progressListener.lootRulesChanged();
+        return true;
+    }
+
+    public void clearRules() {
+        rules.clear();
+        compile();
+        progressListener.lootRulesChanged();
+    }
+
+    public void setDefaultAction(Action action) {
+        this.defaultAction = action;
+        compile();
+        progressListener.lootRulesChanged();
+    }
+
+    /**
+     * Replaces the rules with saved ones. Like Player.restoreProgress(), this is not reported to the listener.
+     * @param defaultAction The saved default action.
+     * @param savedRules Rules as listed by getRuleDescriptions(), e.g. "salvage ap<40".
+     *                   A rule whose conditions are no longer understood is reported and skipped.
+     */
+    public void restoreRules(Action defaultAction, List<String> savedRules) {
+        rules.clear();
+        this.defaultAction = defaultAction;
+        for (String savedRule : savedRules) {
+            String[] tokens = savedRule.trim().split("\\s+");
+            SpellQuery condition = SpellQuery.condition();
+            boolean understood = tokens.length > 1 && (tokens[0].equals("keep") || tokens[0].equals("salvage"));
+            for (int i = 1; understood && i < tokens.length; i++) {
+                understood = condition.addCondition(tokens[i]);
+            }
+            if (!understood) {
+                System.err.println("LootFilter Warning: Skipping saved loot rule '" + savedRule + "'.");
+                continue;
+            }
+            String description = String.join(" ", Arrays.copyOfRange(tokens, 1, tokens.length));
+            rules.add(new Rule(Action.valueOf(tokens[0].toUpperCase()), description, condition::matches));
+        }
+        compile();
+    }
+
+    /**
+     * @param listener Told whenever the rules change, e.g. a ProgressJournal.
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.progressListener = listener == null ? ProgressListener.NONE : listener;
+    }
+
+    public Action getDefaultAction() {
+        return defaultAction;
+    }
+
+    public boolean hasRules() {
+        return !rules.isEmpty() || defaultAction != Action.KEEP;
+    }
+
+    /**
+     * @return One line per rule, e.g. "salvage ap<40", in evaluation order.
+     */
+    public List<String> getRuleDescriptions() {
+        List<String> descriptions = new ArrayList<>();
+        for (Rule rule : rules) {
+            descriptions.add(rule.action().name().toLowerCase() + " " + rule.description());
+        }
+        return descriptions;
+    }
+
+    /**
+     * @param drop A freshly generated spell.
+     * @return true if the drop should be converted to AP instead of stored.
+     */
+    public boolean shouldSalvage(PlayerSpell drop) {
+        return salvageCheck.test(drop);
+    }
+
+    // Builds the chain back to front so each rule only falls through to the ones after it
+    private void compile() {
+        boolean salvageByDefault = defaultAction == Action.SALVAGE;
+        Predicate<PlayerSpell> chain = spell -> salvageByDefault;
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Predicate<PlayerSpell> condition = rules.get(i).condition();
+            boolean salvage = rules.get(i).action() == Action.SALVAGE;
+            Predicate<PlayerSpell> next = chain;
+            chain = spell -> condition.test(spell) ? salvage : next.test(spell);
+        }
+        this.salvageCheck = chain;
+    }
+}
@@ -5,8 +5,17 @@
 
 package idleSorcererV2;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import idleSorcererV2.IO.ContentPack;
+import idleSorcererV2.IO.DefinitionWatcher;
 import idleSorcererV2.IO.EnemyLoader;
 import idleSorcererV2.IO.InputHandler;
 import idleSorcererV2.IO.TerminalDisplay;
@@ -16,39 +25,106 @@ import idleSorvererV2.enums.GameState;
 
 public class Main {
 
+    // Definitions load on daemon threads, so quitting before they are done does not wait for them
+    private static final Executor LOADER_THREADS = task -> {
+        Thread thread = new Thread(task, "definition-loader");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
     public static void main(String[] args) {
         // --- 1. Initialization ---
         TerminalDisplay display = new TerminalDisplay();
         display.showMessage("Starting Idle Sorcerer V2...");
 
-        // Load game data
-        List<BaseSpellTemplate> baseSpellTemplates = BaseSpellTemplate.loadBaseSpellTemplatesFromFile("/player_base_spells.txt");
-        List<BaseEnchant> baseEnchants = BaseEnchant.loadBaseEnchantsFromFile("/base_enchants.txt");
+        // One seed drives every random roll in the session; pass "--seed <n>" to replay a session
+        GameRandom sessionRandom = parseSessionRandom(args, display);
+        display.showMessage("Session seed: " + sessionRandom.getSeed());
 
-        if (baseSpellTemplates.isEmpty()) {
-            display.showError("CRITICAL: No base spell templates loaded. Exiting.");
-            return;
-        }
+        // Load game data in the background from the compiled content pack, which is rebuilt whenever the
+        // definition files change; without a pack the three files are parsed concurrently. Nothing below waits
+        // for the data until a command needs it. "--content-pack <file>" picks another pack;
+        // "--no-content-pack" parses the definition files every launch.
+        ContentPack.Sources sources = ContentPack.Sources.DEFAULT;
+        CompletableFuture<ContentPack> contentPack = hasFlag(args, "--no-content-pack")
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> ContentPack.load(
+                        Path.of(argumentValue(args, "--content-pack", ContentPack.DEFAULT_FILE_NAME)), sources), LOADER_THREADS);
+        CompletableFuture<List<BaseSpellTemplate>> baseSpellTemplates = loadDefinitions(contentPack, ContentPack::spellTemplates,
+                () -> BaseSpellTemplate.loadBaseSpellTemplatesFromFile(sources.spellTemplates()));
+        CompletableFuture<List<BaseEnchant>> baseEnchants = loadDefinitions(contentPack, ContentPack::enchants,
+                () -> BaseEnchant.loadBaseEnchantsFromFile(sources.enchants()));
+        CompletableFuture<List<Enemy>> enemies = loadDefinitions(contentPack, ContentPack::enemies,
+                () -> EnemyLoader.indexEnemiesFromFile(sources.enemies())); // Each floor is parsed when first reached
+
+        // Reported once loaded; the game keeps running so a save can still be inspected and kept
+        baseSpellTemplates.whenComplete((templates, error) -> {
+            if (error != null) {
+                display.showError("CRITICAL: Could not load base spell templates: " + error.getMessage());
+            } else if (templates.isEmpty()) {
+                display.showError("CRITICAL: No base spell templates loaded. Spells will not drop.");
+            }
+        });
         // It's okay if baseEnchants is empty, spells will just have no enchants.
-        if (baseEnchants.isEmpty()) {
-            display.showWarning("No base enchants loaded. Spells will not have random enchantments.");
-        }
+        baseEnchants.whenComplete((enchants, error) -> {
+            if (error != null) {
+                display.showError("Could not load base enchants: " + error.getMessage());
+            } else if (enchants.isEmpty()) {
+                display.showWarning("No base enchants loaded. Spells will not have random enchantments.");
+            }
+        });
+        enemies.whenComplete((loaded, error) -> {
+            if (error != null) {
+                display.showError("CRITICAL: Could not load enemies: " + error.getMessage());
+            } else if (loaded.isEmpty()) {
+                display.showError("CRITICAL: No enemies loaded. Battles cannot start.");
+            }
+        });
 
-        EnemyLoader enemyLoader = new EnemyLoader(); // Loads enemies from "/enemies.txt" in its constructor
-        if (enemyLoader.getNumberOfEnemyTypesLoaded() == 0) {
-            display.showError("CRITICAL: No enemies loaded. Exiting.");
-            return;
-        }
+        EnemyLoader enemyLoader = new EnemyLoader(enemies); // Waits for the enemies on first access
 
-        Player player = new Player("Sorcerer"); // Default player name
-        SpellGenerator spellGenerator = new SpellGenerator(baseSpellTemplates, baseEnchants);
-        GameManager gameManager = new GameManager(player, enemyLoader, spellGenerator);
+        // "--columnar-inventory" packs drops into primitive columns for very long farming sessions
+        Inventory inventory = hasFlag(args, "--columnar-inventory")
+                ? new Inventory(new ColumnarInventoryStorage())
+                : new Inventory();
+        Player player = new Player("Sorcerer", inventory); // Default player name
+        SpellGenerator spellGenerator = new SpellGenerator(baseSpellTemplates, baseEnchants, sessionRandom.split());
+        CombatLog combatLog = CombatLog.toDisplay(display, CombatLog.Level.DETAILED);
+        GameManager gameManager = new GameManager(player, enemyLoader, spellGenerator, sessionRandom.split(), combatLog);
         InputHandler inputHandler = new InputHandler(gameManager, player, display); // Pass display
 
+        // "--watch-definitions" re-reads a definition file whenever it is saved; the change applies from the next encounter
+        DefinitionWatcher definitionWatcher = null;
+        if (hasFlag(args, "--watch-definitions")) {
+            definitionWatcher = DefinitionWatcher.start(sources, gameManager::queueDefinitions);
+            if (definitionWatcher != null) {
+                display.showMessage("Watching the definition files for changes.");
+            } else {
+                display.showWarning("Could not watch the definition files. Restart the game to pick up changes.");
+            }
+        }
+
         // Initialize game (sets initial state to MANAGEMENT_PAUSED)
         gameManager.initializeGame(); // This will print initial welcome messages
 
         display.displayWelcomeMessage(player.getName());
+
+        // The game is saved on exit and loaded on start; "--save <file>" picks another save.
+        // The sorcerer keeps battling while the game is closed; "--no-offline" skips the catch-up.
+        Path saveFile = Path.of(argumentValue(args, "--save", GameSnapshot.DEFAULT_FILE_NAME));
+        Path sessionFile = Path.of(argumentValue(args, "--session", SessionState.DEFAULT_FILE_NAME));
+        SessionState previousSession = hasFlag(args, "--no-offline") ? null : SessionState.load(sessionFile);
+
+        // Loading the save and the catch-up both need the definitions, so they run once those are loaded
+        // while the prompt is already up; the first command waits for them. If the definitions failed to
+        // load, the save is left alone and the new game is not saved.
+        CompletableFuture<Boolean> restored = CompletableFuture.allOf(baseSpellTemplates, baseEnchants, enemies)
+                .thenApply(loaded -> restoreGame(gameManager, display, saveFile, sessionFile, previousSession))
+                .exceptionally(error -> {
+                    display.showError("Could not restore the saved game: " + error.getMessage() + ". Progress will not be saved.");
+                    return false;
+                });
+        inputHandler.setPendingStartup(restored);
         // Display initial help or prompt after GameManager's own initialization messages
         if (gameManager.getCurrentGameState() == GameState.MANAGEMENT_PAUSED) {
              // GameManager.initializeGame() already prints initial prompts
@@ -58,8 +134,11 @@ public class Main {
         // --- 2. Main Game Loop ---
         boolean keepPlaying = true;
 
-        while (keepPlaying && gameManager.isGameRunning()) {
-            GameState currentState = gameManager.getCurrentGameState();
+        // Until the save has been restored in the background the game stays paused and its state belongs
+        // to the restoring thread, so the loop only reads input
+        while (keepPlaying && (!restored.isDone() || gameManager.isGameRunning())) {
+            boolean started = restored.isDone();
+            GameState currentState = started ? gameManager.getCurrentGameState() : GameState.MANAGEMENT_PAUSED;
 
             if (currentState == GameState.MANAGEMENT_PAUSED) {
                 keepPlaying = inputHandler.processPlayerInput(); // processPlayerInput returns false on "quit"
@@ -91,6 +170,9 @@ public class Main {
             else { // For states like PLAYER_WON_ENCOUNTER, PLAYER_LOST_ENCOUNTER, STARTING_NEW_FLOOR
                 gameManager.update(); // Allow GameManager to transition through these states
             }
+            if (started) {
+                gameManager.checkpointIfDue(); // Compacts the journal once it grows large and keeps the session stamped
+            }
 
             if (currentState == GameState.GAME_OVER) {
                 display.displayGameOver("The adventure ends here."); // GameManager might have more specific message
@@ -98,6 +180,119 @@ public class Main {
             }
         }
 
+        // Quitting before the save was restored skips saving; the restore stops with the game and leaves the save as it was
+        if (restored.isDone()) {
+            if (restored.join() && gameManager.isGameRunning()) {
+                if (gameManager.isJournaling() ? gameManager.checkpoint() : gameManager.saveGame(saveFile, true)) {
+                    display.showMessage("Game saved to " + saveFile + ".");
+                }
+                gameManager.createSessionState(System.currentTimeMillis()).save(sessionFile);
+            }
+            gameManager.closeJournal();
+        }
+        if (definitionWatcher != null) {
+            definitionWatcher.close();
+        }
         display.showMessage("Thank you for playing Idle Sorcerer!");
     }
+
+    /**
+     * @return The definitions from the content pack once it is open, or parsed from their file on another
+     *         thread if there is no pack.
+     */
+    private static <T> CompletableFuture<T> loadDefinitions(CompletableFuture<ContentPack> contentPack,
+                                                            Function<ContentPack, T> fromPack, Supplier<T> fromFile) {
+        return contentPack.thenCompose(pack -> pack != null
+                ? CompletableFuture.completedFuture(fromPack.apply(pack))
+                : CompletableFuture.supplyAsync(fromFile, LOADER_THREADS));
+    }
+
+    /**
+     * Loads the save, credits the time since the previous session and starts journaling.
+     * @param previousSession The previous session, or null to skip the catch-up.
+     * @return true if the game may be saved, false if an unreadable save is still in the way.
+     */
+    private static boolean restoreGame(GameManager gameManager, TerminalDisplay display, Path saveFile,
+                                       Path sessionFile, SessionState previousSession) {
+        if (Files.isRegularFile(saveFile)) {
+            if (gameManager.loadGame(saveFile)) {
+                display.showMessage("Loaded saved game from " + saveFile + ". Floor " + gameManager.getCurrentFloor() + ".");
+            } else {
+                // Kept with its journal so nothing is lost; "--save" with the backup retries it later
+                Path backup = moveAside(saveFile);
+                if (backup == null) {
+                    display.showWarning("Could not load " + saveFile + " or move it aside. Starting a new game that will not be saved.");
+                    return false;
+                }
+                display.showWarning("Could not load " + saveFile + ". Moved it to " + backup + " and starting a new game.");
+            }
+        }
+
+        if (previousSession != null) {
+            OfflineProgressReport offlineReport = gameManager.applyOfflineProgress(previousSession, System.currentTimeMillis());
+            if (offlineReport != null) {
+                display.displayOfflineProgressReport(offlineReport);
+            }
+        }
+
+        // From here on every change is journaled next to the save, so a crash loses at most the last batch.
+        // The session is stamped along with it, so a crash does not credit the time already played as offline.
+        if (!gameManager.startJournal(saveFile, sessionFile)) {
+            display.showWarning("Could not start the progress journal. Progress is only saved on exit.");
+        }
+        return true;
+    }
+
+    /**
+     * Renames a save and its journal to the first free "<save>.bak" name, so a new game does not overwrite them.
+     * @return The backup save file, or null if the save could not be moved.
+     */
+    private static Path moveAside(Path saveFile) {
+        Path backup = saveFile.resolveSibling(saveFile.getFileName() + ".bak");
+        for (int copy = 2; Files.exists(backup) || Files.exists(ProgressJournal.fileFor(backup)); copy++) {
+            backup = saveFile.resolveSibling(saveFile.getFileName() + ".bak" + copy);
+        }
+        try {
+            Path journal = ProgressJournal.fileFor(saveFile);
+            if (Files.exists(journal)) {
+                Files.move(journal, ProgressJournal.fileFor(backup));
+            }
+            Files.move(saveFile, backup);
+            return backup;
+        } catch (IOException e) {
+            System.err.println("Main Error: Could not move " + saveFile + " aside: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String argumentValue(String[] args, String flag, String defaultValue) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(flag)) {
+                return args[i + 1];
+            }
+        }
+        return defaultValue;
+    }
+
+    private static boolean hasFlag(String[] args, String flag) {
+        for (String arg : args) {
+            if (arg.equals(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static GameRandom parseSessionRandom(String[] args, TerminalDisplay display) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals("--seed")) {
+                try {
+                    return new GameRandom(Long.parseLong(args[i + 1]));
+                } catch (NumberFormatException e) {
+                    display.showWarning("Invalid seed '" + args[i + 1] + "'. Using a random seed.");
+                }
+            }
+        }
+        return new GameRandom();
+    }
 }
@@ -0,0 +1,128 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import idleSorcererV2.IO.EnemyLoader;
+
+/**
+ * Estimates how a loadout performs against a floor by running many independent
+ * headless fights and aggregating the results.
+ * Runs are spread across all cores with a parallel stream. Every run fights with its own
+ * copy of the player, a fresh Enemy instance and its own random stream, so runs share no
+ * mutable state. Per-run seeds are drawn up front in run order, which makes a report
+ * reproducible from its seed regardless of how the runs are scheduled across threads.
+ */
+public class MonteCarloSimulator {
+
+    public static final int MAX_RUNS = 1_000_000;
+
+    private final CombatSimulator combatSimulator;
+
+    public MonteCarloSimulator() {
+        this(new CombatSimulator());
+    }
+
+    public MonteCarloSimulator(CombatSimulator combatSimulator) {
+        this.combatSimulator = combatSimulator;
+    }
+
+    /**
+     * Simulates the player's current stats and equipped spells against a floor's enemy.
+     * The live player is only read, never modified.
+     * @param player The player whose loadout is evaluated.
+     * @param enemyLoader Source of the floor's enemy definition.
+     * @param floor The floor to fight (1-based).
+     * @param runs Number of independent encounters, between 1 and MAX_RUNS.
+     * @param seed Seed the per-run random streams are derived from.
+     * @return The aggregated report, or null if the floor has no enemy or runs is out of range.
+     */
+    public SimulationReport simulate(Player player, EnemyLoader enemyLoader, int floor, int runs, long seed) {
+        if (runs < 1 || runs > MAX_RUNS) {
+            System.err.println("MonteCarloSimulator Error: Runs must be between 1 and " + MAX_RUNS + ". Received: " + runs);
+            return null;
+        }
+        Enemy floorEnemy = enemyLoader.getEnemyForFloor(floor);
+        if (floorEnemy == null) {
+            return null;
+        }
+
+        long startMillis = System.currentTimeMillis();
+        GameRandom seedSource = new GameRandom(seed);
+        long[] runSeeds = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            runSeeds[run] = seedSource.nextLong();
+        }
+        EncounterResult[] results = IntStream.range(0, runs)
+                .parallel()
+                .mapToObj(run -> runEncounter(player, enemyLoader, floor, new GameRandom(runSeeds[run])))
+                .toArray(EncounterResult[]::new);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        return summarize(floor, floorEnemy.getName(), seed, results, elapsedMillis);
+    }
+
+    private EncounterResult runEncounter(Player player, EnemyLoader enemyLoader, int floor, GameRandom runRandom) {
+        Player playerCopy = player.createCombatCopy();
+        Enemy enemy = enemyLoader.getEnemyForFloor(floor);
+        playerCopy.setRandom(runRandom.split());
+        enemy.setRandom(runRandom.split());
+        return combatSimulator.runEncounter(playerCopy, enemy);
+    }
+
+    private SimulationReport summarize(int floor, String enemyName, long seed, EncounterResult[] results, long elapsedMillis) {
+        int wins = 0;
+        int timeouts = 0;
+        double timeLosingSum = 0;
+        double[] timesToKill = new double[results.length];
+        double[] damageTaken = new double[results.length];
+        for (int i = 0; i < results.length; i++) {
+            EncounterResult result = results[i];
+            if (result.playerWon()) {
+                timesToKill[wins++] = result.durationSeconds();
+            } else if (result.timedOut()) {
+                timeouts++;
+            } else {
+                timeLosingSum += result.durationSeconds();
+            }
+            damageTaken[i] = result.playerDamageTaken();
+        }
+        int losses = results.length - wins - timeouts;
+
+        timesToKill = Arrays.copyOf(timesToKill, wins);
+        Arrays.sort(timesToKill);
+        Arrays.sort(damageTaken);
+
+        return new SimulationReport(floor, enemyName, seed, results.length, wins, losses, timeouts,
+                                    mean(timesToKill), percentile(timesToKill, 10),
+                                    percentile(timesToKill, 50), percentile(timesToKill, 90),
+                                    losses == 0 ? 0.0 : timeLosingSum / losses,
+                                    mean(damageTaken), percentile(damageTaken, 90),
+                                    elapsedMillis);
+    }
+
+    private static double mean(double[] values) {
+        if (values.length == 0) {
+            return 0.0;
+        }
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    // Nearest-rank percentile over an already sorted array
+    private static double percentile(double[] sortedValues, int percentile) {
+        if (sortedValues.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.length);
+        return sortedValues[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,170 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import idleSorcererV2.IO.EnemyLoader;
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * Credits the encounters the sorcerer would have fought while the game was closed,
+ * without replaying them tick by tick.
+ * Each floor the walk reaches is simulated once with the MonteCarloSimulator to get its win,
+ * loss and stalemate odds and mean fight lengths. The walk then follows the CombatMode rules
+ * of GameManager: ADVANCE resolves one encounter at a time (there are at most a few before
+ * it drops to FARMING or clears the last floor, which ends the game), while FARMING draws the whole
+ * streak of wins before the next setback from a geometric distribution, so hours of farming cost a
+ * handful of random draws.
+ * Drops are generated and filtered per floor in bulk at the end.
+ */
+public class OfflineProgressCalculator {
+
+    public static final double MAX_OFFLINE_SECONDS = 24 * 60 * 60; // Longer absences are credited as one day
+    public static final int RUNS_PER_FLOOR = 100;
+
+    // The interactive loop spends one 100ms tick each in the won/lost and new-floor states
+    static final double ENCOUNTER_TRANSITION_SECONDS = 0.2;
+
+    private final MonteCarloSimulator monteCarloSimulator;
+
+    public OfflineProgressCalculator() {
+        this(new MonteCarloSimulator());
+    }
+
+    public OfflineProgressCalculator(MonteCarloSimulator monteCarloSimulator) {
+        this.monteCarloSimulator = monteCarloSimulator;
+    }
+
+    /**
+     * Credits offline time to the player: drops are added to the inventory or salvaged per the
+     * loot filter, and the player's combat mode is updated. The caller moves to the end floor.
+     * @param player The player, fighting with their current loadout.
+     * @param enemyLoader Source of each floor's enemy.
+     * @param spellGenerator Generates the drops of the won encounters.
+     * @param lootFilter Decides which drops are salvaged.
+     * @param startFloor The floor the sorcerer was on when the game closed.
+     * @param maxFloor The last floor.
+     * @param elapsedSeconds Time the game was closed; capped at MAX_OFFLINE_SECONDS.
+     * @param random Stream for the simulations and the walk.
+     * @return The report, or null if the start floor has no enemy.
+     */
+    public OfflineProgressReport catchUp(Player player, EnemyLoader enemyLoader, SpellGenerator spellGenerator,
+                                         LootFilter lootFilter, int startFloor, int maxFloor,
+                                         double elapsedSeconds, GameRandom random) {
+        long startMillis = System.currentTimeMillis();
+        FloorOdds[] oddsByFloor = new FloorOdds[maxFloor + 1];
+        if (startFloor < 1 || startFloor > maxFloor || oddsFor(oddsByFloor, startFloor, player, enemyLoader, random) == null) {
+            System.err.println("OfflineProgressCalculator Error: No enemy for floor " + startFloor + ".");
+            return null;
+        }
+
+        double creditedSeconds = Math.max(0.0, Math.min(elapsedSeconds, MAX_OFFLINE_SECONDS));
+        double remaining = creditedSeconds;
+        int floor = startFloor;
+        Player.CombatMode startMode = player.getCombatMode();
+        Player.CombatMode mode = startMode;
+        int[] winsByFloor = new int[maxFloor + 1];
+        int losses = 0;
+        boolean stalled = false;
+        boolean cleared = false;
+
+        while (remaining > 0) {
+            FloorOdds odds = oddsFor(oddsByFloor, floor, player, enemyLoader, random);
+            if (odds == null) {
+                break;
+            }
+            long wins;
+            if (mode == Player.CombatMode.ADVANCE) {
+                wins = random.nextDouble() < odds.winChance() ? 1 : 0;
+            } else {
+                wins = winsBeforeSetback(odds.winChance(), random);
+            }
+            long affordableWins = (long) (remaining / odds.winSeconds());
+            if (wins >= affordableWins) {
+                winsByFloor[floor] += (int) affordableWins;
+                break; // The fight in progress when the player returns starts over
+            }
+            winsByFloor[floor] += (int) wins;
+            remaining -= wins * odds.winSeconds();
+
+            if (mode == Player.CombatMode.ADVANCE && wins == 1) {
+                if (floor == maxFloor) {
+                    cleared = true; // As in live play, clearing the last floor ends the game
+                    break;
+                }
+                floor++;
+                continue;
+            }
+            // The setback: a stalemate never ends, a loss drops a floor and ends ADVANCE
+            if (random.nextDouble() * (odds.lossChance() + odds.stallChance()) >= odds.lossChance()) {
+                stalled = true;
+                break;
+            }
+            if (remaining < odds.lossSeconds()) {
+                break;
+            }
+            remaining -= odds.lossSeconds();
+            losses++;
+            mode = Player.CombatMode.FARMING;
+            floor = Math.max(1, floor - 1);
+        }
+
+        int won = 0;
+        int simulated = 0;
+        List<PlayerSpell> salvaged = new ArrayList<>();
+        int kept = 0;
+        for (int f = 1; f <= maxFloor; f++) {
+            won += winsByFloor[f];
+            simulated += oddsByFloor[f] != null ? 1 : 0;
+            for (PlayerSpell drop : spellGenerator.generateSpellDrops(f, winsByFloor[f])) {
+                if (lootFilter.shouldSalvage(drop)) {
+                    salvaged.add(drop);
+                } else if (player.addSpellToInventory(drop)) {
+                    kept++;
+                }
+            }
+        }
+        long apGained = player.salvageSpells(salvaged);
+        player.setCombatMode(mode);
+
+        return new OfflineProgressReport(elapsedSeconds, creditedSeconds, startFloor, floor, startMode, mode,
+                                         won, losses, stalled, cleared, kept, salvaged.size(), apGained,
+                                         simulated, System.currentTimeMillis() - startMillis);
+    }
+
+    // Number of wins before the first non-win, geometric in the win chance
+    private static long winsBeforeSetback(double winChance, GameRandom random) {
+        if (winChance >= 1.0) {
+            return Long.MAX_VALUE;
+        }
+        if (winChance <= 0.0) {
+            return 0;
+        }
+        double uniform = 1.0 - random.nextDouble(); // (0, 1], so the log is finite
+        return (long) Math.min(Long.MAX_VALUE, Math.floor(Math.log(uniform) / Math.log1p(-winChance)));
+    }
+
+    private FloorOdds oddsFor(FloorOdds[] oddsByFloor, int floor, Player player, EnemyLoader enemyLoader, GameRandom random) {
+        if (oddsByFloor[floor] == null) {
+            SimulationReport report = monteCarloSimulator.simulate(player, enemyLoader, floor, RUNS_PER_FLOOR, random.nextLong());
+            if (report == null) {
+                return null;
+            }
+            oddsByFloor[floor] = new FloorOdds((double) report.wins() / report.runs(),
+                                               (double) report.losses() / report.runs(),
+                                               (double) report.timeouts() / report.runs(),
+                                               report.meanTimeToKillSeconds() + ENCOUNTER_TRANSITION_SECONDS,
+                                               report.meanTimeToLoseSeconds() + ENCOUNTER_TRANSITION_SECONDS);
+        }
+        return oddsByFloor[floor];
+    }
+
+    private record FloorOdds(double winChance, double lossChance, double stallChance,
+                             double winSeconds, double lossSeconds) {
+    }
+}
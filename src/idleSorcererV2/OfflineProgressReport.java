@@ -0,0 +1,28 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+/**
+ * What the sorcerer achieved while the game was closed, as credited by the OfflineProgressCalculator.
+ */
+public record OfflineProgressReport(
+    double elapsedSeconds,     // Wall-clock time since the game last ran
+    double creditedSeconds,    // Elapsed time after the offline cap
+    int startFloor,
+    int endFloor,
+    Player.CombatMode startMode,
+    Player.CombatMode endMode,
+    int encountersWon,
+    int encountersLost,
+    boolean stalled,           // A fight neither side could win used up the rest of the time
+    boolean clearedAllFloors,  // ADVANCE cleared the last floor, which ends the game as it does in live play
+    int spellsKept,
+    int spellsSalvaged,
+    long apGained,
+    int floorsSimulated,       // Floors whose odds had to be simulated
+    long elapsedMillis         // Wall-clock time the catch-up took
+) {
+}
@@ -0,0 +1,33 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.List;
+
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * One loadout suggested by the LoadoutOptimizer, with the analytic estimate it was ranked by.
+ * Inventory indices refer to the inventory as it was when the search ran.
+ */
+public record OptimizedLoadout(
+    List<PlayerSpell> activeSpells,
+    List<Integer> activeInventoryIndices,   // Same order as activeSpells
+    List<PlayerSpell> passiveSpells,
+    List<Integer> passiveInventoryIndices,  // Same order as passiveSpells
+    double score,                           // Higher is better; only comparable within one report
+    double timeToKillSeconds,               // Infinite if the loadout never kills the enemy
+    double timeToDieSeconds,                // Infinite if sustain outpaces the enemy's damage
+    double damagePerSecond,                 // Average damage dealt over the estimated fight
+    double incomingDamagePerSecond          // Enemy damage after armor and dodge, before sustain
+) {
+    /**
+     * @return True if the estimate expects the enemy to die before the player.
+     */
+    public boolean expectedToWin() {
+        return timeToKillSeconds < timeToDieSeconds;
+    }
+}
@@ -7,13 +7,17 @@ package idleSorcererV2;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
 
-import idleSorcererV2.data.BaseEnchant;
-import idleSorcererV2.data.EnchantInstance;
 import idleSorcererV2.data.PlayerSpell;
 import idleSorvererV2.enums.DamageType;
 import idleSorvererV2.enums.EnchantEffectType;
@@ -32,10 +36,13 @@ public class Player implements Combatant<PlayerSpell> {
     private final PlayerSpell[] activeSpells;
     private final PlayerSpell[] passiveSpells;
     private final Map<PlayerSpell, Double> activeSpellCooldowns; // Tracks cooldowns for equipped active spells
+    private final EnchantBonusTable equippedEnchantBonuses; // Rebuilt by onLoadoutChanged(), read on every hit and cast
+    private final SpellCastPlan[] activeCastPlans; // Compiled form of activeSpells, same indices
 
     private int currentHP;
     private int currentShield; // Player's current shield points
     private int currentPoisonDpsTaken; // Poison DPS currently affecting the player
+    private int damageTakenThisEncounter; // HP actually lost to hits and poison since the last combat reset
 
     // Temporary combat buffs/debuffs (values are deltas from base)
     private int temporaryArmorBonus;
@@ -45,6 +52,9 @@ public class Player implements Combatant<PlayerSpell> {
 
     private int attributePoints; // AP currency
     private CombatMode combatMode;
+    private CombatLog combatLog;
+    private GameRandom random; // Dodge rolls; replaced with a session stream via setRandom
+    private ProgressListener progressListener = ProgressListener.NONE; // Told about every change to saved progress
 
     private static final int BASE_PLAYER_HP = 30; // Player's starting HP before any stats
 
@@ -54,12 +64,27 @@ public class Player implements Combatant<PlayerSpell> {
     }
 
     public Player(String name) {
+        this(name, new Inventory());
+    }
+
+    /**
+     * @param inventory The (usually empty) inventory to use, e.g. one backed by ColumnarInventoryStorage.
+     */
+    public Player(String name, Inventory inventory) {
+        this(name, new Stats(), CombatLog.SILENT, inventory); // Player starts with 0 in all primary attributes
+    }
+
+    private Player(String name, Stats stats, CombatLog combatLog, Inventory inventory) {
         this.name = name;
-        this.stats = new Stats(); // Player starts with 0 in all primary attributes
-        this.inventory = new Inventory();
+        this.stats = stats;
+        this.combatLog = combatLog;
+        this.random = new GameRandom();
+        this.inventory = inventory;
         this.activeSpells = new PlayerSpell[NUM_ACTIVE_SPELL_SLOTS];
         this.passiveSpells = new PlayerSpell[NUM_PASSIVE_SPELL_SLOTS];
         this.activeSpellCooldowns = new HashMap<>();
+        this.equippedEnchantBonuses = new EnchantBonusTable();
+        this.activeCastPlans = new SpellCastPlan[NUM_ACTIVE_SPELL_SLOTS];
         this.attributePoints = 0; // Starting AP
         this.combatMode = CombatMode.FARMING; // Default mode
         resetCombatState(); // Initialize HP and other combat stats
@@ -84,26 +109,23 @@ public class Player implements Combatant<PlayerSpell> {
 
     @Override
     public int getMaxHP() {
+        double currentMaxHP = maxHPBeforeEnchants(stats);
+
+        // Add bonuses from equipped spell enchants
+        currentMaxHP += equippedEnchantBonuses.get(EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT, EnchantTargetParameter.MAX_HP);
+        return Math.max(1, (int) Math.round(currentMaxHP));
+    }
+
+    /**
+     * @return Unrounded max HP from base HP and these attributes alone, before equipped enchants.
+     */
+    static double maxHPBeforeEnchants(Stats stats) {
         double base = BASE_PLAYER_HP;
         double flatBonusFromAttributes = stats.getFlatHpBonusFromTotalAttributes();
         double percentBonusFromFortitude = stats.getCalculatedMaxHealthBonusPercent(); // From Fortitude in Stats
 
         double currentMaxHP = base + flatBonusFromAttributes;
-        currentMaxHP *= (1.0 + (percentBonusFromFortitude / 100.0));
-
-        // Add bonuses from equipped spell enchants
-        for (PlayerSpell spell : getAllEquippedSpells()) {
-            if (spell != null) {
-                for (EnchantInstance enchant : spell.appliedEnchants()) {
-                    BaseEnchant be = enchant.baseEnchant(); // Get the BaseEnchant
-                    if (be.effectType() == EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT &&
-                        be.targetKey().equalsIgnoreCase(EnchantTargetParameter.MAX_HP.name())) {
-                        currentMaxHP += enchant.finalRolledValue();
-                    }
-                }
-            }
-        }
-        return Math.max(1, (int) Math.round(currentMaxHP));
+        return currentMaxHP * (1.0 + (percentBonusFromFortitude / 100.0));
     }
 
     @Override
@@ -115,34 +137,13 @@ public class Player implements Combatant<PlayerSpell> {
     public int getEffectiveArmor() {
         int armorFromStatsAndEnchants = (int) Math.round(stats.getArmor()); // Base armor from Stats
         // Add bonuses from equipped spell enchants
-        for (PlayerSpell spell : getAllEquippedSpells()) {
-            if (spell != null) {
-                for (EnchantInstance enchant : spell.appliedEnchants()) {
-                    BaseEnchant be = enchant.baseEnchant(); // Get the BaseEnchant
-                    if (be.effectType() == EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT &&
-                        be.targetKey().equalsIgnoreCase(EnchantTargetParameter.ARMOR.name())) {
-                        armorFromStatsAndEnchants += (int) enchant.finalRolledValue();
-                    }
-                }
-            }
-        }
+        armorFromStatsAndEnchants += equippedEnchantBonuses.getTruncated(EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT, EnchantTargetParameter.ARMOR); // Each enchant's whole part
         return Math.max(0, armorFromStatsAndEnchants + temporaryArmorBonus);
     }
 
     @Override
     public int getEffectiveDodge() {
         int dodgeFromStatsAndEnchants = (int) Math.round(stats.getCalculatedDodgePercent()); // Base from Agility
-         for (PlayerSpell spell : getAllEquippedSpells()) {
-             if (spell != null) { // Assuming 'spell' is defined in an outer loop iterating through equipped spells
-                 for (EnchantInstance enchant : spell.appliedEnchants()) {
-                     BaseEnchant be = enchant.baseEnchant(); // Get the BaseEnchant for clarity
-                     if (be.effectType() == EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_PERCENT &&
-                         be.targetKey() != null &&
-                         be.targetKey().equalsIgnoreCase(EnchantTargetParameter.DODGE_CHANCE_PERCENT.name())) {
-                     }
-                 }
-             }
-        }
         return Math.max(0, dodgeFromStatsAndEnchants + temporaryDodgeBonus);
     }
 
@@ -151,19 +152,7 @@ public class Player implements Combatant<PlayerSpell> {
     @Override
     public int getEffectiveAccuracy() {
         int accuracyFromStats = (int) Math.round(stats.getCalculatedAccuracyPercent()); // Base from Dexterity in Stats
-        double globalEnchantBonus = 0;
-        for (PlayerSpell spell : getAllEquippedSpells()) {
-            if (spell != null) {
-                for (EnchantInstance enchant : spell.appliedEnchants()) {
-                    BaseEnchant be = enchant.baseEnchant();
-                    if (be.effectType() == EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_PERCENT &&
-                        be.targetKey() != null &&
-                        be.targetKey().equals(EnchantTargetParameter.GLOBAL_ACCURACY_PERCENT.name())) {
-                        globalEnchantBonus += enchant.finalRolledValue();
-                    }
-                }
-            }
-        }
+        double globalEnchantBonus = equippedEnchantBonuses.get(EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_PERCENT, EnchantTargetParameter.GLOBAL_ACCURACY_PERCENT);
         accuracyFromStats = (int) Math.round(accuracyFromStats * (1.0 + (globalEnchantBonus / 100.0)));
 
         return Math.max(0, accuracyFromStats + temporaryAccuracyBonus);
@@ -172,17 +161,6 @@ public class Player implements Combatant<PlayerSpell> {
     @Override
     public int getEffectiveRegenPerSecond() {
         int regenFromStatsAndEnchants = (int) Math.round(stats.getRegenPerSecond());
-        for (PlayerSpell spell : getAllEquippedSpells()) {
-            if (spell != null) { // Assuming 'spell' is defined in an outer loop
-                for (EnchantInstance enchant : spell.appliedEnchants()) {
-                    BaseEnchant be = enchant.baseEnchant(); // Get the BaseEnchant
-                    if (be.effectType() == EnchantEffectType.PLAYER_SECONDARY_STAT_ADD_FLAT &&
-                        be.targetKey() != null &&
-                        be.targetKey().equalsIgnoreCase(EnchantTargetParameter.HP_REGEN_PER_SEC.name())) {
-                    }
-                }
-            }
-        }
         return regenFromStatsAndEnchants + temporaryRegenBonus; // Can be negative if debuffed heavily
     }
 
@@ -191,6 +169,10 @@ public class Player implements Combatant<PlayerSpell> {
         return currentPoisonDpsTaken;
     }
 
+    public int getDamageTakenThisEncounter() {
+        return damageTakenThisEncounter;
+    }
+
     @Override
     public void takeDamage(int rawDamage, DamageType type, boolean isArmorPiercing, boolean isShieldPiercing, int attackerAccuracy) {
         if (!isAlive()) {
@@ -199,8 +181,8 @@ public class Player implements Combatant<PlayerSpell> {
 
         // 1. Dodge Calculation
         int effectiveHitChance = Math.max(5, Math.min(100, attackerAccuracy - getEffectiveDodge())); // Clamp between 5% and 100% hit chance
-        if (new Random().nextInt(100) + 1 > effectiveHitChance) {
-            System.out.println(getName() + " dodged the attack!"); // Or log to combat display
+        if (random.nextInt(100) + 1 > effectiveHitChance) {
+            combatLog.dodged(getName());
             return;
         }
 
@@ -218,11 +200,12 @@ public class Player implements Combatant<PlayerSpell> {
             damageToHP = damageAfterArmor - damageAbsorbedByShield;
         }
 
+        this.damageTakenThisEncounter += Math.min(damageToHP, this.currentHP);
         this.currentHP -= damageToHP;
         if (this.currentHP < 0) {
             this.currentHP = 0;
         }
-        System.out.println(getName() + " took " + damageToHP + " damage. HP: " + currentHP + "/" + getMaxHP()); // Logging
+        combatLog.damageTaken(getName(), damageToHP, type, currentHP, getMaxHP(), currentShield);
     }
 
     @Override
@@ -231,7 +214,7 @@ public class Player implements Combatant<PlayerSpell> {
 			return;
 		}
         this.currentHP = Math.min(getMaxHP(), this.currentHP + amount);
-        System.out.println(getName() + " healed for " + amount + ". HP: " + currentHP + "/" + getMaxHP());
+        combatLog.healed(getName(), amount, currentHP, getMaxHP());
     }
 
     @Override
@@ -240,7 +223,7 @@ public class Player implements Combatant<PlayerSpell> {
 			return;
 		}
         this.currentShield += amount;
-        System.out.println(getName() + " gained " + amount + " shield. Current Shield: " + currentShield);
+        combatLog.shieldGained(getName(), amount, currentShield);
     }
 
     @Override
@@ -276,6 +259,7 @@ public class Player implements Combatant<PlayerSpell> {
     public void resetCombatState() {
         this.currentHP = getMaxHP(); // Full HP
         this.currentShield = 0;      // Reset shield, player earns it via spells
+        this.damageTakenThisEncounter = 0;
         clearTemporaryCombatEffectsAndPoison();
 
         activeSpellCooldowns.clear();
@@ -284,7 +268,7 @@ public class Player implements Combatant<PlayerSpell> {
                 activeSpellCooldowns.put(spell, spell.actualCooldownSeconds()); // Start on full CD
             }
         }
-        System.out.println(getName() + " combat state reset. HP: " + currentHP + "/" + getMaxHP());
+        combatLog.stateReset(getName(), currentHP, getMaxHP());
     }
 
     @Override
@@ -333,22 +317,107 @@ public class Player implements Combatant<PlayerSpell> {
         } else if (netHPSChange < 0) {
             // Taking damage from poison (netted with regen)
             // This damage should bypass shield and armor as it's internal.
+            this.damageTakenThisEncounter += Math.min(-netHPSChange, this.currentHP);
             this.currentHP += netHPSChange; // netHPSChange is negative here
-            System.out.println(getName() + " took " + (-netHPSChange) + " poison/degen damage. HP: " + currentHP + "/" + getMaxHP());
+            combatLog.degenDamageTaken(getName(), -netHPSChange, currentHP, getMaxHP());
             if (this.currentHP < 0) {
                 this.currentHP = 0;
             }
         }
     }
 
+    @Override
+    public void setCombatLog(CombatLog combatLog) {
+        this.combatLog = combatLog;
+    }
+
+    @Override
+    public void setRandom(GameRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates a stand-alone copy of this player for simulated fights.
+     * The copy has its own Stats and combat state and the same equipped spells,
+     * but an empty inventory and no AP, so fighting with it never touches the live player.
+     * @return A new Player ready to be used by a CombatSimulator.
+     */
+    public Player createCombatCopy() {
+        Player copy = new Player(name, new Stats(stats), CombatLog.SILENT, new Inventory());
+        System.arraycopy(activeSpells, 0, copy.activeSpells, 0, activeSpells.length);
+        System.arraycopy(passiveSpells, 0, copy.passiveSpells, 0, passiveSpells.length);
+        copy.combatMode = combatMode;
+        copy.onLoadoutChanged();
+        copy.resetCombatState(); // Max HP depends on the equipped enchants copied above
+        return copy;
+    }
+
+    /**
+     * Replaces this player's progress with a loaded save: attributes, AP, combat mode,
+     * inventory and equipped slots. Combat state is reset.
+     * @param snapshot The loaded save; its slot indices refer to its inventory list.
+     */
+    public void restoreProgress(GameSnapshot snapshot) {
+        Arrays.fill(activeSpells, null);
+        Arrays.fill(passiveSpells, null);
+        activeSpellCooldowns.clear();
+        inventory.removeSpellsIf(spell -> true, spell -> { });
+        for (PlayerSpell spell : snapshot.inventory()) {
+            inventory.addSpell(spell);
+        }
+
+        Stats.Editor editor = stats.edit();
+        for (Map.Entry<PrimaryAttributeType, Integer> entry : snapshot.attributes().entrySet()) {
+            editor.set(entry.getKey(), entry.getValue());
+        }
+        editor.commit();
+        this.attributePoints = snapshot.attributePoints();
+        this.combatMode = snapshot.combatMode();
+
+        for (int slot = 0; slot < activeSpells.length; slot++) {
+            if (snapshot.activeSlots()[slot] >= 0) {
+                activeSpells[slot] = inventory.getSpell(snapshot.activeSlots()[slot]);
+                activeSpellCooldowns.put(activeSpells[slot], activeSpells[slot].actualCooldownSeconds());
+            }
+        }
+        for (int slot = 0; slot < passiveSpells.length; slot++) {
+            if (snapshot.passiveSlots()[slot] >= 0) {
+                passiveSpells[slot] = inventory.getSpell(snapshot.passiveSlots()[slot]);
+            }
+        }
+        onLoadoutChanged();
+        resetCombatState();
+    }
+
     // --- Inventory and Spell Management ---
 
     public Inventory getInventory() {
         return inventory;
     }
 
+    /**
+     * @param listener Told about every later change to saved progress, e.g. a ProgressJournal.
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.progressListener = listener == null ? ProgressListener.NONE : listener;
+    }
+
+    /**
+     * Sorts the inventory. Use this rather than sorting getInventory() directly, so a journal
+     * listening for changes knows the inventory indices have moved.
+     * @param order The order to sort by, e.g. from SpellSortKey.parseOrder().
+     */
+    public void sortInventory(Comparator<PlayerSpell> order) {
+        inventory.sort(order);
+        progressListener.inventoryReordered();
+    }
+
     public boolean addSpellToInventory(PlayerSpell spell) {
-        return inventory.addSpell(spell);
+        if (!inventory.addSpell(spell)) {
+            return false;
+        }
+        progressListener.spellAdded(spell);
+        return true;
     }
 
     /**
@@ -358,24 +427,16 @@ public class Player implements Combatant<PlayerSpell> {
      */
     public boolean deconstructSpell(int inventoryIndex) {
         PlayerSpell spellToDeconstruct = inventory.getSpell(inventoryIndex); // Get without removing first
+        if (spellToDeconstruct != null && isEquipped(spellToDeconstruct)) {
+            System.err.println("Cannot deconstruct an equipped spell.");
+            return false;
+        }
         if (spellToDeconstruct != null) {
-            // Ensure it's not currently equipped
-            for (PlayerSpell active : activeSpells) {
-                if (active == spellToDeconstruct) { // Check by reference
-                    System.err.println("Cannot deconstruct an equipped active spell.");
-                    return false;
-                }
-            }
-            for (PlayerSpell passive : passiveSpells) {
-                if (passive == spellToDeconstruct) {
-                     System.err.println("Cannot deconstruct an equipped passive spell.");
-                    return false;
-                }
-            }
-
             PlayerSpell removedSpell = inventory.removeSpell(inventoryIndex); // Now actually remove
             if (removedSpell != null) { // Should be same as spellToDeconstruct
                 this.attributePoints += removedSpell.finalAPCost();
+                progressListener.spellRemoved(inventoryIndex);
+                progressListener.attributePointsChanged(this.attributePoints);
                 System.out.println("Deconstructed " + removedSpell.getName() + " for " + removedSpell.finalAPCost() + " AP. Total AP: " + this.attributePoints);
                 return true;
             }
@@ -384,6 +445,89 @@ public class Player implements Combatant<PlayerSpell> {
         return false;
     }
 
+    /**
+     * Converts a spell that never entered the inventory (e.g. an auto-salvaged drop) into AP.
+     * @param spell The spell to salvage.
+     * @return The AP gained.
+     */
+    public int salvageSpell(PlayerSpell spell) {
+        if (spell == null) {
+            return 0;
+        }
+        this.attributePoints = (int) Math.min(Integer.MAX_VALUE, (long) this.attributePoints + spell.finalAPCost());
+        progressListener.attributePointsChanged(this.attributePoints);
+        return spell.finalAPCost();
+    }
+
+    /**
+     * Converts several spells that never entered the inventory into AP, crediting their combined AP once.
+     * @param spells The spells to salvage.
+     * @return The AP gained.
+     */
+    public long salvageSpells(Collection<PlayerSpell> spells) {
+        long apGained = 0;
+        for (PlayerSpell spell : spells) {
+            apGained += spell.finalAPCost();
+        }
+        this.attributePoints = (int) Math.min(Integer.MAX_VALUE, this.attributePoints + apGained);
+        progressListener.attributePointsChanged(this.attributePoints);
+        return apGained;
+    }
+
+    /**
+     * Deconstructs every unequipped inventory spell matching the condition in one pass,
+     * crediting their combined AP once.
+     * @param condition Which spells to deconstruct (e.g. a SpellQuery's matches).
+     * @return The number of spells deconstructed.
+     */
+    public int deconstructSpellsWhere(Predicate<PlayerSpell> condition) {
+        Set<PlayerSpell> equipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (PlayerSpell active : activeSpells) {
+            if (active != null) {
+                equipped.add(active);
+            }
+        }
+        for (PlayerSpell passive : passiveSpells) {
+            if (passive != null) {
+                equipped.add(passive);
+            }
+        }
+
+        long[] apGained = new long[1];
+        int[] position = new int[1]; // removeSpellsIf tests spells once each, in inventory order
+        BitSet removedIndices = new BitSet();
+        int removed = inventory.removeSpellsIf(spell -> {
+                                                   int index = position[0]++;
+                                                   if (equipped.contains(spell) || !condition.test(spell)) {
+                                                       return false;
+                                                   }
+                                                   removedIndices.set(index);
+                                                   return true;
+                                               },
+                                               spell -> apGained[0] += spell.finalAPCost());
+        this.attributePoints = (int) Math.min(Integer.MAX_VALUE, this.attributePoints + apGained[0]);
+        if (removed > 0) {
+            progressListener.spellsRemoved(removedIndices.stream().toArray());
+            progressListener.attributePointsChanged(this.attributePoints);
+        }
+        System.out.println("Deconstructed " + removed + " spells for " + apGained[0] + " AP. Total AP: " + this.attributePoints);
+        return removed;
+    }
+
+    private boolean isEquipped(PlayerSpell spell) {
+        for (PlayerSpell active : activeSpells) {
+            if (active == spell) { // Check by reference
+                return true;
+            }
+        }
+        for (PlayerSpell passive : passiveSpells) {
+            if (passive == spell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Equips a spell from the inventory into an active or passive slot.
      * @param inventoryIndex Index of the spell in the inventory.
@@ -419,9 +563,8 @@ public class Player implements Combatant<PlayerSpell> {
             activeSpellCooldowns.put(spellToEquip, spellToEquip.actualCooldownSeconds()); // Start on full CD
         }
 
-        // Recalculate dependent stats (like MaxHP) might be needed if enchants affect them
-        // Or, ensure getters for effective stats always re-evaluate based on equipped items.
-        // For simplicity, getters like getEffectiveArmor() already iterate equipped spells.
+        onLoadoutChanged(); // Enchant bonuses (e.g. Max HP, armor) depend on what is equipped
+        progressListener.spellEquipped(inventoryIndex, slotIndex, isActiveSlot);
         System.out.println("Equipped " + spellToEquip.getName() + " to " + (isActiveSlot ? "active" : "passive") + " slot " + slotIndex);
         return true;
     }
@@ -451,11 +594,52 @@ public class Player implements Combatant<PlayerSpell> {
         // OPTIONAL: Add back to main inventory if it was removed upon equipping
         // inventory.addSpell(unequippedSpell);
 
+        onLoadoutChanged();
+        progressListener.spellUnequipped(slotIndex, isActiveSlot);
+
         System.out.println("Unequipped " + unequippedSpell.getName() + " from " + (isActiveSlot ? "active" : "passive") + " slot " + slotIndex);
-        // Recalculate stats if needed
         return true;
     }
 
+    /**
+     * Rebuilds everything derived from the equipped spells and attributes.
+     * Must be called whenever a slot or a primary attribute changes, so the effective-stat
+     * getters used on every hit can read precomputed values.
+     */
+    private void onLoadoutChanged() {
+        equippedEnchantBonuses.rebuild(activeSpells, passiveSpells);
+        // Cast plans depend on the enchant table above, so they are compiled after it
+        for (int i = 0; i < activeSpells.length; i++) {
+            activeCastPlans[i] = activeSpells[i] != null
+                    ? SpellCastPlan.compile(activeSpells[i], stats, equippedEnchantBonuses)
+                    : null;
+        }
+    }
+
+    /**
+     * @param activeSlotIndex The active slot (0-1).
+     * @return The compiled cast plan of the spell in that slot, or null if the slot is empty.
+     */
+    public SpellCastPlan getCastPlan(int activeSlotIndex) {
+        if (activeSlotIndex < 0 || activeSlotIndex >= activeCastPlans.length) {
+            return null;
+        }
+        return activeCastPlans[activeSlotIndex];
+    }
+
+    /**
+     * @param spell An equipped active spell.
+     * @return Its compiled cast plan, or null if the spell is not in an active slot.
+     */
+    public SpellCastPlan getCastPlan(PlayerSpell spell) {
+        for (int i = 0; i < activeSpells.length; i++) {
+            if (activeSpells[i] == spell) {
+                return activeCastPlans[i];
+            }
+        }
+        return null;
+    }
+
     /**
      * Helper to get all currently equipped spells (active and passive).
      * @return A list of all equipped PlayerSpell objects.
@@ -499,14 +683,14 @@ public class Player implements Combatant<PlayerSpell> {
         }
 
         int currentAttributeValue = stats.getPrimaryAttributeValue(attributeType);
-        // Cost_to_buy_next_point = 10 + 0.5 * P'^2 + 7 * P'
-        double cost = 10 + (0.5 * Math.pow(currentAttributeValue, 2)) + (7 * currentAttributeValue);
-        int apCost = (int) Math.round(cost);
-        apCost = Math.max(1, apCost); // Ensure cost is at least 1
+        long apCost = attributePointCost(currentAttributeValue);
 
         if (this.attributePoints >= apCost) {
             this.attributePoints -= apCost;
             stats.addPointsToAttribute(attributeType.name(), 1); // Assumes addPointsToAttribute takes string name
+            onLoadoutChanged();
+            progressListener.attributeChanged(attributeType, currentAttributeValue + 1);
+            progressListener.attributePointsChanged(this.attributePoints);
             System.out.println("Upgraded " + attributeType.name() + " for " + apCost + " AP. New value: " + (currentAttributeValue + 1) + ". Remaining AP: " + this.attributePoints);
             // Max HP might change if Fortitude was upgraded or due to total attribute points, so refresh current HP
             this.currentHP = Math.min(this.currentHP, getMaxHP()); // Ensure currentHP doesn't exceed new max
@@ -517,12 +701,77 @@ public class Player implements Combatant<PlayerSpell> {
         }
     }
 
+    /**
+     * Buys several attribute points in one step, e.g. an UpgradePlan's allocation.
+     * Costs the same as buying the points one at a time, but derived stats and the loadout
+     * are recalculated only once.
+     * @param points Points to buy per attribute.
+     * @return true if successful, false (with nothing spent) if the AP does not cover it or an entry is invalid.
+     */
+    public boolean spendAPForAttributes(Map<PrimaryAttributeType, Integer> points) {
+        long totalCost = 0;
+        int totalPoints = 0;
+        for (Map.Entry<PrimaryAttributeType, Integer> entry : points.entrySet()) {
+            if (entry.getKey() == PrimaryAttributeType.NONE || entry.getValue() == null || entry.getValue() <= 0) {
+                System.err.println("Player.spendAPForAttributes: Invalid upgrade " + entry.getKey() + " +" + entry.getValue());
+                return false;
+            }
+            int currentValue = stats.getPrimaryAttributeValue(entry.getKey());
+            totalCost += attributeUpgradeCost(currentValue, currentValue + entry.getValue());
+            totalPoints += entry.getValue();
+        }
+        if (totalCost > this.attributePoints) {
+            System.out.println("Not enough AP for " + totalPoints + " attribute points. Cost: " + totalCost + " AP. You have: " + this.attributePoints + " AP.");
+            return false;
+        }
+        if (!stats.addPointsToAttributes(points)) {
+            return false;
+        }
+        this.attributePoints -= (int) totalCost;
+        onLoadoutChanged();
+        for (PrimaryAttributeType type : points.keySet()) {
+            progressListener.attributeChanged(type, stats.getPrimaryAttributeValue(type));
+        }
+        progressListener.attributePointsChanged(this.attributePoints);
+        this.currentHP = Math.min(this.currentHP, getMaxHP());
+        System.out.println("Upgraded " + totalPoints + " attribute points for " + totalCost + " AP. Remaining AP: " + this.attributePoints);
+        return true;
+    }
+
+    /**
+     * AP cost of raising an attribute by one point: 10 + 7P + P^2/2 for current value P,
+     * with the half point of odd values rounded up.
+     * @param currentValue The attribute's value before the upgrade.
+     */
+    public static long attributePointCost(int currentValue) {
+        long p = currentValue;
+        return 10 + 7 * p + (p * p + (p & 1)) / 2;
+    }
+
+    /**
+     * Total AP cost of raising an attribute from one value to another, in closed form.
+     * @return The sum of attributePointCost over every point bought (0 if toValue <= fromValue).
+     */
+    public static long attributeUpgradeCost(int fromValue, int toValue) {
+        if (toValue <= fromValue) {
+            return 0;
+        }
+        return cumulativeAttributeCost(toValue) - cumulativeAttributeCost(fromValue);
+    }
+
+    // Sum of attributePointCost(p) for p in [0, n): the odd values in that range add one half point each
+    private static long cumulativeAttributeCost(long n) {
+        long sumOfSquares = (n - 1) * n * (2 * n - 1) / 6;
+        return 10 * n + 7 * n * (n - 1) / 2 + (sumOfSquares + n / 2) / 2;
+    }
+
     // --- Combat Mode ---
     public CombatMode getCombatMode() {
         return combatMode;
     }
     public void setCombatMode(CombatMode mode) {
         this.combatMode = mode;
+        progressListener.combatModeChanged(mode);
         System.out.println("Player combat mode set to: " + mode);
     }
 
@@ -536,22 +785,7 @@ public class Player implements Combatant<PlayerSpell> {
         if (damageType == null) {
 			return 0.0;
 		}
-        double totalBonus = 0.0;
-        for (PlayerSpell spell : getAllEquippedSpells()) { // getAllEquippedSpells() should return active and passive
-            if (spell != null) {
-                for (EnchantInstance enchant : spell.appliedEnchants()) {
-                    BaseEnchant be = enchant.baseEnchant();
-                    if (be.effectType() == EnchantEffectType.PLAYER_DAMAGE_TYPE_ADD_PERCENT) {
-                        // Check if the enchant's targetKey matches the damageType's name
-                        // This assumes targetKey in BaseEnchant for damage types stores the DamageType enum's .name()
-                        if (be.targetKey() != null && be.targetKey().equalsIgnoreCase(damageType.name())) {
-                            totalBonus += enchant.finalRolledValue();
-                        }
-                    }
-                }
-            }
-        }
-        return totalBonus;
+        return equippedEnchantBonuses.getDamageTypeBonusPercent(damageType);
     }
 
     /**
@@ -564,20 +798,6 @@ public class Player implements Combatant<PlayerSpell> {
         if (healingType == null) {
 			return 0.0;
 		}
-        double totalBonus = 0.0;
-        for (PlayerSpell spell : getAllEquippedSpells()) {
-            if (spell != null) {
-                for (EnchantInstance enchant : spell.appliedEnchants()) {
-                    BaseEnchant be = enchant.baseEnchant();
-                    if (be.effectType() == EnchantEffectType.PLAYER_HEALING_TYPE_ADD_PERCENT) {
-                        // Check if the enchant's targetKey matches the healingType's name
-                        if (be.targetKey() != null && be.targetKey().equalsIgnoreCase(healingType.name())) {
-                            totalBonus += enchant.finalRolledValue();
-                        }
-                    }
-                }
-            }
-        }
-        return totalBonus;
+        return equippedEnchantBonuses.getHealingTypeBonusPercent(healingType);
     }
 }
@@ -0,0 +1,482 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * Append-only log of the changes made since the last full save, so progress survives a crash
+ * without rewriting the whole save after every drop.
+ *
+ * Changes are buffered and written as a batch: a frame of [payload length][payload CRC32][payload],
+ * followed by an fsync. A batch is written when the buffer fills up and at least once every
+ * FLUSH_INTERVAL_MILLIS, so a crash loses at most the last unflushed batch. A frame cut short or
+ * damaged by the crash fails its CRC and ends the replay there.
+ *
+ * The journal header records the CRC of the save it continues from. Compaction writes a new save
+ * and resets the journal to that save's CRC; if the process dies between the two steps, the old
+ * journal no longer matches the new save and is ignored, since the save already holds its changes.
+ */
+public class ProgressJournal implements ProgressListener {
+
+    public static final String FILE_EXTENSION = ".wal";
+    public static final long FLUSH_INTERVAL_MILLIS = 1000;
+    public static final int BATCH_BYTES = 64 * 1024;
+    public static final long COMPACTION_BYTES = 8L * 1024 * 1024; // Journal size at which a full save is cheaper to load
+
+    private static final int MAGIC = 0x4953574C; // "ISWL"
+    private static final byte VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 1 + 4;
+    private static final int FRAME_HEADER_BYTES = 4 + 4;
+
+    // Change tags
+    private static final byte SPELL_ADDED = 1;
+    private static final byte SPELL_REMOVED = 2;
+    private static final byte SPELLS_REMOVED = 3;
+    private static final byte SPELL_EQUIPPED = 4;
+    private static final byte SPELL_UNEQUIPPED = 5;
+    private static final byte ATTRIBUTE_POINTS = 6;
+    private static final byte ATTRIBUTE = 7;
+    private static final byte COMBAT_MODE = 8;
+    private static final byte FLOOR = 9;
+
+    private static final PrimaryAttributeType[] ATTRIBUTE_TYPES = PrimaryAttributeType.values();
+    private static final Player.CombatMode[] COMBAT_MODES = Player.CombatMode.values();
+
+    private final Path file;
+    private final GameSnapshot.Definitions definitions;
+    private final Runnable checkpoint; // Writes a full save and calls reset(); needed when indices are reshuffled
+    private final SaveCodec.Writer pending;
+    private final ScheduledExecutorService flusher;
+    private FileChannel channel;
+    private long fileBytes;
+    private boolean failed; // After the first I/O error the journal stops writing; the next full save still works
+
+    private ProgressJournal(Path file, GameSnapshot.Definitions definitions, Runnable checkpoint) {
+        this.file = file;
+        this.definitions = definitions;
+        this.checkpoint = checkpoint;
+        this.pending = new SaveCodec.Writer(BATCH_BYTES + 1024);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param saveFile A save file.
+     * @return The journal file kept next to it.
+     */
+    public static Path fileFor(Path saveFile) {
+        return saveFile.resolveSibling(saveFile.getFileName() + FILE_EXTENSION);
+    }
+
+    /**
+     * Starts an empty journal continuing from a save, replacing any journal already in the file.
+     * @param file The journal file.
+     * @param baseChecksum GameSnapshot.readChecksum() of the save just written.
+     * @param definitions Tells starting-spell templates apart from loaded ones.
+     * @param checkpoint Writes a full save and calls reset() with its checksum.
+     * @return The journal, or null if the file could not be opened.
+     */
+    public static ProgressJournal open(Path file, int baseChecksum, GameSnapshot.Definitions definitions, Runnable checkpoint) {
+        ProgressJournal journal = new ProgressJournal(file, definitions, checkpoint);
+        try {
+            journal.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            System.err.println("ProgressJournal Error: Could not open " + file + ": " + e.getMessage());
+            journal.flusher.shutdown();
+            return null;
+        }
+        journal.reset(baseChecksum);
+        if (journal.failed) {
+            journal.close();
+            return null;
+        }
+        journal.flusher.scheduleWithFixedDelay(journal::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    /**
+     * Empties the journal after a full save. Buffered changes are dropped, since the save holds them.
+     * @param baseChecksum GameSnapshot.readChecksum() of that save.
+     */
+    public synchronized void reset(int baseChecksum) {
+        pending.clear();
+        pending.resetReferences();
+        failed = false;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).put(VERSION).putInt(baseChecksum);
+        header.flip();
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            writeFully(header);
+            channel.force(false);
+            fileBytes = HEADER_BYTES;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** Writes and fsyncs the buffered changes as one frame. */
+    public synchronized void flush() {
+        if (failed || channel == null || pending.size() == 0) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(pending.bytes(), 0, pending.size());
+        ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+        frameHeader.putInt(pending.size()).putInt((int) crc.getValue());
+        frameHeader.flip();
+        try {
+            writeFully(frameHeader);
+            writeFully(ByteBuffer.wrap(pending.bytes(), 0, pending.size()));
+            channel.force(false);
+            fileBytes += FRAME_HEADER_BYTES + pending.size();
+            pending.clear();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @return true once the journal has grown large enough that it should be compacted into a full save.
+     */
+    public synchronized boolean isCompactionDue() {
+        return fileBytes + pending.size() >= COMPACTION_BYTES;
+    }
+
+    /** Flushes the buffered changes and closes the file. */
+    public synchronized void close() {
+        flusher.shutdown();
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("ProgressJournal Error: Could not close " + file + ": " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    // --- ProgressListener ---
+
+    @Override
+    public synchronized void spellAdded(PlayerSpell spell) {
+        pending.putByte(SPELL_ADDED);
+        pending.putSpell(spell, definitions);
+        appended();
+    }
+
+    @Override
+    public synchronized void spellRemoved(int inventoryIndex) {
+        pending.putByte(SPELL_REMOVED);
+        pending.putVarint(inventoryIndex);
+        appended();
+    }
+
+    // Indices are ascending, so each is written as the gap from the previous one
+    @Override
+    public synchronized void spellsRemoved(int[] inventoryIndices) {
+        pending.putByte(SPELLS_REMOVED);
+        pending.putVarint(inventoryIndices.length);
+        int previous = -1;
+        for (int index : inventoryIndices) {
+            pending.putVarint(index - previous - 1);
+            previous = index;
+        }
+        appended();
+    }
+
+    @Override
+    public synchronized void spellEquipped(int inventoryIndex, int slotIndex, boolean activeSlot) {
+        pending.putByte(SPELL_EQUIPPED);
+        pending.putByte(activeSlot ? 1 : 0);
+        pending.putVarint(slotIndex);
+        pending.putVarint(inventoryIndex);
+        appended();
+    }
+
+    @Override
+    public synchronized void spellUnequipped(int slotIndex, boolean activeSlot) {
+        pending.putByte(SPELL_UNEQUIPPED);
+        pending.putByte(activeSlot ? 1 : 0);
+        pending.putVarint(slotIndex);
+        appended();
+    }
+
+    @Override
+    public synchronized void attributePointsChanged(int attributePoints) {
+        pending.putByte(ATTRIBUTE_POINTS);
+        pending.putVarint(attributePoints);
+        appended();
+    }
+
+    @Override
+    public synchronized void attributeChanged(PrimaryAttributeType type, int value) {
+        pending.putByte(ATTRIBUTE);
+        pending.putVarint(type.ordinal());
+        pending.putVarint(value);
+        appended();
+    }
+
+    @Override
+    public synchronized void combatModeChanged(Player.CombatMode mode) {
+        pending.putByte(COMBAT_MODE);
+        pending.putVarint(mode.ordinal());
+        appended();
+    }
+
+    @Override
+    public synchronized void floorChanged(int floor) {
+        pending.putByte(FLOOR);
+        pending.putVarint(floor);
+        appended();
+    }
+
+    // A sort moves every index at once; a full save is smaller than journaling the permutation
+    @Override
+    public void inventoryReordered() {
+        checkpoint.run();
+    }
+
+    // Rules change rarely and are small, so they are only ever written as part of a full save
+    @Override
+    public void lootRulesChanged() {
+        checkpoint.run();
+    }
+
+    private void appended() {
+        if (pending.size() >= BATCH_BYTES) {
+            flush();
+        }
+    }
+
+    private void fail(IOException e) {
+        if (!failed) {
+            System.err.println("ProgressJournal Error: Could not write " + file + ": " + e.getMessage()
+                               + ". Progress since the last save will not survive a crash.");
+        }
+        failed = true;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // --- Replay ---
+
+    /**
+     * Applies a journal's changes to the save it continues from.
+     * Replay stops at the first incomplete or damaged frame, i.e. the batch being written when the game stopped.
+     * @param file The journal file.
+     * @param base The loaded save.
+     * @param baseChecksum GameSnapshot.readChecksum() of that save.
+     * @param definitions Resolves template and enchant ids to the loaded definitions.
+     * @return The save with the journal's changes applied, or the base itself if the journal is
+     *         missing, unreadable, or belongs to an older save.
+     */
+    public static GameSnapshot replay(Path file, GameSnapshot base, int baseChecksum, GameSnapshot.Definitions definitions) {
+        if (!Files.exists(file)) {
+            return base;
+        }
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (IOException e) {
+            System.err.println("ProgressJournal Error: Could not read " + file + ": " + e.getMessage());
+            return base;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            System.err.println("ProgressJournal Error: " + file + " is not a progress journal. Ignoring it.");
+            return base;
+        }
+        if (buffer.getInt() != baseChecksum) {
+            return base; // Left over from before the last full save, which already holds its changes
+        }
+
+        ReplayState state = new ReplayState(base);
+        SaveCodec.Reader reader = new SaveCodec.Reader(bytes, 0, 0);
+        int frames = 0;
+        int changes = 0;
+        while (buffer.remaining() > 0) {
+            int frameStart = buffer.position();
+            if (buffer.remaining() < FRAME_HEADER_BYTES) {
+                break;
+            }
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                buffer.position(frameStart);
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(bytes, buffer.position(), length);
+            if ((int) crc.getValue() != expectedCrc) {
+                buffer.position(frameStart);
+                break;
+            }
+            reader.setInput(bytes, buffer.position(), length);
+            try {
+                while (reader.remaining() > 0) {
+                    state.apply(reader, definitions);
+                    changes++;
+                }
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                System.err.println("ProgressJournal Error: Malformed change in " + file + " at byte " + frameStart + ": "
+                                   + e.getMessage() + ". Later changes are lost.");
+                return state.toSnapshot(base);
+            }
+            buffer.position(buffer.position() + length);
+            frames++;
+        }
+        if (buffer.remaining() > 0) {
+            System.out.println("ProgressJournal: Discarded an incomplete batch (" + buffer.remaining() + " bytes) at the end of " + file + ".");
+        }
+        if (changes > 0) {
+            System.out.println("ProgressJournal: Replayed " + changes + " changes in " + frames + " batches from " + file + ".");
+        }
+        return state.toSnapshot(base);
+    }
+
+    /** Mutable copy of a snapshot that journal changes are applied to. */
+    private static final class ReplayState {
+        private final List<PlayerSpell> inventory;
+        private final int[] activeSlots;
+        private final int[] passiveSlots;
+        private final Map<PrimaryAttributeType, Integer> attributes;
+        private int attributePoints;
+        private Player.CombatMode combatMode;
+        private int floor;
+
+        ReplayState(GameSnapshot base) {
+            this.inventory = new ArrayList<>(base.inventory());
+            this.activeSlots = base.activeSlots().clone();
+            this.passiveSlots = base.passiveSlots().clone();
+            this.attributes = new EnumMap<>(PrimaryAttributeType.class);
+            this.attributes.putAll(base.attributes());
+            this.attributePoints = base.attributePoints();
+            this.combatMode = base.combatMode();
+            this.floor = base.floor();
+        }
+
+        void apply(SaveCodec.Reader reader, GameSnapshot.Definitions definitions) {
+            int tag = reader.getByte();
+            switch (tag) {
+                case SPELL_ADDED -> inventory.add(reader.getSpell(definitions));
+                case SPELL_REMOVED -> removeSpells(new int[] { checkIndex(reader.getVarint()) });
+                case SPELLS_REMOVED -> {
+                    int count = reader.getVarint();
+                    int[] indices = new int[Math.min(count, inventory.size())];
+                    if (count > indices.length) {
+                        throw new IllegalArgumentException("removes " + count + " of " + inventory.size() + " spells");
+                    }
+                    int previous = -1;
+                    for (int i = 0; i < count; i++) {
+                        previous = checkIndex(previous + 1 + reader.getVarint());
+                        indices[i] = previous;
+                    }
+                    removeSpells(indices);
+                }
+                case SPELL_EQUIPPED -> {
+                    int[] slots = reader.getByte() != 0 ? activeSlots : passiveSlots;
+                    int slot = checkSlot(slots, reader.getVarint());
+                    slots[slot] = checkIndex(reader.getVarint());
+                }
+                case SPELL_UNEQUIPPED -> {
+                    int[] slots = reader.getByte() != 0 ? activeSlots : passiveSlots;
+                    slots[checkSlot(slots, reader.getVarint())] = -1;
+                }
+                case ATTRIBUTE_POINTS -> attributePoints = reader.getVarint();
+                case ATTRIBUTE -> {
+                    int ordinal = reader.getVarint();
+                    if (ordinal >= ATTRIBUTE_TYPES.length || ATTRIBUTE_TYPES[ordinal] == PrimaryAttributeType.NONE) {
+                        throw new IllegalArgumentException("unknown attribute " + ordinal);
+                    }
+                    attributes.put(ATTRIBUTE_TYPES[ordinal], reader.getVarint());
+                }
+                case COMBAT_MODE -> {
+                    int ordinal = reader.getVarint();
+                    if (ordinal >= COMBAT_MODES.length) {
+                        throw new IllegalArgumentException("unknown combat mode " + ordinal);
+                    }
+                    combatMode = COMBAT_MODES[ordinal];
+                }
+                case FLOOR -> floor = reader.getVarint();
+                default -> throw new IllegalArgumentException("unknown change tag " + tag);
+            }
+        }
+
+        // Compacts the inventory in one pass and moves slot indices down past the removed spells
+        private void removeSpells(int[] ascendingIndices) {
+            if (ascendingIndices.length == 0) {
+                return;
+            }
+            int[] newIndex = new int[inventory.size()];
+            int kept = 0;
+            int next = 0;
+            for (int i = 0; i < inventory.size(); i++) {
+                if (next < ascendingIndices.length && ascendingIndices[next] == i) {
+                    newIndex[i] = -1;
+                    next++;
+                } else {
+                    newIndex[i] = kept;
+                    inventory.set(kept++, inventory.get(i));
+                }
+            }
+            inventory.subList(kept, inventory.size()).clear();
+            remapSlots(activeSlots, newIndex);
+            remapSlots(passiveSlots, newIndex);
+        }
+
+        private static void remapSlots(int[] slots, int[] newIndex) {
+            for (int slot = 0; slot < slots.length; slot++) {
+                if (slots[slot] >= 0) {
+                    slots[slot] = newIndex[slots[slot]];
+                }
+            }
+        }
+
+        private int checkIndex(int index) {
+            if (index >= inventory.size()) {
+                throw new IllegalArgumentException("inventory index " + index + " out of range (" + inventory.size() + " spells)");
+            }
+            return index;
+        }
+
+        private static int checkSlot(int[] slots, int slot) {
+            if (slot >= slots.length) {
+                throw new IllegalArgumentException("slot " + slot + " out of range");
+            }
+            return slot;
+        }
+
+        GameSnapshot toSnapshot(GameSnapshot base) {
+            return new GameSnapshot(floor, base.gameState(), combatMode, attributePoints, attributes,
+                                    inventory, activeSlots, passiveSlots, base.lootDefaultAction(), base.lootRules());
+        }
+    }
+}
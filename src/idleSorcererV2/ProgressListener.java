@@ -0,0 +1,49 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * Receives every change to the player's saved progress, after the change has been made.
+ * Inventory indices are the ones the change used, so replaying the calls in order onto the
+ * previous state reproduces the new one. All methods default to doing nothing.
+ */
+public interface ProgressListener {
+
+    /** Listener that ignores every change. */
+    ProgressListener NONE = new ProgressListener() { };
+
+    /** A spell was appended to the end of the inventory. */
+    default void spellAdded(PlayerSpell spell) { }
+
+    /** The spell at this index was removed; later spells moved down by one. */
+    default void spellRemoved(int inventoryIndex) { }
+
+    /** The spells at these ascending indices (before removal) were removed in one pass. */
+    default void spellsRemoved(int[] inventoryIndices) { }
+
+    default void spellEquipped(int inventoryIndex, int slotIndex, boolean activeSlot) { }
+
+    default void spellUnequipped(int slotIndex, boolean activeSlot) { }
+
+    /** The AP total changed to this value. */
+    default void attributePointsChanged(int attributePoints) { }
+
+    /** A primary attribute changed to this value. */
+    default void attributeChanged(PrimaryAttributeType type, int value) { }
+
+    default void combatModeChanged(Player.CombatMode mode) { }
+
+    default void floorChanged(int floor) { }
+
+    /** The inventory was reordered; a change that cannot be expressed through inventory indices. */
+    default void inventoryReordered() { }
+
+    /** The loot rules or their default action changed; they are saved whole, not as changes. */
+    default void lootRulesChanged() { }
+}
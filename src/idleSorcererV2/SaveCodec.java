@@ -0,0 +1,246 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import idleSorcererV2.data.BaseEnchant;
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.EnchantInstance;
+import idleSorcererV2.data.PlayerSpell;
+
+/**
+ * Byte encoding shared by GameSnapshot and ProgressJournal: varints, strings, decimals and spells.
+ * Spells refer to their template and enchants through tables that grow as they are written: a
+ * reference equal to the table's current size defines the next entry (its id, written once)
+ * and every later use is just the small index. The reader rebuilds the same tables in the same
+ * order, resolving each id against the loaded definitions.
+ * Decimals that are whole tenths (cooldowns, rolled values) are written as a varint of tenths;
+ * anything else falls back to the raw 8-byte double.
+ */
+final class SaveCodec {
+
+    private static final byte TEMPLATE_LOADED = 0;
+    private static final byte TEMPLATE_STARTING = 1;
+    private static final int DECIMAL_RAW = 1; // Low bit of a decimal's first varint: 0 = tenths, 1 = raw double
+    private static final double TENTHS_TOLERANCE = 1e-6; // Columnar inventories hand out float-rounded views
+
+    private SaveCodec() {
+    }
+
+    /** Growable byte array. */
+    static final class Writer {
+        private final Map<BaseSpellTemplate, Integer> templateRefs = new IdentityHashMap<>();
+        private final Map<BaseEnchant, Integer> enchantRefs = new IdentityHashMap<>();
+        private byte[] bytes;
+        private int size;
+
+        Writer(int initialCapacity) {
+            this.bytes = new byte[Math.max(16, initialCapacity)];
+        }
+
+        byte[] bytes() { return bytes; }
+        int size() { return size; }
+
+        /** Empties the buffer but keeps the reference tables, for the next batch of the same stream. */
+        void clear() {
+            size = 0;
+        }
+
+        /** Forgets the reference tables, for a new stream. */
+        void resetReferences() {
+            templateRefs.clear();
+            enchantRefs.clear();
+        }
+
+        void putByte(int value) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        // Unsigned LEB128: 7 bits per byte, high bit set on every byte but the last
+        void putVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                putByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            putByte((int) value);
+        }
+
+        void putString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarint(utf8.length);
+            for (byte b : utf8) {
+                putByte(b);
+            }
+        }
+
+        void putDecimal(double value) {
+            double tenths = Math.rint(value * 10.0);
+            if (Math.abs(tenths / 10.0 - value) <= TENTHS_TOLERANCE && Math.abs(tenths) < (1L << 60)) {
+                long zigZag = ((long) tenths << 1) ^ ((long) tenths >> 63);
+                putVarint(zigZag << 1);
+            } else {
+                putVarint(DECIMAL_RAW);
+                long bits = Double.doubleToRawLongBits(value);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    putByte((int) (bits >>> shift));
+                }
+            }
+        }
+
+        void putSpell(PlayerSpell spell, GameSnapshot.Definitions definitions) {
+            Integer templateRef = templateRefs.get(spell.baseTemplate());
+            if (templateRef != null) {
+                putVarint(templateRef);
+            } else {
+                putVarint(templateRefs.size()); // Defines the next table entry
+                putByte(definitions.isStartingTemplate(spell.baseTemplate()) ? TEMPLATE_STARTING : TEMPLATE_LOADED);
+                putString(spell.baseTemplate().id());
+                templateRefs.put(spell.baseTemplate(), templateRefs.size());
+            }
+            putDecimal(spell.actualCooldownSeconds());
+            putDecimal(spell.effectiveCoreEffectValue());
+            putVarint(spell.finalAPCost());
+            putVarint(spell.appliedEnchants().size());
+            for (EnchantInstance enchant : spell.appliedEnchants()) {
+                Integer enchantRef = enchantRefs.get(enchant.baseEnchant());
+                if (enchantRef != null) {
+                    putVarint(enchantRef);
+                } else {
+                    putVarint(enchantRefs.size());
+                    putString(enchant.baseEnchant().enchantID());
+                    enchantRefs.put(enchant.baseEnchant(), enchantRefs.size());
+                }
+                putDecimal(enchant.finalRolledValue());
+            }
+        }
+    }
+
+    /**
+     * Cursor over bytes produced by a Writer. Malformed input surfaces as an
+     * IllegalArgumentException or IndexOutOfBoundsException.
+     */
+    static final class Reader {
+        private final List<BaseSpellTemplate> templates = new ArrayList<>();
+        private final List<BaseEnchant> enchants = new ArrayList<>();
+        private byte[] bytes;
+        private int position;
+        private int limit;
+
+        Reader(byte[] bytes) {
+            this(bytes, 0, bytes.length);
+        }
+
+        Reader(byte[] bytes, int offset, int length) {
+            setInput(bytes, offset, length);
+        }
+
+        /** Moves on to the next batch of the same stream, keeping the reference tables. */
+        void setInput(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        int remaining() {
+            return limit - position;
+        }
+
+        int getByte() {
+            checkAvailable(1);
+            return bytes[position++];
+        }
+
+        long getVarlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = (byte) getByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint longer than 64 bits at byte " + position);
+        }
+
+        int getVarint() {
+            long value = getVarlong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("value " + value + " out of range at byte " + position);
+            }
+            return (int) value;
+        }
+
+        String getString() {
+            int length = getVarint();
+            checkAvailable(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        double getDecimal() {
+            long encoded = getVarlong();
+            if ((encoded & DECIMAL_RAW) != 0) {
+                checkAvailable(8);
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | (bytes[position++] & 0xFF);
+                }
+                return Double.longBitsToDouble(bits);
+            }
+            long zigZag = encoded >>> 1;
+            long tenths = (zigZag >>> 1) ^ -(zigZag & 1);
+            return tenths / 10.0;
+        }
+
+        PlayerSpell getSpell(GameSnapshot.Definitions definitions) {
+            int templateRef = getVarint();
+            if (templateRef == templates.size()) {
+                boolean starting = getByte() == TEMPLATE_STARTING;
+                String id = getString();
+                BaseSpellTemplate template = definitions.findTemplate(id, starting);
+                if (template == null) {
+                    throw new IllegalArgumentException("unknown spell template '" + id + "'");
+                }
+                templates.add(template);
+            }
+            BaseSpellTemplate template = templates.get(templateRef);
+            double cooldown = getDecimal();
+            double coreValue = getDecimal();
+            int apCost = getVarint();
+            int enchantCount = getVarint();
+            List<EnchantInstance> spellEnchants = new ArrayList<>(Math.min(enchantCount, 16));
+            for (int e = 0; e < enchantCount; e++) {
+                int enchantRef = getVarint();
+                if (enchantRef == enchants.size()) {
+                    String id = getString();
+                    BaseEnchant enchant = definitions.findEnchant(id);
+                    if (enchant == null) {
+                        throw new IllegalArgumentException("unknown enchant '" + id + "'");
+                    }
+                    enchants.add(enchant);
+                }
+                spellEnchants.add(new EnchantInstance(enchants.get(enchantRef), getDecimal()));
+            }
+            return new PlayerSpell(template, cooldown, coreValue, spellEnchants, apCost);
+        }
+
+        private void checkAvailable(int count) {
+            if (count < 0 || position + count > limit) {
+                throw new IndexOutOfBoundsException("unexpected end of data at byte " + position);
+            }
+        }
+    }
+}
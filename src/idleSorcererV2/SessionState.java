@@ -0,0 +1,76 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * What the game remembers between runs to credit offline progress: when it was last
+ * running, and the floor and combat mode the sorcerer would have kept battling on.
+ * Stored as a small properties file next to the game.
+ */
+public record SessionState(long lastSeenEpochMillis, int floor, Player.CombatMode combatMode) {
+
+    public static final String DEFAULT_FILE_NAME = "idle_sorcerer_session.properties";
+
+    private static final String KEY_LAST_SEEN = "lastSeenEpochMillis";
+    private static final String KEY_FLOOR = "floor";
+    private static final String KEY_COMBAT_MODE = "combatMode";
+
+    /**
+     * Reads a session file.
+     * @return The session, or null if there is no file yet or it cannot be read.
+     */
+    public static SessionState load(Path file) {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return null; // First run
+        } catch (IOException e) {
+            System.err.println("SessionState Error: Could not read " + file + ": " + e.getMessage());
+            return null;
+        }
+        try {
+            return new SessionState(Long.parseLong(properties.getProperty(KEY_LAST_SEEN, "").trim()),
+                                    Integer.parseInt(properties.getProperty(KEY_FLOOR, "").trim()),
+                                    Player.CombatMode.valueOf(properties.getProperty(KEY_COMBAT_MODE, "").trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("SessionState Error: Malformed session file " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes this session, replacing the file only once the new contents are complete.
+     * @return true if the file was written.
+     */
+    public boolean save(Path file) {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_LAST_SEEN, Long.toString(lastSeenEpochMillis));
+        properties.setProperty(KEY_FLOOR, Integer.toString(floor));
+        properties.setProperty(KEY_COMBAT_MODE, combatMode.name());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Idle Sorcerer session");
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            System.err.println("SessionState Error: Could not write " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+/**
+ * Aggregated results of many simulated encounters of one loadout against one floor.
+ * Time-to-kill figures only consider won encounters; damage taken covers every run.
+ */
+public record SimulationReport(
+    int floor,
+    String enemyName,
+    long seed,                // Re-running with this seed reproduces the report exactly
+    int runs,
+    int wins,
+    int losses,
+    int timeouts,             // Runs that hit the simulator's time limit
+    double meanTimeToKillSeconds,
+    double p10TimeToKillSeconds,
+    double medianTimeToKillSeconds,
+    double p90TimeToKillSeconds,
+    double meanTimeToLoseSeconds, // Only lost encounters; 0 if none were lost
+    double meanDamageTaken,
+    double p90DamageTaken,
+    long elapsedMillis        // Wall-clock time the simulation took
+) {
+    public double winRate() {
+        return runs == 0 ? 0.0 : (double) wins / runs;
+    }
+}
@@ -0,0 +1,134 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.CoreEffectData;
+import idleSorcererV2.data.EnchantInstance;
+import idleSorcererV2.data.InherentPropertiesData;
+import idleSorcererV2.data.OnHitEffect;
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.CoreEffectType;
+import idleSorvererV2.enums.DamageType;
+import idleSorvererV2.enums.EnchantEffectType;
+import idleSorvererV2.enums.EnchantTargetParameter;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * An equipped active spell with everything that does not change during combat already resolved:
+ * flags, accuracy bonus and the final potency after stat, global enchant and spell enchant bonuses.
+ * Compiled by the Player when the loadout or attributes change, so casting only needs the
+ * player's current accuracy and the target's state.
+ */
+public record SpellCastPlan(
+    PlayerSpell spell,
+    CoreEffectType effectType,   // Which effect the engine dispatches to
+    DamageType damageType,       // Can be null if effect type is not DAMAGE
+    String dotType,              // Can be null if effect type is not APPLY_DOT
+    int potency,                 // Rounded, never negative
+    int accuracyBonus,           // Inherent bonus plus THIS_SPELL_ACCURACY enchants
+    boolean alwaysHits,
+    boolean ignoresArmor,
+    boolean ignoresShield,
+    boolean dealsDoubleDamageToShields,
+    OnHitEffect onHitEffect      // Can be null
+) {
+
+    /**
+     * Resolves a spell against the caster's current attributes and equipped enchant bonuses.
+     * @param spell The equipped spell.
+     * @param stats The caster's attributes.
+     * @param bonuses The caster's equipped enchant bonuses.
+     * @return The compiled plan.
+     */
+    public static SpellCastPlan compile(PlayerSpell spell, Stats stats, EnchantBonusTable bonuses) {
+        BaseSpellTemplate template = spell.baseTemplate();
+        CoreEffectData coreEffect = template.coreEffect();
+        InherentPropertiesData inherentProps = template.inherentProperties();
+
+        int accuracyBonus = 0;
+        if (inherentProps != null && inherentProps.accuracyBonus() > 0) {
+            accuracyBonus += inherentProps.accuracyBonus();
+        }
+        for (EnchantInstance enchant : spell.appliedEnchants()) {
+            if (enchant.baseEnchant().targetKey() != null &&
+                enchant.baseEnchant().effectType() == EnchantEffectType.SPELL_ACCURACY_ADD_FLAT &&
+                enchant.baseEnchant().targetKey().equals(EnchantTargetParameter.THIS_SPELL_ACCURACY.name())) {
+                accuracyBonus += (int) enchant.finalRolledValue();
+            }
+        }
+
+        double currentPotency = statScaledPotency(spell, stats);
+
+        double globalEnchantBonusPercent = 0;
+        if (coreEffect.type() == CoreEffectType.DAMAGE && coreEffect.damageType() != null) {
+            globalEnchantBonusPercent = bonuses.getDamageTypeBonusPercent(coreEffect.damageType());
+        } else if (coreEffect.type() == CoreEffectType.HEALING && coreEffect.healingType() != null) {
+            globalEnchantBonusPercent = bonuses.getHealingTypeBonusPercent(coreEffect.healingType());
+        }
+        currentPotency *= (1.0 + (globalEnchantBonusPercent / 100.0));
+        currentPotency = applySpellEnchants(spell, currentPotency);
+
+        return new SpellCastPlan(
+            spell,
+            coreEffect.type(),
+            coreEffect.damageType(),
+            coreEffect.dotType(),
+            (int) Math.round(Math.max(0, currentPotency)),
+            accuracyBonus,
+            inherentProps != null && inherentProps.alwaysHits(),
+            inherentProps != null && inherentProps.ignoresArmor(),
+            inherentProps != null && inherentProps.ignoresShield(),
+            inherentProps != null && inherentProps.dealsDoubleDamageToShields(),
+            inherentProps != null ? inherentProps.onHitEffect() : null
+        );
+    }
+
+    /**
+     * @return The spell's core value after its scaling attribute's damage or healing bonus.
+     */
+    static double statScaledPotency(PlayerSpell spell, Stats stats) {
+        CoreEffectData coreEffect = spell.baseTemplate().coreEffect();
+        double potency = spell.effectiveCoreEffectValue();
+
+        PrimaryAttributeType scalingAttr = spell.baseTemplate().scalingAttribute();
+        if (scalingAttr != PrimaryAttributeType.NONE && coreEffect.type() != null) {
+            double statBonusPercent = 0;
+            if (coreEffect.type() == CoreEffectType.DAMAGE && coreEffect.damageType() != null) {
+                statBonusPercent = stats.getCalculatedDamageBonusPercent(coreEffect.damageType());
+            } else if (coreEffect.type() == CoreEffectType.HEALING && coreEffect.healingType() != null) {
+                statBonusPercent = stats.getCalculatedHealingBonusPercent(coreEffect.healingType());
+            }
+            potency *= (1.0 + (statBonusPercent / 100.0));
+        }
+        return potency;
+    }
+
+    /**
+     * Applies a spell's own THIS_SPELL_POTENCY enchants to an already scaled potency.
+     * Spell enchants apply in the order they were rolled: flat adds and percent multipliers interleave.
+     * @param spell The spell whose enchants are applied.
+     * @param potency Potency after stat and global enchant bonuses.
+     * @return The unrounded final potency.
+     */
+    static double applySpellEnchants(PlayerSpell spell, double potency) {
+        for (EnchantInstance enchant : spell.appliedEnchants()) {
+            if (enchant.baseEnchant().targetKey() != null &&
+                enchant.baseEnchant().targetKey().equals(EnchantTargetParameter.THIS_SPELL_POTENCY.name())) {
+                if (enchant.baseEnchant().effectType() == EnchantEffectType.SPELL_CORE_VALUE_ADD_FLAT) {
+                    potency += enchant.finalRolledValue();
+                } else if (enchant.baseEnchant().effectType() == EnchantEffectType.SPELL_CORE_VALUE_ADD_PERCENT) {
+                    potency *= (1.0 + (enchant.finalRolledValue() / 100.0));
+                }
+            }
+        }
+        return potency;
+    }
+
+    public String getName() {
+        return spell.getName();
+    }
+}
@@ -10,8 +10,9 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Collections; // For Collections.unmodifiableList
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
+import idleSorcererV2.IO.ContentPack;
 import idleSorcererV2.data.BaseEnchant;
 import idleSorcererV2.data.BaseSpellTemplate;
 import idleSorcererV2.data.CoreEffectData;
@@ -20,21 +21,64 @@ import idleSorcererV2.data.PlayerSpell;
 
 
 public class SpellGenerator {
-    private final List<BaseSpellTemplate> allBaseSpellTemplates;
-    private final List<BaseEnchant> allPossibleBaseEnchants;
-    private final Random random = new Random();
+    // May still be loading; replaced as a whole when the definitions are reloaded
+    private volatile CompletableFuture<List<BaseSpellTemplate>> baseSpellTemplatesFuture;
+    private volatile CompletableFuture<List<BaseEnchant>> baseEnchantsFuture;
+    private final GameRandom random;
 
     public static final int GLOBAL_BASE_AP_COST = 5;
     public static final double[] ENCHANT_COUNT_AP_MULTIPLIERS = {1.0, 1.25, 1.50, 1.75, 2.0}; // Index = num enchants
 
     /**
-     * Constructor for SpellGenerator.
+     * Constructor for SpellGenerator with an unseeded random stream.
      * @param allBaseSpellTemplates List of all available base spell templates.
      * @param allPossibleBaseEnchants List of all available base enchant definitions.
      */
     public SpellGenerator(List<BaseSpellTemplate> allBaseSpellTemplates, List<BaseEnchant> allPossibleBaseEnchants) {
-        this.allBaseSpellTemplates = new ArrayList<>(allBaseSpellTemplates); // Store copies
-        this.allPossibleBaseEnchants = new ArrayList<>(allPossibleBaseEnchants);
+        this(allBaseSpellTemplates, allPossibleBaseEnchants, new GameRandom());
+    }
+
+    /**
+     * Constructor for SpellGenerator.
+     * @param allBaseSpellTemplates List of all available base spell templates.
+     * @param allPossibleBaseEnchants List of all available base enchant definitions.
+     * @param random The stream drops are rolled from (usually split from the session's GameRandom).
+     */
+    public SpellGenerator(List<BaseSpellTemplate> allBaseSpellTemplates, List<BaseEnchant> allPossibleBaseEnchants, GameRandom random) {
+        this(CompletableFuture.completedFuture(allBaseSpellTemplates), CompletableFuture.completedFuture(allPossibleBaseEnchants), random);
+    }
+
+    /**
+     * Constructor for SpellGenerator with definitions that are still loading.
+     * Only rolling a drop or reading the definitions waits for them.
+     * @param allBaseSpellTemplates Completes with all available base spell templates.
+     * @param allPossibleBaseEnchants Completes with all available base enchant definitions.
+     * @param random The stream drops are rolled from (usually split from the session's GameRandom).
+     */
+    public SpellGenerator(CompletableFuture<List<BaseSpellTemplate>> allBaseSpellTemplates,
+                          CompletableFuture<List<BaseEnchant>> allPossibleBaseEnchants, GameRandom random) {
+        this.baseSpellTemplatesFuture = allBaseSpellTemplates.thenApply(SpellGenerator::copyOf); // Store copies
+        this.baseEnchantsFuture = allPossibleBaseEnchants.thenApply(SpellGenerator::copyOf);
+        this.random = random;
+    }
+
+    /**
+     * Rolls later drops from these templates. Spells already generated keep the template they were rolled from.
+     */
+    public void replaceBaseSpellTemplates(List<BaseSpellTemplate> allBaseSpellTemplates) {
+        this.baseSpellTemplatesFuture = CompletableFuture.completedFuture(copyOf(allBaseSpellTemplates));
+    }
+
+    /**
+     * Rolls later drops' enchants from these definitions. Enchants already rolled keep their definition.
+     */
+    public void replaceBaseEnchants(List<BaseEnchant> allPossibleBaseEnchants) {
+        this.baseEnchantsFuture = CompletableFuture.completedFuture(copyOf(allPossibleBaseEnchants));
+    }
+
+    // Content pack sections are immutable and decode each record on first use; copying one would decode them all
+    private static <T> List<T> copyOf(List<T> definitions) {
+        return definitions instanceof ContentPack.Section ? definitions : new ArrayList<>(definitions);
     }
 
     /**
@@ -43,6 +87,8 @@ public class SpellGenerator {
      * @return A fully generated PlayerSpell object, or null if generation fails.
      */
     public PlayerSpell generateSpellDrop(int currentFloor) {
+        List<BaseSpellTemplate> allBaseSpellTemplates = baseSpellTemplatesFuture.join();
+        List<BaseEnchant> allPossibleBaseEnchants = baseEnchantsFuture.join();
         if (allBaseSpellTemplates == null || allBaseSpellTemplates.isEmpty()) {
             System.err.println("SpellGenerator Error: No base spell templates loaded!");
             return null;
@@ -138,15 +184,41 @@ public class SpellGenerator {
         );
     } // End of generateSpellDrop method
 
+    /**
+     * Generates several drops from the same floor, e.g. to credit many won encounters at once.
+     * @param currentFloor The floor the encounters were won on.
+     * @param count Number of drops to generate.
+     * @return The generated spells; drops that failed to generate are left out.
+     */
+    public List<PlayerSpell> generateSpellDrops(int currentFloor, int count) {
+        List<PlayerSpell> drops = new ArrayList<>(Math.max(0, count));
+        for (int i = 0; i < count; i++) {
+            PlayerSpell drop = generateSpellDrop(currentFloor);
+            if (drop != null) {
+                drops.add(drop);
+            }
+        }
+        return drops;
+    }
+
     /**
      * Provides access to the list of base spell templates loaded by this generator.
      * This is useful for other parts of the game that might need to look up base spell definitions,
      * for example, when creating fixed starting spells for the player in GameManager.
+     * Waits for the templates if they are still loading.
      * @return An unmodifiable list of BaseSpellTemplate objects.
      */
     public List<BaseSpellTemplate> getLoadedBaseSpellTemplates() {
         // Return an unmodifiable list to protect the internal list from external changes.
-        return Collections.unmodifiableList(new ArrayList<>(this.allBaseSpellTemplates));
+        return Collections.unmodifiableList(new ArrayList<>(baseSpellTemplatesFuture.join()));
+    }
+
+    /**
+     * Waits for the enchants if they are still loading.
+     * @return An unmodifiable list of the base enchant definitions this generator rolls from.
+     */
+    public List<BaseEnchant> getLoadedBaseEnchants() {
+        return Collections.unmodifiableList(new ArrayList<>(baseEnchantsFuture.join()));
     }
 
 }
@@ -0,0 +1,214 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Collection;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import idleSorcererV2.data.BaseSpellTemplate;
+import idleSorcererV2.data.EnchantInstance;
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.CoreEffectType;
+import idleSorvererV2.enums.DamageType;
+import idleSorvererV2.enums.EnchantEffectType;
+import idleSorvererV2.enums.HealingType;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * A compound inventory query, e.g. all FIRE damage spells with at least 2 enchants:
+ * inventory.query().damageType(DamageType.FIRE).minEnchants(2).stream()
+ *
+ * The most selective of the inventory's indices drives the query and the remaining
+ * conditions are checked on its members only, so neither the inventory nor the
+ * indices are copied or scanned in full. An inventory without indices (columnar storage)
+ * is scanned instead.
+ */
+public class SpellQuery {
+    private final Inventory inventory;
+
+    private String templateId;
+    private CoreEffectType effectType;
+    private DamageType damageType;
+    private HealingType healingType;
+    private PrimaryAttributeType scalingAttribute;
+    private EnchantEffectType enchantType;
+    private int minEnchants = 0;
+    private int maxEnchants = Integer.MAX_VALUE;
+    private int minAPCost = Integer.MIN_VALUE;
+    private int maxAPCost = Integer.MAX_VALUE;
+
+    SpellQuery(Inventory inventory) {
+        this.inventory = inventory;
+    }
+
+    /**
+     * Creates a query that is not tied to an inventory, for use as a condition on single spells
+     * through matches() (e.g. loot rules). stream() and count() are not available on it.
+     */
+    public static SpellQuery condition() {
+        return new SpellQuery(null);
+    }
+
+    public SpellQuery templateId(String templateId) { this.templateId = templateId; return this; }
+    public SpellQuery effectType(CoreEffectType effectType) { this.effectType = effectType; return this; }
+    public SpellQuery damageType(DamageType damageType) { this.damageType = damageType; return this; }
+    public SpellQuery healingType(HealingType healingType) { this.healingType = healingType; return this; }
+    public SpellQuery scalingAttribute(PrimaryAttributeType attribute) { this.scalingAttribute = attribute; return this; }
+    public SpellQuery withEnchantType(EnchantEffectType enchantType) { this.enchantType = enchantType; return this; }
+    public SpellQuery minEnchants(int minEnchants) { this.minEnchants = minEnchants; return this; }
+    public SpellQuery maxEnchants(int maxEnchants) { this.maxEnchants = maxEnchants; return this; }
+    public SpellQuery minAPCost(int minAPCost) { this.minAPCost = minAPCost; return this; }
+    public SpellQuery maxAPCost(int maxAPCost) { this.maxAPCost = maxAPCost; return this; }
+
+    /**
+     * Adds a condition written as text, as typed in commands like "deconstruct where ...":
+     * {@code ap<N, ap<=N, ap>N, ap>=N, ap=N} (the same operators work for enchants), noenchants,
+     * {@code template=<id>, effect=<core effect>, type=<damage type>, heal=<healing type>, attr=<attribute>}.
+     * @param condition One condition, without spaces.
+     * @return true if the condition was understood and added, false otherwise.
+     */
+    public boolean addCondition(String condition) {
+        String text = condition.trim().toLowerCase();
+        if (text.equals("noenchants")) {
+            maxEnchants(0);
+            return true;
+        }
+        String[] comparison = text.split("(?<=[a-z])(?=[<>=])", 2);
+        if (comparison.length != 2) {
+            return false;
+        }
+        String field = comparison[0];
+        String rest = comparison[1];
+        String operator = rest.startsWith("<=") || rest.startsWith(">=") ? rest.substring(0, 2) : rest.substring(0, 1);
+        String value = rest.substring(operator.length());
+        if (value.isEmpty()) {
+            return false;
+        }
+        try {
+            switch (field) {
+                case "ap":
+                    return applyRange(operator, Integer.parseInt(value), this::minAPCost, this::maxAPCost);
+                case "enchants":
+                    return applyRange(operator, Integer.parseInt(value), this::minEnchants, this::maxEnchants);
+                case "template":
+                    return operator.equals("=") && templateId(value) != null;
+                case "effect":
+                    return operator.equals("=") && effectType(CoreEffectType.valueOf(value.toUpperCase())) != null;
+                case "type":
+                    return operator.equals("=") && damageType(DamageType.valueOf(value.toUpperCase())) != null;
+                case "heal":
+                    return operator.equals("=") && healingType(HealingType.valueOf(value.toUpperCase())) != null;
+                case "attr":
+                    return operator.equals("=") && scalingAttribute(PrimaryAttributeType.valueOf(value.toUpperCase())) != null;
+                default:
+                    return false;
+            }
+        } catch (IllegalArgumentException e) { // Bad number or enum name
+            return false;
+        }
+    }
+
+    private static boolean applyRange(String operator, int bound, IntConsumer setMin, IntConsumer setMax) {
+        switch (operator) {
+            case "<": setMax.accept(bound - 1); return true;
+            case "<=": setMax.accept(bound); return true;
+            case ">": setMin.accept(bound + 1); return true;
+            case ">=": setMin.accept(bound); return true;
+            case "=": setMin.accept(bound); setMax.accept(bound); return true;
+            default: return false;
+        }
+    }
+
+    /**
+     * @return The matching spells, evaluated lazily.
+     */
+    public Stream<PlayerSpell> stream() {
+        if (inventory == null) {
+            throw new IllegalStateException("This query is a condition only and has no inventory to search.");
+        }
+        return candidates().stream().filter(this::matches);
+    }
+
+    public long count() {
+        return stream().count();
+    }
+
+    /**
+     * @param spell Any spell.
+     * @return true if the spell meets every condition of this query.
+     */
+    public boolean matches(PlayerSpell spell) {
+        BaseSpellTemplate template = spell.baseTemplate();
+        if (templateId != null && (template == null || !templateId.equals(template.id()))) {
+            return false;
+        }
+        if (effectType != null && (template == null || template.coreEffect() == null || template.coreEffect().type() != effectType)) {
+            return false;
+        }
+        if (damageType != null && (template == null || template.coreEffect() == null || template.coreEffect().damageType() != damageType)) {
+            return false;
+        }
+        if (healingType != null && (template == null || template.coreEffect() == null || template.coreEffect().healingType() != healingType)) {
+            return false;
+        }
+        if (scalingAttribute != null && (template == null || template.scalingAttribute() != scalingAttribute)) {
+            return false;
+        }
+        if (spell.appliedEnchants().size() < minEnchants || spell.appliedEnchants().size() > maxEnchants) {
+            return false;
+        }
+        if (spell.finalAPCost() < minAPCost || spell.finalAPCost() > maxAPCost) {
+            return false;
+        }
+        if (enchantType != null) {
+            for (EnchantInstance enchant : spell.appliedEnchants()) {
+                if (enchant.baseEnchant().effectType() == enchantType) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Picks the smallest index bucket among the conditions that have one
+    private Collection<PlayerSpell> candidates() {
+        if (!inventory.isIndexed()) {
+            return inventory.getAllSpells();
+        }
+        Collection<PlayerSpell> best = null;
+        if (templateId != null) {
+            best = smaller(best, inventory.getSpellsByTemplateId(templateId));
+        }
+        if (effectType != null) {
+            best = smaller(best, inventory.getSpellsByEffectType(effectType));
+        }
+        if (damageType != null) {
+            best = smaller(best, inventory.getSpellsByDamageType(damageType));
+        }
+        if (healingType != null) {
+            best = smaller(best, inventory.getSpellsByHealingType(healingType));
+        }
+        if (scalingAttribute != null) {
+            best = smaller(best, inventory.getSpellsByScalingAttribute(scalingAttribute));
+        }
+        if (enchantType != null) {
+            best = smaller(best, inventory.getSpellsWithEnchantType(enchantType));
+        }
+        if (minEnchants > 0 && (best == null || inventory.countWithEnchantsAtLeast(minEnchants) < best.size())) {
+            best = inventory.getSpellsWithEnchantsAtLeast(minEnchants);
+        }
+        if (best == null && (minAPCost != Integer.MIN_VALUE || maxAPCost != Integer.MAX_VALUE)) {
+            best = inventory.getSpellsByAPCostRange(minAPCost, maxAPCost);
+        }
+        return best != null ? best : inventory.getAllSpells();
+    }
+
+    private static Collection<PlayerSpell> smaller(Collection<PlayerSpell> current, Collection<PlayerSpell> candidate) {
+        return current == null || candidate.size() < current.size() ? candidate : current;
+    }
+}
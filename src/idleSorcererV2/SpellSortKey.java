@@ -0,0 +1,94 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Comparator;
+
+import idleSorcererV2.data.PlayerSpell;
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * Fields the inventory can be sorted by. Keys can be chained into a compound order,
+ * each ascending or descending, with parseOrder().
+ */
+public enum SpellSortKey {
+    AP("ap", Comparator.comparingInt(PlayerSpell::finalAPCost)),
+    NAME("name", Comparator.comparing(PlayerSpell::getName, String.CASE_INSENSITIVE_ORDER)),
+    VALUE("value", Comparator.comparingDouble(PlayerSpell::effectiveCoreEffectValue)),
+    COOLDOWN("cooldown", Comparator.comparingDouble(PlayerSpell::actualCooldownSeconds)),
+    ENCHANTS("enchants", Comparator.comparingInt((PlayerSpell spell) -> spell.appliedEnchants().size())),
+    ATTRIBUTE("attribute", Comparator.comparing(SpellSortKey::scalingAttributeName));
+
+    private final String keyword;
+    private final Comparator<PlayerSpell> ascending;
+
+    SpellSortKey(String keyword, Comparator<PlayerSpell> ascending) {
+        this.keyword = keyword;
+        this.ascending = ascending;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public Comparator<PlayerSpell> comparator(boolean descending) {
+        return descending ? ascending.reversed() : ascending;
+    }
+
+    /**
+     * @param keyword A key name such as "ap" or "cooldown" (case-insensitive), or "cd"/"attr" for short.
+     * @return The matching key, or null if there is none.
+     */
+    public static SpellSortKey fromKeyword(String keyword) {
+        String normalized = keyword.toLowerCase();
+        switch (normalized) {
+            case "cd": return COOLDOWN;
+            case "attr": return ATTRIBUTE;
+            case "power": return VALUE;
+        }
+        for (SpellSortKey key : values()) {
+            if (key.keyword.equals(normalized)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds a compound order from criteria like {"ap:desc", "name"}. Later criteria only break
+     * ties of earlier ones; each defaults to ascending.
+     * @param criteria One or more "key[:asc|:desc]" tokens.
+     * @return The combined comparator, or null if any token is invalid or none were given.
+     */
+    public static Comparator<PlayerSpell> parseOrder(String... criteria) {
+        Comparator<PlayerSpell> order = null;
+        for (String criterion : criteria) {
+            String[] parts = criterion.split(":", 2);
+            SpellSortKey key = fromKeyword(parts[0]);
+            if (key == null) {
+                return null;
+            }
+            boolean descending;
+            if (parts.length == 1 || parts[1].equalsIgnoreCase("asc")) {
+                descending = false;
+            } else if (parts[1].equalsIgnoreCase("desc")) {
+                descending = true;
+            } else {
+                return null;
+            }
+            Comparator<PlayerSpell> next = key.comparator(descending);
+            order = order == null ? next : order.thenComparing(next);
+        }
+        return order;
+    }
+
+    private static String scalingAttributeName(PlayerSpell spell) {
+        if (spell.baseTemplate() == null || spell.baseTemplate().scalingAttribute() == null) {
+            return PrimaryAttributeType.NONE.name();
+        }
+        return spell.baseTemplate().scalingAttribute().name();
+    }
+}
@@ -5,7 +5,7 @@
 
 package idleSorcererV2;
 
-import java.util.EnumMap;
+import java.util.Arrays;
 import java.util.Map;
 
 import idleSorvererV2.enums.DamageType;
@@ -48,9 +48,9 @@ public class Stats {
     private double calculatedDebuffEffectivenessPercent; // Base 0% + 1% per Malice
     private double calculatedShieldEffectivenessPercent; // Base 0% + 10% per Mind
 
-    // Damage And Healing Bonuses (as percentage increase, e.g., 10.0 means +10%)
-    private Map<DamageType, Double> calculatedDamageBonuses;
-    private Map<HealingType, Double> calculatedHealingBonuses;
+    // Damage And Healing Bonuses (as percentage increase, e.g., 10.0 means +10%), indexed by ordinal
+    private final double[] calculatedDamageBonuses = new double[DAMAGE_TYPES.length];
+    private final double[] calculatedHealingBonuses = new double[HEALING_TYPES.length];
 
     // Other stats often modified by effects, base values are 0
     private double poisonPerSecond;
@@ -66,13 +66,15 @@ public class Stats {
     private static final double BASE_DEBUFF_EFFECTIVENESS_PERCENT = 0.0;
     private static final double BASE_SHIELD_EFFECTIVENESS_PERCENT = 0.0;
 
+    // Cached once; values() copies the array on every call
+    private static final DamageType[] DAMAGE_TYPES = DamageType.values();
+    private static final HealingType[] HEALING_TYPES = HealingType.values();
+    private static final PrimaryAttributeType[] ATTRIBUTE_TYPES = PrimaryAttributeType.values();
+
     /**
      * Constructor. Initializes primary attributes to 0 and calculates initial secondary stats.
      */
     public Stats() {
-        calculatedDamageBonuses = new EnumMap<>(DamageType.class);
-        calculatedHealingBonuses = new EnumMap<>(HealingType.class);
-
         this.agility = 0;
         this.charm = 0;
         this.cunning = 0;
@@ -95,6 +97,31 @@ public class Stats {
         recalculateSecondaryStats();
     }
 
+    /**
+     * Copy constructor. Creates an independent Stats with the same primary attributes
+     * and effect-modified stats, e.g. for a simulated copy of the player.
+     * @param other The Stats to copy.
+     */
+    public Stats(Stats other) {
+        this.agility = other.agility;
+        this.charm = other.charm;
+        this.cunning = other.cunning;
+        this.dexterity = other.dexterity;
+        this.fortitude = other.fortitude;
+        this.intellect = other.intellect;
+        this.malice = other.malice;
+        this.mind = other.mind;
+        this.piety = other.piety;
+        this.wisdom = other.wisdom;
+
+        this.poisonPerSecond = other.poisonPerSecond;
+        this.regenPerSecond = other.regenPerSecond;
+        this.armor = other.armor;
+        this.shieldValue = other.shieldValue;
+
+        recalculateSecondaryStats();
+    }
+
     /**
      * Recalculates all derived secondary stats based on current primary attribute values.
      * Should be called whenever a primary attribute is changed.
@@ -115,35 +142,25 @@ public class Stats {
         calculatedShieldEffectivenessPercent = BASE_SHIELD_EFFECTIVENESS_PERCENT + (this.mind * 10.0);
 
         // Calculate Damage Bonuses
-        calculatedDamageBonuses.clear();
-        calculatedDamageBonuses.put(DamageType.ARCANE, this.agility * 10.0);
-        calculatedDamageBonuses.put(DamageType.SONIC, this.charm * 10.0);
-        calculatedDamageBonuses.put(DamageType.ENTROPY, this.cunning * 10.0);
-        calculatedDamageBonuses.put(DamageType.ASTRAL, this.dexterity * 10.0);
-        calculatedDamageBonuses.put(DamageType.ACID, this.fortitude * 10.0);
-        calculatedDamageBonuses.put(DamageType.FIRE, this.intellect * 10.0);
-        calculatedDamageBonuses.put(DamageType.COLD, this.intellect * 10.0);
-        calculatedDamageBonuses.put(DamageType.DARK, this.malice * 10.0);
-        calculatedDamageBonuses.put(DamageType.PSYCHIC, this.mind * 10.0);
-        calculatedDamageBonuses.put(DamageType.HOLY, this.piety * 10.0);
-        calculatedDamageBonuses.put(DamageType.LIGHTNING, this.wisdom * 10.0);
-        // If DamageType.GENERAL or .PHYSICAL is in your enum, and no primary attribute
-        // above directly boosts it, the loop below will ensure it gets a 0.0 default.
-        // Example: calculatedDamageBonuses.put(DamageType.GENERAL, 0.0); // If it had no direct attribute source
-
-        for (DamageType type : DamageType.values()) {
-            calculatedDamageBonuses.putIfAbsent(type, 0.0);
-        }
+        // Types no primary attribute boosts (e.g. GENERAL or PHYSICAL, if present) stay at 0.0
+        Arrays.fill(calculatedDamageBonuses, 0.0);
+        calculatedDamageBonuses[DamageType.ARCANE.ordinal()] = this.agility * 10.0;
+        calculatedDamageBonuses[DamageType.SONIC.ordinal()] = this.charm * 10.0;
+        calculatedDamageBonuses[DamageType.ENTROPY.ordinal()] = this.cunning * 10.0;
+        calculatedDamageBonuses[DamageType.ASTRAL.ordinal()] = this.dexterity * 10.0;
+        calculatedDamageBonuses[DamageType.ACID.ordinal()] = this.fortitude * 10.0;
+        calculatedDamageBonuses[DamageType.FIRE.ordinal()] = this.intellect * 10.0;
+        calculatedDamageBonuses[DamageType.COLD.ordinal()] = this.intellect * 10.0;
+        calculatedDamageBonuses[DamageType.DARK.ordinal()] = this.malice * 10.0;
+        calculatedDamageBonuses[DamageType.PSYCHIC.ordinal()] = this.mind * 10.0;
+        calculatedDamageBonuses[DamageType.HOLY.ordinal()] = this.piety * 10.0;
+        calculatedDamageBonuses[DamageType.LIGHTNING.ordinal()] = this.wisdom * 10.0;
 
         // Calculate Healing Bonuses
-        calculatedHealingBonuses.clear();
-        calculatedHealingBonuses.put(HealingType.CHARM_HEALING, this.charm * 10.0);
-        calculatedHealingBonuses.put(HealingType.PIETY_HEALING, this.piety * 10.0);
-        calculatedHealingBonuses.put(HealingType.WISDOM_HEALING, this.wisdom * 10.0);
-
-        for (HealingType type : HealingType.values()) {
-            calculatedHealingBonuses.putIfAbsent(type, 0.0);
-        }
+        Arrays.fill(calculatedHealingBonuses, 0.0);
+        calculatedHealingBonuses[HealingType.CHARM_HEALING.ordinal()] = this.charm * 10.0;
+        calculatedHealingBonuses[HealingType.PIETY_HEALING.ordinal()] = this.piety * 10.0;
+        calculatedHealingBonuses[HealingType.WISDOM_HEALING.ordinal()] = this.wisdom * 10.0;
     }
 
     // Getters for Primary Attributes
@@ -223,7 +240,7 @@ public class Stats {
         // Simply return the bonus stored for this specific type.
         // Any "GENERAL" or "PHYSICAL" type will just be treated as another specific type
         // getting whatever bonus is directly calculated for it (which is 0 if no primary attribute boosts it).
-        return calculatedDamageBonuses.getOrDefault(queryType, 0.0);
+        return queryType == null ? 0.0 : calculatedDamageBonuses[queryType.ordinal()];
     }
 
     /**
@@ -232,7 +249,7 @@ public class Stats {
      * @return The bonus percentage (e.g., 10.0 for +10%). Returns 0.0 if type not found.
      */
     public double getCalculatedHealingBonusPercent(HealingType type) {
-         return calculatedHealingBonuses.getOrDefault(type, 0.0);
+        return type == null ? 0.0 : calculatedHealingBonuses[type.ordinal()];
     }
 
     // Getters/Setters for Effect-Modified Stats
@@ -248,6 +265,129 @@ public class Stats {
     public double getShieldValue() { return shieldValue; }
     public void setShieldValue(double shieldValue) { this.shieldValue = Math.max(0, shieldValue); }
 
+    /**
+     * Adds points to several primary attributes at once, recalculating the secondary stats
+     * only once at the end.
+     * @param points Points to add per attribute; each must be positive, NONE is not allowed.
+     * @return true if the points were added, false (with nothing changed) if any entry is invalid.
+     */
+    public boolean addPointsToAttributes(Map<PrimaryAttributeType, Integer> points) {
+        Editor editor = edit();
+        for (Map.Entry<PrimaryAttributeType, Integer> entry : points.entrySet()) {
+            if (entry.getValue() == null || entry.getValue() <= 0) {
+                System.err.println("Stats Error: Points to add must be positive. Received: " + entry.getValue() + " for " + entry.getKey());
+                return false;
+            }
+            editor.add(entry.getKey(), entry.getValue());
+        }
+        return editor.commit();
+    }
+
+    /**
+     * Starts a batch of primary attribute changes. Nothing changes until commit(),
+     * which applies them all and recalculates the secondary stats once.
+     * e.g. stats.edit().add(PrimaryAttributeType.MIND, 3).set(PrimaryAttributeType.PIETY, 10).commit();
+     * @return A new editor for this Stats.
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Collects primary attribute changes for one recalculation. Changes to the same attribute
+     * stack in call order. An invalid change marks the editor invalid and commit() then applies nothing.
+     */
+    public class Editor {
+        // Indexed by PrimaryAttributeType ordinal; a value only counts once its attribute is touched
+        private final int[] pendingValues = new int[ATTRIBUTE_TYPES.length];
+        private final boolean[] touched = new boolean[ATTRIBUTE_TYPES.length];
+        private boolean valid = true;
+
+        private Editor() {
+        }
+
+        /**
+         * Adds (or, if negative, removes) points, relative to the value when this is called.
+         * @return This editor, for chaining.
+         */
+        public Editor add(PrimaryAttributeType type, int points) {
+            if (checkType(type)) {
+                int index = type.ordinal();
+                int base = touched[index] ? pendingValues[index] : getPrimaryAttributeValue(type);
+                pendingValues[index] = base + points;
+                touched[index] = true;
+            }
+            return this;
+        }
+
+        /**
+         * Sets an attribute to a value (clamped to 0 on commit, like the setters).
+         * @return This editor, for chaining.
+         */
+        public Editor set(PrimaryAttributeType type, int value) {
+            if (checkType(type)) {
+                pendingValues[type.ordinal()] = value;
+                touched[type.ordinal()] = true;
+            }
+            return this;
+        }
+
+        /**
+         * Applies every pending change and recalculates the secondary stats once.
+         * The editor is empty afterwards, whether or not the changes were applied, and can be reused.
+         * @return true if applied, false (with nothing changed) if any change was invalid.
+         */
+        public boolean commit() {
+            if (!valid) {
+                Arrays.fill(touched, false); // Discards the whole batch, so the next one starts clean
+                valid = true;
+                return false;
+            }
+            boolean changed = false;
+            for (PrimaryAttributeType type : ATTRIBUTE_TYPES) {
+                int index = type.ordinal();
+                if (touched[index]) {
+                    changed |= assign(type, Math.max(0, pendingValues[index]));
+                    touched[index] = false;
+                }
+            }
+            if (changed) {
+                recalculateSecondaryStats();
+            }
+            return true;
+        }
+
+        private boolean checkType(PrimaryAttributeType type) {
+            if (type == null || type == PrimaryAttributeType.NONE) {
+                System.err.println("Stats Error: Cannot change the NONE attribute type.");
+                valid = false;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // Writes a primary attribute without recalculating; returns whether the value changed
+    private boolean assign(PrimaryAttributeType type, int value) {
+        if (getPrimaryAttributeValue(type) == value) {
+            return false;
+        }
+        switch (type) {
+            case AGILITY:   this.agility = value; break;
+            case CHARM:     this.charm = value; break;
+            case CUNNING:   this.cunning = value; break;
+            case DEXTERITY: this.dexterity = value; break;
+            case FORTITUDE: this.fortitude = value; break;
+            case INTELLECT: this.intellect = value; break;
+            case MALICE:    this.malice = value; break;
+            case MIND:      this.mind = value; break;
+            case PIETY:     this.piety = value; break;
+            case WISDOM:    this.wisdom = value; break;
+            default: return false; // NONE is rejected by the editor
+        }
+        return true;
+    }
+
     /**
      * Utility method to add points to a primary attribute by its name.
      * This method is used by the Player class when spending AP.
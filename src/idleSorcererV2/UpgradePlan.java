@@ -0,0 +1,36 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Map;
+
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * Attribute points the UpgradePlanner suggests buying, with the estimates before and after.
+ */
+public record UpgradePlan(
+    UpgradePlanner.Goal goal,
+    int floor,
+    String enemyName,
+    Map<PrimaryAttributeType, Integer> points, // Points to buy per attribute; only attributes that get points
+    long apCost,
+    long apAvailable,
+    double damagePerSecondBefore,
+    double damagePerSecondAfter,
+    double timeToDieSecondsBefore,             // Infinite if sustain outpaces the enemy's damage
+    double timeToDieSecondsAfter,
+    double targetTimeToDieSeconds,             // Only used by the SURVIVAL goal
+    boolean goalReached                        // SURVIVAL: target reached; DAMAGE: always true
+) {
+    public int totalPoints() {
+        int total = 0;
+        for (int added : points.values()) {
+            total += added;
+        }
+        return total;
+    }
+}
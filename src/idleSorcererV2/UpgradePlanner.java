@@ -0,0 +1,161 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import idleSorvererV2.enums.PrimaryAttributeType;
+
+/**
+ * Plans how to spend AP on primary attributes for the equipped loadout.
+ * Every candidate allocation is scored with the LoadoutOptimizer's analytic estimate against
+ * a floor's enemy. The plan is built greedily: each step buys the run of points on one attribute
+ * with the best estimated gain per AP. Runs of 1, 2, 4, ... points are tried, so an attribute
+ * whose next point changes nothing (e.g. potency that only rounds up after two points) is not
+ * written off. Run costs come from Player's closed-form cumulative cost.
+ */
+public class UpgradePlanner {
+
+    public enum Goal {
+        DAMAGE("dps"),       // Spend the AP on the highest damage per second
+        SURVIVAL("survive"); // Spend as little AP as possible to reach a time-to-die target
+
+        private final String keyword;
+
+        Goal(String keyword) {
+            this.keyword = keyword;
+        }
+
+        public String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * @return The goal with this keyword (case-insensitive), or null if none matches.
+         */
+        public static Goal fromKeyword(String keyword) {
+            for (Goal goal : values()) {
+                if (goal.keyword.equalsIgnoreCase(keyword)) {
+                    return goal;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Without an explicit target, the survival goal aims to outlast the fight by this factor
+    public static final double DEFAULT_SURVIVAL_MARGIN = 1.5;
+
+    private static final double FIGHT_CAP_SECONDS = CombatSimulator.DEFAULT_MAX_ENCOUNTER_SECONDS;
+    private static final double MIN_GAIN = 1e-9;
+
+    /**
+     * Plans an allocation of the player's AP. The player is only read, never modified.
+     * @param player The player whose AP, attributes and equipped spells are used.
+     * @param enemy A fresh enemy of the floor to plan against.
+     * @param floor The floor the enemy is from (for the report).
+     * @param goal What to optimize.
+     * @param targetTimeToDieSeconds SURVIVAL target; 0 or less picks DEFAULT_SURVIVAL_MARGIN times
+     *                               the current estimated time to kill.
+     * @return The plan, or null if no active spell is equipped.
+     */
+    public UpgradePlan plan(Player player, Enemy enemy, int floor, Goal goal, double targetTimeToDieSeconds) {
+        Stats planned = new Stats(player.getStats());
+        LoadoutOptimizer.Estimate before = LoadoutOptimizer.estimateEquipped(player, planned, enemy);
+        if (before == null) {
+            System.err.println("UpgradePlanner Error: Equip at least one active spell to plan upgrades.");
+            return null;
+        }
+        double target = targetTimeToDieSeconds;
+        if (goal == Goal.SURVIVAL && target <= 0) {
+            target = Double.isInfinite(before.timeToKillSeconds())
+                    ? FIGHT_CAP_SECONDS
+                    : Math.min(FIGHT_CAP_SECONDS, before.timeToKillSeconds() * DEFAULT_SURVIVAL_MARGIN);
+        }
+
+        long apAvailable = player.getAttributePoints();
+        long apLeft = apAvailable;
+        Map<PrimaryAttributeType, Integer> points = new EnumMap<>(PrimaryAttributeType.class);
+        LoadoutOptimizer.Estimate current = before;
+        while (!reached(goal, current, target)) {
+            Step best = null;
+            for (PrimaryAttributeType attribute : PrimaryAttributeType.values()) {
+                if (attribute == PrimaryAttributeType.NONE) {
+                    continue;
+                }
+                int value = planned.getPrimaryAttributeValue(attribute);
+                int affordable = maxAffordablePoints(value, apLeft);
+                for (int run = 1; run <= affordable; run = nextRun(run, affordable)) {
+                    Stats trial = new Stats(planned);
+                    trial.addPointsToAttributes(Map.of(attribute, run));
+                    LoadoutOptimizer.Estimate estimate = LoadoutOptimizer.estimateEquipped(player, trial, enemy);
+                    double gain = score(goal, estimate) - score(goal, current);
+                    long cost = Player.attributeUpgradeCost(value, value + run);
+                    if (gain > MIN_GAIN && (best == null || gain / cost > best.gainPerAP())) {
+                        best = new Step(attribute, run, cost, gain / cost, estimate);
+                    }
+                }
+            }
+            if (best == null) {
+                break; // Nothing affordable helps any more
+            }
+            planned.addPointsToAttributes(Map.of(best.attribute(), best.points()));
+            points.merge(best.attribute(), best.points(), Integer::sum);
+            apLeft -= best.cost();
+            current = best.estimate();
+        }
+
+        return new UpgradePlan(goal, floor, enemy.getName(), Collections.unmodifiableMap(points),
+                               apAvailable - apLeft, apAvailable,
+                               before.damagePerSecond(), current.damagePerSecond(),
+                               before.timeToDieSeconds(), current.timeToDieSeconds(),
+                               goal == Goal.SURVIVAL ? target : 0.0,
+                               goal == Goal.DAMAGE || reached(goal, current, target));
+    }
+
+    /**
+     * @return The most points an attribute at this value can be raised by with this much AP.
+     */
+    public static int maxAffordablePoints(int currentValue, long ap) {
+        // Every point costs at least 10, which bounds the search
+        int low = 0;
+        int high = (int) Math.min(Integer.MAX_VALUE / 2, ap / 10);
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (Player.attributeUpgradeCost(currentValue, currentValue + mid) <= ap) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // 1, 2, 4, ... and finally everything affordable
+    private static int nextRun(int run, int affordable) {
+        if (run == affordable) {
+            return affordable + 1;
+        }
+        return Math.min(run * 2, affordable);
+    }
+
+    private static boolean reached(Goal goal, LoadoutOptimizer.Estimate estimate, double target) {
+        return goal == Goal.SURVIVAL && estimate.timeToDieSeconds() >= target;
+    }
+
+    private static double score(Goal goal, LoadoutOptimizer.Estimate estimate) {
+        if (goal == Goal.SURVIVAL) {
+            return Math.min(estimate.timeToDieSeconds(), FIGHT_CAP_SECONDS);
+        }
+        return estimate.damagePerSecond();
+    }
+
+    private record Step(PrimaryAttributeType attribute, int points, long cost, double gainPerAP,
+                        LoadoutOptimizer.Estimate estimate) {
+    }
+}
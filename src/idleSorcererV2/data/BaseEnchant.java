@@ -5,14 +5,10 @@
 
 package idleSorcererV2.data;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 
+import idleSorcererV2.IO.RecordReader;
+import idleSorcererV2.IO.RecordSchema;
 import idleSorvererV2.enums.EnchantEffectType;
 
 public record BaseEnchant(
@@ -26,6 +22,33 @@ public record BaseEnchant(
     double maxTotalValueAtFloor50 // The maximum value at floor 50 (with max M roll)
 ) {
 
+    private static final class Builder {
+        String enchantID;
+        String descriptionTemplate;
+        EnchantEffectType effectType;
+        String targetKey;
+        double trueBaseValue;
+        double maxTotalValueAtFloor50;
+
+        BaseEnchant build() {
+            return new BaseEnchant(enchantID, descriptionTemplate, effectType, targetKey, trueBaseValue, maxTotalValueAtFloor50);
+        }
+    }
+
+    private static final RecordSchema<Builder, BaseEnchant> SCHEMA = RecordSchema.of(Builder::new, Builder::build)
+        .text("enchantID", (b, v) -> b.enchantID = v)
+        .text("descriptionTemplate", (b, v) -> b.descriptionTemplate = v)
+        .enumeration("effectType", EnchantEffectType.class, (b, v) -> b.effectType = v)
+        .text("targetKey", (b, v) -> b.targetKey = v) // Interpreted later, according to effectType
+        .decimal("trueBaseValue", (b, v) -> b.trueBaseValue = v)
+        .decimal("maxTotalValueAtFloor50", (b, v) -> b.maxTotalValueAtFloor50 = v)
+        .required("enchantID", "descriptionTemplate", "effectType", "targetKey");
+
+    /** @return The schema of a base enchant record, for reading definitions from other sources. */
+    public static RecordSchema<?, BaseEnchant> schema() {
+        return SCHEMA;
+    }
+
     /**
      * Loads base enchant definitions from a specified text file in the resources folder.
      * The text file should follow the defined key-value format with "---" separators.
@@ -33,100 +56,7 @@ public record BaseEnchant(
      * @return A List of BaseEnchant objects parsed from the file.
      */
     public static List<BaseEnchant> loadBaseEnchantsFromFile(String filePathInResources) {
-        List<BaseEnchant> enchants = new ArrayList<>();
-
-        try (InputStream inputStream = BaseEnchant.class.getResourceAsStream(filePathInResources);
-             InputStreamReader streamReader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
-             BufferedReader reader = new BufferedReader(streamReader)) {
-
-            if (inputStream == null) {
-                System.err.println("BaseEnchant Loader Error: Cannot find file: " + filePathInResources);
-                return enchants; // Return empty list
-            }
-
-            String line;
-            // Temporary holders for the current enchant being built
-            String currentEnchantID = null;
-            String currentDescriptionTemplate = null;
-            EnchantEffectType currentEffectType = null;
-            String currentTargetKey = null;
-            double currentTrueBaseValue = 0.0;
-            double currentMaxTotalValueAtFloor50 = 0.0;
-
-            int lineNumber = 0;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) { // Skip empty lines and comments
-                    continue;
-                }
-
-                if (line.equals("---")) { // End of an enchant block
-                    // Construct and add the enchant if we have minimal valid data (id and name)
-                    if (currentEnchantID != null && currentDescriptionTemplate != null && currentEffectType != null && currentTargetKey != null) {
-                        enchants.add(new BaseEnchant(currentEnchantID, currentDescriptionTemplate, currentEffectType,
-                                                     currentTargetKey, currentTrueBaseValue, currentMaxTotalValueAtFloor50));
-                    } else {
-                        System.err.println("BaseEnchant Loader Warning: Incomplete enchant data block ending before line " + lineNumber + ". Skipping.");
-                    }
-                    // Reset for the next enchant
-                    currentEnchantID = null; currentDescriptionTemplate = null; currentEffectType = null;
-                    currentTargetKey = null; currentTrueBaseValue = 0.0; currentMaxTotalValueAtFloor50 = 0.0;
-                    continue;
-                }
-
-                String[] parts = line.split(":", 2);
-                if (parts.length < 2) {
-                    System.err.println("BaseEnchant Loader Warning: Malformed line (missing colon) at line " + lineNumber + ": " + line);
-                    continue;
-                }
-                String key = parts[0].trim();
-                String value = parts[1].trim();
-
-                try {
-                    switch (key) {
-                        case "enchantID":
-                            currentEnchantID = value;
-                            break;
-                        case "descriptionTemplate":
-                            currentDescriptionTemplate = value;
-                            break;
-                        case "effectType":
-                            currentEffectType = EnchantEffectType.valueOf(value.toUpperCase());
-                            break;
-                        case "targetKey":
-                            currentTargetKey = value; // Store as string, interpretation is later
-                            break;
-                        case "trueBaseValue":
-                            currentTrueBaseValue = Double.parseDouble(value);
-                            break;
-                        case "maxTotalValueAtFloor50":
-                            currentMaxTotalValueAtFloor50 = Double.parseDouble(value);
-                            break;
-                        default:
-                            System.err.println("BaseEnchant Loader Warning: Unknown key '" + key + "' at line " + lineNumber + ": " + line);
-                            break;
-                    }
-                } catch (IllegalArgumentException e) {
-                    System.err.println("BaseEnchant Loader Error: Invalid enum value or number format for key '" + key + "' at line " + lineNumber + ": " + line + " - " + e.getMessage());
-                }
-            }
-
-            // Add the last enchant if the file doesn't end with "---" but has data
-            if (currentEnchantID != null && currentDescriptionTemplate != null && currentEffectType != null && currentTargetKey != null) {
-                 enchants.add(new BaseEnchant(currentEnchantID, currentDescriptionTemplate, currentEffectType,
-                                             currentTargetKey, currentTrueBaseValue, currentMaxTotalValueAtFloor50));
-            }
-
-        } catch (IOException e) {
-            System.err.println("BaseEnchant Loader Error: Failed to read file: " + filePathInResources);
-            e.printStackTrace();
-        } catch (NullPointerException e) {
-            // This can happen if getResourceAsStream returns null and it's not caught early
-            System.err.println("BaseEnchant Loader Error: Could not find the resource file (NullPointerException): " + filePathInResources);
-            e.printStackTrace();
-        }
-
+        List<BaseEnchant> enchants = RecordReader.readResource(filePathInResources, SCHEMA, "BaseEnchant Loader");
         System.out.println("BaseEnchant Loader: Successfully loaded " + enchants.size() + " base enchant definitions.");
         return enchants;
     }
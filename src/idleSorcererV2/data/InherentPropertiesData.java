@@ -11,5 +11,5 @@ public record InherentPropertiesData(
     boolean ignoresShield,
     boolean alwaysHits,
     int accuracyBonus,
-    String onHitEffect // e.g., "REDUCE_ENEMY_ARMOR_1_FLAT_STACKING", can be null
+    OnHitEffect onHitEffect // parsed from e.g. "REDUCE_ENEMY_ARMOR_1_FLAT_STACKING", can be null
 ) {}
\ No newline at end of file
@@ -0,0 +1,75 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorcererV2.data;
+
+import idleSorvererV2.enums.OnHitStat;
+
+// an on-hit effect key parsed once at load time, so combat never has to look at the string
+public record OnHitEffect(
+    OnHitStat targetStat, // which enemy stat is lowered
+    int amount, // flat amount removed per application, always positive
+    boolean stacking, // false: re-applying only refreshes the duration
+    double durationSeconds // 0 means it lasts for the rest of the encounter
+) {
+
+    /**
+     * Parses an on-hit effect key of the form REDUCE_ENEMY_<STAT>_<AMOUNT>_FLAT_<STACKING|NONSTACKING>,
+     * optionally followed by a duration such as _5S.
+     * @param key The key from the spell data file, e.g. "REDUCE_ENEMY_ARMOR_1_FLAT_STACKING".
+     * @return The parsed effect, or null if the key is null or empty.
+     * @throws IllegalArgumentException if the key does not follow the format.
+     */
+    public static OnHitEffect parse(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        String[] parts = key.trim().toUpperCase().split("_");
+        if (parts.length < 6 || parts.length > 7
+                || !parts[0].equals("REDUCE") || !parts[1].equals("ENEMY") || !parts[4].equals("FLAT")) {
+            throw new IllegalArgumentException("Malformed on-hit effect '" + key
+                    + "', expected REDUCE_ENEMY_<STAT>_<AMOUNT>_FLAT_<STACKING|NONSTACKING>[_<SECONDS>S]");
+        }
+
+        OnHitStat targetStat = OnHitStat.valueOf(parts[2]);
+        int amount = Integer.parseInt(parts[3]);
+        if (amount <= 0) {
+            throw new IllegalArgumentException("On-hit effect amount must be positive in '" + key + "'");
+        }
+
+        boolean stacking;
+        switch (parts[5]) {
+            case "STACKING": stacking = true; break;
+            case "NONSTACKING": stacking = false; break;
+            default:
+                throw new IllegalArgumentException("On-hit effect '" + key + "' must be STACKING or NONSTACKING");
+        }
+
+        double durationSeconds = 0;
+        if (parts.length == 7) {
+            String duration = parts[6];
+            if (!duration.endsWith("S") || duration.length() < 2) {
+                throw new IllegalArgumentException("Malformed on-hit duration '" + duration + "' in '" + key + "'");
+            }
+            durationSeconds = Double.parseDouble(duration.substring(0, duration.length() - 1));
+            if (!(durationSeconds > 0)) {
+                throw new IllegalArgumentException("On-hit duration must be positive in '" + key + "'");
+            }
+        }
+        return new OnHitEffect(targetStat, amount, stacking, durationSeconds);
+    }
+
+    /**
+     * @return A short readable description, e.g. "-1 enemy armor (stacking)".
+     */
+    public String describe() {
+        String description = "-" + amount + " enemy " + targetStat.name().toLowerCase()
+                + (stacking ? " (stacking" : " (non-stacking");
+        if (durationSeconds > 0) {
+            description += ", " + durationSeconds + "s";
+        }
+        return description + ")";
+    }
+}
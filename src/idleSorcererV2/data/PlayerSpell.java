@@ -101,8 +101,8 @@ public record PlayerSpell(
             if (props.dealsDoubleDamageToShields()) {
 				inherentDescs.add("Double Damage to Shields");
 			}
-            if (props.onHitEffect() != null && !props.onHitEffect().isEmpty()) {
-                inherentDescs.add("On-Hit: " + props.onHitEffect().replace("_", " ").toLowerCase());
+            if (props.onHitEffect() != null) {
+                inherentDescs.add("On-Hit: " + props.onHitEffect().describe());
             }
 
             if (!inherentDescs.isEmpty()) {
@@ -0,0 +1,11 @@
+// Andreas Hitt
+// CPSC - 39
+// Prof. Kanemoto
+// May 13 2025
+
+package idleSorvererV2.enums;
+
+// the enemy stat a spell's on-hit effect lowers
+public enum OnHitStat {
+    ARMOR, ACCURACY, DODGE, REGEN
+}